@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.oauthscim.common;
+
+import com.google.cloud.healthcare.fdamystudies.common.HashUtils;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Key derivation functions for stored passwords.
+ *
+ * <p>A hash is stored as {@code $<id>$<cost>$<hex digest>}, so every hash carries the parameters
+ * it was computed with and the configured cost can be raised without invalidating existing
+ * passwords. Hashes without a {@code $} prefix are the salted SHA-512 digests of {@link
+ * HashUtils#hash(String, String)} written before this format existed.
+ */
+public enum PasswordHashAlgorithm {
+  SHA512("sha512") {
+    @Override
+    protected String digest(String password, String salt, int cost) {
+      return HashUtils.hash(password, salt);
+    }
+
+    @Override
+    public String encode(String password, String salt, int cost) {
+      return digest(password, salt, cost);
+    }
+  },
+
+  PBKDF2_SHA512("pbkdf2-sha512") {
+    @Override
+    protected String digest(String password, String salt, int cost) {
+      PBEKeySpec keySpec =
+          new PBEKeySpec(
+              password.toCharArray(), salt.getBytes(StandardCharsets.UTF_8), cost, KEY_LENGTH);
+      try {
+        SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512");
+        return Hex.encodeHexString(factory.generateSecret(keySpec).getEncoded());
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException("PBKDF2WithHmacSHA512 is not available", e);
+      } finally {
+        keySpec.clearPassword();
+      }
+    }
+  };
+
+  private static final int KEY_LENGTH = 512;
+
+  private static final String SEPARATOR = "$";
+
+  private final String id;
+
+  private PasswordHashAlgorithm(String id) {
+    this.id = id;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  protected abstract String digest(String password, String salt, int cost);
+
+  /** Returns the stored form of the password hash. */
+  public String encode(String password, String salt, int cost) {
+    return SEPARATOR + id + SEPARATOR + cost + SEPARATOR + digest(password, salt, cost);
+  }
+
+  /** Returns the algorithm that computed the stored hash, or null if it is not recognized. */
+  public static PasswordHashAlgorithm fromHash(String storedHash) {
+    if (!StringUtils.startsWith(storedHash, SEPARATOR)) {
+      return SHA512;
+    }
+    String id = StringUtils.substringBetween(storedHash, SEPARATOR, SEPARATOR);
+    return fromId(id);
+  }
+
+  public static PasswordHashAlgorithm fromId(String id) {
+    for (PasswordHashAlgorithm algorithm : values()) {
+      if (algorithm.id.equals(id)) {
+        return algorithm;
+      }
+    }
+    return null;
+  }
+
+  /** Returns the cost the stored hash was computed with, 0 for the legacy format. */
+  public static int costOf(String storedHash) {
+    String[] parts = StringUtils.split(storedHash, SEPARATOR);
+    return StringUtils.startsWith(storedHash, SEPARATOR) && parts.length == 3
+        ? Integer.parseInt(parts[1])
+        : 0;
+  }
+}
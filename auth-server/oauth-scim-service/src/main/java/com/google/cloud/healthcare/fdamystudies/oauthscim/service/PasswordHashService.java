@@ -0,0 +1,23 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.oauthscim.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public interface PasswordHashService {
+
+  /** Sets a new salt and the hash of the password, computed with the configured algorithm. */
+  public void setPasswordHash(ObjectNode passwordNode, String password);
+
+  public boolean matches(String password, JsonNode passwordNode);
+
+  /** Returns true if the hash was computed with another algorithm or a lower cost. */
+  public boolean needsRehash(JsonNode passwordNode);
+}
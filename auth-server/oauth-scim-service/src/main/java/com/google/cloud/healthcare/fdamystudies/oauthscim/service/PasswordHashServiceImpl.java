@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.oauthscim.service;
+
+import static com.google.cloud.healthcare.fdamystudies.common.JsonUtils.getTextValue;
+import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScimConstants.HASH;
+import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScimConstants.SALT;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.cloud.healthcare.fdamystudies.common.ErrorCode;
+import com.google.cloud.healthcare.fdamystudies.common.HashUtils;
+import com.google.cloud.healthcare.fdamystudies.exceptions.ErrorCodeException;
+import com.google.cloud.healthcare.fdamystudies.oauthscim.common.PasswordHashAlgorithm;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hashes and verifies passwords with the configured key derivation function.
+ *
+ * <p>The work runs on a dedicated pool of {@code oauth.scim.service.password.hash.parallelism}
+ * threads with a queue of {@code oauth.scim.service.password.hash.queue.capacity}, so a burst of
+ * sign-ins can't occupy every request thread with hashing. A request that finds the queue full, or
+ * waits longer than {@code oauth.scim.service.password.hash.timeout.milliseconds}, fails instead of
+ * piling up. On startup one hash is computed with the configured cost and its duration is logged,
+ * which is the number to tune the cost against.
+ */
+@Service
+public class PasswordHashServiceImpl implements PasswordHashService {
+
+  private XLogger logger = XLoggerFactory.getXLogger(PasswordHashServiceImpl.class.getName());
+
+  @Value("${oauth.scim.service.password.hash.algorithm:pbkdf2-sha512}")
+  private String algorithmId;
+
+  @Value("${oauth.scim.service.password.hash.cost:210000}")
+  private int cost;
+
+  @Value("${oauth.scim.service.password.hash.parallelism:4}")
+  private int parallelism;
+
+  @Value("${oauth.scim.service.password.hash.queue.capacity:200}")
+  private int queueCapacity;
+
+  @Value("${oauth.scim.service.password.hash.timeout.milliseconds:10000}")
+  private long timeoutMillis;
+
+  private PasswordHashAlgorithm algorithm;
+
+  private ThreadPoolExecutor hashExecutor;
+
+  @PostConstruct
+  public void init() {
+    algorithm = PasswordHashAlgorithm.fromId(algorithmId);
+    if (algorithm == null) {
+      throw new IllegalStateException(
+          String.format("Unknown password hash algorithm '%s'", algorithmId));
+    }
+
+    AtomicInteger threadCount = new AtomicInteger();
+    int threads = Math.max(1, parallelism);
+    hashExecutor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            runnable -> {
+              Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    long begin = System.nanoTime();
+    algorithm.encode(HashUtils.salt(), HashUtils.salt(), cost);
+    logger.info(
+        String.format(
+            "password hash algorithm=%s, cost=%d, elapsedMillis=%d",
+            algorithm.getId(), cost, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin)));
+  }
+
+  @PreDestroy
+  public void destroy() {
+    hashExecutor.shutdownNow();
+  }
+
+  @Override
+  public void setPasswordHash(ObjectNode passwordNode, String password) {
+    String rawSalt = HashUtils.salt();
+    String hashValue = run(() -> algorithm.encode(password, rawSalt, cost));
+    passwordNode.put(HASH, hashValue);
+    passwordNode.put(SALT, rawSalt);
+  }
+
+  @Override
+  public boolean matches(String password, JsonNode passwordNode) {
+    String storedHash = getTextValue(passwordNode, HASH);
+    String rawSalt = getTextValue(passwordNode, SALT);
+    PasswordHashAlgorithm storedAlgorithm = PasswordHashAlgorithm.fromHash(storedHash);
+    if (storedAlgorithm == null
+        || password == null
+        || StringUtils.isEmpty(storedHash)
+        || StringUtils.isEmpty(rawSalt)) {
+      return false;
+    }
+
+    int storedCost;
+    try {
+      storedCost = PasswordHashAlgorithm.costOf(storedHash);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+    String hashValue = run(() -> storedAlgorithm.encode(password, rawSalt, storedCost));
+    return MessageDigest.isEqual(
+        hashValue.getBytes(StandardCharsets.UTF_8), storedHash.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public boolean needsRehash(JsonNode passwordNode) {
+    String storedHash = getTextValue(passwordNode, HASH);
+    if (StringUtils.isEmpty(storedHash)) {
+      return false;
+    }
+    try {
+      return PasswordHashAlgorithm.fromHash(storedHash) != algorithm
+          || (algorithm != PasswordHashAlgorithm.SHA512
+              && PasswordHashAlgorithm.costOf(storedHash) < cost);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  private String run(Callable<String> task) {
+    Future<String> future;
+    try {
+      future = hashExecutor.submit(task);
+    } catch (RejectedExecutionException e) {
+      logger.warn(String.format("password hash queue is full, capacity=%d", queueCapacity));
+      throw new ErrorCodeException(ErrorCode.APPLICATION_ERROR);
+    }
+
+    try {
+      return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      logger.warn(String.format("password hash timed out after %d ms", timeoutMillis));
+      throw new ErrorCodeException(ErrorCode.APPLICATION_ERROR);
+    } catch (ExecutionException e) {
+      logger.error("password hash failed with an exception", e.getCause());
+      throw new ErrorCodeException(ErrorCode.APPLICATION_ERROR);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+      throw new ErrorCodeException(ErrorCode.APPLICATION_ERROR);
+    }
+  }
+}
@@ -8,8 +8,6 @@
 
 package com.google.cloud.healthcare.fdamystudies.oauthscim.service;
 
-import static com.google.cloud.healthcare.fdamystudies.common.HashUtils.hash;
-import static com.google.cloud.healthcare.fdamystudies.common.HashUtils.salt;
 import static com.google.cloud.healthcare.fdamystudies.common.JsonUtils.createArrayNode;
 import static com.google.cloud.healthcare.fdamystudies.common.JsonUtils.getObjectNode;
 import static com.google.cloud.healthcare.fdamystudies.common.JsonUtils.getTextValue;
@@ -110,6 +108,8 @@ public class UserServiceImpl implements UserService {
 
   @Autowired private TextEncryptor encryptor;
 
+  @Autowired private PasswordHashService passwordHashService;
+
   @Override
   @Transactional
   public UserResponse createUser(UserRequest userRequest) {
@@ -139,12 +139,8 @@ public class UserServiceImpl implements UserService {
   private void setPasswordAndPasswordHistoryFields(
       String password, JsonNode userInfoJsonNode, int accountStatus) {
     // encrypt the password using random salt
-    String rawSalt = salt();
-    String hashValue = hash(password, rawSalt);
-
     ObjectNode passwordNode = getObjectNode();
-    passwordNode.put(HASH, hashValue);
-    passwordNode.put(SALT, rawSalt);
+    passwordHashService.setPasswordHash(passwordNode, password);
 
     UserAccountStatus userAccountStatus = UserAccountStatus.valueOf(accountStatus);
     switch (userAccountStatus) {
@@ -345,11 +341,7 @@ public class UserServiceImpl implements UserService {
       ArrayNode passwordHistory,
       UserEntity userEntity) {
     // determine whether the current password matches the password stored in database
-    String hash = getTextValue(passwordNode, HASH);
-    String rawSalt = getTextValue(passwordNode, SALT);
-    String currentPasswordHash = hash(userRequest.getCurrentPassword(), rawSalt);
-
-    if (!StringUtils.equals(currentPasswordHash, hash)) {
+    if (!passwordHashService.matches(userRequest.getCurrentPassword(), passwordNode)) {
       return userEntity.getStatus() == UserAccountStatus.ACCOUNT_LOCKED.getStatus()
               || userEntity.getStatus() == UserAccountStatus.PASSWORD_RESET.getStatus()
           ? ErrorCode.TEMP_PASSWORD_INCORRECT
@@ -357,13 +349,8 @@ public class UserServiceImpl implements UserService {
     }
 
     // evaluate whether the new password matches any of the previous passwords
-    String prevPasswordHash;
-    String salt;
     for (JsonNode pwd : passwordHistory) {
-      salt = getTextValue(pwd, SALT);
-      prevPasswordHash = getTextValue(pwd, HASH);
-      String newPasswordHash = hash(userRequest.getNewPassword(), salt);
-      if (StringUtils.equals(prevPasswordHash, newPasswordHash)) {
+      if (passwordHashService.matches(userRequest.getNewPassword(), pwd)) {
         return ErrorCode.ENFORCE_PASSWORD_HISTORY;
       }
     }
@@ -403,15 +390,14 @@ public class UserServiceImpl implements UserService {
         userInfo.put(LOGIN_ATTEMPTS, 0);
       }
     }
-    String hash = getTextValue(passwordNode, HASH);
-    String salt = getTextValue(passwordNode, SALT);
-
     // check the account status and password expiry condition
     validatePasswordExpiryAndAccountStatus(userEntity, userInfo, auditRequest);
 
     // compare passwords
-    String passwordHash = hash(user.getPassword(), salt);
-    if (StringUtils.equals(passwordHash, hash)) {
+    if (passwordHashService.matches(user.getPassword(), passwordNode)) {
+      if (passwordNode == userInfo.get(PASSWORD) && passwordHashService.needsRehash(passwordNode)) {
+        rehashPassword(user.getPassword(), (ObjectNode) passwordNode, userInfo);
+      }
       // reset login attempts
       return updateLoginAttemptsAndAuthenticationTime(userEntity, userInfo, auditRequest);
     }
@@ -427,6 +413,25 @@ public class UserServiceImpl implements UserService {
     return updateInvalidLoginAttempts(userEntity, userInfo, auditRequest, user.getAppName());
   }
 
+  /**
+   * Replaces the hash of the current password, and of its password history entry, with one
+   * computed with the configured algorithm and cost. The expiry timestamp is kept as is.
+   */
+  private void rehashPassword(String password, ObjectNode passwordNode, ObjectNode userInfo) {
+    String previousHash = getTextValue(passwordNode, HASH);
+    passwordHashService.setPasswordHash(passwordNode, password);
+
+    if (userInfo.hasNonNull(PASSWORD_HISTORY)) {
+      for (JsonNode pwd : userInfo.get(PASSWORD_HISTORY)) {
+        if (StringUtils.equals(previousHash, getTextValue(pwd, HASH))) {
+          ((ObjectNode) pwd).put(HASH, getTextValue(passwordNode, HASH));
+          ((ObjectNode) pwd).put(SALT, getTextValue(passwordNode, SALT));
+        }
+      }
+    }
+    logger.info("password hash upgraded on sign in");
+  }
+
   private EmailResponse sendAccountLockedEmail(
       UserEntity user, String tempPassword, AuditLogEventRequest auditRequest, String appName) {
     logger.entry("sendAccountLockedEmail()");
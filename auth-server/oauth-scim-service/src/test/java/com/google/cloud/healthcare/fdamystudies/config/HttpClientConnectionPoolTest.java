@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.config;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.cloud.healthcare.fdamystudies.common.BaseMockIT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.Test;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestTemplate;
+
+public class HttpClientConnectionPoolTest extends BaseMockIT {
+
+  private XLogger logger = XLoggerFactory.getXLogger(HttpClientConnectionPoolTest.class.getName());
+
+  private static final String PING_PATH = "/http-client/ping";
+
+  private static final int THREADS = 256;
+
+  private static final int REQUESTS_PER_THREAD = 4;
+
+  @Autowired private RestTemplate restTemplate;
+
+  @Autowired private PoolingHttpClientConnectionManager httpClientConnectionManager;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Test
+  public void shouldReusePooledConnectionsUnderConcurrentLoad() throws Exception {
+    ExecutorService callers = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      futures.add(
+          callers.submit(
+              () -> {
+                start.await();
+                int succeeded = 0;
+                for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                  HttpStatus status =
+                      restTemplate
+                          .getForEntity("http://localhost:8080" + PING_PATH, String.class)
+                          .getStatusCode();
+                  succeeded += status == HttpStatus.OK ? 1 : 0;
+                }
+                return succeeded;
+              }));
+    }
+
+    long begin = System.nanoTime();
+    start.countDown();
+    int succeeded = 0;
+    for (Future<Integer> future : futures) {
+      succeeded += future.get();
+    }
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+    callers.shutdownNow();
+
+    int total = THREADS * REQUESTS_PER_THREAD;
+    logger.info(
+        String.format(
+            "threads=%d, requests=%d, elapsedMillis=%d, requestsPerSecond=%d",
+            THREADS, total, elapsedMillis, total * 1000L / Math.max(1, elapsedMillis)));
+
+    assertEquals(total, succeeded);
+    verify(total, getRequestedFor(urlEqualTo(PING_PATH)));
+
+    // connections are bounded by the per route limit and kept alive for reuse
+    int maxPerRoute = httpClientConnectionManager.getDefaultMaxPerRoute();
+    assertTrue(httpClientConnectionManager.getTotalStats().getAvailable() <= maxPerRoute);
+    assertEquals(0, httpClientConnectionManager.getTotalStats().getLeased());
+
+    Timer requests =
+        meterRegistry
+            .get("httpcomponents.httpclient.request")
+            .tag("target.port", "8080")
+            .tag("status", "200")
+            .timer();
+    assertTrue(requests.count() >= total);
+    assertEquals(
+        0.0,
+        meterRegistry
+            .get("httpcomponents.httpclient.pool.route.leased")
+            .tag("route", "http://localhost:8080")
+            .gauge()
+            .value());
+  }
+}
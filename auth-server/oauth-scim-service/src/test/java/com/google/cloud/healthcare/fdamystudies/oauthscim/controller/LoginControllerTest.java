@@ -15,6 +15,7 @@ import static com.google.cloud.healthcare.fdamystudies.common.ErrorCode.USER_NOT
 import static com.google.cloud.healthcare.fdamystudies.common.HashUtils.hash;
 import static com.google.cloud.healthcare.fdamystudies.common.HashUtils.salt;
 import static com.google.cloud.healthcare.fdamystudies.common.JsonUtils.getObjectNode;
+import static com.google.cloud.healthcare.fdamystudies.common.JsonUtils.getTextValue;
 import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScimConstants.ABOUT_LINK;
 import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScimConstants.ACCOUNT_LOCKED_PASSWORD;
 import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScimConstants.ACCOUNT_STATUS_COOKIE;
@@ -33,6 +34,7 @@ import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScim
 import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScimConstants.MOBILE_PLATFORM_COOKIE;
 import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScimConstants.OTP_USED;
 import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScimConstants.PASSWORD;
+import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScimConstants.PASSWORD_HISTORY;
 import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScimConstants.PRIVACY_POLICY_LINK;
 import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScimConstants.SALT;
 import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScimConstants.SIGNUP_LINK;
@@ -51,6 +53,9 @@ import static com.google.cloud.healthcare.fdamystudies.oauthscim.common.AuthScim
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -79,10 +84,12 @@ import com.google.cloud.healthcare.fdamystudies.oauthscim.config.AppPropertyConf
 import com.google.cloud.healthcare.fdamystudies.oauthscim.config.RedirectConfig;
 import com.google.cloud.healthcare.fdamystudies.oauthscim.model.UserEntity;
 import com.google.cloud.healthcare.fdamystudies.oauthscim.repository.UserRepository;
+import com.google.cloud.healthcare.fdamystudies.oauthscim.service.PasswordHashService;
 import com.google.cloud.healthcare.fdamystudies.oauthscim.service.UserService;
 import java.net.MalformedURLException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -130,6 +137,8 @@ public class LoginControllerTest extends BaseMockIT {
 
   @Autowired private UserService userService;
 
+  @Autowired private PasswordHashService passwordHashService;
+
   @Autowired private AppPropertyConfig appPropertyConfig;
 
   @Test
@@ -603,6 +612,60 @@ public class LoginControllerTest extends BaseMockIT {
         .andExpect(redirectedUrl(ApiEndpoint.CONSENT_PAGE.getUrl()));
   }
 
+  @Test
+  public void shouldUpgradeLegacyPasswordHashOnSignIn() throws Exception {
+    // Step-1 create a user account with a salted SHA-512 password hash
+    UserResponse userResponse = userService.createUser(newUserRequest());
+    UserEntity userEntity = userRepository.findByUserId(userResponse.getUserId()).get();
+    userEntity.setStatus(UserAccountStatus.ACTIVE.getStatus());
+
+    ObjectNode userInfo = (ObjectNode) userEntity.getUserInfo();
+    String rawSalt = salt();
+    String legacyHash = hash(PASSWORD_VALUE, rawSalt);
+    for (JsonNode passwordNode :
+        Arrays.asList(userInfo.get(PASSWORD), userInfo.get(PASSWORD_HISTORY).get(0))) {
+      ((ObjectNode) passwordNode).put(HASH, legacyHash);
+      ((ObjectNode) passwordNode).put(SALT, rawSalt);
+    }
+    userEntity.setUserInfo(userInfo);
+    userRepository.saveAndFlush(userEntity);
+
+    HttpHeaders headers = getCommonHeaders();
+
+    // Step-2 call API with login credentials
+    MultiValueMap<String, String> requestParams = getLoginRequestParamsMap();
+
+    Cookie appIdCookie = new Cookie(APP_ID_COOKIE, "MyStudies");
+    Cookie loginChallenge = new Cookie(LOGIN_CHALLENGE_COOKIE, LOGIN_CHALLENGE_VALUE);
+    Cookie mobilePlatformCookie =
+        new Cookie(MOBILE_PLATFORM_COOKIE, MobilePlatform.UNKNOWN.getValue());
+    Cookie sourceCookie =
+        new Cookie(SOURCE_COOKIE, PlatformComponent.PARTICIPANT_MANAGER.getValue());
+
+    mockMvc
+        .perform(
+            post(ApiEndpoint.LOGIN_PAGE.getPath())
+                .contextPath(getContextPath())
+                .params(requestParams)
+                .headers(headers)
+                .cookie(appIdCookie, loginChallenge, mobilePlatformCookie, sourceCookie))
+        .andDo(print())
+        .andExpect(status().is3xxRedirection())
+        .andExpect(redirectedUrl(ApiEndpoint.CONSENT_PAGE.getUrl()));
+
+    // Step-3 verify the password and its history entry were rehashed
+    userEntity = userRepository.findByUserId(userResponse.getUserId()).get();
+    JsonNode passwordNode = userEntity.getUserInfo().get(PASSWORD);
+    JsonNode passwordHistoryNode = userEntity.getUserInfo().get(PASSWORD_HISTORY).get(0);
+    String upgradedHash = getTextValue(passwordNode, HASH);
+
+    assertNotEquals(legacyHash, upgradedHash);
+    assertTrue(upgradedHash.startsWith("$pbkdf2-sha512$"));
+    assertEquals(upgradedHash, getTextValue(passwordHistoryNode, HASH));
+    assertTrue(passwordHashService.matches(PASSWORD_VALUE, passwordNode));
+    assertFalse(passwordHashService.needsRehash(passwordNode));
+  }
+
   @Test
   public void shouldReturnInvalidLoginCredentials() throws Exception {
     // Step-1 create a user account with ACTIVE status
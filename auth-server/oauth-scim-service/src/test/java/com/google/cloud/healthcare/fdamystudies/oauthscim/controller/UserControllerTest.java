@@ -72,6 +72,7 @@ import com.google.cloud.healthcare.fdamystudies.oauthscim.common.ApiEndpoint;
 import com.google.cloud.healthcare.fdamystudies.oauthscim.config.AppPropertyConfig;
 import com.google.cloud.healthcare.fdamystudies.oauthscim.model.UserEntity;
 import com.google.cloud.healthcare.fdamystudies.oauthscim.repository.UserRepository;
+import com.google.cloud.healthcare.fdamystudies.oauthscim.service.PasswordHashService;
 import com.google.cloud.healthcare.fdamystudies.oauthscim.service.UserService;
 import com.jayway.jsonpath.JsonPath;
 import java.net.MalformedURLException;
@@ -115,6 +116,8 @@ public class UserControllerTest extends BaseMockIT {
 
   @Autowired private UserService userService;
 
+  @Autowired private PasswordHashService passwordHashService;
+
   private static UserEntity userEntity;
 
   @Autowired private UserRepository userRepository;
@@ -500,11 +503,8 @@ public class UserControllerTest extends BaseMockIT {
     // Step 2A- assert password hash value and password_history size
     JsonNode userInfoNode = userEntity.getUserInfo();
     JsonNode passwordNode = userInfoNode.get(PASSWORD);
-    String salt = getTextValue(passwordNode, SALT);
-    String actualPasswordHash = getTextValue(passwordNode, HASH);
-    String expectedPasswordHash = hash(NEW_PASSWORD_VALUE, salt);
 
-    assertEquals(expectedPasswordHash, actualPasswordHash);
+    assertTrue(passwordHashService.matches(NEW_PASSWORD_VALUE, passwordNode));
     assertTrue(userInfoNode.get(PASSWORD_HISTORY).isArray());
     assertTrue(userInfoNode.get(PASSWORD_HISTORY).size() == 2);
 
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.service;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.cloud.healthcare.fdamystudies.common.BaseMockIT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+public class ClientCredentialsTokenManagerTest extends BaseMockIT {
+
+  private static final String TOKEN_PATH = "/oauth2/token/slow";
+
+  private static final int CALLERS = 200;
+
+  private final RestTemplate restTemplate = new RestTemplate();
+
+  private final Supplier<ResponseEntity<JsonNode>> tokenRequest =
+      () -> restTemplate.postForEntity("http://localhost:8080" + TOKEN_PATH, null, JsonNode.class);
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private ExecutorService callers;
+
+  @BeforeEach
+  public void init() {
+    meterRegistry = new SimpleMeterRegistry();
+    callers = Executors.newFixedThreadPool(CALLERS);
+  }
+
+  @AfterEach
+  public void destroy() {
+    callers.shutdownNow();
+  }
+
+  @Test
+  public void shouldShareOneTokenRequestAmongConcurrentCallers() throws Exception {
+    ClientCredentialsTokenManager tokenManager =
+        new ClientCredentialsTokenManager(
+            tokenRequest, Duration.ofSeconds(60), Duration.ofSeconds(300), meterRegistry);
+
+    List<String> tokens = callConcurrently(tokenManager::getAccessToken);
+
+    tokens.forEach(token -> assertEquals(VALID_TOKEN, token));
+    verify(1, postRequestedFor(urlEqualTo(TOKEN_PATH)));
+    assertEquals(1, refreshCount("success"));
+    tokenManager.shutdown();
+  }
+
+  @Test
+  public void shouldRefreshRejectedTokenOnce() throws Exception {
+    ClientCredentialsTokenManager tokenManager =
+        new ClientCredentialsTokenManager(
+            tokenRequest, Duration.ofSeconds(60), Duration.ofSeconds(300), meterRegistry);
+    String rejectedToken = tokenManager.getAccessToken();
+    Thread.sleep(ClientCredentialsTokenManager.MIN_REFRESH_INTERVAL.toMillis() + 100);
+
+    List<String> tokens = callConcurrently(() -> tokenManager.getNewAccessToken(rejectedToken));
+
+    tokens.forEach(token -> assertEquals(VALID_TOKEN, token));
+    verify(2, postRequestedFor(urlEqualTo(TOKEN_PATH)));
+    assertEquals(2, refreshCount("success"));
+    tokenManager.shutdown();
+  }
+
+  @Test
+  public void shouldRefreshAheadOfExpiryInTheBackground() throws Exception {
+    // the token expires in 3599 seconds, so it is always within the refresh window
+    ClientCredentialsTokenManager tokenManager =
+        new ClientCredentialsTokenManager(
+            tokenRequest, Duration.ofHours(1), Duration.ofSeconds(300), meterRegistry);
+    tokenManager.getAccessToken();
+
+    List<String> tokens = callConcurrently(tokenManager::getAccessToken);
+
+    tokens.forEach(token -> assertEquals(VALID_TOKEN, token));
+    for (int i = 0; i < 50 && refreshCount("success") < 2; i++) {
+      Thread.sleep(50);
+    }
+    verify(2, postRequestedFor(urlEqualTo(TOKEN_PATH)));
+    assertEquals(2, refreshCount("success"));
+    tokenManager.shutdown();
+  }
+
+  private List<String> callConcurrently(Supplier<String> call) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<String>> futures = new ArrayList<>();
+    for (int i = 0; i < CALLERS; i++) {
+      futures.add(
+          callers.submit(
+              () -> {
+                start.await();
+                return call.get();
+              }));
+    }
+    start.countDown();
+
+    List<String> tokens = new ArrayList<>();
+    for (Future<String> future : futures) {
+      tokens.add(future.get());
+    }
+    return tokens;
+  }
+
+  private long refreshCount(String result) {
+    return meterRegistry.get("oauth.client.token.refresh").tag("result", result).timer().count();
+  }
+}
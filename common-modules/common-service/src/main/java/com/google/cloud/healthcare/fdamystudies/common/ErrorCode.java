@@ -319,6 +319,8 @@ public enum ErrorCode {
       HttpStatus.GONE.toString(),
       "The token entered is no longer valid. Please contact the site coordinator for assistance."),
 
+  TOKEN_ALREADY_USED(403, "EC_0130", HttpStatus.FORBIDDEN.toString(), "Token already in use"),
+
   LOCATION_NAME_EXISTS(
       400, "EC_0068", Constants.BAD_REQUEST, "Sorry, a location with this name already exists"),
 
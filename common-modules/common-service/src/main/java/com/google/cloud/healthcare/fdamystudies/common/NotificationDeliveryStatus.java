@@ -0,0 +1,18 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.common;
+
+public enum NotificationDeliveryStatus {
+  PENDING,
+  SENT,
+  /** The provider reported the device token as unregistered or invalid. */
+  INVALID_TOKEN,
+  /** Still undelivered after the maximum number of attempts. */
+  DEAD_LETTER
+}
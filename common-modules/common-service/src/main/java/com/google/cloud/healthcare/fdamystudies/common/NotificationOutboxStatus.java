@@ -0,0 +1,20 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.common;
+
+public enum NotificationOutboxStatus {
+  /** Waiting for its first or next dispatch attempt. */
+  PENDING,
+  /** Claimed by a dispatcher; reclaimed if its lease expires. */
+  IN_PROGRESS,
+  /** Every recipient was either delivered or had an invalid token. */
+  COMPLETED,
+  /** Gave up after the maximum number of attempts. */
+  DEAD_LETTER
+}
@@ -15,12 +15,14 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -34,6 +36,8 @@ public class CommonModuleConfiguration implements WebMvcConfigurer {
   @Value("${cors.allowed.origins:}")
   private String corsAllowedOrigins;
 
+  @Autowired private CloseableHttpClient httpClient;
+
   @Autowired
   private RestTemplateAuthTokenModifierInterceptor restTemplateAuthTokenModifierInterceptor;
 
@@ -44,7 +48,8 @@ public class CommonModuleConfiguration implements WebMvcConfigurer {
 
   @Bean
   public RestTemplate restTemplate() {
-    RestTemplate restTemplate = new RestTemplate();
+    RestTemplate restTemplate =
+        new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
 
     addInterceptors(restTemplate);
 
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.config;
+
+import io.micrometer.core.instrument.Meter.Id;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.MicrometerHttpRequestExecutor;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Shared HTTP client for the calls between services.
+ *
+ * <p>Connections are pooled per destination and kept alive between requests. {@code
+ * http.client.route.max-connections} raises or lowers the limit of individual destinations, as a
+ * comma separated list of {@code host:port=limit}. Requests are timed in the {@code
+ * httpcomponents.httpclient.request} histogram tagged with the destination and status, and the
+ * pool is reported both in total and per destination.
+ */
+@Configuration
+public class HttpClientConfiguration {
+
+  private XLogger logger = XLoggerFactory.getXLogger(HttpClientConfiguration.class.getName());
+
+  private static final String REQUEST_METRIC = "httpcomponents.httpclient.request";
+
+  @Value("${http.client.max-connections:200}")
+  private int maxConnections;
+
+  @Value("${http.client.max-connections-per-route:50}")
+  private int maxConnectionsPerRoute;
+
+  @Value("${http.client.route.max-connections:}")
+  private String routeMaxConnections;
+
+  @Value("${http.client.connect-timeout.milliseconds:5000}")
+  private int connectTimeoutMillis;
+
+  @Value("${http.client.read-timeout.milliseconds:30000}")
+  private int readTimeoutMillis;
+
+  @Value("${http.client.connection-request-timeout.milliseconds:5000}")
+  private int connectionRequestTimeoutMillis;
+
+  @Value("${http.client.idle-timeout.seconds:30}")
+  private long idleTimeoutSeconds;
+
+  @Value("${http.client.validate-after-inactivity.milliseconds:2000}")
+  private int validateAfterInactivityMillis;
+
+  @Bean(destroyMethod = "shutdown")
+  public PoolingHttpClientConnectionManager httpClientConnectionManager() {
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+    connectionManager.setValidateAfterInactivity(validateAfterInactivityMillis);
+
+    for (String entry : StringUtils.split(routeMaxConnections, ',')) {
+      String destination = StringUtils.substringBefore(entry, "=").trim();
+      String limit = StringUtils.substringAfter(entry, "=").trim();
+      if (StringUtils.isEmpty(destination) || !StringUtils.isNumeric(limit)) {
+        logger.warn(
+            String.format("ignoring invalid http.client.route.max-connections '%s'", entry));
+        continue;
+      }
+      HttpHost host = HttpHost.create(destination);
+      connectionManager.setMaxPerRoute(
+          new HttpRoute(host, null, "https".equalsIgnoreCase(host.getSchemeName())),
+          Integer.parseInt(limit));
+    }
+    return connectionManager;
+  }
+
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient httpClient(
+      PoolingHttpClientConnectionManager httpClientConnectionManager,
+      ObjectProvider<MeterRegistry> meterRegistryProvider) {
+    MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+    new PoolingHttpClientConnectionManagerMetricsBinder(httpClientConnectionManager, "default")
+        .bindTo(meterRegistry);
+
+    RequestConfig requestConfig =
+        RequestConfig.custom()
+            .setConnectTimeout(connectTimeoutMillis)
+            .setSocketTimeout(readTimeoutMillis)
+            .setConnectionRequestTimeout(connectionRequestTimeoutMillis)
+            .build();
+
+    return HttpClients.custom()
+        .setConnectionManager(httpClientConnectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .evictExpiredConnections()
+        .evictIdleConnections(idleTimeoutSeconds, TimeUnit.SECONDS)
+        .setRequestExecutor(
+            MicrometerHttpRequestExecutor.builder(meterRegistry)
+                .exportTagsForRoute(true)
+                .build())
+        .addInterceptorFirst(
+            new RouteConnectionPoolMetrics(httpClientConnectionManager, meterRegistry))
+        .build();
+  }
+
+  @Bean
+  public MeterFilter httpClientRequestHistogram() {
+    return new MeterFilter() {
+      @Override
+      public DistributionStatisticConfig configure(Id id, DistributionStatisticConfig config) {
+        if (REQUEST_METRIC.equals(id.getName())) {
+          return DistributionStatisticConfig.builder()
+              .percentilesHistogram(true)
+              .build()
+              .merge(config);
+        }
+        return config;
+      }
+    };
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.routing.RouteInfo;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Registers the {@code httpcomponents.httpclient.pool.route.*} gauges for a destination the first
+ * time a request is sent to it, so the pool of each destination can be watched separately.
+ */
+class RouteConnectionPoolMetrics implements HttpRequestInterceptor {
+
+  private final PoolingHttpClientConnectionManager connectionManager;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Set<HttpRoute> routes = ConcurrentHashMap.newKeySet();
+
+  RouteConnectionPoolMetrics(
+      PoolingHttpClientConnectionManager connectionManager, MeterRegistry meterRegistry) {
+    this.connectionManager = connectionManager;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void process(HttpRequest request, HttpContext context) {
+    RouteInfo routeInfo = HttpClientContext.adapt(context).getHttpRoute();
+    if (!(routeInfo instanceof HttpRoute)) {
+      return;
+    }
+    HttpRoute route = (HttpRoute) routeInfo;
+    if (routes.add(route)) {
+      String destination = route.getTargetHost().toURI();
+      gauge("httpcomponents.httpclient.pool.route.leased", destination, route, PoolStats::getLeased);
+      gauge(
+          "httpcomponents.httpclient.pool.route.pending", destination, route, PoolStats::getPending);
+      gauge(
+          "httpcomponents.httpclient.pool.route.available",
+          destination,
+          route,
+          PoolStats::getAvailable);
+      gauge("httpcomponents.httpclient.pool.route.max", destination, route, PoolStats::getMax);
+    }
+  }
+
+  private void gauge(
+      String name, String destination, HttpRoute route, ToDoubleFunction<PoolStats> value) {
+    Gauge.builder(
+            name, connectionManager, manager -> value.applyAsDouble(manager.getStats(route)))
+        .tag("route", destination)
+        .register(meterRegistry);
+  }
+}
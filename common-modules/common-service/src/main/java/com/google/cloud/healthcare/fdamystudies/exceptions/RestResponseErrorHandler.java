@@ -63,6 +63,10 @@ public class RestResponseErrorHandler implements ResponseErrorHandler {
       logAuditEvent(CommonAuditEvent.RESOURCE_ACCESS_FAILED, placeHolders);
     } else if (StringUtils.contains(responseBody, "invalid_grant")) {
       logAuditEvent(CommonAuditEvent.INVALID_GRANT_OR_INVALID_REFRESH_TOKEN, placeHolders);
+    } else if (response.getStatusCode() == HttpStatus.UNAUTHORIZED
+        && StringUtils.contains(responseBody, "invalid_client")) {
+      // this service's own client credentials were rejected
+      logAuditEvent(CommonAuditEvent.INVALID_CLIENT_ID_OR_SECRET, placeHolders);
     } else if (response.getStatusCode() == HttpStatus.UNAUTHORIZED) {
       errorCode = ErrorCode.UNAUTHORIZED;
     } else if (response.getStatusCode().series() == HttpStatus.Series.CLIENT_ERROR
@@ -48,6 +48,11 @@ public abstract class BaseTokenIntrospectionFilter implements Filter {
 
   public static final String ACTIVE = "active";
 
+  public static final String SUBJECT = "sub";
+
+  /** Request attribute holding the subject of the introspected token. */
+  public static final String TOKEN_SUBJECT = "tokenSubject";
+
   @Autowired private OAuthService oauthService;
 
   @Autowired private AuditEventHelper auditEventHelper;
@@ -104,6 +109,7 @@ public abstract class BaseTokenIntrospectionFilter implements Filter {
     ResponseEntity<JsonNode> oauthResponse = oauthService.introspectToken(params);
     if (oauthResponse.getStatusCode().is2xxSuccessful()) {
       if (oauthResponse.getBody().get(ACTIVE).booleanValue()) {
+        request.setAttribute(TOKEN_SUBJECT, oauthResponse.getBody().path(SUBJECT).textValue());
         chain.doFilter(request, response);
       } else {
         logger.exit("token is invalid, return 401 Unauthorized response");
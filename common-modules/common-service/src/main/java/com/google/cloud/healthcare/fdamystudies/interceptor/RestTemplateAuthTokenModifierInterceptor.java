@@ -31,7 +31,12 @@ public class RestTemplateAuthTokenModifierInterceptor implements ClientHttpReque
     if (response.getStatusCode() == HttpStatus.UNAUTHORIZED) {
       String auth = request.getHeaders().getFirst("Authorization");
       if (StringUtils.startsWith(auth, "Bearer")) {
-        request.getHeaders().set("Authorization", "Bearer " + oauthService.getNewAccessToken());
+        String rejectedAccessToken = StringUtils.substringAfter(auth, "Bearer ");
+        // release the pooled connection before retrying
+        response.close();
+        request
+            .getHeaders()
+            .set("Authorization", "Bearer " + oauthService.getNewAccessToken(rejectedAccessToken));
         return execution.execute(request, body);
       }
     }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.model;
+
+import static com.google.cloud.healthcare.fdamystudies.common.ColumnConstraints.ID_LENGTH;
+import static com.google.cloud.healthcare.fdamystudies.common.ColumnConstraints.LARGE_LENGTH;
+import static com.google.cloud.healthcare.fdamystudies.common.ColumnConstraints.SMALL_LENGTH;
+
+import com.google.cloud.healthcare.fdamystudies.common.NotificationDeliveryStatus;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Type;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/** Delivery state of a {@link NotificationOutboxEntity} for one device token. */
+@ToString
+@Setter
+@Getter
+@Entity
+@Table(
+    name = "notification_delivery",
+    indexes = {
+      @Index(
+          name = "notification_delivery_outbox_status_idx",
+          columnList = "outbox_id,status,id")
+    },
+    uniqueConstraints = {
+      @UniqueConstraint(
+          columnNames = {"outbox_id", "auth_info_id"},
+          name = "notification_delivery_outbox_auth_info_uidx")
+    })
+public class NotificationDeliveryEntity implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  @ToString.Exclude
+  @Id
+  @GeneratedValue(generator = "system-uuid")
+  @GenericGenerator(name = "system-uuid", strategy = "uuid")
+  @Column(name = "id", updatable = false, nullable = false)
+  private String id;
+
+  @ToString.Exclude
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "outbox_id", nullable = false, updatable = false)
+  private NotificationOutboxEntity outbox;
+
+  @Column(name = "auth_info_id", length = ID_LENGTH, nullable = false, updatable = false)
+  private String authInfoId;
+
+  @Column(name = "device_type", length = SMALL_LENGTH)
+  private String deviceType;
+
+  @ToString.Exclude
+  @Column(name = "device_token")
+  @Type(type = "text")
+  private String deviceToken;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", length = SMALL_LENGTH, nullable = false)
+  private NotificationDeliveryStatus status;
+
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  @Column(name = "last_error", length = LARGE_LENGTH)
+  private String lastError;
+
+  @Column(name = "updated_time")
+  @UpdateTimestamp
+  private Timestamp modified;
+}
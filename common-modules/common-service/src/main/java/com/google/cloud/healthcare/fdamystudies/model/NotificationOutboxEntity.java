@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.model;
+
+import static com.google.cloud.healthcare.fdamystudies.common.ColumnConstraints.LARGE_LENGTH;
+import static com.google.cloud.healthcare.fdamystudies.common.ColumnConstraints.SMALL_LENGTH;
+
+import com.google.cloud.healthcare.fdamystudies.common.NotificationOutboxStatus;
+import java.io.Serializable;
+import java.sql.Timestamp;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Type;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/**
+ * A push notification accepted by the participant datastore and waiting to be delivered, see
+ * {@link NotificationDeliveryEntity} for the state of each recipient.
+ */
+@ToString
+@Setter
+@Getter
+@Entity
+@Table(
+    name = "notification_outbox",
+    indexes = {
+      @Index(
+          name = "notification_outbox_status_next_attempt_idx",
+          columnList = "status,next_attempt_time")
+    },
+    uniqueConstraints = {
+      @UniqueConstraint(
+          columnNames = {"active_fingerprint"},
+          name = "notification_outbox_active_fingerprint_uidx")
+    })
+public class NotificationOutboxEntity implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  @ToString.Exclude
+  @Id
+  @GeneratedValue(generator = "system-uuid")
+  @GenericGenerator(name = "system-uuid", strategy = "uuid")
+  @Column(name = "id", updatable = false, nullable = false)
+  private String id;
+
+  /** SHA-256 of the notification content, used to drop duplicate submissions. */
+  @Column(name = "fingerprint", length = SMALL_LENGTH, nullable = false, updatable = false)
+  private String fingerprint;
+
+  /**
+   * The fingerprint while the notification is pending or in progress, null once it completed or
+   * was dead-lettered. Its unique key rejects a duplicate submitted while the first is queued.
+   */
+  @Column(name = "active_fingerprint", length = SMALL_LENGTH)
+  private String activeFingerprint;
+
+  @Column(name = "app_id", length = SMALL_LENGTH)
+  private String appId;
+
+  @Column(name = "study_id", length = SMALL_LENGTH)
+  private String studyId;
+
+  @Column(name = "custom_study_id", length = SMALL_LENGTH)
+  private String customStudyId;
+
+  @Column(name = "notification_id")
+  private Integer notificationId;
+
+  @Column(name = "notification_type", length = SMALL_LENGTH)
+  private String notificationType;
+
+  @Column(name = "notification_sub_type", length = SMALL_LENGTH)
+  private String notificationSubType;
+
+  @Column(name = "notification_title", length = LARGE_LENGTH)
+  private String notificationTitle;
+
+  @Column(name = "notification_text")
+  @Type(type = "text")
+  private String notificationText;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "status", length = SMALL_LENGTH, nullable = false)
+  private NotificationOutboxStatus status;
+
+  @Column(name = "attempts", nullable = false)
+  private int attempts;
+
+  /** Due time of the next attempt, or lease expiry while {@code IN_PROGRESS}. */
+  @Column(name = "next_attempt_time", nullable = false)
+  private Timestamp nextAttemptTime;
+
+  @Column(name = "recipients_resolved", nullable = false)
+  private boolean recipientsResolved;
+
+  @Column(name = "last_error", length = LARGE_LENGTH)
+  private String lastError;
+
+  @Column(name = "correlation_id", length = SMALL_LENGTH)
+  private String correlationId;
+
+  @Column(name = "source", length = SMALL_LENGTH)
+  private String source;
+
+  @Column(name = "mobile_platform", length = SMALL_LENGTH)
+  private String mobilePlatform;
+
+  @Column(name = "app_version", length = SMALL_LENGTH)
+  private String appVersion;
+
+  @Column(name = "created_by", length = SMALL_LENGTH)
+  private String createdBy;
+
+  @Column(name = "created_time", updatable = false)
+  @CreationTimestamp
+  private Timestamp created;
+
+  @Column(name = "updated_time")
+  @UpdateTimestamp
+  private Timestamp modified;
+}
@@ -10,11 +10,13 @@ package com.google.cloud.healthcare.fdamystudies.repository;
 
 import com.google.cloud.healthcare.fdamystudies.model.AuthInfoEntity;
 import com.google.cloud.healthcare.fdamystudies.model.UserDetailsEntity;
-import java.util.List;
+import java.util.Collection;
 import java.util.Optional;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -24,10 +26,10 @@ import org.springframework.stereotype.Repository;
     matchIfMissing = false)
 public interface AuthInfoRepository extends JpaRepository<AuthInfoEntity, String> {
 
-  @Query(
-      "SELECT a FROM UserAppDetailsEntity u,AuthInfoEntity a where u.userDetails = a.userDetails and u.app.appId in (?1) and a.remoteNotificationFlag=1 and "
-          + "(a.deviceToken is not NULL and a.deviceToken != '' and a.deviceType is not NULL and a.deviceType != '') ")
-  public List<AuthInfoEntity> findDevicesTokens(List<String> appInfoIds);
-
   public Optional<AuthInfoEntity> findByUserDetails(UserDetailsEntity userDetails);
+
+  @Modifying
+  @Query(
+      "UPDATE AuthInfoEntity a SET a.deviceToken = NULL WHERE TRIM(a.deviceToken) IN (:deviceTokens)")
+  public int clearDeviceTokens(@Param("deviceTokens") Collection<String> deviceTokens);
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.repository;
+
+import com.google.cloud.healthcare.fdamystudies.common.NotificationDeliveryStatus;
+import com.google.cloud.healthcare.fdamystudies.model.NotificationDeliveryEntity;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+@ConditionalOnProperty(
+    value = "participant.manager.repository.enabled",
+    havingValue = "true",
+    matchIfMissing = false)
+public interface NotificationDeliveryRepository
+    extends JpaRepository<NotificationDeliveryEntity, String> {
+
+  /**
+   * Keyset page of deliveries in the given status to devices of the given (lower case) type, pass
+   * an empty {@code afterId} to start.
+   */
+  @Query(
+      "SELECT d FROM NotificationDeliveryEntity d WHERE d.outbox.id = :outboxId "
+          + "AND d.status = :status AND LOWER(d.deviceType) = :deviceType AND d.id > :afterId "
+          + "ORDER BY d.id")
+  public List<NotificationDeliveryEntity> findPageOfDeviceType(
+      @Param("outboxId") String outboxId,
+      @Param("status") NotificationDeliveryStatus status,
+      @Param("deviceType") String deviceType,
+      @Param("afterId") String afterId,
+      Pageable pageable);
+
+  /** Like {@link #findPageOfDeviceType}, for devices of any other or no type. */
+  @Query(
+      "SELECT d FROM NotificationDeliveryEntity d WHERE d.outbox.id = :outboxId "
+          + "AND d.status = :status "
+          + "AND (d.deviceType IS NULL OR LOWER(d.deviceType) <> :deviceType) "
+          + "AND d.id > :afterId ORDER BY d.id")
+  public List<NotificationDeliveryEntity> findPageOfOtherDeviceTypes(
+      @Param("outboxId") String outboxId,
+      @Param("status") NotificationDeliveryStatus status,
+      @Param("deviceType") String deviceType,
+      @Param("afterId") String afterId,
+      Pageable pageable);
+
+  @Query(
+      "SELECT COUNT(d) FROM NotificationDeliveryEntity d "
+          + "WHERE d.outbox.id = :outboxId AND d.status = :status")
+  public long countByStatus(
+      @Param("outboxId") String outboxId, @Param("status") NotificationDeliveryStatus status);
+
+  /** Records an attempt for the deliveries and moves them to {@code status}. */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE NotificationDeliveryEntity d SET d.status = :status, d.attempts = d.attempts + 1, "
+          + "d.lastError = :lastError WHERE d.id IN (:ids)")
+  public int updateAttempt(
+      @Param("ids") Collection<String> ids,
+      @Param("status") NotificationDeliveryStatus status,
+      @Param("lastError") String lastError);
+
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE NotificationDeliveryEntity d SET d.status = :newStatus "
+          + "WHERE d.outbox.id = :outboxId AND d.status = :status")
+  public int updateStatus(
+      @Param("outboxId") String outboxId,
+      @Param("status") NotificationDeliveryStatus status,
+      @Param("newStatus") NotificationDeliveryStatus newStatus);
+}
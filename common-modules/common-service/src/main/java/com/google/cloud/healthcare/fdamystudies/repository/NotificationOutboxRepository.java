@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.repository;
+
+import com.google.cloud.healthcare.fdamystudies.common.NotificationOutboxStatus;
+import com.google.cloud.healthcare.fdamystudies.model.NotificationOutboxEntity;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+@ConditionalOnProperty(
+    value = "participant.manager.repository.enabled",
+    havingValue = "true",
+    matchIfMissing = false)
+public interface NotificationOutboxRepository
+    extends JpaRepository<NotificationOutboxEntity, String> {
+
+  /** Pending notifications that are due, and in-progress notifications whose lease expired. */
+  @Query(
+      "SELECT o.id FROM NotificationOutboxEntity o WHERE o.status IN (:statuses) "
+          + "AND o.nextAttemptTime <= :now ORDER BY o.nextAttemptTime")
+  public List<String> findDueIds(
+      @Param("statuses") Collection<NotificationOutboxStatus> statuses,
+      @Param("now") Timestamp now,
+      Pageable pageable);
+
+  /**
+   * Takes a lease on a due notification until {@code leaseExpiry}.
+   *
+   * @return 0 if the notification is not due, e.g. because another instance claimed it first
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "UPDATE NotificationOutboxEntity o SET o.status = :inProgress, o.nextAttemptTime = :leaseExpiry "
+          + "WHERE o.id = :id AND o.status IN (:statuses) AND o.nextAttemptTime <= :now")
+  public int claim(
+      @Param("id") String id,
+      @Param("statuses") Collection<NotificationOutboxStatus> statuses,
+      @Param("inProgress") NotificationOutboxStatus inProgress,
+      @Param("now") Timestamp now,
+      @Param("leaseExpiry") Timestamp leaseExpiry);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE NotificationOutboxEntity o SET o.nextAttemptTime = :leaseExpiry WHERE o.id = :id")
+  public int extendLease(@Param("id") String id, @Param("leaseExpiry") Timestamp leaseExpiry);
+}
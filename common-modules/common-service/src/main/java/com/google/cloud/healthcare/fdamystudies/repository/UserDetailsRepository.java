@@ -46,6 +46,9 @@ public interface UserDetailsRepository extends JpaRepository<UserDetailsEntity,
 
   List<UserDetailsEntity> findByStatus(Integer status);
 
+  @Query("SELECT ud.userId FROM UserDetailsEntity ud WHERE ud.status = :status")
+  public List<String> findUserIdsByStatus(@Param("status") Integer status);
+
   @Query(
       value =
           "SELECT app.id AS appId, IFNULL(COUNT(ud.id),0) AS count "
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Caches a client credentials access token together with its expiry.
+ *
+ * <p>A token within {@code refreshAhead} of its expiry is still handed out while a new one is
+ * fetched in the background, so callers only wait for the token endpoint when there is no usable
+ * token at all. Concurrent refreshes share one request to the token endpoint, and a token that was
+ * rejected by a resource server is only replaced if it is still the current one and was not issued
+ * within the last {@link #MIN_REFRESH_INTERVAL}. Refreshes are recorded in the {@code
+ * oauth.client.token.refresh} timer, tagged with their result.
+ */
+public class ClientCredentialsTokenManager {
+
+  private static final XLogger logger =
+      XLoggerFactory.getXLogger(ClientCredentialsTokenManager.class.getName());
+
+  static final Duration MIN_REFRESH_INTERVAL = Duration.ofSeconds(1);
+
+  private static final String ACCESS_TOKEN = "access_token";
+
+  private static final String EXPIRES_IN = "expires_in";
+
+  private final Supplier<ResponseEntity<JsonNode>> tokenRequest;
+
+  private final Duration refreshAhead;
+
+  private final Duration defaultTimeToLive;
+
+  private final Timer successTimer;
+
+  private final Timer failureTimer;
+
+  private final ExecutorService refreshExecutor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "oauth-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private volatile AccessToken current;
+
+  private CompletableFuture<AccessToken> inFlight;
+
+  public ClientCredentialsTokenManager(
+      Supplier<ResponseEntity<JsonNode>> tokenRequest,
+      Duration refreshAhead,
+      Duration defaultTimeToLive,
+      MeterRegistry meterRegistry) {
+    this.tokenRequest = tokenRequest;
+    this.refreshAhead = refreshAhead;
+    this.defaultTimeToLive = defaultTimeToLive;
+    this.successTimer =
+        Timer.builder("oauth.client.token.refresh")
+            .tag("result", "success")
+            .register(meterRegistry);
+    this.failureTimer =
+        Timer.builder("oauth.client.token.refresh")
+            .tag("result", "failure")
+            .register(meterRegistry);
+  }
+
+  /** Returns the cached token, and fetches one only if there is none or it has expired. */
+  public String getAccessToken() {
+    AccessToken token = current;
+    Instant now = Instant.now();
+    if (token != null && now.isBefore(token.expiresAt)) {
+      if (!now.isBefore(token.expiresAt.minus(refreshAhead))) {
+        startRefresh();
+      }
+      return token.value;
+    }
+    return await(startRefresh(), token);
+  }
+
+  /**
+   * Replaces the given token that was rejected by a resource server. Callers that report the same
+   * token at the same time share one refresh.
+   */
+  public String getNewAccessToken(String rejectedAccessToken) {
+    AccessToken token;
+    CompletableFuture<AccessToken> refresh;
+    synchronized (this) {
+      token = current;
+      boolean inProgress = inFlight != null && !inFlight.isDone();
+      if (!inProgress
+          && token != null
+          && (!StringUtils.equals(token.value, rejectedAccessToken)
+              || Instant.now().isBefore(token.fetchedAt.plus(MIN_REFRESH_INTERVAL)))) {
+        return token.value;
+      }
+      refresh = startRefresh();
+    }
+    return await(refresh, token);
+  }
+
+  public void shutdown() {
+    refreshExecutor.shutdownNow();
+  }
+
+  private String await(CompletableFuture<AccessToken> refresh, AccessToken fallback) {
+    try {
+      return refresh.join().value;
+    } catch (CompletionException e) {
+      // keep the behaviour of returning the last known token when the token endpoint fails
+      return fallback != null ? fallback.value : null;
+    }
+  }
+
+  private synchronized CompletableFuture<AccessToken> startRefresh() {
+    if (inFlight == null || inFlight.isDone()) {
+      inFlight = CompletableFuture.supplyAsync(this::fetch, refreshExecutor);
+    }
+    return inFlight;
+  }
+
+  private AccessToken fetch() {
+    long begin = System.nanoTime();
+    try {
+      AccessToken token = toAccessToken(tokenRequest.get());
+      successTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+      current = token;
+      logger.info(
+          String.format(
+              "access token refreshed, expiresIn=%ds, refreshes=%d",
+              Duration.between(token.fetchedAt, token.expiresAt).getSeconds(),
+              successTimer.count()));
+      return token;
+    } catch (RuntimeException e) {
+      failureTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+      logger.error("Get new access token from oauth scim service failed", e);
+      throw e;
+    }
+  }
+
+  private AccessToken toAccessToken(ResponseEntity<JsonNode> response) {
+    JsonNode body = response.getBody();
+    if (!response.getStatusCode().is2xxSuccessful()
+        || body == null
+        || !body.hasNonNull(ACCESS_TOKEN)) {
+      throw new IllegalStateException(
+          String.format(
+              "access token not received, status=%d and response=%s",
+              response.getStatusCodeValue(), body));
+    }
+
+    Instant fetchedAt = Instant.now();
+    Duration timeToLive =
+        body.hasNonNull(EXPIRES_IN)
+            ? Duration.ofSeconds(body.get(EXPIRES_IN).asLong())
+            : defaultTimeToLive;
+    return new AccessToken(
+        body.get(ACCESS_TOKEN).textValue(), fetchedAt, fetchedAt.plus(timeToLive));
+  }
+
+  private static class AccessToken {
+
+    private final String value;
+
+    private final Instant fetchedAt;
+
+    private final Instant expiresAt;
+
+    private AccessToken(String value, Instant fetchedAt, Instant expiresAt) {
+      this.value = value;
+      this.fetchedAt = fetchedAt;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
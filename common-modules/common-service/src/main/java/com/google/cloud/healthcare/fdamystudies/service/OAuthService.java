@@ -18,4 +18,7 @@ public interface OAuthService {
   public String getAccessToken();
 
   public String getNewAccessToken();
+
+  /** Replaces the access token unless another caller already replaced the rejected one. */
+  public String getNewAccessToken(String rejectedAccessToken);
 }
@@ -13,11 +13,16 @@ import static com.google.cloud.healthcare.fdamystudies.common.JsonUtils.addTextF
 import static com.google.cloud.healthcare.fdamystudies.common.JsonUtils.getTextValue;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.util.Base64;
 import javax.annotation.PostConstruct;
-import org.apache.commons.lang3.StringUtils;
+import javax.annotation.PreDestroy;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpHeaders;
@@ -51,10 +56,6 @@ public class OAuthServiceImpl extends BaseServiceImpl implements OAuthService {
 
   private static final String REDIRECT_URI = "redirect_uri";
 
-  private static final String ACCESS_TOKEN = "access_token";
-
-  private String accessToken;
-
   @Value("${security.oauth2.client.client-id:}")
   private String clientId;
 
@@ -70,12 +71,33 @@ public class OAuthServiceImpl extends BaseServiceImpl implements OAuthService {
   @Value("${security.oauth2.token_endpoint:}")
   private String tokenEndpoint;
 
+  @Value("${security.oauth2.client.token.refresh-ahead.seconds:60}")
+  private long tokenRefreshAheadSeconds;
+
+  @Value("${security.oauth2.client.token.default-ttl.seconds:300}")
+  private long tokenDefaultTimeToLiveSeconds;
+
+  @Autowired private ObjectProvider<MeterRegistry> meterRegistry;
+
   private String encodedAuthorization;
 
+  private ClientCredentialsTokenManager tokenManager;
+
   @PostConstruct
   public void init() {
     String credentials = clientId + ":" + clientSecret;
     encodedAuthorization = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes());
+    tokenManager =
+        new ClientCredentialsTokenManager(
+            this::getToken,
+            Duration.ofSeconds(tokenRefreshAheadSeconds),
+            Duration.ofSeconds(tokenDefaultTimeToLiveSeconds),
+            meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+  }
+
+  @PreDestroy
+  public void destroy() {
+    tokenManager.shutdown();
   }
 
   @Override
@@ -99,26 +121,17 @@ public class OAuthServiceImpl extends BaseServiceImpl implements OAuthService {
 
   @Override
   public String getAccessToken() {
-    if (StringUtils.isEmpty(accessToken)) {
-      this.accessToken = getNewAccessToken();
-    }
-    return this.accessToken;
+    return tokenManager.getAccessToken();
   }
 
   @Override
   public String getNewAccessToken() {
-    logger.entry("begin getNewAccessToken()");
-    ResponseEntity<JsonNode> response = getToken();
-    if (isSuccessful(response)) {
-      this.accessToken = response.getBody().get(ACCESS_TOKEN).textValue();
-      logger.exit(String.format("status=%d", response.getStatusCodeValue()));
-    } else {
-      logger.error(
-          String.format(
-              "Get new access token from oauth scim service failed with status=%d and response=%s",
-              response.getStatusCodeValue(), response.getBody()));
-    }
-    return this.accessToken;
+    return tokenManager.getNewAccessToken(tokenManager.getAccessToken());
+  }
+
+  @Override
+  public String getNewAccessToken(String rejectedAccessToken) {
+    return tokenManager.getNewAccessToken(rejectedAccessToken);
   }
 
   private ResponseEntity<JsonNode> getToken() {
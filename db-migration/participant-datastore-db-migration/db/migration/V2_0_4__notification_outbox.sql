@@ -0,0 +1,46 @@
+/* Durable outbox for push notifications received from the Study Builder; each notification is
+ expanded into one delivery row per device token and sent by NotificationOutboxScheduledTask */
+CREATE TABLE IF NOT EXISTS notification_outbox (
+  id varchar(255) NOT NULL,
+  fingerprint varchar(64) NOT NULL,
+  active_fingerprint varchar(64) DEFAULT NULL,
+  app_id varchar(64) DEFAULT NULL,
+  study_id varchar(64) DEFAULT NULL,
+  custom_study_id varchar(64) DEFAULT NULL,
+  notification_id int DEFAULT NULL,
+  notification_type varchar(64) DEFAULT NULL,
+  notification_sub_type varchar(64) DEFAULT NULL,
+  notification_title varchar(255) DEFAULT NULL,
+  notification_text text,
+  status varchar(64) NOT NULL,
+  attempts int NOT NULL,
+  next_attempt_time timestamp NOT NULL,
+  recipients_resolved bit NOT NULL,
+  last_error varchar(255) DEFAULT NULL,
+  correlation_id varchar(64) DEFAULT NULL,
+  source varchar(64) DEFAULT NULL,
+  mobile_platform varchar(64) DEFAULT NULL,
+  app_version varchar(64) DEFAULT NULL,
+  created_by varchar(64) DEFAULT NULL,
+  created_time timestamp NULL DEFAULT NULL,
+  updated_time timestamp NULL DEFAULT NULL,
+  PRIMARY KEY (id),
+  UNIQUE KEY notification_outbox_active_fingerprint_uidx (active_fingerprint),
+  KEY notification_outbox_status_next_attempt_idx (status, next_attempt_time)
+);
+
+CREATE TABLE IF NOT EXISTS notification_delivery (
+  id varchar(255) NOT NULL,
+  outbox_id varchar(255) NOT NULL,
+  auth_info_id varchar(64) NOT NULL,
+  device_type varchar(64) DEFAULT NULL,
+  device_token text,
+  status varchar(64) NOT NULL,
+  attempts int NOT NULL,
+  last_error varchar(255) DEFAULT NULL,
+  updated_time timestamp NULL DEFAULT NULL,
+  PRIMARY KEY (id),
+  UNIQUE KEY notification_delivery_outbox_auth_info_uidx (outbox_id, auth_info_id),
+  KEY notification_delivery_outbox_status_idx (outbox_id, status, id),
+  CONSTRAINT notification_delivery_outbox_fk FOREIGN KEY (outbox_id) REFERENCES notification_outbox (id)
+);
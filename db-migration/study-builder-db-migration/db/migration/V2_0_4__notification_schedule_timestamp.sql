@@ -0,0 +1,10 @@
+/* Sortable schedule timestamp for app notifications, used by the study datastore
+   notifications API to page in the database instead of sorting in memory.
+   The column is generated from schedule_date and schedule_time, so existing rows are
+   backfilled by the ALTER and rows written by the Study Builder stay in sync. */
+ALTER TABLE fda_hphc.notification
+  ADD COLUMN schedule_timestamp DATETIME
+  GENERATED ALWAYS AS (TIMESTAMP(schedule_date, IFNULL(schedule_time, '00:00:00'))) STORED;
+
+CREATE INDEX notification_app_sent_schedule_idx
+  ON fda_hphc.notification (app_id, notification_sent, schedule_timestamp, notification_id);
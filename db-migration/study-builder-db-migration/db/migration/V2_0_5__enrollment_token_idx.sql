@@ -0,0 +1,3 @@
+/* Index used by the study datastore validateEnrollmentToken API, which looks tokens up by value. */
+CREATE INDEX enrollment_token_enrollment_token_idx
+  ON fda_hphc.enrollment_token (enrollment_token(64));
@@ -0,0 +1,43 @@
+/* Scheduled push notification sends, one row per notification schedule and app. The unique key
+   makes the Study Builder scheduler enqueue each send once across overlapping runs and instances;
+   next_attempt_time holds the retry time of pending rows and the lease of in-progress rows. */
+CREATE TABLE IF NOT EXISTS fda_hphc.notification_dispatch (
+  id int(11) NOT NULL AUTO_INCREMENT,
+  notification_id int(11) DEFAULT NULL,
+  schedule_date_time datetime DEFAULT NULL,
+  app_id varchar(255) DEFAULT NULL,
+  custom_study_id varchar(255) DEFAULT NULL,
+  notification_type varchar(255) DEFAULT NULL,
+  notification_subType varchar(255) DEFAULT NULL,
+  notification_text varchar(1024) DEFAULT NULL,
+  status varchar(16) DEFAULT NULL,
+  attempts int(11) NOT NULL DEFAULT 0,
+  next_attempt_time datetime DEFAULT NULL,
+  last_status_code int(11) DEFAULT NULL,
+  last_error varchar(255) DEFAULT NULL,
+  created_on datetime DEFAULT NULL,
+  sent_on datetime DEFAULT NULL,
+  PRIMARY KEY (id),
+  UNIQUE KEY notification_dispatch_schedule_uidx (notification_id, schedule_date_time, app_id),
+  KEY notification_dispatch_status_next_attempt_idx (status, next_attempt_time)
+);
+
+/* Notifications the previous scheduler already sent are recorded as sent, so the first runs after
+   the upgrade do not send them again. App-wide notifications without an app get a row for every
+   gateway app, like the scheduler enqueues them. */
+INSERT INTO fda_hphc.notification_dispatch (notification_id, schedule_date_time, app_id,
+  custom_study_id, notification_type, notification_subType, notification_text, status, attempts,
+  created_on, sent_on)
+SELECT n.notification_id, n.schedule_timestamp, COALESCE(n.app_id, g.app_id), s.custom_study_id,
+  n.notification_type, n.notification_subType, LEFT(n.notification_text, 1024), 'SENT', 1, NOW(),
+  NOW()
+FROM fda_hphc.notification n
+  LEFT OUTER JOIN fda_hphc.studies s ON s.id = n.study_id
+  LEFT OUTER JOIN (SELECT DISTINCT app_id FROM fda_hphc.studies
+    WHERE type = 'GT' AND version = 1 AND app_id IS NOT NULL) g ON n.app_id IS NULL
+WHERE n.notification_sent = 1 AND n.schedule_timestamp IS NOT NULL
+  AND COALESCE(n.app_id, g.app_id) IS NOT NULL;
+
+/* Due notifications are looked up by schedule time every minute. */
+CREATE INDEX notification_schedule_timestamp_idx
+  ON fda_hphc.notification (schedule_timestamp);
@@ -0,0 +1,16 @@
+/* Sequence numbers of ordered study content are spaced 1024 apart, so the Study Builder can move a
+   step, form question, consent section, comprehension or eligibility question or resource by
+   updating only the moved row. Multiplying keeps the existing order. */
+UPDATE fda_hphc.questionnaires_steps SET sequence_no = sequence_no * 1024;
+UPDATE fda_hphc.form_mapping SET sequence_no = sequence_no * 1024;
+UPDATE fda_hphc.consent_info SET sequence_no = sequence_no * 1024;
+UPDATE fda_hphc.comprehension_test_question SET sequence_no = sequence_no * 1024;
+UPDATE fda_hphc.eligibility_test SET sequence_no = sequence_no * 1024;
+UPDATE fda_hphc.resources SET sequence_no = sequence_no * 1024;
+
+/* The steps and form questions of one questionnaire or form are read in sequence order on every
+   move. */
+CREATE INDEX questionnaires_steps_sequence_no_idx
+  ON fda_hphc.questionnaires_steps (questionnaires_id, sequence_no);
+CREATE INDEX form_mapping_form_id_sequence_no_idx
+  ON fda_hphc.form_mapping (form_id, sequence_no);
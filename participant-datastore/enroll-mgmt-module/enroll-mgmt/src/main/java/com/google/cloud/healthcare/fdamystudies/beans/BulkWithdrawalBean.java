@@ -0,0 +1,31 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.beans;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@NoArgsConstructor
+public class BulkWithdrawalBean {
+
+  @NotBlank private String studyId;
+
+  /** Withdraws every enrolled participant of the site; mutually exclusive with participantIds. */
+  private String siteId;
+
+  private List<String> participantIds = new ArrayList<>();
+
+  private boolean deleteResponses;
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.beans;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class BulkWithdrawalBodyProvider {
+  private String studyId;
+  private String studyVersion;
+  private List<String> participantIds;
+  private boolean deleteResponses;
+}
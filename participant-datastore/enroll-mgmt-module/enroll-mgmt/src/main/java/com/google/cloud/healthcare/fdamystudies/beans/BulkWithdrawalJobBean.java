@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.beans;
+
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Setter
+@Getter
+@ToString
+public class BulkWithdrawalJobBean {
+
+  private String jobId;
+
+  private String studyId;
+
+  private String status;
+
+  /** Number of enrolled participants matched by the request. */
+  private int total;
+
+  /** Participants already processed, whether withdrawn or failed. */
+  private int processed;
+
+  private int withdrawn;
+
+  private int failed;
+
+  /** Participants that are still enrolled because their withdrawal failed. */
+  private List<String> failedParticipantIds;
+
+  private String createdTime;
+
+  private String completedTime;
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.common;
+
+public enum BulkWithdrawalStatus {
+  /** Accepted and waiting for, or running on, a job thread. */
+  IN_PROGRESS,
+  /** Every matched participant was withdrawn. */
+  COMPLETED,
+  /** Some chunks could not be withdrawn; their participants are still enrolled. */
+  COMPLETED_WITH_ERRORS,
+  /** The job stopped unexpectedly; unprocessed participants are still enrolled. */
+  FAILED
+}
@@ -25,4 +25,7 @@ public class ApplicationPropertyConfiguration {
 
   @Value("${response.server.url.participant.withdraw}")
   private String withdrawStudyUrl;
+
+  @Value("${response.server.url.participant.withdraw.bulk}")
+  private String bulkWithdrawStudyUrl;
 }
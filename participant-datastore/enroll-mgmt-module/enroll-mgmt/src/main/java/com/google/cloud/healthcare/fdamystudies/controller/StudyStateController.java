@@ -13,9 +13,12 @@ import static com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEvent.R
 import static com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEvent.USER_FOUND_INELIGIBLE_FOR_STUDY;
 import static com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEvent.WITHDRAWAL_FROM_STUDY_FAILED;
 import static com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEvent.WITHDRAWAL_FROM_STUDY_SUCCEEDED;
+import static com.google.cloud.healthcare.fdamystudies.filter.BaseTokenIntrospectionFilter.TOKEN_SUBJECT;
 import static com.google.cloud.healthcare.fdamystudies.util.AppConstants.USER_ID;
 
 import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
+import com.google.cloud.healthcare.fdamystudies.beans.BulkWithdrawalBean;
+import com.google.cloud.healthcare.fdamystudies.beans.BulkWithdrawalJobBean;
 import com.google.cloud.healthcare.fdamystudies.beans.StudiesBean;
 import com.google.cloud.healthcare.fdamystudies.beans.StudyStateBean;
 import com.google.cloud.healthcare.fdamystudies.beans.StudyStateReqBean;
@@ -30,6 +33,7 @@ import com.google.cloud.healthcare.fdamystudies.model.ParticipantStudyEntity;
 import com.google.cloud.healthcare.fdamystudies.model.StudyEntity;
 import com.google.cloud.healthcare.fdamystudies.model.UserDetailsEntity;
 import com.google.cloud.healthcare.fdamystudies.repository.StudyRepository;
+import com.google.cloud.healthcare.fdamystudies.service.BulkWithdrawalService;
 import com.google.cloud.healthcare.fdamystudies.service.CommonService;
 import com.google.cloud.healthcare.fdamystudies.service.StudyStateService;
 import com.google.cloud.healthcare.fdamystudies.util.AppConstants;
@@ -52,7 +56,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
@@ -74,6 +80,8 @@ public class StudyStateController {
 
   @Autowired private StudyRepository studyRepository;
 
+  @Autowired private BulkWithdrawalService bulkWithdrawalService;
+
   @ApiOperation(value = "Updates enrollment status of a participant associated to particular study")
   @PostMapping(
       value = "/updateStudyState",
@@ -196,4 +204,44 @@ public class StudyStateController {
       return null;
     }
   }
+
+  @ApiOperation(
+      value =
+          "Starts a job that withdraws the participants of a site, or the given participants, from"
+              + " a study",
+      notes =
+          "The userId header must be the participant manager admin the access token was issued to,"
+              + " with edit permission on the study, or on the site when a site is withdrawn")
+  @PostMapping(
+      value = "/bulkwithdraw",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<BulkWithdrawalJobBean> bulkWithdrawFromStudy(
+      @RequestHeader(USER_ID) String userId,
+      @RequestAttribute(name = TOKEN_SUBJECT, required = false) String tokenSubject,
+      @Valid @RequestBody BulkWithdrawalBean bulkWithdrawalBean,
+      HttpServletRequest request) {
+    logger.info("StudyStateController bulkWithdrawFromStudy() - Starts ");
+    AuditLogEventRequest auditRequest = AuditEventMapper.fromHttpServletRequest(request);
+
+    BulkWithdrawalJobBean jobBean =
+        bulkWithdrawalService.startWithdrawal(
+            bulkWithdrawalBean, userId, tokenSubject, auditRequest);
+
+    logger.info("StudyStateController bulkWithdrawFromStudy() - Ends ");
+    return new ResponseEntity<>(jobBean, HttpStatus.ACCEPTED);
+  }
+
+  @ApiOperation(
+      value = "Returns the progress of a bulk withdrawal job",
+      notes =
+          "Jobs are kept in memory by the instance that accepted them, so this returns 404 after"
+              + " that instance restarted or when another instance answers the request")
+  @GetMapping(value = "/bulkwithdraw/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<BulkWithdrawalJobBean> getBulkWithdrawalJob(@PathVariable String jobId) {
+    return bulkWithdrawalService
+        .getJob(jobId)
+        .map(jobBean -> new ResponseEntity<>(jobBean, HttpStatus.OK))
+        .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+  }
 }
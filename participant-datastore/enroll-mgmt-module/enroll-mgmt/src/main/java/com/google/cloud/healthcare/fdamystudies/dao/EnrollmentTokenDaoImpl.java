@@ -23,9 +23,13 @@ import com.google.cloud.healthcare.fdamystudies.model.UserDetailsEntity;
 import com.google.cloud.healthcare.fdamystudies.repository.ParticipantEnrollmentHistoryRepository;
 import com.google.cloud.healthcare.fdamystudies.repository.ParticipantRegistrySiteRepository;
 import com.google.cloud.healthcare.fdamystudies.util.AppConstants;
+import com.google.cloud.healthcare.fdamystudies.util.EnrollmentTokenCache;
+import com.google.cloud.healthcare.fdamystudies.util.EnrollmentTokenCache.CachedToken;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
+import javax.persistence.LockModeType;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -51,6 +55,8 @@ public class EnrollmentTokenDaoImpl implements EnrollmentTokenDao {
 
   @Autowired private ParticipantEnrollmentHistoryRepository participantEnrollmentHistoryRepository;
 
+  @Autowired private EnrollmentTokenCache enrollmentTokenCache;
+
   @Override
   public StudyEntity getStudyDetails(String studyId) {
     logger.info("EnrollmentTokenDaoImpl studyExists() - Started ");
@@ -83,31 +89,18 @@ public class EnrollmentTokenDaoImpl implements EnrollmentTokenDao {
   @Override
   public boolean isValidStudyToken(@NotNull String token, String studyId, @NotNull String email) {
     logger.info("EnrollmentTokenDaoImpl isValidStudyToken() - Started ");
-    ParticipantRegistrySiteEntity participantRegistrySite = null;
-    Session session = this.sessionFactory.getCurrentSession();
-
-    participantRegistrySite =
-        (ParticipantRegistrySiteEntity)
-            session
-                .createQuery(
-                    "from ParticipantRegistrySiteEntity PS where study.customId =:studyId and"
-                        + " upper(trim(enrollmentToken))=:token and email=:email")
-                .setParameter("studyId", studyId)
-                .setParameter("token", token.toUpperCase())
-                .setParameter("email", email)
-                .uniqueResult();
-
-    if (participantRegistrySite == null) {
+    CachedToken cachedToken = getCachedToken(studyId, token);
+    if (!cachedToken.isKnown() || !StringUtils.equalsIgnoreCase(cachedToken.getEmail(), email)) {
       return false;
     }
 
-    if (participantRegistrySite.getOnboardingStatus().equals(OnboardingStatus.NEW.getCode())) {
+    if (cachedToken.getOnboardingStatus().equals(OnboardingStatus.NEW.getCode())) {
       return false;
     }
 
     Timestamp now = new Timestamp(Instant.now().toEpochMilli());
-    if (participantRegistrySite.getOnboardingStatus().equals(OnboardingStatus.DISABLED.getCode())
-        || now.after(participantRegistrySite.getEnrollmentTokenExpiry())) {
+    if (cachedToken.getOnboardingStatus().equals(OnboardingStatus.DISABLED.getCode())
+        || now.after(cachedToken.getEnrollmentTokenExpiry())) {
       throw new ErrorCodeException(ErrorCode.TOKEN_EXPIRED);
     }
 
@@ -115,27 +108,62 @@ public class EnrollmentTokenDaoImpl implements EnrollmentTokenDao {
     return true;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public boolean hasParticipant(String studyId, @NotNull String tokenValue) {
     logger.info("EnrollmentTokenDaoImpl hasParticipant() - Started ");
-    List<Object[]> participantList = null;
-    Session session = this.sessionFactory.getCurrentSession();
+    CachedToken cachedToken = getCachedToken(studyId, tokenValue);
+    if (!cachedToken.isKnown() || !cachedToken.isEnrollmentTokenUsed()) {
+      return false;
+    }
 
-    participantList =
-        session
-            .createQuery(
-                "from ParticipantStudyEntity PS,StudyEntity SB, ParticipantRegistrySiteEntity PR"
-                    + " where SB.id =PS.study.id and PS.participantRegistrySite.id=PR.id"
-                    + " and upper(trim(PR.enrollmentToken))=:token and SB.customId=:studyId and"
-                    + " PR.enrollmentTokenUsed=:tokenUsed")
-            .setParameter("token", tokenValue.toUpperCase())
-            .setParameter("studyId", studyId)
-            .setParameter("tokenUsed", true)
-            .getResultList();
+    Session session = this.sessionFactory.getCurrentSession();
+    Long participantCount =
+        (Long)
+            session
+                .createQuery(
+                    "select count(PS.id) from ParticipantStudyEntity PS"
+                        + " where PS.participantRegistrySite.id=:participantRegistrySiteId"
+                        + " and PS.study.customId=:studyId")
+                .setParameter(
+                    "participantRegistrySiteId", cachedToken.getParticipantRegistrySiteId())
+                .setParameter("studyId", studyId)
+                .uniqueResult();
 
     logger.info("EnrollmentTokenDaoImpl hasParticipant() - Ends ");
-    return participantList != null && !participantList.isEmpty();
+    return participantCount != null && participantCount > 0;
+  }
+
+  /**
+   * Looks up the registry entry of the token in the study, serving repeated lookups from {@link
+   * EnrollmentTokenCache}. The enrollment_token column is unique and case-insensitive, so the
+   * lookup is a single index probe instead of a scan over upper(trim(enrollment_token)).
+   */
+  private CachedToken getCachedToken(String studyId, String token) {
+    CachedToken cachedToken = enrollmentTokenCache.get(studyId, token);
+    if (cachedToken != null) {
+      return cachedToken;
+    }
+
+    Session session = this.sessionFactory.getCurrentSession();
+    ParticipantRegistrySiteEntity participantRegistrySite =
+        (ParticipantRegistrySiteEntity)
+            session
+                .createQuery(
+                    "from ParticipantRegistrySiteEntity PR where PR.study.customId=:studyId"
+                        + " and PR.enrollmentToken in (:tokens)")
+                .setParameter("studyId", studyId)
+                .setParameterList("tokens", getTokenCandidates(token))
+                .setMaxResults(1)
+                .uniqueResult();
+
+    return participantRegistrySite == null
+        ? enrollmentTokenCache.putUnknown(studyId, token)
+        : enrollmentTokenCache.putKnown(studyId, token, participantRegistrySite);
+  }
+
+  private static List<String> getTokenCandidates(String token) {
+    String trimmedToken = StringUtils.trim(token);
+    return Arrays.asList(trimmedToken, StringUtils.upperCase(trimmedToken));
   }
 
   @Override
@@ -223,16 +251,30 @@ public class EnrollmentTokenDaoImpl implements EnrollmentTokenDao {
         participantRegistryRoot =
             participantRegistryCriteria.from(ParticipantRegistrySiteEntity.class);
         participantRegistryPredicates[0] =
-            criteriaBuilder.equal(
-                criteriaBuilder.upper(
-                    criteriaBuilder.trim(participantRegistryRoot.get("enrollmentToken"))),
-                tokenValue);
+            participantRegistryRoot.get("enrollmentToken").in(getTokenCandidates(tokenValue));
         participantRegistryCriteria
             .select(participantRegistryRoot)
             .where(participantRegistryPredicates);
-        participantRegistryList = session.createQuery(participantRegistryCriteria).getResultList();
+        // Lock the registry row so concurrent enrollments with the same token are serialized and
+        // only the first one can consume it.
+        participantRegistryList =
+            session
+                .createQuery(participantRegistryCriteria)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
         if (!participantRegistryList.isEmpty()) {
           participantregistrySite = participantRegistryList.get(0);
+          if (participantregistrySite.isEnrollmentTokenUsed()) {
+            throw new ErrorCodeException(ErrorCode.TOKEN_ALREADY_USED);
+          }
+          // isValidStudyToken may have checked a cached copy, so re-check the locked row in case
+          // the participant was disabled or the token expired since it was cached.
+          String onboardingStatus = participantregistrySite.getOnboardingStatus();
+          Timestamp now = new Timestamp(Instant.now().toEpochMilli());
+          if (OnboardingStatus.DISABLED.getCode().equals(onboardingStatus)
+              || now.after(participantregistrySite.getEnrollmentTokenExpiry())) {
+            throw new ErrorCodeException(ErrorCode.TOKEN_EXPIRED);
+          }
 
           siteList =
               session
@@ -18,4 +18,9 @@ public interface StudyStateDao {
   public String getEnrollTokenForParticipant(String participantRegistryId);
 
   public String withdrawFromStudy(String participantId, String studyId);
+
+  public List<String> getParticipantIdsToWithdraw(
+      String studyId, String siteId, List<String> participantIds);
+
+  public int withdrawParticipants(String studyId, List<String> participantIds);
 }
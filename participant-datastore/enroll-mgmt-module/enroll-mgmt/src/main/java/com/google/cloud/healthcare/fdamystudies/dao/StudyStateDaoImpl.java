@@ -9,6 +9,7 @@
 package com.google.cloud.healthcare.fdamystudies.dao;
 
 import com.google.cloud.healthcare.fdamystudies.common.EnrollmentStatus;
+import com.google.cloud.healthcare.fdamystudies.common.OnboardingStatus;
 import com.google.cloud.healthcare.fdamystudies.model.ParticipantRegistrySiteEntity;
 import com.google.cloud.healthcare.fdamystudies.model.ParticipantStudyEntity;
 import com.google.cloud.healthcare.fdamystudies.model.StudyEntity;
@@ -22,6 +23,7 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.CriteriaUpdate;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -35,6 +37,9 @@ public class StudyStateDaoImpl implements StudyStateDao {
 
   private static final Logger logger = LoggerFactory.getLogger(StudyStateDaoImpl.class);
 
+  /** Keeps IN lists well below the bind parameter limits of the supported databases. */
+  private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
   @Autowired private SessionFactory sessionFactory;
 
   @Override
@@ -125,4 +130,96 @@ public class StudyStateDaoImpl implements StudyStateDao {
     logger.info("StudyStateDaoImpl withdrawFromStudy() - Ends ");
     return message;
   }
+
+  @Override
+  public List<String> getParticipantIdsToWithdraw(
+      String studyId, String siteId, List<String> participantIds) {
+    logger.info("StudyStateDaoImpl getParticipantIdsToWithdraw() - Starts ");
+    Session session = this.sessionFactory.getCurrentSession();
+    List<String> participantIdsToWithdraw = new ArrayList<>();
+    if (StringUtils.isNotEmpty(siteId)) {
+      participantIdsToWithdraw.addAll(
+          session
+              .createQuery(
+                  "SELECT ps.participantId FROM ParticipantStudyEntity ps "
+                      + "WHERE ps.study.id = :studyId AND ps.site.id = :siteId "
+                      + "AND ps.participantId IS NOT NULL",
+                  String.class)
+              .setParameter("studyId", studyId)
+              .setParameter("siteId", siteId)
+              .getResultList());
+    } else {
+      for (List<String> chunk : ListUtils.partition(participantIds, IN_CLAUSE_CHUNK_SIZE)) {
+        participantIdsToWithdraw.addAll(
+            session
+                .createQuery(
+                    "SELECT ps.participantId FROM ParticipantStudyEntity ps "
+                        + "WHERE ps.study.id = :studyId AND ps.participantId IN (:participantIds)",
+                    String.class)
+                .setParameter("studyId", studyId)
+                .setParameterList("participantIds", chunk)
+                .getResultList());
+      }
+    }
+
+    logger.info("StudyStateDaoImpl getParticipantIdsToWithdraw() - Ends ");
+    return participantIdsToWithdraw;
+  }
+
+  /**
+   * Withdraws the participants with one statement per table for each chunk of {@link
+   * #IN_CLAUSE_CHUNK_SIZE} participants: disables their registry entries, closes their enrollment
+   * history and marks the study entries withdrawn, clearing the participant ids last as the other
+   * statements select the rows by participant id.
+   */
+  @Override
+  public int withdrawParticipants(String studyId, List<String> participantIds) {
+    logger.info("StudyStateDaoImpl withdrawParticipants() - Starts ");
+    Session session = this.sessionFactory.getCurrentSession();
+    Timestamp now = new Timestamp(Instant.now().toEpochMilli());
+    int withdrawn = 0;
+    for (List<String> chunk : ListUtils.partition(participantIds, IN_CLAUSE_CHUNK_SIZE)) {
+      session
+          .createQuery(
+              "UPDATE ParticipantRegistrySiteEntity prs "
+                  + "SET prs.onboardingStatus = :onboardingStatus, prs.disabledDate = :now "
+                  + "WHERE prs.id IN (SELECT ps.participantRegistrySite.id "
+                  + "FROM ParticipantStudyEntity ps "
+                  + "WHERE ps.study.id = :studyId AND ps.participantId IN (:participantIds))")
+          .setParameter("onboardingStatus", OnboardingStatus.DISABLED.getCode())
+          .setParameter("now", now)
+          .setParameter("studyId", studyId)
+          .setParameterList("participantIds", chunk)
+          .executeUpdate();
+
+      session
+          .createQuery(
+              "UPDATE ParticipantEnrollmentHistoryEntity peh "
+                  + "SET peh.status = :status, peh.withdrawalDate = :now "
+                  + "WHERE peh.withdrawalDate IS NULL AND peh.study.id = :studyId "
+                  + "AND peh.userDetails.id IN (SELECT ps.userDetails.id "
+                  + "FROM ParticipantStudyEntity ps "
+                  + "WHERE ps.study.id = :studyId AND ps.participantId IN (:participantIds))")
+          .setParameter("status", EnrollmentStatus.WITHDRAWN.getStatus())
+          .setParameter("now", now)
+          .setParameter("studyId", studyId)
+          .setParameterList("participantIds", chunk)
+          .executeUpdate();
+
+      withdrawn +=
+          session
+              .createQuery(
+                  "UPDATE ParticipantStudyEntity ps "
+                      + "SET ps.status = :status, ps.withdrawalDate = :now, ps.participantId = NULL "
+                      + "WHERE ps.study.id = :studyId AND ps.participantId IN (:participantIds)")
+              .setParameter("status", EnrollmentStatus.WITHDRAWN.getStatus())
+              .setParameter("now", now)
+              .setParameter("studyId", studyId)
+              .setParameterList("participantIds", chunk)
+              .executeUpdate();
+    }
+
+    logger.info("StudyStateDaoImpl withdrawParticipants() - Ends ");
+    return withdrawn;
+  }
 }
@@ -45,6 +45,12 @@ public class TokenIntrospectionFilter extends BaseTokenIntrospectionFilter {
     uriTemplateAndMethods.put(
         String.format("%s/participantInfo", context.getContextPath()),
         new String[] {HttpMethod.GET.name()});
+    uriTemplateAndMethods.put(
+        String.format("%s/bulkwithdraw", context.getContextPath()),
+        new String[] {HttpMethod.POST.name()});
+    uriTemplateAndMethods.put(
+        String.format("%s/bulkwithdraw/{jobId}", context.getContextPath()),
+        new String[] {HttpMethod.GET.name()});
   }
 
   @Override
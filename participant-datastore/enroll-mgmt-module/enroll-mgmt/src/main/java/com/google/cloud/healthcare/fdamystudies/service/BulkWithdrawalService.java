@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.service;
+
+import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
+import com.google.cloud.healthcare.fdamystudies.beans.BulkWithdrawalBean;
+import com.google.cloud.healthcare.fdamystudies.beans.BulkWithdrawalJobBean;
+import java.util.Optional;
+
+public interface BulkWithdrawalService {
+
+  /**
+   * Starts a withdrawal job on behalf of a participant manager admin, who must be a super admin or
+   * have edit permission on the study, or on the site when a site is withdrawn. The admin must be
+   * the subject of the access token the request was authorized with.
+   */
+  public BulkWithdrawalJobBean startWithdrawal(
+      BulkWithdrawalBean bulkWithdrawalBean,
+      String userId,
+      String tokenSubject,
+      AuditLogEventRequest auditRequest);
+
+  /**
+   * Returns the progress of a job accepted by this instance; jobs are kept in memory only, so they
+   * are not found after a restart or on another instance.
+   */
+
+  public Optional<BulkWithdrawalJobBean> getJob(String jobId);
+}
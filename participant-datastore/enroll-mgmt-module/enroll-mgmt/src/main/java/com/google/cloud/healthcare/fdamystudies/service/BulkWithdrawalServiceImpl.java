@@ -0,0 +1,377 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.service;
+
+import static com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEvent.WITHDRAWAL_FROM_STUDY_FAILED;
+import static com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEvent.WITHDRAWAL_FROM_STUDY_SUCCEEDED;
+
+import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
+import com.google.cloud.healthcare.fdamystudies.beans.BulkWithdrawalBean;
+import com.google.cloud.healthcare.fdamystudies.beans.BulkWithdrawalJobBean;
+import com.google.cloud.healthcare.fdamystudies.common.AuditLogEvent;
+import com.google.cloud.healthcare.fdamystudies.common.BulkWithdrawalStatus;
+import com.google.cloud.healthcare.fdamystudies.common.CommonConstants;
+import com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEventHelper;
+import com.google.cloud.healthcare.fdamystudies.common.ErrorCode;
+import com.google.cloud.healthcare.fdamystudies.common.IdGenerator;
+import com.google.cloud.healthcare.fdamystudies.common.Permission;
+import com.google.cloud.healthcare.fdamystudies.exceptions.ErrorCodeException;
+import com.google.cloud.healthcare.fdamystudies.model.SitePermissionEntity;
+import com.google.cloud.healthcare.fdamystudies.model.StudyEntity;
+import com.google.cloud.healthcare.fdamystudies.model.StudyPermissionEntity;
+import com.google.cloud.healthcare.fdamystudies.model.UserRegAdminEntity;
+import com.google.cloud.healthcare.fdamystudies.repository.SitePermissionRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.StudyPermissionRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.StudyRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.UserRegAdminRepository;
+import com.google.cloud.healthcare.fdamystudies.util.EnrollmentManagementUtil;
+import com.google.cloud.healthcare.fdamystudies.util.MyStudiesUserRegUtil;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Withdraws many participants of a study as an asynchronous job.
+ *
+ * <p>The participants are matched when the job is accepted and then processed in chunks of {@code
+ * bulk.withdrawal.chunk.size}. Each chunk is first sent to the response datastore in a single
+ * request, retried up to {@code bulk.withdrawal.max.attempts} times, and only then withdrawn here
+ * with set-based updates. A chunk that cannot be propagated stays enrolled, so submitting the same
+ * request again picks up exactly the participants that failed. Jobs are kept in memory for {@code
+ * bulk.withdrawal.job.retention.minutes} after they were accepted, so progress can only be read
+ * from the instance that accepted the job, and not after it restarted.
+ *
+ * <p>Jobs are started by participant manager admins only. The {@code userId} header must be an
+ * active super admin, or an admin with edit permission on the study or, when a site is withdrawn,
+ * on the site; a participant can't start a job with its own token.
+ */
+@Service
+public class BulkWithdrawalServiceImpl implements BulkWithdrawalService {
+
+  private static final Logger logger = LoggerFactory.getLogger(BulkWithdrawalServiceImpl.class);
+
+  /** The largest batch the response datastore accepts per request. */
+  private static final int MAX_CHUNK_SIZE = 500;
+
+  @Autowired private StudyRepository studyRepository;
+
+  @Autowired private UserRegAdminRepository userRegAdminRepository;
+
+  @Autowired private StudyPermissionRepository studyPermissionRepository;
+
+  @Autowired private SitePermissionRepository sitePermissionRepository;
+
+  @Autowired private StudyStateService studyStateService;
+
+  @Autowired private EnrollmentManagementUtil enrollUtil;
+
+  @Autowired private EnrollAuditEventHelper enrollAuditEventHelper;
+
+  @Value("${bulk.withdrawal.chunk.size:500}")
+  private int chunkSize;
+
+  @Value("${bulk.withdrawal.max.attempts:3}")
+  private int maxAttempts;
+
+  @Value("${bulk.withdrawal.retry.delay.milliseconds:1000}")
+  private long retryDelayMillis;
+
+  @Value("${bulk.withdrawal.job.retention.minutes:60}")
+  private long jobRetentionMinutes;
+
+  @Value("${bulk.withdrawal.parallelism:2}")
+  private int parallelism;
+
+  private final ConcurrentMap<String, BulkWithdrawalJob> jobs = new ConcurrentHashMap<>();
+
+  private ExecutorService jobExecutor;
+
+  @PostConstruct
+  public void init() {
+    AtomicInteger threadCount = new AtomicInteger();
+    jobExecutor =
+        Executors.newFixedThreadPool(
+            Math.max(1, parallelism),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "bulk-withdrawal-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  @PreDestroy
+  public void destroy() {
+    jobExecutor.shutdownNow();
+  }
+
+  @Override
+  public BulkWithdrawalJobBean startWithdrawal(
+      BulkWithdrawalBean bulkWithdrawalBean,
+      String userId,
+      String tokenSubject,
+      AuditLogEventRequest auditRequest) {
+    logger.info("BulkWithdrawalServiceImpl startWithdrawal() - Starts ");
+    String siteId = bulkWithdrawalBean.getSiteId();
+    List<String> participantIds =
+        CollectionUtils.emptyIfNull(bulkWithdrawalBean.getParticipantIds())
+            .stream()
+            .filter(StringUtils::isNotBlank)
+            .distinct()
+            .collect(Collectors.toList());
+    if (StringUtils.isNotBlank(siteId) == !participantIds.isEmpty()) {
+      throw new ErrorCodeException(ErrorCode.BAD_REQUEST);
+    }
+
+    StudyEntity study =
+        studyRepository
+            .findByCustomStudyId(bulkWithdrawalBean.getStudyId())
+            .orElseThrow(() -> new ErrorCodeException(ErrorCode.STUDY_NOT_FOUND));
+    validateEditPermission(userId, tokenSubject, study, siteId);
+    List<String> participantIdsToWithdraw =
+        studyStateService.getParticipantIdsToWithdraw(study, siteId, participantIds);
+
+    removeExpiredJobs();
+    BulkWithdrawalJob job =
+        new BulkWithdrawalJob(IdGenerator.id(), study.getCustomId(), participantIdsToWithdraw.size());
+    jobs.put(job.jobId, job);
+    jobExecutor.execute(
+        () ->
+            runJob(
+                job,
+                study,
+                participantIdsToWithdraw,
+                bulkWithdrawalBean.isDeleteResponses(),
+                auditRequest));
+
+    logger.info(
+        String.format(
+            "BulkWithdrawalServiceImpl startWithdrawal() - Ends, jobId=%s, total=%d",
+            job.jobId, job.total));
+    return job.toBean();
+  }
+
+  @Override
+  public Optional<BulkWithdrawalJobBean> getJob(String jobId) {
+    removeExpiredJobs();
+    return Optional.ofNullable(jobs.get(jobId)).map(BulkWithdrawalJob::toBean);
+  }
+
+  private void validateEditPermission(
+      String userId, String tokenSubject, StudyEntity study, String siteId) {
+    Optional<UserRegAdminEntity> optAdmin =
+        StringUtils.isBlank(userId) ? Optional.empty() : userRegAdminRepository.findById(userId);
+    // the userId header is chosen by the caller, so it must name the admin the token was issued to
+    if (!optAdmin.isPresent()
+        || StringUtils.isBlank(tokenSubject)
+        || !tokenSubject.equals(optAdmin.get().getUrAdminAuthId())
+        || !CommonConstants.ACTIVE_STATUS.equals(optAdmin.get().getStatus())) {
+      throw new ErrorCodeException(ErrorCode.STUDY_PERMISSION_ACCESS_DENIED);
+    }
+    if (optAdmin.get().isSuperAdmin()) {
+      return;
+    }
+
+    Optional<StudyPermissionEntity> optStudyPermission =
+        studyPermissionRepository.findByStudyIdAndUserId(study.getId(), userId);
+    if (optStudyPermission.isPresent()
+        && Permission.EDIT == optStudyPermission.get().getEdit()) {
+      return;
+    }
+    if (StringUtils.isBlank(siteId)) {
+      throw new ErrorCodeException(ErrorCode.STUDY_PERMISSION_ACCESS_DENIED);
+    }
+
+    Optional<SitePermissionEntity> optSitePermission =
+        sitePermissionRepository.findByUserIdAndSiteId(userId, siteId);
+    if (!optSitePermission.isPresent()
+        || Permission.EDIT != optSitePermission.get().getCanEdit()) {
+      throw new ErrorCodeException(ErrorCode.MANAGE_SITE_PERMISSION_ACCESS_DENIED);
+    }
+  }
+
+  private void runJob(
+      BulkWithdrawalJob job,
+      StudyEntity study,
+      List<String> participantIds,
+      boolean deleteResponses,
+      AuditLogEventRequest auditRequest) {
+    long begin = System.currentTimeMillis();
+    int size = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+    try {
+      for (List<String> chunk : ListUtils.partition(participantIds, size)) {
+        if (withdrawChunk(chunk, study, deleteResponses, auditRequest)) {
+          job.withdrawn.addAndGet(chunk.size());
+          logEvents(WITHDRAWAL_FROM_STUDY_SUCCEEDED, chunk, study, auditRequest);
+        } else {
+          job.failedParticipantIds.addAll(chunk);
+          logEvents(WITHDRAWAL_FROM_STUDY_FAILED, chunk, study, auditRequest);
+        }
+      }
+      job.status =
+          job.failedParticipantIds.isEmpty()
+              ? BulkWithdrawalStatus.COMPLETED
+              : BulkWithdrawalStatus.COMPLETED_WITH_ERRORS;
+    } catch (RuntimeException e) {
+      logger.error(String.format("Bulk withdrawal job %s failed", job.jobId), e);
+      job.status = BulkWithdrawalStatus.FAILED;
+    } finally {
+      job.completedTime = Instant.now();
+    }
+
+    logger.info(
+        String.format(
+            "BulkWithdrawalServiceImpl runJob() : jobId=%s, status=%s, total=%d, withdrawn=%d, "
+                + "failed=%d, elapsedMillis=%d",
+            job.jobId,
+            job.status,
+            job.total,
+            job.withdrawn.get(),
+            job.failedParticipantIds.size(),
+            System.currentTimeMillis() - begin));
+  }
+
+  /**
+   * Sends the chunk to the response datastore and withdraws it here once it was accepted.
+   *
+   * @return {@code false} if the chunk is still enrolled
+   */
+  private boolean withdrawChunk(
+      List<String> chunk,
+      StudyEntity study,
+      boolean deleteResponses,
+      AuditLogEventRequest auditRequest) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        String message =
+            enrollUtil.withdrawParticipantsFromStudy(
+                chunk, study.getVersion(), study.getCustomId(), deleteResponses, auditRequest);
+        if (MyStudiesUserRegUtil.ErrorCodes.SUCCESS.getValue().equalsIgnoreCase(message)) {
+          break;
+        }
+        logger.warn(
+            String.format(
+                "Bulk withdrawal of %d participants was not accepted, attempt %d",
+                chunk.size(), attempt));
+      } catch (RuntimeException e) {
+        logger.warn(
+            String.format(
+                "Bulk withdrawal of %d participants failed, attempt %d", chunk.size(), attempt),
+            e);
+      }
+
+      if (attempt >= maxAttempts) {
+        return false;
+      }
+      try {
+        Thread.sleep(retryDelayMillis * attempt);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    try {
+      studyStateService.withdrawParticipants(study, chunk);
+      return true;
+    } catch (RuntimeException e) {
+      // the response datastore already has the withdrawal, a new request repeats it safely
+      logger.error(
+          String.format("Withdrawal of %d participants could not be saved", chunk.size()), e);
+      return false;
+    }
+  }
+
+  private void logEvents(
+      AuditLogEvent event,
+      List<String> participantIds,
+      StudyEntity study,
+      AuditLogEventRequest auditRequest) {
+    for (String participantId : participantIds) {
+      AuditLogEventRequest participantAuditRequest = new AuditLogEventRequest();
+      BeanUtils.copyProperties(auditRequest, participantAuditRequest);
+      participantAuditRequest.setParticipantId(participantId);
+      participantAuditRequest.setStudyId(study.getCustomId());
+      participantAuditRequest.setStudyVersion(String.valueOf(study.getVersion()));
+      enrollAuditEventHelper.logEvent(event, participantAuditRequest);
+    }
+  }
+
+  private void removeExpiredJobs() {
+    Instant expiry = Instant.now().minusSeconds(TimeUnit.MINUTES.toSeconds(jobRetentionMinutes));
+    jobs.values()
+        .removeIf(
+            job -> job.status != BulkWithdrawalStatus.IN_PROGRESS && job.created.isBefore(expiry));
+  }
+
+  private static class BulkWithdrawalJob {
+
+    private final String jobId;
+
+    private final String studyId;
+
+    private final int total;
+
+    private final Instant created = Instant.now();
+
+    private final AtomicInteger withdrawn = new AtomicInteger();
+
+    private final List<String> failedParticipantIds =
+        Collections.synchronizedList(new ArrayList<>());
+
+    private volatile BulkWithdrawalStatus status = BulkWithdrawalStatus.IN_PROGRESS;
+
+    private volatile Instant completedTime;
+
+    private BulkWithdrawalJob(String jobId, String studyId, int total) {
+      this.jobId = jobId;
+      this.studyId = studyId;
+      this.total = total;
+    }
+
+    private BulkWithdrawalJobBean toBean() {
+      BulkWithdrawalJobBean jobBean = new BulkWithdrawalJobBean();
+      jobBean.setJobId(jobId);
+      jobBean.setStudyId(studyId);
+      jobBean.setStatus(status.name());
+      jobBean.setTotal(total);
+      List<String> failed;
+      synchronized (failedParticipantIds) {
+        failed = new ArrayList<>(failedParticipantIds);
+      }
+      jobBean.setWithdrawn(withdrawn.get());
+      jobBean.setFailed(failed.size());
+      jobBean.setProcessed(jobBean.getWithdrawn() + failed.size());
+      jobBean.setFailedParticipantIds(failed);
+      jobBean.setCreatedTime(created.toString());
+      jobBean.setCompletedTime(completedTime == null ? null : completedTime.toString());
+      return jobBean;
+    }
+  }
+}
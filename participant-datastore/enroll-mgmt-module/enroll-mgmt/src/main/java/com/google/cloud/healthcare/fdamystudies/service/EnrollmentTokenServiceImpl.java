@@ -14,6 +14,7 @@ import com.google.cloud.healthcare.fdamystudies.dao.EnrollmentTokenDao;
 import com.google.cloud.healthcare.fdamystudies.model.StudyEntity;
 import com.google.cloud.healthcare.fdamystudies.model.UserDetailsEntity;
 import com.google.cloud.healthcare.fdamystudies.util.EnrollmentManagementUtil;
+import com.google.cloud.healthcare.fdamystudies.util.EnrollmentTokenCache;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +31,8 @@ public class EnrollmentTokenServiceImpl implements EnrollmentTokenService {
 
   @Autowired CommonService commonService;
 
+  @Autowired EnrollmentTokenCache enrollmentTokenCache;
+
   private static final Logger logger = LoggerFactory.getLogger(EnrollmentTokenServiceImpl.class);
 
   @Override
@@ -91,6 +94,7 @@ public class EnrollmentTokenServiceImpl implements EnrollmentTokenService {
             commonService.getUserInfoDetails(userId),
             isTokenRequired,
             participantId);
+    enrollmentTokenCache.invalidate(shortName, tokenValue);
     if (participantBean != null) {
       participantBean.setHashedToken(hashedTokenValue);
       participantBean.setParticipantId(participantId);
@@ -14,6 +14,7 @@ import com.google.cloud.healthcare.fdamystudies.beans.StudyStateBean;
 import com.google.cloud.healthcare.fdamystudies.beans.StudyStateRespBean;
 import com.google.cloud.healthcare.fdamystudies.beans.WithDrawFromStudyRespBean;
 import com.google.cloud.healthcare.fdamystudies.model.ParticipantStudyEntity;
+import com.google.cloud.healthcare.fdamystudies.model.StudyEntity;
 import com.google.cloud.healthcare.fdamystudies.model.UserDetailsEntity;
 import java.util.List;
 
@@ -35,4 +36,9 @@ public interface StudyStateService {
       String participantId, String studyId, AuditLogEventRequest auditRequest);
 
   public String getSiteId(String userId, String token);
+
+  public List<String> getParticipantIdsToWithdraw(
+      StudyEntity study, String siteId, List<String> participantIds);
+
+  public int withdrawParticipants(StudyEntity study, List<String> participantIds);
 }
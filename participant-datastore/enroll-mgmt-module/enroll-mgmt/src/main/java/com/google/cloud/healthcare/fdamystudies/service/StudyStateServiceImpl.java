@@ -30,14 +30,17 @@ import com.google.cloud.healthcare.fdamystudies.dao.UserRegAdminUserDao;
 import com.google.cloud.healthcare.fdamystudies.exceptions.ErrorCodeException;
 import com.google.cloud.healthcare.fdamystudies.model.ParticipantRegistrySiteEntity;
 import com.google.cloud.healthcare.fdamystudies.model.ParticipantStudyEntity;
+import com.google.cloud.healthcare.fdamystudies.model.SiteEntity;
 import com.google.cloud.healthcare.fdamystudies.model.StudyEntity;
 import com.google.cloud.healthcare.fdamystudies.model.UserDetailsEntity;
 import com.google.cloud.healthcare.fdamystudies.repository.ParticipantEnrollmentHistoryRepository;
 import com.google.cloud.healthcare.fdamystudies.repository.ParticipantRegistrySiteRepository;
 import com.google.cloud.healthcare.fdamystudies.repository.ParticipantStudyRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.SiteRepository;
 import com.google.cloud.healthcare.fdamystudies.repository.StudyRepository;
 import com.google.cloud.healthcare.fdamystudies.util.BeanUtil;
 import com.google.cloud.healthcare.fdamystudies.util.EnrollmentManagementUtil;
+import com.google.cloud.healthcare.fdamystudies.util.EnrollmentTokenCache;
 import com.google.cloud.healthcare.fdamystudies.util.MyStudiesUserRegUtil;
 import java.sql.Timestamp;
 import java.time.Instant;
@@ -80,10 +83,14 @@ public class StudyStateServiceImpl implements StudyStateService {
 
   @Autowired private ParticipantRegistrySiteRepository participantRegistrySiteRepository;
 
+  @Autowired private EnrollmentTokenCache enrollmentTokenCache;
+
   @Autowired private ParticipantEnrollmentHistoryRepository participantEnrollmentHistoryRepository;
 
   @Autowired private StudyRepository studyRepository;
 
+  @Autowired private SiteRepository siteRepository;
+
   @Override
   @Transactional(readOnly = true)
   public List<ParticipantStudyEntity> getParticipantStudiesList(
@@ -285,6 +292,9 @@ public class StudyStateServiceImpl implements StudyStateService {
       participantRegistrySite.setOnboardingStatus(OnboardingStatus.DISABLED.getCode());
       participantRegistrySite.setDisabledDate(new Timestamp(Instant.now().toEpochMilli()));
       participantRegistrySiteRepository.saveAndFlush(participantRegistrySite);
+      enrollmentTokenCache.invalidate(
+          participantStudy.get().getStudy().getCustomId(),
+          participantRegistrySite.getEnrollmentToken());
 
       participantEnrollmentHistoryRepository.updateWithdrawalDateAndStatus(
           participantStudy.get().getUserDetails().getId(),
@@ -316,4 +326,33 @@ public class StudyStateServiceImpl implements StudyStateService {
     logger.info("StudyStateServiceImpl getSiteId() - Ends ");
     return StringUtils.defaultString(siteId);
   }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<String> getParticipantIdsToWithdraw(
+      StudyEntity study, String siteId, List<String> participantIds) {
+    logger.info("StudyStateServiceImpl getParticipantIdsToWithdraw() - Starts ");
+    if (StringUtils.isNotEmpty(siteId)) {
+      Optional<SiteEntity> optSite = siteRepository.findById(siteId);
+      if (!optSite.isPresent() || !study.getId().equals(optSite.get().getStudy().getId())) {
+        throw new ErrorCodeException(ErrorCode.SITE_NOT_FOUND);
+      }
+    }
+
+    List<String> participantIdsToWithdraw =
+        studyStateDao.getParticipantIdsToWithdraw(study.getId(), siteId, participantIds);
+    logger.info("StudyStateServiceImpl getParticipantIdsToWithdraw() - Ends ");
+    return participantIdsToWithdraw;
+  }
+
+  @Override
+  @Transactional
+  public int withdrawParticipants(StudyEntity study, List<String> participantIds) {
+    logger.info("StudyStateServiceImpl withdrawParticipants() - Starts ");
+    int withdrawn = studyStateDao.withdrawParticipants(study.getId(), participantIds);
+    // the disabled enrollment tokens are not known here
+    enrollmentTokenCache.invalidateAll();
+    logger.info("StudyStateServiceImpl withdrawParticipants() - Ends ");
+    return withdrawn;
+  }
 }
@@ -12,6 +12,7 @@ import static com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEvent.P
 import static com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEvent.PARTICIPANT_ID_RECEIVED;
 
 import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
+import com.google.cloud.healthcare.fdamystudies.beans.BulkWithdrawalBodyProvider;
 import com.google.cloud.healthcare.fdamystudies.beans.EnrollmentBodyProvider;
 import com.google.cloud.healthcare.fdamystudies.beans.WithdrawFromStudyBodyProvider;
 import com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEventHelper;
@@ -24,6 +25,7 @@ import java.security.SecureRandom;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Random;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
@@ -212,4 +214,38 @@ public class EnrollmentManagementUtil {
     logger.info("EnrollmentManagementUtil withDrawParticipantFromStudy() - Ends ");
     return message;
   }
+
+  public String withdrawParticipantsFromStudy(
+      List<String> participantIds,
+      Float studyVersion,
+      String studyId,
+      boolean deleteResponses,
+      AuditLogEventRequest auditRequest) {
+    logger.info("EnrollmentManagementUtil withdrawParticipantsFromStudy() - starts ");
+    String message = "";
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.set("Authorization", "Bearer " + oAuthService.getAccessToken());
+    AuditEventMapper.addAuditEventHeaderParams(headers, auditRequest);
+
+    BulkWithdrawalBodyProvider bodyProvider = new BulkWithdrawalBodyProvider();
+    bodyProvider.setStudyId(studyId);
+    bodyProvider.setStudyVersion(String.valueOf(studyVersion));
+    bodyProvider.setParticipantIds(participantIds);
+    bodyProvider.setDeleteResponses(deleteResponses);
+
+    ResponseEntity<?> response =
+        restTemplate.postForEntity(
+            appConfig.getBulkWithdrawStudyUrl(),
+            new HttpEntity<>(bodyProvider, headers),
+            String.class);
+
+    if (response.getStatusCode() == HttpStatus.OK) {
+      message = "SUCCESS";
+    }
+
+    logger.info("EnrollmentManagementUtil withdrawParticipantsFromStudy() - Ends ");
+    return message;
+  }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.util;
+
+import com.google.cloud.healthcare.fdamystudies.model.ParticipantRegistrySiteEntity;
+import java.sql.Timestamp;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Short-lived cache of enrollment token lookups keyed by (study, token).
+ *
+ * <p>Unknown tokens are cached as negative entries so repeated attempts with an invalid token do
+ * not reach the database. Known tokens cache the registry state needed to validate them. Entries
+ * for a token are invalidated when it is consumed by an enrollment or disabled by a withdrawal, and
+ * again once that transaction commits, so a lookup running before the commit can't cache the old
+ * state; changes made by other services become visible once the entry expires. Enrollment itself always
+ * re-reads the registry row under a lock, so a stale entry can never let a token be used twice.
+ */
+@Component
+public class EnrollmentTokenCache {
+
+  @Value("${enrollment.token.cache.ttl.seconds:30}")
+  private long ttlSeconds;
+
+  @Value("${enrollment.token.cache.negative-ttl.seconds:30}")
+  private long negativeTtlSeconds;
+
+  @Value("${enrollment.token.cache.max-entries:10000}")
+  private int maxEntries;
+
+  private final ConcurrentMap<String, CachedToken> entries = new ConcurrentHashMap<>();
+
+  /** Returns the cached lookup for the token, or {@code null} if it has to be read again. */
+  public CachedToken get(String studyId, String token) {
+    String key = key(studyId, token);
+    CachedToken cached = entries.get(key);
+    if (cached != null && cached.isExpired(System.nanoTime())) {
+      entries.remove(key, cached);
+      return null;
+    }
+    return cached;
+  }
+
+  public CachedToken putKnown(
+      String studyId, String token, ParticipantRegistrySiteEntity participantRegistrySite) {
+    CachedToken cached =
+        new CachedToken(
+            true,
+            participantRegistrySite.getId(),
+            participantRegistrySite.getEmail(),
+            participantRegistrySite.getOnboardingStatus(),
+            participantRegistrySite.getEnrollmentTokenExpiry(),
+            participantRegistrySite.isEnrollmentTokenUsed(),
+            expiresAt(ttlSeconds));
+    put(key(studyId, token), cached);
+    return cached;
+  }
+
+  public CachedToken putUnknown(String studyId, String token) {
+    CachedToken cached =
+        new CachedToken(false, null, null, null, null, false, expiresAt(negativeTtlSeconds));
+    put(key(studyId, token), cached);
+    return cached;
+  }
+
+  public void invalidate(String studyId, String token) {
+    String key = key(studyId, token);
+    entries.remove(key);
+    afterCommit(() -> entries.remove(key));
+  }
+
+  public void invalidateAll() {
+    entries.clear();
+    afterCommit(entries::clear);
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+              if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                action.run();
+              }
+            }
+          });
+    }
+  }
+
+  private void put(String key, CachedToken cached) {
+    if (cached.isExpired(System.nanoTime())) {
+      return;
+    }
+    if (entries.size() >= maxEntries) {
+      long now = System.nanoTime();
+      entries.values().removeIf(entry -> entry.isExpired(now));
+      if (entries.size() >= maxEntries) {
+        entries.clear();
+      }
+    }
+    entries.put(key, cached);
+  }
+
+  private static long expiresAt(long seconds) {
+    return System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+  }
+
+  private static String key(String studyId, String token) {
+    return studyId + ":" + StringUtils.upperCase(StringUtils.trim(token));
+  }
+
+  @Getter
+  @AllArgsConstructor(access = AccessLevel.PRIVATE)
+  public static class CachedToken {
+
+    /** {@code false} if no registry entry exists for the token in the study. */
+    private final boolean known;
+
+    private final String participantRegistrySiteId;
+
+    private final String email;
+
+    private final String onboardingStatus;
+
+    private final Timestamp enrollmentTokenExpiry;
+
+    private final boolean enrollmentTokenUsed;
+
+    @Getter(AccessLevel.NONE)
+    private final long expiresAt;
+
+    private boolean isExpired(long now) {
+      return expiresAt - now <= 0;
+    }
+  }
+}
@@ -23,7 +23,9 @@ public enum ApiEndpoint {
   VALIDATE_ENROLLMENT_TOKEN_PATH(
       "http://localhost:8080/participant-enroll-datastore/validateEnrollmentToken"),
 
-  ENROLL_PATH("http://localhost:8080/participant-enroll-datastore/enroll");
+  ENROLL_PATH("http://localhost:8080/participant-enroll-datastore/enroll"),
+
+  BULK_WITHDRAW_PATH("http://localhost:8080/participant-enroll-datastore/bulkwithdraw");
 
   private String url;
 
@@ -13,7 +13,10 @@ import static com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEvent.P
 import static com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEvent.USER_FOUND_ELIGIBLE_FOR_STUDY;
 import static com.google.cloud.healthcare.fdamystudies.common.ErrorCode.TOKEN_EXPIRED;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -34,17 +37,26 @@ import com.google.cloud.healthcare.fdamystudies.repository.ParticipantStudyRepos
 import com.google.cloud.healthcare.fdamystudies.service.EnrollmentTokenService;
 import com.google.cloud.healthcare.fdamystudies.testutils.Constants;
 import com.google.cloud.healthcare.fdamystudies.testutils.TestUtils;
+import com.google.cloud.healthcare.fdamystudies.util.EnrollmentTokenCache;
 import com.google.cloud.healthcare.fdamystudies.util.ErrorResponseUtil.ErrorCodes;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.collections4.map.HashedMap;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 
 public class EnrollmentTokenControllerTest extends BaseMockIT {
 
@@ -57,10 +69,18 @@ public class EnrollmentTokenControllerTest extends BaseMockIT {
 
   @Autowired private ParticipantStudyRepository participantStudyRepository;
 
+  @Autowired private EnrollmentTokenCache enrollmentTokenCache;
+
   protected ObjectMapper getObjectMapper() {
     return objectMapper;
   }
 
+  @BeforeEach
+  public void setUp() {
+    // registry rows are modified directly through the repository in these tests
+    enrollmentTokenCache.invalidateAll();
+  }
+
   @Test
   public void contextLoads() {
     assertNotNull(controller);
@@ -321,6 +341,64 @@ public class EnrollmentTokenControllerTest extends BaseMockIT {
     verifyTokenIntrospectRequest();
   }
 
+  @Test
+  public void shouldNotAllowConcurrentEnrollmentsWithSameToken() throws Exception {
+    Optional<ParticipantRegistrySiteEntity> optParticipantRegistrySite =
+        participantRegistrySiteRepository.findByEnrollmentToken(Constants.TOKEN_NEW);
+    ParticipantRegistrySiteEntity participantRegistrySite = optParticipantRegistrySite.get();
+    participantRegistrySite.setOnboardingStatus(OnboardingStatus.INVITED.getCode());
+    participantRegistrySite.setEnrollmentTokenUsed(false);
+    participantRegistrySite.setEnrollmentTokenExpiry(
+        new Timestamp(Instant.now().plus(1, ChronoUnit.DAYS).toEpochMilli()));
+
+    participantRegistrySiteRepository.saveAndFlush(participantRegistrySite);
+
+    // study type close
+    String requestJson = getEnrollmentJson(Constants.TOKEN_NEW, Constants.STUDYOF_HEALTH_CLOSE);
+    HttpHeaders headers = TestUtils.getCommonHeaders();
+    headers.add(Constants.USER_ID_HEADER, Constants.VALID_USER_ID);
+    headers.add("Authorization", VALID_BEARER_TOKEN);
+
+    int requestCount = 4;
+    ExecutorService executorService = Executors.newFixedThreadPool(requestCount);
+    CountDownLatch startLatch = new CountDownLatch(1);
+    List<Future<Integer>> statuses = new ArrayList<>();
+    for (int i = 0; i < requestCount; i++) {
+      statuses.add(
+          executorService.submit(
+              () -> {
+                startLatch.await();
+                return mockMvc
+                    .perform(
+                        post(ApiEndpoint.ENROLL_PATH.getPath())
+                            .headers(headers)
+                            .content(requestJson)
+                            .contextPath(getContextPath()))
+                    .andReturn()
+                    .getResponse()
+                    .getStatus();
+              }));
+    }
+    startLatch.countDown();
+
+    int enrolledCount = 0;
+    for (Future<Integer> status : statuses) {
+      int httpStatus = status.get(30, TimeUnit.SECONDS);
+      if (httpStatus == HttpStatus.OK.value()) {
+        enrolledCount++;
+      } else {
+        assertEquals(HttpStatus.FORBIDDEN.value(), httpStatus);
+      }
+    }
+    executorService.shutdown();
+
+    // the token can be consumed by exactly one of the requests
+    assertEquals(1, enrolledCount);
+    participantRegistrySite =
+        participantRegistrySiteRepository.findByEnrollmentToken(Constants.TOKEN_NEW).get();
+    assertTrue(participantRegistrySite.isEnrollmentTokenUsed());
+  }
+
   @Test
   public void shouldNotAllowUserForEnrollment() throws Exception {
     List<ParticipantRegistrySiteEntity> participantRegistrySiteList =
@@ -352,6 +430,52 @@ public class EnrollmentTokenControllerTest extends BaseMockIT {
     verifyTokenIntrospectRequest();
   }
 
+  @Test
+  public void shouldNotEnrollWithTokenDisabledAfterItWasCached() throws Exception {
+    ParticipantRegistrySiteEntity participantRegistrySite =
+        participantRegistrySiteRepository.findByEnrollmentToken(Constants.TOKEN_NEW).get();
+    String onboardingStatus = participantRegistrySite.getOnboardingStatus();
+    boolean enrollmentTokenUsed = participantRegistrySite.isEnrollmentTokenUsed();
+    Timestamp enrollmentTokenExpiry = participantRegistrySite.getEnrollmentTokenExpiry();
+    participantRegistrySite.setOnboardingStatus(OnboardingStatus.INVITED.getCode());
+    participantRegistrySite.setEnrollmentTokenUsed(false);
+    participantRegistrySite.setEnrollmentTokenExpiry(
+        new Timestamp(Instant.now().plus(1, ChronoUnit.DAYS).toEpochMilli()));
+    participantRegistrySiteRepository.saveAndFlush(participantRegistrySite);
+    enrollmentTokenCache.putKnown(
+        Constants.STUDYOF_HEALTH_CLOSE, Constants.TOKEN_NEW, participantRegistrySite);
+
+    // disabled by another service, which leaves the cached entry in place
+    participantRegistrySite.setOnboardingStatus(OnboardingStatus.DISABLED.getCode());
+    participantRegistrySiteRepository.saveAndFlush(participantRegistrySite);
+
+    String requestJson = getEnrollmentJson(Constants.TOKEN_NEW, Constants.STUDYOF_HEALTH_CLOSE);
+    HttpHeaders headers = TestUtils.getCommonHeaders();
+    headers.add(Constants.USER_ID_HEADER, Constants.VALID_USER_ID);
+    headers.add("Authorization", VALID_BEARER_TOKEN);
+
+    mockMvc
+        .perform(
+            post(ApiEndpoint.ENROLL_PATH.getPath())
+                .headers(headers)
+                .content(requestJson)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isGone())
+        .andExpect(jsonPath("$.error_description", is(TOKEN_EXPIRED.getDescription())));
+
+    participantRegistrySite =
+        participantRegistrySiteRepository.findByEnrollmentToken(Constants.TOKEN_NEW).get();
+    assertFalse(participantRegistrySite.isEnrollmentTokenUsed());
+
+    verifyTokenIntrospectRequest();
+
+    participantRegistrySite.setOnboardingStatus(onboardingStatus);
+    participantRegistrySite.setEnrollmentTokenUsed(enrollmentTokenUsed);
+    participantRegistrySite.setEnrollmentTokenExpiry(enrollmentTokenExpiry);
+    participantRegistrySiteRepository.saveAndFlush(participantRegistrySite);
+  }
+
   @Test
   public void shouldReturnUnknownTokenForEnrollment() throws Exception {
     List<ParticipantRegistrySiteEntity> participantRegistrySiteList =
@@ -16,6 +16,7 @@ import static com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEvent.W
 import static com.google.cloud.healthcare.fdamystudies.common.EnrollAuditEvent.WITHDRAWAL_FROM_STUDY_SUCCEEDED;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -26,7 +27,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.client.WireMock;
 import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
+import com.google.cloud.healthcare.fdamystudies.beans.BulkWithdrawalBean;
+import com.google.cloud.healthcare.fdamystudies.beans.BulkWithdrawalJobBean;
 import com.google.cloud.healthcare.fdamystudies.beans.StudiesBean;
 import com.google.cloud.healthcare.fdamystudies.beans.StudyStateBean;
 import com.google.cloud.healthcare.fdamystudies.beans.StudyStateReqBean;
@@ -34,17 +38,38 @@ import com.google.cloud.healthcare.fdamystudies.beans.StudyStateResponse;
 import com.google.cloud.healthcare.fdamystudies.beans.WithdrawFromStudyBean;
 import com.google.cloud.healthcare.fdamystudies.common.ApiEndpoint;
 import com.google.cloud.healthcare.fdamystudies.common.BaseMockIT;
+import com.google.cloud.healthcare.fdamystudies.common.BulkWithdrawalStatus;
+import com.google.cloud.healthcare.fdamystudies.common.CommonConstants;
 import com.google.cloud.healthcare.fdamystudies.common.EnrollmentStatus;
 import com.google.cloud.healthcare.fdamystudies.common.JsonUtils;
+import com.google.cloud.healthcare.fdamystudies.common.OnboardingStatus;
+import com.google.cloud.healthcare.fdamystudies.common.Permission;
+import com.google.cloud.healthcare.fdamystudies.common.UserStatus;
 import com.google.cloud.healthcare.fdamystudies.controller.StudyStateController;
+import com.google.cloud.healthcare.fdamystudies.model.ParticipantRegistrySiteEntity;
+import com.google.cloud.healthcare.fdamystudies.model.ParticipantStudyEntity;
+import com.google.cloud.healthcare.fdamystudies.model.SiteEntity;
+import com.google.cloud.healthcare.fdamystudies.model.SitePermissionEntity;
+import com.google.cloud.healthcare.fdamystudies.model.UserDetailsEntity;
+import com.google.cloud.healthcare.fdamystudies.model.UserRegAdminEntity;
+import com.google.cloud.healthcare.fdamystudies.repository.AppRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.ParticipantRegistrySiteRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.ParticipantStudyRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.SitePermissionRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.SiteRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.UserDetailsRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.UserRegAdminRepository;
 import com.google.cloud.healthcare.fdamystudies.service.StudyStateService;
 import com.google.cloud.healthcare.fdamystudies.testutils.Constants;
 import com.google.cloud.healthcare.fdamystudies.testutils.TestUtils;
+import com.jayway.jsonpath.JsonPath;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.apache.commons.collections4.map.HashedMap;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
@@ -53,6 +78,13 @@ import org.springframework.test.web.servlet.MvcResult;
 
 public class StudyStateControllerTest extends BaseMockIT {
 
+  private static final String BULK_WITHDRAW_STUDY_ID = "OpenStudy02rr";
+
+  private static final String BULK_WITHDRAW_SITE_ID = "3";
+
+  // subject of hydra/introspect_response.json
+  private static final String TOKEN_SUBJECT = "test";
+
   @Autowired private StudyStateController controller;
 
   @Autowired private StudyStateService studyStateService;
@@ -61,6 +93,24 @@ public class StudyStateControllerTest extends BaseMockIT {
 
   @Autowired protected MockMvc mockMvc;
 
+  @Autowired private SiteRepository siteRepository;
+
+  @Autowired private UserDetailsRepository userDetailsRepository;
+
+  @Autowired private ParticipantRegistrySiteRepository participantRegistrySiteRepository;
+
+  @Autowired private ParticipantStudyRepository participantStudyRepository;
+
+  @Autowired private AppRepository appRepository;
+
+  @Autowired private UserRegAdminRepository userRegAdminRepository;
+
+  @Autowired private SitePermissionRepository sitePermissionRepository;
+
+  private List<ParticipantStudyEntity> bulkParticipantStudies = new ArrayList<>();
+
+  private List<UserRegAdminEntity> bulkWithdrawalAdmins = new ArrayList<>();
+
   protected ObjectMapper getObjectMapper() {
     return objectMapper;
   }
@@ -342,6 +392,332 @@ public class StudyStateControllerTest extends BaseMockIT {
     verifyTokenIntrospectRequest(3);
   }
 
+  @Test
+  public void shouldWithdrawParticipantsOfSiteInBulk() throws Exception {
+    List<String> participantIds =
+        Arrays.asList("bulk-withdraw-1", "bulk-withdraw-2", "bulk-withdraw-3");
+    participantIds.forEach(this::newBulkParticipantStudy);
+    UserRegAdminEntity admin = newBulkWithdrawalAdmin(false);
+    newBulkWithdrawalSitePermission(admin, Permission.EDIT);
+
+    HttpHeaders headers = TestUtils.getCommonHeaders();
+    headers.add("Authorization", VALID_BEARER_TOKEN);
+    headers.add(Constants.USER_ID_HEADER, admin.getId());
+
+    BulkWithdrawalBean bulkWithdrawalBean = new BulkWithdrawalBean();
+    bulkWithdrawalBean.setStudyId(BULK_WITHDRAW_STUDY_ID);
+    bulkWithdrawalBean.setSiteId(BULK_WITHDRAW_SITE_ID);
+
+    MvcResult result =
+        mockMvc
+            .perform(
+                post(ApiEndpoint.BULK_WITHDRAW_PATH.getPath())
+                    .content(getObjectMapper().writeValueAsString(bulkWithdrawalBean))
+                    .headers(headers)
+                    .contextPath(getContextPath()))
+            .andDo(print())
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.total", is(3)))
+            .andReturn();
+
+    String jobId = JsonPath.read(result.getResponse().getContentAsString(), "$.jobId");
+    BulkWithdrawalJobBean jobBean = waitForBulkWithdrawalJob(jobId, headers);
+
+    assertEquals(BulkWithdrawalStatus.COMPLETED.name(), jobBean.getStatus());
+    assertEquals(3, jobBean.getWithdrawn());
+    assertEquals(0, jobBean.getFailed());
+
+    // chunks of 2 participants, see bulk.withdrawal.chunk.size
+    WireMock.verify(
+        2,
+        WireMock.postRequestedFor(
+            WireMock.urlEqualTo("/response-datastore/participant/withdraw/bulk")));
+
+    for (ParticipantStudyEntity participantStudy : bulkParticipantStudies) {
+      ParticipantStudyEntity withdrawn =
+          participantStudyRepository.findById(participantStudy.getId()).get();
+      ParticipantRegistrySiteEntity registry =
+          participantRegistrySiteRepository
+              .findById(participantStudy.getParticipantRegistrySite().getId())
+              .get();
+      assertAll(
+          () -> assertEquals(EnrollmentStatus.WITHDRAWN.getStatus(), withdrawn.getStatus()),
+          () -> assertEquals(null, withdrawn.getParticipantId()),
+          () -> assertNotNull(withdrawn.getWithdrawalDate()),
+          () -> assertEquals(OnboardingStatus.DISABLED.getCode(), registry.getOnboardingStatus()));
+    }
+
+    assertEquals(
+        3,
+        auditRequests
+            .stream()
+            .filter(
+                auditRequest ->
+                    WITHDRAWAL_FROM_STUDY_SUCCEEDED
+                        .getEventCode()
+                        .equals(auditRequest.getEventCode()))
+            .filter(auditRequest -> participantIds.contains(auditRequest.getParticipantId()))
+            .count());
+  }
+
+  @Test
+  public void shouldKeepParticipantsEnrolledWhenBulkWithdrawalFails() throws Exception {
+    List<String> participantIds = Arrays.asList("bulk-withdraw-failure", "bulk-withdraw-4");
+    participantIds.forEach(this::newBulkParticipantStudy);
+
+    HttpHeaders headers = TestUtils.getCommonHeaders();
+    headers.add("Authorization", VALID_BEARER_TOKEN);
+    headers.add(Constants.USER_ID_HEADER, newBulkWithdrawalAdmin(true).getId());
+
+    BulkWithdrawalBean bulkWithdrawalBean = new BulkWithdrawalBean();
+    bulkWithdrawalBean.setStudyId(BULK_WITHDRAW_STUDY_ID);
+    bulkWithdrawalBean.setParticipantIds(participantIds);
+
+    MvcResult result =
+        mockMvc
+            .perform(
+                post(ApiEndpoint.BULK_WITHDRAW_PATH.getPath())
+                    .content(getObjectMapper().writeValueAsString(bulkWithdrawalBean))
+                    .headers(headers)
+                    .contextPath(getContextPath()))
+            .andDo(print())
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.total", is(2)))
+            .andReturn();
+
+    String jobId = JsonPath.read(result.getResponse().getContentAsString(), "$.jobId");
+    BulkWithdrawalJobBean jobBean = waitForBulkWithdrawalJob(jobId, headers);
+
+    assertEquals(BulkWithdrawalStatus.COMPLETED_WITH_ERRORS.name(), jobBean.getStatus());
+    assertEquals(0, jobBean.getWithdrawn());
+    assertEquals(2, jobBean.getFailed());
+
+    // retried up to bulk.withdrawal.max.attempts
+    WireMock.verify(
+        3,
+        WireMock.postRequestedFor(
+            WireMock.urlEqualTo("/response-datastore/participant/withdraw/bulk")));
+
+    for (ParticipantStudyEntity participantStudy : bulkParticipantStudies) {
+      ParticipantStudyEntity enrolled =
+          participantStudyRepository.findById(participantStudy.getId()).get();
+      assertEquals(EnrollmentStatus.ENROLLED.getStatus(), enrolled.getStatus());
+      assertEquals(participantStudy.getParticipantId(), enrolled.getParticipantId());
+    }
+  }
+
+  @Test
+  public void shouldReturnBadRequestForBulkWithdrawal() throws Exception {
+    HttpHeaders headers = TestUtils.getCommonHeaders();
+    headers.add("Authorization", VALID_BEARER_TOKEN);
+    headers.add(Constants.USER_ID_HEADER, newBulkWithdrawalAdmin(true).getId());
+
+    // neither a site nor participants
+    BulkWithdrawalBean bulkWithdrawalBean = new BulkWithdrawalBean();
+    bulkWithdrawalBean.setStudyId(BULK_WITHDRAW_STUDY_ID);
+
+    mockMvc
+        .perform(
+            post(ApiEndpoint.BULK_WITHDRAW_PATH.getPath())
+                .content(getObjectMapper().writeValueAsString(bulkWithdrawalBean))
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isBadRequest());
+
+    // site of another study
+    bulkWithdrawalBean.setSiteId(Constants.SITE_ID);
+
+    mockMvc
+        .perform(
+            post(ApiEndpoint.BULK_WITHDRAW_PATH.getPath())
+                .content(getObjectMapper().writeValueAsString(bulkWithdrawalBean))
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isNotFound());
+
+    mockMvc
+        .perform(
+            get(ApiEndpoint.BULK_WITHDRAW_PATH.getPath() + "/{jobId}", "unknown-job")
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isNotFound());
+
+    verifyTokenIntrospectRequest(3);
+  }
+
+  @Test
+  public void shouldReturnForbiddenForBulkWithdrawalWithoutEditPermission() throws Exception {
+    List<String> participantIds = Arrays.asList("bulk-withdraw-5", "bulk-withdraw-6");
+    participantIds.forEach(this::newBulkParticipantStudy);
+    UserRegAdminEntity admin = newBulkWithdrawalAdmin(false);
+    newBulkWithdrawalSitePermission(admin, Permission.VIEW);
+
+    BulkWithdrawalBean bulkWithdrawalBean = new BulkWithdrawalBean();
+    bulkWithdrawalBean.setStudyId(BULK_WITHDRAW_STUDY_ID);
+    bulkWithdrawalBean.setSiteId(BULK_WITHDRAW_SITE_ID);
+
+    // a participant, not a participant manager admin
+    HttpHeaders headers = TestUtils.getCommonHeaders();
+    headers.add("Authorization", VALID_BEARER_TOKEN);
+    headers.add(Constants.USER_ID_HEADER, Constants.VALID_USER_ID);
+
+    mockMvc
+        .perform(
+            post(ApiEndpoint.BULK_WITHDRAW_PATH.getPath())
+                .content(getObjectMapper().writeValueAsString(bulkWithdrawalBean))
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isForbidden());
+
+    // an admin with view permission on the site
+    headers.set(Constants.USER_ID_HEADER, admin.getId());
+
+    mockMvc
+        .perform(
+            post(ApiEndpoint.BULK_WITHDRAW_PATH.getPath())
+                .content(getObjectMapper().writeValueAsString(bulkWithdrawalBean))
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isForbidden());
+
+    // the given participants need edit permission on the study
+    newBulkWithdrawalSitePermission(admin, Permission.EDIT);
+    bulkWithdrawalBean.setSiteId(null);
+    bulkWithdrawalBean.setParticipantIds(participantIds);
+
+    mockMvc
+        .perform(
+            post(ApiEndpoint.BULK_WITHDRAW_PATH.getPath())
+                .content(getObjectMapper().writeValueAsString(bulkWithdrawalBean))
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isForbidden());
+
+    // a super admin the access token was not issued to
+    headers.set(Constants.USER_ID_HEADER, newBulkWithdrawalAdmin(true, "another-admin").getId());
+
+    mockMvc
+        .perform(
+            post(ApiEndpoint.BULK_WITHDRAW_PATH.getPath())
+                .content(getObjectMapper().writeValueAsString(bulkWithdrawalBean))
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isForbidden());
+
+    verifyTokenIntrospectRequest(4);
+    WireMock.verify(
+        0,
+        WireMock.postRequestedFor(
+            WireMock.urlEqualTo("/response-datastore/participant/withdraw/bulk")));
+    for (ParticipantStudyEntity participantStudy : bulkParticipantStudies) {
+      assertEquals(
+          EnrollmentStatus.ENROLLED.getStatus(),
+          participantStudyRepository.findById(participantStudy.getId()).get().getStatus());
+    }
+  }
+
+  @AfterEach
+  public void clean() {
+    bulkParticipantStudies.forEach(
+        participantStudy -> {
+          participantStudyRepository.deleteById(participantStudy.getId());
+          participantRegistrySiteRepository.deleteById(
+              participantStudy.getParticipantRegistrySite().getId());
+          userDetailsRepository.deleteById(participantStudy.getUserDetails().getId());
+        });
+    bulkParticipantStudies.clear();
+    bulkWithdrawalAdmins.forEach(
+        admin -> {
+          sitePermissionRepository.deleteByAdminUserId(admin.getId());
+          userRegAdminRepository.deleteById(admin.getId());
+        });
+    bulkWithdrawalAdmins.clear();
+  }
+
+  private BulkWithdrawalJobBean waitForBulkWithdrawalJob(String jobId, HttpHeaders headers)
+      throws Exception {
+    for (int i = 0; i < 100; i++) {
+      MvcResult result =
+          mockMvc
+              .perform(
+                  get(ApiEndpoint.BULK_WITHDRAW_PATH.getPath() + "/{jobId}", jobId)
+                      .headers(headers)
+                      .contextPath(getContextPath()))
+              .andExpect(status().isOk())
+              .andReturn();
+      BulkWithdrawalJobBean jobBean =
+          getObjectMapper()
+              .readValue(result.getResponse().getContentAsString(), BulkWithdrawalJobBean.class);
+      if (!BulkWithdrawalStatus.IN_PROGRESS.name().equals(jobBean.getStatus())) {
+        return jobBean;
+      }
+      Thread.sleep(100);
+    }
+    throw new AssertionError(String.format("Bulk withdrawal job %s did not complete", jobId));
+  }
+
+  private UserRegAdminEntity newBulkWithdrawalAdmin(boolean superAdmin) {
+    return newBulkWithdrawalAdmin(superAdmin, TOKEN_SUBJECT);
+  }
+
+  private UserRegAdminEntity newBulkWithdrawalAdmin(boolean superAdmin, String urAdminAuthId) {
+    UserRegAdminEntity admin = new UserRegAdminEntity();
+    admin.setEmail(String.format("bulk-withdraw-admin-%d@grr.la", bulkWithdrawalAdmins.size()));
+    admin.setStatus(CommonConstants.ACTIVE_STATUS);
+    admin.setSuperAdmin(superAdmin);
+    admin.setUrAdminAuthId(urAdminAuthId);
+    admin = userRegAdminRepository.saveAndFlush(admin);
+    bulkWithdrawalAdmins.add(admin);
+    return admin;
+  }
+
+  private void newBulkWithdrawalSitePermission(UserRegAdminEntity admin, Permission permission) {
+    sitePermissionRepository.deleteByAdminUserId(admin.getId());
+    SiteEntity site = siteRepository.findById(BULK_WITHDRAW_SITE_ID).get();
+    SitePermissionEntity sitePermission = new SitePermissionEntity();
+    sitePermission.setApp(appRepository.findById("1").get());
+    sitePermission.setStudy(site.getStudy());
+    sitePermission.setSite(site);
+    sitePermission.setUrAdminUser(admin);
+    sitePermission.setCanEdit(permission);
+    sitePermissionRepository.saveAndFlush(sitePermission);
+  }
+
+  private void newBulkParticipantStudy(String participantId) {
+    SiteEntity site = siteRepository.findById(BULK_WITHDRAW_SITE_ID).get();
+
+    ParticipantRegistrySiteEntity registry = new ParticipantRegistrySiteEntity();
+    registry.setSite(site);
+    registry.setStudy(site.getStudy());
+    registry.setEmail(participantId + "@grr.la");
+    registry.setOnboardingStatus(OnboardingStatus.ENROLLED.getCode());
+    registry = participantRegistrySiteRepository.saveAndFlush(registry);
+
+    ParticipantStudyEntity participantStudy = new ParticipantStudyEntity();
+    participantStudy.setParticipantId(participantId);
+    participantStudy.setStudy(site.getStudy());
+    participantStudy.setSite(site);
+    participantStudy.setParticipantRegistrySite(registry);
+    participantStudy.setUserDetails(newBulkUserDetails(participantId));
+    participantStudy.setStatus(EnrollmentStatus.ENROLLED.getStatus());
+    bulkParticipantStudies.add(participantStudyRepository.saveAndFlush(participantStudy));
+  }
+
+  private UserDetailsEntity newBulkUserDetails(String participantId) {
+    UserDetailsEntity userDetails = new UserDetailsEntity();
+    userDetails.setUserId(participantId);
+    userDetails.setEmail(participantId + "@grr.la");
+    userDetails.setStatus(UserStatus.ACTIVE.getValue());
+    return userDetailsRepository.saveAndFlush(userDetails);
+  }
+
   private String getWithDrawJson(String participatId, String studyId)
       throws JsonProcessingException {
     WithdrawFromStudyBean withdrawFromStudyBean = new WithdrawFromStudyBean(participatId, studyId);
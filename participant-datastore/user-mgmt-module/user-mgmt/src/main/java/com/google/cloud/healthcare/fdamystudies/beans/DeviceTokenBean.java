@@ -0,0 +1,27 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.beans;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class DeviceTokenBean {
+
+  @ToString.Exclude private String authInfoId;
+
+  private String deviceType;
+
+  private String deviceToken;
+
+  private String appId;
+}
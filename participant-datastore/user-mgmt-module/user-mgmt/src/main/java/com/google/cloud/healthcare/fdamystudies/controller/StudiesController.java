@@ -70,19 +70,52 @@ public class StudiesController {
     return new ResponseEntity<>(errorBean, HttpStatus.OK);
   }
 
-  @ApiOperation(value = "Sends notifications to users")
+  /**
+   * First version of the API. Gateway notifications still go to the users of every app named in
+   * the request, but are now queued and sent in the background, so the response no longer carries
+   * the FCM result.
+   */
+  @ApiOperation(
+      value = "Sends notifications to users",
+      notes =
+          "Notifications are queued and sent in the background. Use /studies/v2/sendNotification"
+              + " for the ids of the queued notifications.")
   @PostMapping("/sendNotification")
   public ResponseEntity<?> SendNotification(
       @Valid @RequestBody NotificationForm notificationForm, HttpServletRequest request)
       throws IOException {
     logger.info("StudiesController - SendNotification() : starts");
+    ResponseEntity<ErrorBean> response = sendNotification(notificationForm, request, true);
+    logger.info("StudiesController - SendNotification() : ends");
+    if (response.getStatusCode() != HttpStatus.OK) {
+      return response;
+    }
+    return new ResponseEntity<>(
+        new ErrorBean(ErrorCode.EC_200.code(), ErrorCode.EC_200.errorMessage()), HttpStatus.OK);
+  }
+
+  @ApiOperation(
+      value = "Queues notifications for users and returns the ids of the queued notifications",
+      notes = "Gateway notifications go to the users of the notification's app only.")
+  @PostMapping("/v2/sendNotification")
+  public ResponseEntity<?> sendNotificationV2(
+      @Valid @RequestBody NotificationForm notificationForm, HttpServletRequest request)
+      throws IOException {
+    logger.info("StudiesController - sendNotificationV2() : starts");
+    ResponseEntity<ErrorBean> response = sendNotification(notificationForm, request, false);
+    logger.info("StudiesController - sendNotificationV2() : ends");
+    return response;
+  }
+
+  private ResponseEntity<ErrorBean> sendNotification(
+      NotificationForm notificationForm, HttpServletRequest request, boolean gatewayToAllApps)
+      throws IOException {
     AuditLogEventRequest auditRequest = AuditEventMapper.fromHttpServletRequest(request);
 
     userMgmntAuditHelper.logEvent(NOTIFICATION_METADATA_RECEIVED, auditRequest);
 
-    ErrorBean errorBean = null;
-
-    errorBean = studiesServices.SendNotificationAction(notificationForm, auditRequest);
+    ErrorBean errorBean =
+        studiesServices.SendNotificationAction(notificationForm, auditRequest, gatewayToAllApps);
 
     if (errorBean.getCode() != ErrorCode.EC_200.code()) {
       return new ResponseEntity<>(errorBean, HttpStatus.BAD_REQUEST);
@@ -91,7 +124,6 @@ public class StudiesController {
     errorBean =
         new ErrorBean(
             ErrorCode.EC_200.code(), ErrorCode.EC_200.errorMessage(), errorBean.getResponse());
-    logger.info("StudiesController - SendNotification() : ends");
     return new ResponseEntity<>(errorBean, HttpStatus.OK);
   }
 }
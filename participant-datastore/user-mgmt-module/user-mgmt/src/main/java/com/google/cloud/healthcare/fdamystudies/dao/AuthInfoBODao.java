@@ -8,14 +8,18 @@
 
 package com.google.cloud.healthcare.fdamystudies.dao;
 
-import com.google.cloud.healthcare.fdamystudies.model.AppEntity;
 import com.google.cloud.healthcare.fdamystudies.model.AuthInfoEntity;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import org.json.JSONArray;
 
 public interface AuthInfoBODao {
   AuthInfoEntity save(AuthInfoEntity authInfo);
 
-  Map<String, JSONArray> getDeviceTokenOfAllUsers(List<AppEntity> appInfos);
+  /**
+   * Returns a cursor over the device tokens of users registered in the apps, optionally restricted
+   * to one device type.
+   */
+  DeviceTokenCursor getDeviceTokens(List<String> appIds, String deviceType, int pageSize);
+
+  int removeDeviceTokens(Collection<String> deviceTokens);
 }
@@ -8,27 +8,32 @@
 
 package com.google.cloud.healthcare.fdamystudies.dao;
 
-import com.google.cloud.healthcare.fdamystudies.model.AppEntity;
+import com.google.cloud.healthcare.fdamystudies.beans.DeviceTokenBean;
 import com.google.cloud.healthcare.fdamystudies.model.AuthInfoEntity;
 import com.google.cloud.healthcare.fdamystudies.repository.AuthInfoRepository;
-import com.google.cloud.healthcare.fdamystudies.util.AppConstants;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import org.json.JSONArray;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class AuthInfoBODaoImpl implements AuthInfoBODao {
 
   private static final Logger logger = LoggerFactory.getLogger(AuthInfoBODaoImpl.class);
 
+  private static final int DEVICE_TOKEN_BATCH_SIZE = 500;
+
   @Autowired AuthInfoRepository authInfoRepository;
 
+  @Autowired private SessionFactory sessionFactory;
+
   @Override
   public AuthInfoEntity save(AuthInfoEntity authInfo) {
     logger.info("AuthInfoBODaoImpl save() - starts");
@@ -41,38 +46,58 @@ public class AuthInfoBODaoImpl implements AuthInfoBODao {
   }
 
   @Override
-  public Map<String, JSONArray> getDeviceTokenOfAllUsers(List<AppEntity> appInfos) {
-    logger.info("AuthInfoBODaoImpl.getDeviceTokenOfAllUsers()-Start");
-    JSONArray androidJsonArray = null;
-    JSONArray iosJsonArray = null;
-    Map<String, JSONArray> deviceMap = new HashMap<>();
-    List<String> appInfoIds =
-        appInfos.stream().map(a -> a.getAppId()).distinct().collect(Collectors.toList());
+  public DeviceTokenCursor getDeviceTokens(List<String> appIds, String deviceType, int pageSize) {
+    return new DeviceTokenCursor(
+        (afterAuthInfoId, limit) -> {
+          logger.info("AuthInfoBODaoImpl.getDeviceTokens()-Start");
+          Session session = this.sessionFactory.getCurrentSession();
+          StringBuilder hql =
+              new StringBuilder(
+                  "SELECT new com.google.cloud.healthcare.fdamystudies.beans.DeviceTokenBean("
+                      + "a.authId, a.deviceType, trim(a.deviceToken), a.app.appId) "
+                      + "FROM AuthInfoEntity a WHERE a.remoteNotificationFlag = true "
+                      + "AND a.deviceToken is not NULL AND a.deviceToken != '' "
+                      + "AND a.deviceType is not NULL AND a.deviceType != '' "
+                      + "AND EXISTS (SELECT u.userAppDetailsId FROM UserAppDetailsEntity u "
+                      + "WHERE u.userDetails = a.userDetails AND u.app.appId in (:appIds))");
+          if (deviceType != null) {
+            hql.append(" AND a.deviceType = :deviceType");
+          }
+          if (afterAuthInfoId != null) {
+            hql.append(" AND a.authId > :afterAuthInfoId");
+          }
+          hql.append(" ORDER BY a.authId");
 
-    if (appInfoIds != null && !appInfoIds.isEmpty()) {
-      List<AuthInfoEntity> authInfos = authInfoRepository.findDevicesTokens(appInfoIds);
-      if (authInfos != null && !authInfos.isEmpty()) {
-        androidJsonArray = new JSONArray();
-        iosJsonArray = new JSONArray();
-        for (AuthInfoEntity authInfo : authInfos) {
-          String devicetoken = authInfo.getDeviceToken();
-          String devicetype = authInfo.getDeviceType();
-          if (devicetoken != null && devicetype != null) {
-            if (devicetype.equalsIgnoreCase(AppConstants.DEVICE_ANDROID)) {
-              androidJsonArray.put(devicetoken.trim());
-            } else if (devicetype.equalsIgnoreCase(AppConstants.DEVICE_IOS)) {
-              iosJsonArray.put(devicetoken.trim());
-            } else {
-              logger.error("Invalid Device Type");
-            }
+          Query<DeviceTokenBean> query =
+              session
+                  .createQuery(hql.toString(), DeviceTokenBean.class)
+                  .setParameterList("appIds", appIds)
+                  .setMaxResults(limit);
+          if (deviceType != null) {
+            query.setParameter("deviceType", deviceType);
           }
-        }
-        deviceMap.put(AppConstants.DEVICE_ANDROID, androidJsonArray);
-        deviceMap.put(AppConstants.DEVICE_IOS, iosJsonArray);
-      }
-    }
+          if (afterAuthInfoId != null) {
+            query.setParameter("afterAuthInfoId", afterAuthInfoId);
+          }
+          List<DeviceTokenBean> deviceTokens = query.getResultList();
+          logger.info("AuthInfoBODaoImpl.getDeviceTokens()-end, page size " + deviceTokens.size());
+          return deviceTokens;
+        },
+        pageSize);
+  }
 
-    logger.info("AuthInfoBODaoImpl.getDeviceTokenOfAllUsers()-end ");
-    return deviceMap;
+  @Override
+  @Transactional
+  public int removeDeviceTokens(Collection<String> deviceTokens) {
+    logger.info("AuthInfoBODaoImpl.removeDeviceTokens()-Start");
+    int removedCount = 0;
+    List<String> tokens = new ArrayList<>(deviceTokens);
+    for (int from = 0; from < tokens.size(); from += DEVICE_TOKEN_BATCH_SIZE) {
+      removedCount +=
+          authInfoRepository.clearDeviceTokens(
+              tokens.subList(from, Math.min(from + DEVICE_TOKEN_BATCH_SIZE, tokens.size())));
+    }
+    logger.info("AuthInfoBODaoImpl.removeDeviceTokens()-end ");
+    return removedCount;
   }
 }
@@ -13,8 +13,6 @@ import com.google.cloud.healthcare.fdamystudies.model.AppEntity;
 import com.google.cloud.healthcare.fdamystudies.model.StudyEntity;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import org.json.JSONArray;
 
 public interface CommonDao {
 
@@ -28,8 +26,12 @@ public interface CommonDao {
 
   public List<StudyEntity> getStudyInfoSet(HashSet<String> studyInfoSet);
 
-  public Map<String, Map<String, JSONArray>> getStudyLevelDeviceToken(
-      List<StudyEntity> studyInfoIds);
+  /**
+   * Returns a cursor over the device tokens of participants enrolled in the study, optionally
+   * restricted to one device type.
+   */
+  public DeviceTokenCursor getStudyDeviceTokens(
+      String studyInfoId, String deviceType, int pageSize);
 
   public String getParticipantId(String id, String customStudyId);
 }
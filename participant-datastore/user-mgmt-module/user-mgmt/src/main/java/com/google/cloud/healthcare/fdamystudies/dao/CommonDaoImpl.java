@@ -9,6 +9,7 @@
 package com.google.cloud.healthcare.fdamystudies.dao;
 
 import com.google.cloud.healthcare.fdamystudies.beans.AppOrgInfoBean;
+import com.google.cloud.healthcare.fdamystudies.beans.DeviceTokenBean;
 import com.google.cloud.healthcare.fdamystudies.common.ErrorCode;
 import com.google.cloud.healthcare.fdamystudies.config.ApplicationPropertyConfiguration;
 import com.google.cloud.healthcare.fdamystudies.exceptions.ErrorCodeException;
@@ -20,18 +21,15 @@ import com.google.cloud.healthcare.fdamystudies.model.UserDetailsEntity;
 import com.google.cloud.healthcare.fdamystudies.util.AppConstants;
 import com.google.cloud.healthcare.fdamystudies.util.MyStudiesUserRegUtil;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.json.JSONArray;
+import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -206,67 +204,47 @@ public class CommonDaoImpl implements CommonDao {
   }
 
   @Override
-  public Map<String, Map<String, JSONArray>> getStudyLevelDeviceToken(
-      List<StudyEntity> studyInfos) {
-    logger.info("CommonDaoImpl.getStudyLevelDeviceToken() - starts");
-
-    Map<String, Map<String, JSONArray>> studyDeviceTokenMap = new HashMap<>();
-    Session session = this.sessionFactory.getCurrentSession();
-
-    if (studyInfos != null && !studyInfos.isEmpty()) {
-
-      List<String> studyInfoIds =
-          studyInfos.stream().map(a -> a.getId()).distinct().collect(Collectors.toList());
-      List<Object[]> rs =
-          session
-              .createSQLQuery(
-                  "SELECT sp.study_info_id, GROUP_CONCAT(a.device_token) as device_token,GROUP_CONCAT(a.device_type) as device_type FROM participant_study_info sp, auth_info a"
-                      + " where sp.user_details_id = a.user_details_id and sp.status not in('yetToEnroll','withdrawn','notEligible') and a.remote_notification_flag=1"
-                      + " and sp.study_info_id in (:studyIds)  and (a.device_token is not NULL and a.device_token != '' and a.device_type is not"
-                      + " NULL and a.device_type != '') GROUP BY sp.study_info_id")
-              .setParameterList("studyIds", studyInfoIds)
-              .getResultList();
-      logger.info("CommonDaoImpl.getStudyLevelDeviceToken() ResultSet size::" + rs.size());
-      if (rs != null) {
-        for (Object[] objects : rs) {
-
-          String studyId = (String) objects[0];
-          String deviceToken = (String) objects[1];
-          String deviceType = (String) objects[2];
-          if (deviceToken != null) {
-            String[] deviceTokens = deviceToken.split(",");
-            String[] deviceTypes = deviceType.split(",");
-
-            if (((deviceTokens != null && deviceTokens.length > 0)
-                    && (deviceType != null && deviceTypes.length > 0))
-                && (deviceTokens.length == deviceTypes.length)) {
-
-              JSONArray jsonArray = new JSONArray();
-              JSONArray iosJsonArray = new JSONArray();
-              Map<String, JSONArray> deviceMap = new HashMap<>();
-              for (int i = 0; i < deviceTokens.length; i++) {
-                if (deviceTypes[i] != null
-                    && deviceTypes[i].equalsIgnoreCase(AppConstants.DEVICE_ANDROID)) {
-                  jsonArray.put(deviceTokens[i].trim());
-                } else if (deviceTypes[i] != null
-                    && deviceTypes[i].equalsIgnoreCase(AppConstants.DEVICE_IOS)) {
-                  iosJsonArray.put(deviceTokens[i].trim());
-                } else {
-                  logger.error("Invalid Device Type");
-                }
-              }
-              deviceMap.put(AppConstants.DEVICE_ANDROID, jsonArray);
-              deviceMap.put(AppConstants.DEVICE_IOS, iosJsonArray);
-
-              studyDeviceTokenMap.put(studyId, deviceMap);
-            }
+  public DeviceTokenCursor getStudyDeviceTokens(
+      String studyInfoId, String deviceType, int pageSize) {
+    return new DeviceTokenCursor(
+        (afterAuthInfoId, limit) -> {
+          logger.info("CommonDaoImpl.getStudyDeviceTokens() - starts");
+          Session session = this.sessionFactory.getCurrentSession();
+          StringBuilder hql =
+              new StringBuilder(
+                  "SELECT new com.google.cloud.healthcare.fdamystudies.beans.DeviceTokenBean("
+                      + "a.authId, a.deviceType, trim(a.deviceToken), a.app.appId) "
+                      + "FROM AuthInfoEntity a WHERE a.remoteNotificationFlag = true "
+                      + "AND a.deviceToken is not NULL AND a.deviceToken != '' "
+                      + "AND a.deviceType is not NULL AND a.deviceType != '' "
+                      + "AND EXISTS (SELECT ps.id FROM ParticipantStudyEntity ps "
+                      + "WHERE ps.userDetails = a.userDetails AND ps.study.id = :studyInfoId "
+                      + "AND ps.status not in ('yetToEnroll','withdrawn','notEligible'))");
+          if (deviceType != null) {
+            hql.append(" AND a.deviceType = :deviceType");
           }
-        }
-      }
-    }
-
-    logger.info("CommonDaoImpl.getStudyLevelDeviceToken() - ends ");
-    return studyDeviceTokenMap;
+          if (afterAuthInfoId != null) {
+            hql.append(" AND a.authId > :afterAuthInfoId");
+          }
+          hql.append(" ORDER BY a.authId");
+
+          Query<DeviceTokenBean> query =
+              session
+                  .createQuery(hql.toString(), DeviceTokenBean.class)
+                  .setParameter("studyInfoId", studyInfoId)
+                  .setMaxResults(limit);
+          if (deviceType != null) {
+            query.setParameter("deviceType", deviceType);
+          }
+          if (afterAuthInfoId != null) {
+            query.setParameter("afterAuthInfoId", afterAuthInfoId);
+          }
+          List<DeviceTokenBean> deviceTokens = query.getResultList();
+          logger.info(
+              "CommonDaoImpl.getStudyDeviceTokens() - ends, page size::" + deviceTokens.size());
+          return deviceTokens;
+        },
+        pageSize);
   }
 
   public String getParticipantId(String id, String customStudyId) {
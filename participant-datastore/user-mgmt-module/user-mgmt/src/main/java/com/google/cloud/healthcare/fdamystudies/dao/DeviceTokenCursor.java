@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.dao;
+
+import com.google.cloud.healthcare.fdamystudies.beans.DeviceTokenBean;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates device tokens in pages ordered by auth_info id.
+ *
+ * <p>Each page is read on demand with a keyset condition on the last id of the previous page, so
+ * pages are served by the primary key index and no more than one page is held at a time.
+ */
+public class DeviceTokenCursor implements Iterator<List<DeviceTokenBean>> {
+
+  @FunctionalInterface
+  public interface PageReader {
+
+    /**
+     * Returns up to {@code pageSize} device tokens with an auth_info id greater than {@code
+     * afterAuthInfoId}, ordered by id. {@code afterAuthInfoId} is {@code null} for the first page.
+     */
+    List<DeviceTokenBean> read(String afterAuthInfoId, int pageSize);
+  }
+
+  private final PageReader pageReader;
+
+  private final int pageSize;
+
+  private List<DeviceTokenBean> nextPage;
+
+  private String lastAuthInfoId;
+
+  private boolean exhausted;
+
+  public DeviceTokenCursor(PageReader pageReader, int pageSize) {
+    this.pageReader = pageReader;
+    this.pageSize = Math.max(1, pageSize);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextPage == null && !exhausted) {
+      List<DeviceTokenBean> page = pageReader.read(lastAuthInfoId, pageSize);
+      exhausted = page.size() < pageSize;
+      if (!page.isEmpty()) {
+        nextPage = page;
+        lastAuthInfoId = page.get(page.size() - 1).getAuthInfoId();
+      }
+    }
+    return nextPage != null;
+  }
+
+  @Override
+  public List<DeviceTokenBean> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    List<DeviceTokenBean> page = nextPage;
+    nextPage = null;
+    return page;
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.dao;
+
+import com.google.cloud.healthcare.fdamystudies.model.NotificationOutboxEntity;
+
+public interface NotificationOutboxDao {
+
+  /**
+   * Creates a pending delivery for every device token the notification is addressed to and marks
+   * the recipients as resolved, in one transaction.
+   *
+   * @return the number of deliveries created
+   */
+  int resolveRecipients(NotificationOutboxEntity outbox, int pageSize);
+
+  /**
+   * Inserts the notification in a transaction of its own, so a duplicate does not roll back the
+   * caller's transaction.
+   *
+   * @return false if a notification with the same active fingerprint is already queued
+   */
+  boolean insertIfNotQueued(NotificationOutboxEntity outbox);
+}
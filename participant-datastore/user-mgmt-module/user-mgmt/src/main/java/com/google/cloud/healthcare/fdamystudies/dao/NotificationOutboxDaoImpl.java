@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.dao;
+
+import com.google.cloud.healthcare.fdamystudies.beans.DeviceTokenBean;
+import com.google.cloud.healthcare.fdamystudies.common.NotificationDeliveryStatus;
+import com.google.cloud.healthcare.fdamystudies.model.NotificationDeliveryEntity;
+import com.google.cloud.healthcare.fdamystudies.model.NotificationOutboxEntity;
+import com.google.cloud.healthcare.fdamystudies.model.StudyEntity;
+import com.google.cloud.healthcare.fdamystudies.repository.NotificationDeliveryRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.NotificationOutboxRepository;
+import com.google.cloud.healthcare.fdamystudies.util.AppConstants;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import javax.persistence.PersistenceException;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public class NotificationOutboxDaoImpl implements NotificationOutboxDao {
+
+  private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxDaoImpl.class);
+
+  @Autowired private CommonDao commonDao;
+
+  @Autowired private AuthInfoBODao authInfoBoDao;
+
+  @Autowired private NotificationOutboxRepository notificationOutboxRepository;
+
+  @Autowired private NotificationDeliveryRepository notificationDeliveryRepository;
+
+  @Autowired private SessionFactory sessionFactory;
+
+  @Override
+  @Transactional
+  public int resolveRecipients(NotificationOutboxEntity outbox, int pageSize) {
+    logger.info("NotificationOutboxDaoImpl.resolveRecipients() - starts");
+    int deliveryCount = 0;
+    Iterator<List<DeviceTokenBean>> deviceTokens = getDeviceTokens(outbox, pageSize);
+    while (deviceTokens.hasNext()) {
+      List<NotificationDeliveryEntity> deliveries = new ArrayList<>();
+      for (DeviceTokenBean deviceToken : deviceTokens.next()) {
+        if (!AppConstants.DEVICE_ANDROID.equalsIgnoreCase(deviceToken.getDeviceType())
+            && !AppConstants.DEVICE_IOS.equalsIgnoreCase(deviceToken.getDeviceType())) {
+          logger.error("Invalid Device Type");
+          continue;
+        }
+        NotificationDeliveryEntity delivery = new NotificationDeliveryEntity();
+        delivery.setOutbox(outbox);
+        delivery.setAuthInfoId(deviceToken.getAuthInfoId());
+        delivery.setDeviceType(deviceToken.getDeviceType());
+        delivery.setDeviceToken(deviceToken.getDeviceToken());
+        delivery.setStatus(NotificationDeliveryStatus.PENDING);
+        deliveries.add(delivery);
+      }
+      notificationDeliveryRepository.saveAll(deliveries);
+      deliveryCount += deliveries.size();
+    }
+
+    outbox.setRecipientsResolved(true);
+    notificationOutboxRepository.save(outbox);
+    logger.info("NotificationOutboxDaoImpl.resolveRecipients() - ends, deliveries=" + deliveryCount);
+    return deliveryCount;
+  }
+
+  @Override
+  public boolean insertIfNotQueued(NotificationOutboxEntity outbox) {
+    try (Session session = sessionFactory.openSession()) {
+      Transaction transaction = session.beginTransaction();
+      try {
+        session.save(outbox);
+        transaction.commit();
+        return true;
+      } catch (PersistenceException e) {
+        if (transaction.getStatus().canRollback()) {
+          transaction.rollback();
+        }
+        if (ExceptionUtils.indexOfType(e, ConstraintViolationException.class) < 0) {
+          throw e;
+        }
+        logger.info("NotificationOutboxDaoImpl.insertIfNotQueued() - notification already queued");
+        return false;
+      }
+    }
+  }
+
+  private Iterator<List<DeviceTokenBean>> getDeviceTokens(
+      NotificationOutboxEntity outbox, int pageSize) {
+    if (AppConstants.STUDY_LEVEL.equalsIgnoreCase(outbox.getNotificationType())) {
+      List<StudyEntity> studyInfos =
+          commonDao.getStudyInfoSet(
+              new HashSet<>(Collections.singletonList(outbox.getCustomStudyId())));
+      if (studyInfos == null || studyInfos.isEmpty()) {
+        return Collections.emptyIterator();
+      }
+      return commonDao.getStudyDeviceTokens(studyInfos.get(0).getId(), null, pageSize);
+    }
+    return authInfoBoDao.getDeviceTokens(
+        Collections.singletonList(outbox.getAppId()), null, pageSize);
+  }
+}
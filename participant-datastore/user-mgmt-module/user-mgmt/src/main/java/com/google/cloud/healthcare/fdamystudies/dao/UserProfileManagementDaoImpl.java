@@ -355,6 +355,7 @@ public class UserProfileManagementDaoImpl implements UserProfileManagementDao {
   }
 
   @Override
+  @Transactional
   public void deactivateUserAccount(String userId) {
     Optional<UserDetailsEntity> optUserDetails = userDetailsRepository.findByUserId(userId);
     UserDetailsEntity userDetailsEntity = optUserDetails.get();
@@ -34,6 +34,9 @@ public class TokenIntrospectionFilter extends BaseTokenIntrospectionFilter {
     uriTemplateAndMethods.put(
         String.format("%s/studies/sendNotification", context.getContextPath()),
         new String[] {HttpMethod.POST.name()});
+    uriTemplateAndMethods.put(
+        String.format("%s/studies/v2/sendNotification", context.getContextPath()),
+        new String[] {HttpMethod.POST.name()});
     uriTemplateAndMethods.put(
         String.format("%s/deactivate", context.getContextPath()),
         new String[] {HttpMethod.DELETE.name()});
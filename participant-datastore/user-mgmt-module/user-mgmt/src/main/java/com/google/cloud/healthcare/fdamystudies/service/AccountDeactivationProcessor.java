@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.service;
+
+import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
+import com.google.cloud.healthcare.fdamystudies.common.ErrorCode;
+import com.google.cloud.healthcare.fdamystudies.common.PlatformComponent;
+import com.google.cloud.healthcare.fdamystudies.dao.UserProfileManagementDao;
+import com.google.cloud.healthcare.fdamystudies.exceptions.ErrorCodeException;
+import com.google.cloud.healthcare.fdamystudies.util.MyStudiesUserRegUtil;
+import com.google.cloud.healthcare.fdamystudies.util.UserManagementUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the remote calls of account deactivation on bounded thread pools.
+ *
+ * <p>Pending accounts are processed concurrently up to {@code deactivation.parallelism}. Each
+ * account is deleted from the auth server and then marked deactivated on its own, so the account's
+ * {@code DEACTIVATE_PENDING} status is its checkpoint: an account whose deletion fails keeps that
+ * status and is picked up again by the next run, and an account already deleted from the auth
+ * server by an earlier run is only marked deactivated. Study withdrawals of a single account are
+ * sent to the response datastore in parallel, each bounded by {@code
+ * deactivation.withdraw.timeout.seconds}.
+ */
+@Component
+public class AccountDeactivationProcessor {
+
+  private static final Logger logger = LoggerFactory.getLogger(AccountDeactivationProcessor.class);
+
+  @Autowired private UserManagementUtil userManagementUtil;
+
+  @Autowired private UserProfileManagementDao userProfileManagementDao;
+
+  @Value("${deactivation.parallelism:8}")
+  private int parallelism;
+
+  @Value("${deactivation.withdraw.parallelism:8}")
+  private int withdrawParallelism;
+
+  @Value("${deactivation.withdraw.timeout.seconds:30}")
+  private long withdrawTimeoutSeconds;
+
+  private ExecutorService accountExecutor;
+
+  private ExecutorService withdrawExecutor;
+
+  @PostConstruct
+  public void init() {
+    accountExecutor =
+        Executors.newFixedThreadPool(Math.max(1, parallelism), threadFactory("deactivation-"));
+    withdrawExecutor =
+        Executors.newFixedThreadPool(
+            Math.max(1, withdrawParallelism), threadFactory("study-withdrawal-"));
+  }
+
+  @PreDestroy
+  public void destroy() {
+    accountExecutor.shutdownNow();
+    withdrawExecutor.shutdownNow();
+  }
+
+  /**
+   * Deletes the given {@code DEACTIVATE_PENDING} accounts from the auth server and marks them
+   * deactivated, and waits until every account has been processed.
+   *
+   * @return the number of accounts that were deactivated
+   */
+  public int processPendingAccounts(List<String> userIds) {
+    long begin = System.currentTimeMillis();
+    List<Future<Boolean>> futures = new ArrayList<>(userIds.size());
+    for (String userId : userIds) {
+      futures.add(accountExecutor.submit(() -> deactivatePendingAccount(userId)));
+    }
+
+    int deactivated = 0;
+    for (Future<Boolean> future : futures) {
+      try {
+        if (future.get()) {
+          deactivated++;
+        }
+      } catch (ExecutionException e) {
+        logger.error("processPendingAccounts() failed with an exception", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.forEach(pending -> pending.cancel(true));
+        break;
+      }
+    }
+
+    long elapsedMillis = System.currentTimeMillis() - begin;
+    logger.info(
+        String.format(
+            "processPendingAccounts() : pending=%d, deactivated=%d, failed=%d, elapsedMillis=%d",
+            userIds.size(), deactivated, userIds.size() - deactivated, elapsedMillis));
+    return deactivated;
+  }
+
+  /**
+   * Sends all study withdrawals of an account to the response datastore in parallel and waits for
+   * them. A withdrawal that fails, or does not complete within {@code
+   * deactivation.withdraw.timeout.seconds}, makes the whole call fail.
+   *
+   * @return {@code true} if every withdrawal succeeded
+   */
+  public boolean withdrawFromStudies(List<StudyWithdrawal> withdrawals) {
+    List<Future<String>> futures = new ArrayList<>(withdrawals.size());
+    for (StudyWithdrawal withdrawal : withdrawals) {
+      futures.add(
+          withdrawExecutor.submit(
+              () ->
+                  userManagementUtil.withdrawParticipantFromStudy(
+                      withdrawal.getParticipantId(),
+                      withdrawal.getStudyId(),
+                      withdrawal.getStudyVersion(),
+                      withdrawal.getAuditRequest())));
+    }
+
+    boolean withdrawn = true;
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(withdrawTimeoutSeconds);
+    for (int i = 0; i < futures.size(); i++) {
+      Future<String> future = futures.get(i);
+      String studyId = withdrawals.get(i).getStudyId();
+      try {
+        String message =
+            future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        if (!MyStudiesUserRegUtil.ErrorCodes.SUCCESS.getValue().equalsIgnoreCase(message)) {
+          withdrawn = false;
+        }
+      } catch (TimeoutException e) {
+        future.cancel(true);
+        withdrawn = false;
+        logger.warn(
+            String.format(
+                "Withdrawal from study %s timed out after %d s", studyId, withdrawTimeoutSeconds));
+      } catch (ExecutionException e) {
+        withdrawn = false;
+        logger.warn(String.format("Withdrawal from study %s failed", studyId), e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.forEach(pending -> pending.cancel(true));
+        return false;
+      }
+    }
+    return withdrawn;
+  }
+
+  private boolean deactivatePendingAccount(String userId) {
+    try {
+      userManagementUtil.deleteUserInfoInAuthServer(userId);
+    } catch (ErrorCodeException e) {
+      // already deleted by an earlier run that failed before updating the status
+      if (e.getErrorCode() != ErrorCode.USER_NOT_FOUND) {
+        logger.warn(
+            String.format(
+                "Delete user from %s failed with ErrorCode=%s",
+                PlatformComponent.SCIM_AUTH_SERVER.getValue(), e.getErrorCode()));
+        return false;
+      }
+    } catch (Exception e) {
+      logger.warn(
+          String.format(
+              "Delete user from %s failed", PlatformComponent.SCIM_AUTH_SERVER.getValue()),
+          e);
+      return false;
+    }
+    userProfileManagementDao.deactivateUserAccount(userId);
+    return true;
+  }
+
+  private static ThreadFactory threadFactory(String prefix) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class StudyWithdrawal {
+
+    private final String participantId;
+
+    private final String studyId;
+
+    private final String studyVersion;
+
+    private final AuditLogEventRequest auditRequest;
+
+    /** Copies the audit request, as the caller keeps changing its study fields. */
+    public static StudyWithdrawal of(
+        String participantId,
+        String studyId,
+        String studyVersion,
+        AuditLogEventRequest auditRequest) {
+      AuditLogEventRequest copy = new AuditLogEventRequest();
+      BeanUtils.copyProperties(auditRequest, copy);
+      return new StudyWithdrawal(participantId, studyId, studyVersion, copy);
+    }
+  }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.service;
+
+import com.eatthepath.pushy.apns.ApnsClient;
+import com.eatthepath.pushy.apns.ApnsClientBuilder;
+import com.eatthepath.pushy.apns.PushNotificationResponse;
+import com.eatthepath.pushy.apns.util.SimpleApnsPayloadBuilder;
+import com.eatthepath.pushy.apns.util.SimpleApnsPushNotification;
+import com.google.cloud.healthcare.fdamystudies.beans.DeviceTokenBean;
+import com.google.cloud.healthcare.fdamystudies.beans.NotificationBean;
+import com.google.cloud.healthcare.fdamystudies.config.ApplicationPropertyConfiguration;
+import com.google.cloud.healthcare.fdamystudies.model.AppEntity;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends APNs notifications over long-lived Pushy clients, one per app.
+ *
+ * <p>Clients are built from the app's p12 certificate in memory and reused across sends. A client
+ * is rebuilt only when the app's certificate, password or the APNs server changes, and the replaced
+ * client is closed once the sends still using it have completed. Notifications
+ * are pipelined over {@code ios.push.concurrent.connections} HTTP/2 connections with at most
+ * {@code ios.push.max.inflight} unacknowledged notifications per client. Only the tokens APNs
+ * answered with a failure are returned to the caller, and the ones it reports as unregistered or
+ * malformed are marked for pruning.
+ */
+@Component
+public class ApnsNotificationSender {
+
+  private static final Logger logger = LoggerFactory.getLogger(ApnsNotificationSender.class);
+
+  private static final Set<String> INVALID_TOKEN_REASONS =
+      new HashSet<>(Arrays.asList("Unregistered", "BadDeviceToken"));
+
+  @Autowired private ApplicationPropertyConfiguration applicationPropertyConfiguration;
+
+  @Value("${ios.push.concurrent.connections:2}")
+  private int concurrentConnections;
+
+  @Value("${ios.push.max.inflight:1000}")
+  private int maxInFlight;
+
+  @Value("${ios.push.send.timeout.seconds:120}")
+  private long sendTimeoutSeconds;
+
+  private final ConcurrentMap<String, CachedClient> clients = new ConcurrentHashMap<>();
+
+  @PreDestroy
+  public void destroy() {
+    clients.values().forEach(cached -> cached.close());
+    clients.clear();
+  }
+
+  /**
+   * Sends the notification to all tokens and waits until APNs has answered for each of them, or
+   * {@code ios.push.send.timeout.seconds} passed. Tokens are sent as pages are read, without
+   * waiting for earlier responses.
+   *
+   * @param invalidTokens receives the tokens APNs reported as unregistered or invalid
+   * @param failedTokens receives the error of each token APNs answered with a failure, including
+   *     the invalid ones; tokens without an answer by the timeout are not included, as APNs may
+   *     still accept them
+   */
+  public void send(
+      NotificationBean notification,
+      AppEntity app,
+      Iterator<List<DeviceTokenBean>> pages,
+      Set<String> invalidTokens,
+      Map<String, String> failedTokens) {
+    logger.info("ApnsNotificationSender - send() : starts");
+    CachedClient cached = acquireClient(app);
+    try {
+      send(notification, app, pages, invalidTokens, failedTokens, cached);
+    } finally {
+      cached.release();
+    }
+  }
+
+  private void send(
+      NotificationBean notification,
+      AppEntity app,
+      Iterator<List<DeviceTokenBean>> pages,
+      Set<String> invalidTokens,
+      Map<String, String> failedTokens,
+      CachedClient cached) {
+    String payload =
+        new SimpleApnsPayloadBuilder()
+            .setAlertBody(notification.getNotificationText())
+            .addCustomProperty("subtype", notification.getNotificationSubType())
+            .addCustomProperty("type", notification.getNotificationType())
+            .addCustomProperty("studyId", notification.getCustomStudyId())
+            .setSound("default")
+            .build();
+
+    // answers that arrive after the timeout are recorded here but no longer reported
+    AtomicInteger accepted = new AtomicInteger();
+    Map<String, String> failures = new ConcurrentHashMap<>();
+    Set<String> rejectedTokens = ConcurrentHashMap.newKeySet();
+    // one party per unanswered notification, bounded by the in-flight permits
+    Phaser pending = new Phaser(1);
+    try {
+      while (pages.hasNext()) {
+        for (DeviceTokenBean deviceToken : pages.next()) {
+          String token = deviceToken.getDeviceToken();
+          cached.inFlight.acquire();
+          pending.register();
+          cached
+              .client
+              .sendNotification(
+                  new SimpleApnsPushNotification(token, app.getIosBundleId(), payload))
+              .whenComplete(
+                  (response, cause) -> {
+                    try {
+                      if (cause != null) {
+                        failures.put(token, cause.toString());
+                        logger.warn("Failed to send push notification", cause);
+                      } else if (response.isAccepted()) {
+                        accepted.incrementAndGet();
+                      } else {
+                        failures.put(
+                            token,
+                            StringUtils.defaultIfEmpty(
+                                response.getRejectionReason(), "Not accepted by APNs"));
+                        if (isInvalidToken(response)) {
+                          rejectedTokens.add(token);
+                        }
+                        logger.info(
+                            "Notification rejected by the APNs gateway: "
+                                + response.getRejectionReason());
+                      }
+                    } finally {
+                      cached.inFlight.release();
+                      pending.arriveAndDeregister();
+                    }
+                  });
+        }
+      }
+      pending.awaitAdvanceInterruptibly(pending.arrive(), sendTimeoutSeconds, TimeUnit.SECONDS);
+    } catch (TimeoutException e) {
+      logger.warn(
+          String.format(
+              "ApnsNotificationSender - send() : %d notification(s) still pending after %d s",
+              pending.getUnarrivedParties(), sendTimeoutSeconds));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("APNs send interrupted", e);
+    }
+    int unanswered = pending.getUnarrivedParties();
+    failedTokens.putAll(failures);
+    invalidTokens.addAll(rejectedTokens);
+
+    logger.info(
+        String.format(
+            "ApnsNotificationSender - send() : ends, accepted=%d, failed=%d, invalid=%d,"
+                + " unanswered=%d",
+            accepted.get(), failures.size(), rejectedTokens.size(), unanswered));
+  }
+
+  /** Returns the client of the app, which stays open until {@link CachedClient#release()}. */
+  private CachedClient acquireClient(AppEntity app) {
+    while (true) {
+      CachedClient cached = getClient(app);
+      if (cached.acquire()) {
+        return cached;
+      }
+    }
+  }
+
+  private CachedClient getClient(AppEntity app) {
+    String apnsServer = applicationPropertyConfiguration.getIosPushNotificationType();
+    String fingerprint =
+        fingerprint(app.getIosCertificate(), app.getIosCertificatePassword(), apnsServer);
+    CachedClient cached = clients.get(app.getAppId());
+    if (cached != null && cached.fingerprint.equals(fingerprint)) {
+      return cached;
+    }
+    return clients.compute(
+        app.getAppId(),
+        (appId, existing) -> {
+          if (existing != null && existing.fingerprint.equals(fingerprint)) {
+            return existing;
+          }
+          if (existing != null) {
+            logger.info(String.format("APNs credentials changed for app %s", appId));
+            existing.retire();
+          }
+          return new CachedClient(fingerprint, buildClient(app, apnsServer), maxInFlight);
+        });
+  }
+
+  private ApnsClient buildClient(AppEntity app, String apnsServer) {
+    byte[] certificate =
+        Base64.getDecoder().decode(StringUtils.remove(app.getIosCertificate(), '\n'));
+    try {
+      return new ApnsClientBuilder()
+          .setApnsServer(apnsServer)
+          .setClientCredentials(
+              new ByteArrayInputStream(certificate), app.getIosCertificatePassword())
+          .setConcurrentConnections(Math.max(1, concurrentConnections))
+          .build();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static boolean isInvalidToken(
+      PushNotificationResponse<SimpleApnsPushNotification> response) {
+    return response.getTokenInvalidationTimestamp().isPresent()
+        || INVALID_TOKEN_REASONS.contains(response.getRejectionReason());
+  }
+
+  private static String fingerprint(String... values) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (String value : values) {
+        digest.update(StringUtils.defaultString(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+      }
+      return Base64.getEncoder().encodeToString(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class CachedClient {
+
+    private final String fingerprint;
+
+    private final ApnsClient client;
+
+    private final Semaphore inFlight;
+
+    // sends using the client, which is closed when the last one ends after it was replaced
+    private final AtomicInteger users = new AtomicInteger();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private volatile boolean retired;
+
+    private CachedClient(String fingerprint, ApnsClient client, int maxInFlight) {
+      this.fingerprint = fingerprint;
+      this.client = client;
+      // Phaser supports at most 65535 unarrived parties
+      this.inFlight = new Semaphore(Math.max(1, Math.min(maxInFlight, 65_000)));
+    }
+
+    /** @return {@code false} if the client was replaced and must not be used */
+    private boolean acquire() {
+      users.incrementAndGet();
+      if (retired) {
+        release();
+        return false;
+      }
+      return true;
+    }
+
+    private void release() {
+      if (users.decrementAndGet() == 0 && retired) {
+        close();
+      }
+    }
+
+    private void retire() {
+      retired = true;
+      if (users.get() == 0) {
+        close();
+      }
+    }
+
+    private void close() {
+      if (closed.compareAndSet(false, true)) {
+        client.close();
+      }
+    }
+  }
+}
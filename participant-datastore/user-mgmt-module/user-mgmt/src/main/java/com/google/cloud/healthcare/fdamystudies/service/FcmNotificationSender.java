@@ -0,0 +1,424 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.cloud.healthcare.fdamystudies.beans.DeviceTokenBean;
+import com.google.cloud.healthcare.fdamystudies.beans.FcmPushNotificationResponse;
+import com.google.cloud.healthcare.fdamystudies.beans.NotificationBean;
+import com.google.cloud.healthcare.fdamystudies.config.ApplicationPropertyConfiguration;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends FCM (legacy HTTP API) notifications over a pooled keep-alive HTTP client.
+ *
+ * <p>Recipients are split into batches of at most {@value #MAX_BATCH_SIZE} registration ids, and
+ * batches are sent concurrently up to {@code messaging.fcm.parallelism}. Batches that fail with a
+ * 5xx/429 status, and tokens reported as {@code Unavailable}/{@code InternalServerError}, are
+ * retried with exponential backoff, honoring Retry-After up to {@code
+ * messaging.fcm.max.retry.after.ms}. A batch asked to wait longer is given up, and its tokens are
+ * reported as {@code Unavailable} so the caller retries them later. Results are counted as batches
+ * complete, only the tokens FCM did not accept are returned to the caller, and the ones it reports
+ * as unregistered or invalid are marked for pruning.
+ */
+@Component
+public class FcmNotificationSender {
+
+  private static final Logger logger = LoggerFactory.getLogger(FcmNotificationSender.class);
+
+  static final int MAX_BATCH_SIZE = 1000;
+
+  private static final Set<String> INVALID_TOKEN_ERRORS =
+      new HashSet<>(Arrays.asList("NotRegistered", "InvalidRegistration", "MissingRegistration"));
+
+  private static final Set<String> RETRYABLE_TOKEN_ERRORS =
+      new HashSet<>(Arrays.asList("Unavailable", "InternalServerError"));
+
+  @Autowired private ApplicationPropertyConfiguration applicationPropertyConfiguration;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Value("${messaging.fcm.batch.size:1000}")
+  private int batchSize;
+
+  @Value("${messaging.fcm.parallelism:8}")
+  private int parallelism;
+
+  @Value("${messaging.fcm.max.retries:3}")
+  private int maxRetries;
+
+  @Value("${messaging.fcm.initial.backoff.ms:500}")
+  private long initialBackoffMillis;
+
+  @Value("${messaging.fcm.max.retry.after.ms:60000}")
+  private long maxRetryAfterMillis;
+
+  @Value("${messaging.fcm.connect.timeout.ms:5000}")
+  private int connectTimeoutMillis;
+
+  @Value("${messaging.fcm.read.timeout.ms:30000}")
+  private int readTimeoutMillis;
+
+  private PoolingHttpClientConnectionManager connectionManager;
+
+  private CloseableHttpClient httpClient;
+
+  private ExecutorService executorService;
+
+  @PostConstruct
+  public void init() {
+    batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+    parallelism = Math.max(1, parallelism);
+    connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(parallelism);
+    connectionManager.setDefaultMaxPerRoute(parallelism);
+    httpClient =
+        HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(
+                RequestConfig.custom()
+                    .setConnectTimeout(connectTimeoutMillis)
+                    .setConnectionRequestTimeout(connectTimeoutMillis)
+                    .setSocketTimeout(readTimeoutMillis)
+                    .build())
+            .evictIdleConnections(60L, TimeUnit.SECONDS)
+            .build();
+    AtomicInteger threadCount = new AtomicInteger();
+    executorService =
+        Executors.newFixedThreadPool(
+            parallelism,
+            runnable -> {
+              Thread thread = new Thread(runnable, "fcm-sender-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  @PreDestroy
+  public void destroy() throws IOException {
+    executorService.shutdownNow();
+    httpClient.close();
+    connectionManager.close();
+  }
+
+  /**
+   * Sends the notification to all tokens and waits for every batch to complete. Batches are sent
+   * as pages are read, and at most twice {@code messaging.fcm.parallelism} batches are in flight,
+   * so the next page is only read once earlier batches completed.
+   *
+   * @param invalidTokens receives the tokens FCM reported as unregistered or invalid
+   * @param failedTokens receives the error of each token FCM did not accept, including the invalid
+   *     ones; all other tokens were accepted
+   */
+  public FcmPushNotificationResponse send(
+      NotificationBean notification,
+      String serverKey,
+      Iterator<List<DeviceTokenBean>> pages,
+      Set<String> invalidTokens,
+      Map<String, String> failedTokens) {
+    logger.info("FcmNotificationSender - send() : starts");
+    JsonNode data = buildData(notification);
+
+    SendResult sendResult = new SendResult(invalidTokens, failedTokens);
+    int maxInFlight = parallelism * 2;
+    Semaphore inFlight = new Semaphore(maxInFlight);
+    int batches = 0;
+    try {
+      while (pages.hasNext() && sendResult.error == null) {
+        List<String> tokens =
+            pages.next().stream().map(DeviceTokenBean::getDeviceToken).collect(Collectors.toList());
+        for (int from = 0; from < tokens.size(); from += batchSize) {
+          List<String> batch =
+              new ArrayList<>(tokens.subList(from, Math.min(from + batchSize, tokens.size())));
+          inFlight.acquire();
+          batches++;
+          try {
+            executorService.execute(
+                () -> {
+                  try {
+                    sendResult.add(sendBatch(data, serverKey, batch));
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    sendResult.failed(e);
+                  } catch (RuntimeException e) {
+                    sendResult.failed(e);
+                  } finally {
+                    inFlight.release();
+                  }
+                });
+          } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+          }
+        }
+      }
+      // all permits are free again once every batch completed
+      inFlight.acquire(maxInFlight);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("FCM send interrupted", e);
+    }
+    if (sendResult.error != null) {
+      throw new IllegalStateException("FCM batch failed", sendResult.error);
+    }
+
+    ObjectNode fcmResponse = JsonNodeFactory.instance.objectNode();
+    if (sendResult.multicastId != null) {
+      fcmResponse.set("multicast_id", sendResult.multicastId);
+    }
+    fcmResponse.put("success", sendResult.success);
+    fcmResponse.put("failure", sendResult.failure);
+    fcmResponse.put("canonical_ids", sendResult.canonicalIds);
+
+    logger.info(
+        String.format(
+            "FcmNotificationSender - send() : ends, batches=%d, success=%d, failure=%d, invalid=%d",
+            batches, sendResult.success, sendResult.failure, sendResult.invalid));
+    return new FcmPushNotificationResponse(fcmResponse, sendResult.status, sendResult.message);
+  }
+
+  private BatchResult sendBatch(JsonNode data, String serverKey, List<String> tokens)
+      throws InterruptedException {
+    BatchResult batchResult = new BatchResult(tokens);
+    List<Integer> pending = new ArrayList<>(tokens.size());
+    for (int i = 0; i < tokens.size(); i++) {
+      pending.add(i);
+    }
+
+    long backoffMillis = initialBackoffMillis;
+    for (int attempt = 0; !pending.isEmpty(); attempt++) {
+      boolean lastAttempt = attempt >= maxRetries;
+      long retryAfterMillis = -1;
+      ArrayNode registrationIds = JsonNodeFactory.instance.arrayNode();
+      for (int index : pending) {
+        registrationIds.add(tokens.get(index));
+      }
+      ObjectNode body = JsonNodeFactory.instance.objectNode();
+      body.set("registration_ids", registrationIds);
+      body.put("priority", "high");
+      body.set("data", data);
+
+      HttpPost post = new HttpPost(applicationPropertyConfiguration.getApiUrlFcm());
+      post.setHeader(HttpHeaders.AUTHORIZATION, "key=" + serverKey);
+      post.setEntity(new StringEntity(body.toString(), ContentType.APPLICATION_JSON));
+      try (CloseableHttpResponse response = httpClient.execute(post)) {
+        int statusCode = response.getStatusLine().getStatusCode();
+        String responseBody =
+            response.getEntity() != null
+                ? EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8)
+                : null;
+        batchResult.status = statusCode;
+        batchResult.message = response.getStatusLine().getReasonPhrase();
+        logger.trace(
+            String.format(
+                "FCM Notification Response status=%d, response=%s", statusCode, responseBody));
+
+        if (statusCode == HttpStatus.OK.value()) {
+          JsonNode responseJson = objectMapper.readTree(responseBody);
+          batchResult.multicastId = responseJson.get("multicast_id");
+          JsonNode results = responseJson.path("results");
+          List<Integer> retry = new ArrayList<>();
+          for (int i = 0; i < pending.size(); i++) {
+            JsonNode result =
+                results.has(i)
+                    ? results.get(i)
+                    : JsonNodeFactory.instance.objectNode().put("error", "Unavailable");
+            batchResult.results[pending.get(i)] = result;
+            if (!lastAttempt && RETRYABLE_TOKEN_ERRORS.contains(result.path("error").asText())) {
+              retry.add(pending.get(i));
+            }
+          }
+          pending = retry;
+        } else if (lastAttempt
+            || !(statusCode >= 500 || statusCode == HttpStatus.TOO_MANY_REQUESTS.value())) {
+          fail(batchResult, pending, batchResult.message);
+          pending = Collections.emptyList();
+        }
+        retryAfterMillis = getRetryAfterMillis(response.getFirstHeader(HttpHeaders.RETRY_AFTER));
+      } catch (IOException e) {
+        logger.warn("FcmNotificationSender - sendBatch() : request failed", e);
+        batchResult.status = HttpStatus.SERVICE_UNAVAILABLE.value();
+        batchResult.message = e.getMessage();
+        if (lastAttempt) {
+          fail(batchResult, pending, "Unavailable");
+          pending = Collections.emptyList();
+        }
+      }
+
+      if (!pending.isEmpty() && retryAfterMillis > maxRetryAfterMillis) {
+        logger.warn(
+            String.format(
+                "FcmNotificationSender - sendBatch() : Retry-After of %d ms exceeds %d ms,"
+                    + " giving up on %d tokens",
+                retryAfterMillis, maxRetryAfterMillis, pending.size()));
+        fail(batchResult, pending, "Unavailable");
+        pending = Collections.emptyList();
+      }
+      if (!pending.isEmpty()) {
+        TimeUnit.MILLISECONDS.sleep(Math.max(backoffMillis, retryAfterMillis));
+        backoffMillis *= 2;
+      }
+    }
+    return batchResult;
+  }
+
+  private JsonNode buildData(NotificationBean notification) {
+    ObjectNode dataInfo = JsonNodeFactory.instance.objectNode();
+    dataInfo.put("subtype", notification.getNotificationSubType());
+    dataInfo.put("type", notification.getNotificationType());
+    dataInfo.put("title", notification.getNotificationTitle());
+    dataInfo.put("message", notification.getNotificationText());
+    if (StringUtils.isNotEmpty(notification.getCustomStudyId())) {
+      dataInfo.put("studyId", notification.getCustomStudyId());
+    }
+    return dataInfo;
+  }
+
+  private static void fail(BatchResult batchResult, List<Integer> pending, String error) {
+    for (int index : pending) {
+      batchResult.results[index] = JsonNodeFactory.instance.objectNode().put("error", error);
+    }
+  }
+
+  /** Parses a Retry-After header given either as delay-seconds or as an HTTP date. */
+  private static long getRetryAfterMillis(Header retryAfter) {
+    if (retryAfter == null || StringUtils.isBlank(retryAfter.getValue())) {
+      return -1;
+    }
+    String value = retryAfter.getValue().trim();
+    if (NumberUtils.isDigits(value)) {
+      return TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+    }
+    Date date = DateUtils.parseDate(value);
+    return date != null ? date.getTime() - System.currentTimeMillis() : -1;
+  }
+
+  /** Counts the results of the batches as they complete. */
+  private static class SendResult {
+
+    private final Set<String> invalidTokens;
+
+    private final Map<String, String> failedTokens;
+
+    private int success;
+
+    private int failure;
+
+    private int invalid;
+
+    private int canonicalIds;
+
+    private JsonNode multicastId;
+
+    private int status = HttpStatus.OK.value();
+
+    private String message = HttpStatus.OK.getReasonPhrase();
+
+    private volatile Throwable error;
+
+    private SendResult(Set<String> invalidTokens, Map<String, String> failedTokens) {
+      this.invalidTokens = invalidTokens;
+      this.failedTokens = failedTokens;
+    }
+
+    private synchronized void add(BatchResult batchResult) {
+      if (batchResult.status != HttpStatus.OK.value()) {
+        status = batchResult.status;
+        message = batchResult.message;
+      }
+      if (batchResult.multicastId != null && multicastId == null) {
+        multicastId = batchResult.multicastId;
+      }
+      for (int i = 0; i < batchResult.results.length; i++) {
+        JsonNode result = batchResult.results[i];
+        if (result.hasNonNull("message_id")) {
+          success++;
+        } else {
+          failure++;
+          String token = batchResult.tokens.get(i);
+          String tokenError = result.path("error").asText("Unavailable");
+          failedTokens.put(token, tokenError);
+          if (INVALID_TOKEN_ERRORS.contains(tokenError)) {
+            invalidTokens.add(token);
+            invalid++;
+          }
+        }
+        if (result.hasNonNull("registration_id")) {
+          canonicalIds++;
+        }
+      }
+    }
+
+    private synchronized void failed(Throwable cause) {
+      if (error == null) {
+        error = cause;
+      }
+    }
+  }
+
+  private static class BatchResult {
+
+    private final List<String> tokens;
+
+    private final JsonNode[] results;
+
+    private JsonNode multicastId;
+
+    private int status = HttpStatus.OK.value();
+
+    private String message = HttpStatus.OK.getReasonPhrase();
+
+    private BatchResult(List<String> tokens) {
+      this.tokens = tokens;
+      this.results = new JsonNode[tokens.size()];
+    }
+  }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.service;
+
+import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
+import com.google.cloud.healthcare.fdamystudies.beans.NotificationBean;
+
+public interface NotificationOutboxService {
+
+  /**
+   * Stores the notification for asynchronous delivery.
+   *
+   * @param appId the app whose users receive the notification, and whose credentials it is sent
+   *     with
+   * @return the outbox id, or {@code null} if the same notification is already waiting to be sent
+   */
+  public String enqueue(
+      NotificationBean notificationBean, String appId, AuditLogEventRequest auditRequest);
+
+  /** Claims due notifications and sends them to their pending recipients. */
+  public void dispatchPendingNotifications();
+}
@@ -0,0 +1,448 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.service;
+
+import static com.google.cloud.healthcare.fdamystudies.common.UserMgmntEvent.PUSH_NOTIFICATION_FAILED;
+import static com.google.cloud.healthcare.fdamystudies.common.UserMgmntEvent.PUSH_NOTIFICATION_SENT;
+
+import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
+import com.google.cloud.healthcare.fdamystudies.beans.DeviceTokenBean;
+import com.google.cloud.healthcare.fdamystudies.beans.NotificationBean;
+import com.google.cloud.healthcare.fdamystudies.common.NotificationDeliveryStatus;
+import com.google.cloud.healthcare.fdamystudies.common.NotificationOutboxStatus;
+import com.google.cloud.healthcare.fdamystudies.common.UserMgmntAuditHelper;
+import com.google.cloud.healthcare.fdamystudies.common.UserMgmntEvent;
+import com.google.cloud.healthcare.fdamystudies.dao.AuthInfoBODao;
+import com.google.cloud.healthcare.fdamystudies.dao.NotificationOutboxDao;
+import com.google.cloud.healthcare.fdamystudies.model.AppEntity;
+import com.google.cloud.healthcare.fdamystudies.model.NotificationDeliveryEntity;
+import com.google.cloud.healthcare.fdamystudies.model.NotificationOutboxEntity;
+import com.google.cloud.healthcare.fdamystudies.repository.AppRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.NotificationDeliveryRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.NotificationOutboxRepository;
+import com.google.cloud.healthcare.fdamystudies.util.AppConstants;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+/**
+ * Transactional outbox for push notifications.
+ *
+ * <p>Notifications are stored when they are received and sent later by {@link
+ * #dispatchPendingNotifications()}. On its first attempt a notification is expanded into one
+ * delivery row per device token. Each attempt then sends only the deliveries that are still
+ * pending, so a retried notification never reaches a device twice unless the dispatcher stopped
+ * between sending and recording the result. Deliveries that keep failing are retried with
+ * exponential backoff. After {@code notification.outbox.max.attempts} attempts they are moved,
+ * with their notification, to the dead-letter status.
+ */
+@Service
+public class NotificationOutboxServiceImpl implements NotificationOutboxService {
+
+  private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxServiceImpl.class);
+
+  private static final Set<NotificationOutboxStatus> ACTIVE_STATUSES =
+      EnumSet.of(NotificationOutboxStatus.PENDING, NotificationOutboxStatus.IN_PROGRESS);
+
+  @Autowired private NotificationOutboxRepository notificationOutboxRepository;
+
+  @Autowired private NotificationDeliveryRepository notificationDeliveryRepository;
+
+  @Autowired private NotificationOutboxDao notificationOutboxDao;
+
+  @Autowired private AppRepository appRepository;
+
+  @Autowired private AuthInfoBODao authInfoBoDao;
+
+  @Autowired private FcmNotificationSender fcmNotificationSender;
+
+  @Autowired private ApnsNotificationSender apnsNotificationSender;
+
+  @Autowired private UserMgmntAuditHelper userMgmntAuditLogHelper;
+
+  @Value("${notification.outbox.batch.size:20}")
+  private int batchSize;
+
+  @Value("${notification.outbox.max.attempts:5}")
+  private int maxAttempts;
+
+  @Value("${notification.outbox.initial.backoff.seconds:60}")
+  private long initialBackoffSeconds;
+
+  @Value("${notification.outbox.lease.seconds:600}")
+  private long leaseSeconds;
+
+  @Value("${messaging.device.token.page.size:1000}")
+  private int pageSize;
+
+  @Override
+  public String enqueue(
+      NotificationBean notificationBean, String appId, AuditLogEventRequest auditRequest) {
+    logger.info("NotificationOutboxServiceImpl - enqueue() : starts");
+    String fingerprint = fingerprint(notificationBean, appId);
+    NotificationOutboxEntity outbox = new NotificationOutboxEntity();
+    outbox.setFingerprint(fingerprint);
+    outbox.setActiveFingerprint(fingerprint);
+    outbox.setAppId(appId);
+    outbox.setStudyId(notificationBean.getStudyId());
+    outbox.setCustomStudyId(notificationBean.getCustomStudyId());
+    outbox.setNotificationId(notificationBean.getNotificationId());
+    outbox.setNotificationType(notificationBean.getNotificationType());
+    outbox.setNotificationSubType(notificationBean.getNotificationSubType());
+    outbox.setNotificationTitle(notificationBean.getNotificationTitle());
+    outbox.setNotificationText(notificationBean.getNotificationText());
+    outbox.setStatus(NotificationOutboxStatus.PENDING);
+    outbox.setNextAttemptTime(Timestamp.from(Instant.now()));
+    if (auditRequest != null) {
+      outbox.setCorrelationId(auditRequest.getCorrelationId());
+      outbox.setSource(auditRequest.getSource());
+      outbox.setMobilePlatform(auditRequest.getMobilePlatform());
+      outbox.setAppVersion(auditRequest.getAppVersion());
+      outbox.setCreatedBy(auditRequest.getUserId());
+    }
+    // the unique key on the active fingerprint drops a duplicate, even one submitted concurrently
+    if (!notificationOutboxDao.insertIfNotQueued(outbox)) {
+      logger.info("NotificationOutboxServiceImpl - enqueue() : duplicate notification ignored");
+      return null;
+    }
+    logger.info("NotificationOutboxServiceImpl - enqueue() : ends");
+    return outbox.getId();
+  }
+
+  @Override
+  public void dispatchPendingNotifications() {
+    List<String> dueIds =
+        notificationOutboxRepository.findDueIds(
+            ACTIVE_STATUSES, Timestamp.from(Instant.now()), PageRequest.of(0, batchSize));
+    for (String outboxId : dueIds) {
+      Instant now = Instant.now();
+      int claimed =
+          notificationOutboxRepository.claim(
+              outboxId,
+              ACTIVE_STATUSES,
+              NotificationOutboxStatus.IN_PROGRESS,
+              Timestamp.from(now),
+              Timestamp.from(now.plusSeconds(leaseSeconds)));
+      if (claimed == 0) {
+        // this notification may be taken by another service instance
+        continue;
+      }
+
+      Optional<NotificationOutboxEntity> outbox = notificationOutboxRepository.findById(outboxId);
+      if (outbox.isPresent()) {
+        dispatch(outbox.get());
+      }
+    }
+  }
+
+  private void dispatch(NotificationOutboxEntity outbox) {
+    logger.info("NotificationOutboxServiceImpl - dispatch() : starts");
+    String lastError = null;
+    try {
+      Optional<AppEntity> app = appRepository.findByAppId(outbox.getAppId());
+      if (!app.isPresent()) {
+        lastError = "App not found";
+      } else {
+        if (!outbox.isRecipientsResolved()) {
+          notificationOutboxDao.resolveRecipients(outbox, pageSize);
+        }
+        sendPendingDeliveries(outbox, app.get());
+      }
+    } catch (RuntimeException e) {
+      logger.error("NotificationOutboxServiceImpl - dispatch() : failed", e);
+      lastError = StringUtils.abbreviate(e.toString(), 255);
+    }
+
+    long pendingCount =
+        notificationDeliveryRepository.countByStatus(
+            outbox.getId(), NotificationDeliveryStatus.PENDING);
+    outbox.setAttempts(outbox.getAttempts() + 1);
+    outbox.setLastError(lastError);
+    UserMgmntEvent auditEvent = null;
+    if (lastError == null && pendingCount == 0) {
+      outbox.setStatus(NotificationOutboxStatus.COMPLETED);
+      outbox.setActiveFingerprint(null);
+      auditEvent = PUSH_NOTIFICATION_SENT;
+    } else if (outbox.getAttempts() >= maxAttempts) {
+      notificationDeliveryRepository.updateStatus(
+          outbox.getId(),
+          NotificationDeliveryStatus.PENDING,
+          NotificationDeliveryStatus.DEAD_LETTER);
+      outbox.setStatus(NotificationOutboxStatus.DEAD_LETTER);
+      outbox.setActiveFingerprint(null);
+      auditEvent = PUSH_NOTIFICATION_FAILED;
+    } else {
+      long backoffSeconds = initialBackoffSeconds << Math.min(outbox.getAttempts() - 1, 16);
+      outbox.setStatus(NotificationOutboxStatus.PENDING);
+      outbox.setNextAttemptTime(Timestamp.from(Instant.now().plusSeconds(backoffSeconds)));
+    }
+    notificationOutboxRepository.save(outbox);
+
+    if (auditEvent != null) {
+      userMgmntAuditLogHelper.logEvent(auditEvent, prepareAuditLogRequest(outbox));
+    }
+    logger.info(
+        String.format(
+            "NotificationOutboxServiceImpl - dispatch() : ends, status=%s, attempts=%d, pending=%d",
+            outbox.getStatus(), outbox.getAttempts(), pendingCount));
+  }
+
+  private void sendPendingDeliveries(NotificationOutboxEntity outbox, AppEntity app) {
+    NotificationBean notificationBean = toNotificationBean(outbox);
+    // one send per platform over all pages, so the sender keeps its batches in flight across pages
+    PendingDeliveries androidDeliveries = new PendingDeliveries(outbox.getId(), false);
+    if (androidDeliveries.hasNext()) {
+      sendFcm(notificationBean, app, androidDeliveries);
+    }
+    PendingDeliveries iosDeliveries = new PendingDeliveries(outbox.getId(), true);
+    if (iosDeliveries.hasNext()) {
+      sendApns(notificationBean, app, iosDeliveries);
+    }
+  }
+
+  private void sendFcm(
+      NotificationBean notificationBean, AppEntity app, PendingDeliveries deliveries) {
+    DeliveryResults results = new DeliveryResults();
+    try {
+      Set<String> invalidTokens = new HashSet<>();
+      Map<String, String> failedTokens = new HashMap<>();
+      fcmNotificationSender.send(
+          notificationBean, app.getAndroidServerKey(), deliveries, invalidTokens, failedTokens);
+      deliveries.forEachRead(
+          (id, deviceToken) -> results.add(id, deviceToken, invalidTokens, failedTokens));
+    } catch (RuntimeException e) {
+      logger.error("NotificationOutboxServiceImpl - sendFcm() : failed", e);
+      deliveries.forEachRead((id, deviceToken) -> results.failed(id, e.toString()));
+    }
+    results.save();
+  }
+
+  private void sendApns(
+      NotificationBean notificationBean, AppEntity app, PendingDeliveries deliveries) {
+    DeliveryResults results = new DeliveryResults();
+    try {
+      Set<String> invalidTokens = new HashSet<>();
+      Map<String, String> failedTokens = new HashMap<>();
+      apnsNotificationSender.send(notificationBean, app, deliveries, invalidTokens, failedTokens);
+      // tokens APNs did not answer before the timeout count as sent, as it may still deliver them
+      deliveries.forEachRead(
+          (id, deviceToken) -> results.add(id, deviceToken, invalidTokens, failedTokens));
+    } catch (RuntimeException e) {
+      logger.error("NotificationOutboxServiceImpl - sendApns() : failed", e);
+      deliveries.forEachRead((id, deviceToken) -> results.failed(id, e.toString()));
+    }
+    results.save();
+  }
+
+  private NotificationBean toNotificationBean(NotificationOutboxEntity outbox) {
+    NotificationBean notificationBean = new NotificationBean();
+    notificationBean.setAppId(outbox.getAppId());
+    notificationBean.setStudyId(outbox.getStudyId());
+    notificationBean.setCustomStudyId(outbox.getCustomStudyId());
+    notificationBean.setNotificationId(outbox.getNotificationId());
+    notificationBean.setNotificationSubType(outbox.getNotificationSubType());
+    notificationBean.setNotificationTitle(outbox.getNotificationTitle());
+    notificationBean.setNotificationText(outbox.getNotificationText());
+    notificationBean.setNotificationType(
+        AppConstants.STUDY_LEVEL.equalsIgnoreCase(outbox.getNotificationType())
+            ? AppConstants.STUDY
+            : AppConstants.GATEWAY);
+    return notificationBean;
+  }
+
+  private AuditLogEventRequest prepareAuditLogRequest(NotificationOutboxEntity outbox) {
+    AuditLogEventRequest auditRequest = new AuditLogEventRequest();
+    auditRequest.setAppId(outbox.getAppId());
+    auditRequest.setStudyId(outbox.getStudyId());
+    auditRequest.setAppVersion(outbox.getAppVersion());
+    auditRequest.setCorrelationId(outbox.getCorrelationId());
+    auditRequest.setSource(outbox.getSource());
+    auditRequest.setMobilePlatform(outbox.getMobilePlatform());
+    auditRequest.setUserId(outbox.getCreatedBy());
+    return auditRequest;
+  }
+
+  private static String fingerprint(NotificationBean notificationBean, String appId) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (String value :
+          Arrays.asList(
+              appId,
+              notificationBean.getStudyId(),
+              notificationBean.getCustomStudyId(),
+              String.valueOf(notificationBean.getNotificationId()),
+              notificationBean.getNotificationType(),
+              notificationBean.getNotificationSubType(),
+              notificationBean.getNotificationTitle(),
+              notificationBean.getNotificationText())) {
+        digest.update(StringUtils.defaultString(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+      }
+      return Base64.getEncoder().encodeToString(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Reads the pending deliveries of one platform a page at a time, as the sender asks for them, and
+   * extends the lease of the notification with each page. The id and device token of every delivery
+   * read are kept, so the results can be recorded once the send completed.
+   */
+  private class PendingDeliveries implements Iterator<List<DeviceTokenBean>> {
+
+    private final String outboxId;
+
+    private final boolean ios;
+
+    private final Map<String, String> deviceTokensById = new LinkedHashMap<>();
+
+    private List<NotificationDeliveryEntity> nextPage;
+
+    private String afterId = "";
+
+    private boolean exhausted;
+
+    private PendingDeliveries(String outboxId, boolean ios) {
+      this.outboxId = outboxId;
+      this.ios = ios;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (nextPage == null && !exhausted) {
+        List<NotificationDeliveryEntity> page =
+            ios
+                ? notificationDeliveryRepository.findPageOfDeviceType(
+                    outboxId,
+                    NotificationDeliveryStatus.PENDING,
+                    AppConstants.DEVICE_IOS,
+                    afterId,
+                    PageRequest.of(0, pageSize))
+                : notificationDeliveryRepository.findPageOfOtherDeviceTypes(
+                    outboxId,
+                    NotificationDeliveryStatus.PENDING,
+                    AppConstants.DEVICE_IOS,
+                    afterId,
+                    PageRequest.of(0, pageSize));
+        exhausted = page.size() < pageSize;
+        if (!page.isEmpty()) {
+          nextPage = page;
+          afterId = page.get(page.size() - 1).getId();
+        }
+      }
+      return nextPage != null;
+    }
+
+    @Override
+    public List<DeviceTokenBean> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      List<DeviceTokenBean> deviceTokens = new ArrayList<>(nextPage.size());
+      for (NotificationDeliveryEntity delivery : nextPage) {
+        deviceTokensById.put(delivery.getId(), delivery.getDeviceToken());
+        deviceTokens.add(
+            new DeviceTokenBean(
+                delivery.getAuthInfoId(),
+                delivery.getDeviceType(),
+                delivery.getDeviceToken(),
+                null));
+      }
+      nextPage = null;
+      notificationOutboxRepository.extendLease(
+          outboxId, Timestamp.from(Instant.now().plusSeconds(leaseSeconds)));
+      return deviceTokens;
+    }
+
+    /** Calls {@code action} with the id and device token of each delivery read so far. */
+    private void forEachRead(BiConsumer<String, String> action) {
+      deviceTokensById.forEach(action);
+    }
+  }
+
+  /** Per-recipient results of one send, saved with one update per outcome. */
+  private class DeliveryResults {
+
+    private final List<String> sentIds = new ArrayList<>();
+
+    private final Map<String, List<String>> invalidIdsByError = new HashMap<>();
+
+    private final Map<String, List<String>> failedIdsByError = new HashMap<>();
+
+    private final Set<String> invalidTokens = new HashSet<>();
+
+    /** Records the outcome of a delivery from the tokens the sender did not deliver to. */
+    private void add(
+        String id,
+        String deviceToken,
+        Set<String> invalidTokens,
+        Map<String, String> failedTokens) {
+      String error = failedTokens.get(deviceToken);
+      if (error == null) {
+        sentIds.add(id);
+      } else if (invalidTokens.contains(deviceToken)) {
+        invalidIdsByError.computeIfAbsent(error, key -> new ArrayList<>()).add(id);
+        this.invalidTokens.add(deviceToken);
+      } else {
+        failed(id, error);
+      }
+    }
+
+    private void failed(String id, String error) {
+      failedIdsByError
+          .computeIfAbsent(StringUtils.abbreviate(error, 255), key -> new ArrayList<>())
+          .add(id);
+    }
+
+    private void save() {
+      updateAttempt(sentIds, NotificationDeliveryStatus.SENT, null);
+      invalidIdsByError.forEach(
+          (error, ids) -> updateAttempt(ids, NotificationDeliveryStatus.INVALID_TOKEN, error));
+      failedIdsByError.forEach(
+          (error, ids) -> updateAttempt(ids, NotificationDeliveryStatus.PENDING, error));
+      if (!invalidTokens.isEmpty()) {
+        int removedCount = authInfoBoDao.removeDeviceTokens(invalidTokens);
+        logger.info(String.format("removed %d device token(s) rejected as invalid", removedCount));
+      }
+    }
+
+    /** Updates the deliveries a page at a time, to keep the IN list of each update bounded. */
+    private void updateAttempt(
+        List<String> ids, NotificationDeliveryStatus status, String lastError) {
+      for (List<String> chunk : ListUtils.partition(ids, pageSize)) {
+        notificationDeliveryRepository.updateAttempt(chunk, status, lastError);
+      }
+    }
+  }
+}
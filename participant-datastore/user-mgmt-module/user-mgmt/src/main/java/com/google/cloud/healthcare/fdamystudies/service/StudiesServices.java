@@ -16,6 +16,15 @@ import java.io.IOException;
 public interface StudiesServices {
   public ErrorBean saveStudyMetadata(StudyMetadataBean studyMetadataBean);
 
+  /**
+   * Queues the notifications of the form and returns their outbox ids.
+   *
+   * @param gatewayToAllApps sends gateway notifications to the users of every app named in the
+   *     form, as the first version of the API did, instead of the notification's app only
+   */
   public ErrorBean SendNotificationAction(
-      NotificationForm notificationForm, AuditLogEventRequest auditRequest) throws IOException;
+      NotificationForm notificationForm,
+      AuditLogEventRequest auditRequest,
+      boolean gatewayToAllApps)
+      throws IOException;
 }
@@ -22,7 +22,6 @@ import com.google.cloud.healthcare.fdamystudies.beans.UserProfileRespBean;
 import com.google.cloud.healthcare.fdamystudies.beans.UserRequestBean;
 import com.google.cloud.healthcare.fdamystudies.beans.WithdrawFromStudyBean;
 import com.google.cloud.healthcare.fdamystudies.common.ErrorCode;
-import com.google.cloud.healthcare.fdamystudies.common.PlatformComponent;
 import com.google.cloud.healthcare.fdamystudies.common.UserMgmntAuditHelper;
 import com.google.cloud.healthcare.fdamystudies.common.UserStatus;
 import com.google.cloud.healthcare.fdamystudies.config.ApplicationPropertyConfiguration;
@@ -37,6 +36,7 @@ import com.google.cloud.healthcare.fdamystudies.model.UserDetailsEntity;
 import com.google.cloud.healthcare.fdamystudies.repository.AppRepository;
 import com.google.cloud.healthcare.fdamystudies.repository.StudyRepository;
 import com.google.cloud.healthcare.fdamystudies.repository.UserDetailsRepository;
+import com.google.cloud.healthcare.fdamystudies.service.AccountDeactivationProcessor.StudyWithdrawal;
 import com.google.cloud.healthcare.fdamystudies.util.MyStudiesUserRegUtil;
 import com.google.cloud.healthcare.fdamystudies.util.UserManagementUtil;
 import java.sql.Timestamp;
@@ -46,7 +46,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,6 +74,8 @@ public class UserManagementProfileServiceImpl implements UserManagementProfileSe
 
   @Autowired UserDetailsRepository userDetailsRepository;
 
+  @Autowired private AccountDeactivationProcessor accountDeactivationProcessor;
+
   private static final Logger logger =
       LoggerFactory.getLogger(UserManagementProfileServiceImpl.class);
 
@@ -209,31 +210,11 @@ public class UserManagementProfileServiceImpl implements UserManagementProfileSe
 
   @Override
   public void processDeactivatePendingRequests() {
-    // findUsers With Status DEACTIVATE_PENDING
-    List<UserDetailsEntity> listOfUserDetails =
-        (List<UserDetailsEntity>)
-            CollectionUtils.emptyIfNull(
-                userDetailsRepository.findByStatus(UserStatus.DEACTIVATE_PENDING.getValue()));
-
-    // call deactivateUserAccount() for each userID's
-    listOfUserDetails.forEach(
-        userDetails -> {
-          try {
-            userManagementUtil.deleteUserInfoInAuthServer(userDetails.getUserId());
-            userProfileManagementDao.deactivateUserAccount(userDetails.getUserId());
-          } catch (ErrorCodeException e) {
-            if (e.getErrorCode() == ErrorCode.USER_NOT_FOUND) {
-              userProfileManagementDao.deactivateUserAccount(userDetails.getUserId());
-            } else {
-              logger.warn(
-                  String.format(
-                      "Delete user from %s failed with ErrorCode=%s",
-                      PlatformComponent.SCIM_AUTH_SERVER.getValue(), e.getErrorCode()));
-            }
-          } catch (Exception e) {
-            logger.error("processDeactivatePendingRequests() failed with an exception", e);
-          }
-        });
+    List<String> userIds =
+        userDetailsRepository.findUserIdsByStatus(UserStatus.DEACTIVATE_PENDING.getValue());
+    if (!userIds.isEmpty()) {
+      accountDeactivationProcessor.processPendingAccounts(userIds);
+    }
   }
 
   @Override
@@ -245,8 +226,9 @@ public class UserManagementProfileServiceImpl implements UserManagementProfileSe
     String userDetailsId = String.valueOf(0);
     WithdrawFromStudyBean studyBean = null;
     String participantId = "";
-    String retVal = MyStudiesUserRegUtil.ErrorCodes.FAILURE.getValue();
+    boolean withdrawn = false;
     List<String> deleteData = new ArrayList<String>();
+    List<StudyWithdrawal> withdrawals = new ArrayList<>();
 
     Optional<UserDetailsEntity> optUserDetails = userDetailsRepository.findByUserId(userId);
 
@@ -277,19 +259,20 @@ public class UserManagementProfileServiceImpl implements UserManagementProfileSe
 
         if (optStudyEntity.isPresent()) {
           auditRequest.setStudyVersion(String.valueOf(optStudyEntity.get().getVersion()));
-          retVal =
-              userManagementUtil.withdrawParticipantFromStudy(
+          withdrawals.add(
+              StudyWithdrawal.of(
                   studyBean.getParticipantId(),
                   studyBean.getStudyId(),
                   String.valueOf(optStudyEntity.get().getVersion()),
-                  auditRequest);
+                  auditRequest));
         }
       }
+      withdrawn =
+          !withdrawals.isEmpty() && accountDeactivationProcessor.withdrawFromStudies(withdrawals);
     } else {
-      retVal = MyStudiesUserRegUtil.ErrorCodes.SUCCESS.getValue();
+      withdrawn = true;
     }
-    if (retVal != null
-        && retVal.equalsIgnoreCase(MyStudiesUserRegUtil.ErrorCodes.SUCCESS.getValue())) {
+    if (withdrawn) {
 
       userProfileManagementDao.deactivateAcct(userId, deleteData, userDetailsId);
 
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.task;
+
+import com.google.cloud.healthcare.fdamystudies.service.NotificationOutboxService;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class NotificationOutboxScheduledTask {
+  private XLogger logger =
+      XLoggerFactory.getXLogger(NotificationOutboxScheduledTask.class.getName());
+
+  @Autowired NotificationOutboxService notificationOutboxService;
+
+  @Scheduled(
+      fixedDelayString = "${notification.outbox.fixed.delay.ms}",
+      initialDelayString = "${notification.outbox.initial.delay.ms}")
+  public void dispatchPendingNotifications() {
+    logger.entry("begin dispatchPendingNotifications()");
+
+    notificationOutboxService.dispatchPendingNotifications();
+
+    logger.exit("dispatchPendingNotifications() completed");
+  }
+}
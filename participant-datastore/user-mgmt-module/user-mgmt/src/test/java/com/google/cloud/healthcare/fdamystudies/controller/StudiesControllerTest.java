@@ -8,12 +8,22 @@
 
 package com.google.cloud.healthcare.fdamystudies.controller;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.google.cloud.healthcare.fdamystudies.common.UserMgmntEvent.PUSH_NOTIFICATION_FAILED;
+import static com.google.cloud.healthcare.fdamystudies.common.UserMgmntEvent.PUSH_NOTIFICATION_SENT;
 import static com.google.cloud.healthcare.fdamystudies.common.UserMgmntEvent.STUDY_METADATA_RECEIVED;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
-import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -24,31 +34,53 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.healthcare.fdamystudies.bean.StudyMetadataBean;
 import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
+import com.google.cloud.healthcare.fdamystudies.beans.DeviceTokenBean;
 import com.google.cloud.healthcare.fdamystudies.beans.NotificationBean;
 import com.google.cloud.healthcare.fdamystudies.beans.NotificationForm;
 import com.google.cloud.healthcare.fdamystudies.common.BaseMockIT;
+import com.google.cloud.healthcare.fdamystudies.common.NotificationDeliveryStatus;
+import com.google.cloud.healthcare.fdamystudies.common.NotificationOutboxStatus;
+import com.google.cloud.healthcare.fdamystudies.dao.AuthInfoBODao;
 import com.google.cloud.healthcare.fdamystudies.dao.CommonDaoImpl;
+import com.google.cloud.healthcare.fdamystudies.dao.DeviceTokenCursor;
+import com.google.cloud.healthcare.fdamystudies.dao.NotificationOutboxDao;
 import com.google.cloud.healthcare.fdamystudies.model.AppPermissionEntity;
+import com.google.cloud.healthcare.fdamystudies.model.AuthInfoEntity;
+import com.google.cloud.healthcare.fdamystudies.model.NotificationDeliveryEntity;
+import com.google.cloud.healthcare.fdamystudies.model.NotificationOutboxEntity;
 import com.google.cloud.healthcare.fdamystudies.model.SitePermissionEntity;
 import com.google.cloud.healthcare.fdamystudies.model.StudyEntity;
 import com.google.cloud.healthcare.fdamystudies.model.StudyPermissionEntity;
 import com.google.cloud.healthcare.fdamystudies.repository.AppPermissionRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.AuthInfoRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.NotificationDeliveryRepository;
+import com.google.cloud.healthcare.fdamystudies.repository.NotificationOutboxRepository;
 import com.google.cloud.healthcare.fdamystudies.repository.SitePermissionRepository;
 import com.google.cloud.healthcare.fdamystudies.repository.StudyPermissionRepository;
 import com.google.cloud.healthcare.fdamystudies.repository.UserRegAdminRepository;
+import com.google.cloud.healthcare.fdamystudies.service.NotificationOutboxService;
 import com.google.cloud.healthcare.fdamystudies.service.StudiesServices;
 import com.google.cloud.healthcare.fdamystudies.testutils.Constants;
 import com.google.cloud.healthcare.fdamystudies.testutils.TestUtils;
+import com.google.cloud.healthcare.fdamystudies.util.AppConstants;
 import com.google.cloud.healthcare.fdamystudies.util.ErrorCode;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.apache.commons.collections4.map.HashedMap;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
 
 public class StudiesControllerTest extends BaseMockIT {
 
@@ -58,6 +90,15 @@ public class StudiesControllerTest extends BaseMockIT {
   private static final String SEND_NOTIFICATION_PATH =
       "/participant-user-datastore/studies/sendNotification";
 
+  private static final String SEND_NOTIFICATION_V2_PATH =
+      "/participant-user-datastore/studies/v2/sendNotification";
+
+  private static final String SECOND_APP_ID = "GCPMS002";
+
+  private static final int DEVICE_TOKEN_COUNT = 5000;
+
+  private static final int PAGE_SIZE = 250;
+
   @Autowired private StudiesController studiesController;
 
   @Autowired private StudiesServices studiesServices;
@@ -74,6 +115,38 @@ public class StudiesControllerTest extends BaseMockIT {
 
   @Autowired private SitePermissionRepository sitePermissionRepository;
 
+  @Autowired private AuthInfoRepository authInfoRepository;
+
+  @Autowired private AuthInfoBODao authInfoBoDao;
+
+  @Autowired private NotificationOutboxService notificationOutboxService;
+
+  @Autowired private NotificationOutboxRepository notificationOutboxRepository;
+
+  @Autowired private NotificationDeliveryRepository notificationDeliveryRepository;
+
+  @Autowired private NotificationOutboxDao notificationOutboxDao;
+
+  private String iosDeviceToken;
+
+  @BeforeEach
+  public void disableIosDeviceToken() {
+    // APNs is not reachable from tests, notifications are sent to the android device only
+    AuthInfoEntity authInfo = authInfoRepository.findById(Constants.IOS_AUTH_INFO_ID).get();
+    iosDeviceToken = authInfo.getDeviceToken();
+    authInfo.setDeviceToken(null);
+    authInfoRepository.saveAndFlush(authInfo);
+  }
+
+  @AfterEach
+  public void cleanUpNotifications() {
+    notificationDeliveryRepository.deleteAll();
+    notificationOutboxRepository.deleteAll();
+    AuthInfoEntity authInfo = authInfoRepository.findById(Constants.IOS_AUTH_INFO_ID).get();
+    authInfo.setDeviceToken(iosDeviceToken);
+    authInfoRepository.saveAndFlush(authInfo);
+  }
+
   @Test
   public void contextLoads() {
     assertNotNull(studiesController);
@@ -302,7 +375,7 @@ public class StudiesControllerTest extends BaseMockIT {
 
     mockMvc
         .perform(
-            post(SEND_NOTIFICATION_PATH)
+            post(SEND_NOTIFICATION_V2_PATH)
                 .content(requestJson)
                 .headers(headers)
                 .contextPath(getContextPath()))
@@ -310,10 +383,7 @@ public class StudiesControllerTest extends BaseMockIT {
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.message", is(ErrorCode.EC_200.errorMessage())))
         .andExpect(jsonPath("$.code", is(ErrorCode.EC_200.code())))
-        .andExpect(jsonPath("$.response.multicast_id", greaterThan(0L)))
-        .andExpect(
-            jsonPath(
-                "$.response.results[0].message_id", is("0:1491324495516461%31bd1c9631bd1c96")));
+        .andExpect(jsonPath("$.response.outboxIds", hasSize(1)));
     verifyTokenIntrospectRequest(1);
 
     // GatewayLevel notificationType
@@ -324,6 +394,102 @@ public class StudiesControllerTest extends BaseMockIT {
             Constants.APP_ID_VALUE,
             Constants.GATEWAY_LEVEL);
 
+    mockMvc
+        .perform(
+            post(SEND_NOTIFICATION_V2_PATH)
+                .content(requestJson)
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.message", is(ErrorCode.EC_200.errorMessage())))
+        .andExpect(jsonPath("$.code", is(ErrorCode.EC_200.code())))
+        .andExpect(jsonPath("$.response.outboxIds", hasSize(1)));
+
+    verifyTokenIntrospectRequest(2);
+
+    // nothing is sent until the dispatcher runs
+    verify(0, postRequestedFor(urlEqualTo("/fcm/send")));
+
+    notificationOutboxService.dispatchPendingNotifications();
+
+    verify(2, postRequestedFor(urlEqualTo("/fcm/send")));
+    List<NotificationOutboxEntity> outboxes = notificationOutboxRepository.findAll();
+    assertEquals(2, outboxes.size());
+    for (NotificationOutboxEntity outbox : outboxes) {
+      assertEquals(NotificationOutboxStatus.COMPLETED, outbox.getStatus());
+      assertEquals(1, outbox.getAttempts());
+    }
+    List<NotificationDeliveryEntity> deliveries = notificationDeliveryRepository.findAll();
+    assertEquals(2, deliveries.size());
+    for (NotificationDeliveryEntity delivery : deliveries) {
+      assertEquals(Constants.ANDROID_AUTH_INFO_ID, delivery.getAuthInfoId());
+      assertEquals(NotificationDeliveryStatus.SENT, delivery.getStatus());
+    }
+  }
+
+  @Test
+  public void sendNotificationShouldEnqueueAllNotificationsOnce() throws Exception {
+    HttpHeaders headers = TestUtils.getCommonHeaders();
+    List<NotificationBean> notifications = new ArrayList<>();
+    notifications.add(
+        new NotificationBean(
+            Constants.STUDY_ID,
+            Constants.CUSTOM_STUDY_ID,
+            Constants.APP_ID_VALUE,
+            Constants.STUDY_LEVEL));
+    notifications.add(
+        new NotificationBean(
+            Constants.STUDY_ID,
+            Constants.CUSTOM_STUDY_ID,
+            Constants.APP_ID_VALUE,
+            Constants.GATEWAY_LEVEL));
+    String requestJson =
+        getObjectMapper().writeValueAsString(new NotificationForm(notifications));
+
+    mockMvc
+        .perform(
+            post(SEND_NOTIFICATION_V2_PATH)
+                .content(requestJson)
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.response.outboxIds", hasSize(2)));
+
+    // a retried request is ignored while the same notifications are waiting to be sent
+    mockMvc
+        .perform(
+            post(SEND_NOTIFICATION_V2_PATH)
+                .content(requestJson)
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.response.outboxIds", hasSize(0)));
+
+    assertEquals(2, notificationOutboxRepository.count());
+    verifyTokenIntrospectRequest(2);
+  }
+
+  @Test
+  public void sendNotificationShouldKeepFirstVersionResponseAndGatewayAudience() throws Exception {
+    HttpHeaders headers = TestUtils.getCommonHeaders();
+    NotificationBean firstApp =
+        new NotificationBean(
+            Constants.STUDY_ID,
+            Constants.CUSTOM_STUDY_ID,
+            Constants.APP_ID_VALUE,
+            Constants.GATEWAY_LEVEL);
+    firstApp.setNotificationId(1);
+    NotificationBean secondApp =
+        new NotificationBean(
+            Constants.STUDY_ID, Constants.CUSTOM_STUDY_ID, SECOND_APP_ID, Constants.GATEWAY_LEVEL);
+    secondApp.setNotificationId(2);
+    String requestJson =
+        getObjectMapper()
+            .writeValueAsString(new NotificationForm(Arrays.asList(firstApp, secondApp)));
+
     mockMvc
         .perform(
             post(SEND_NOTIFICATION_PATH)
@@ -334,14 +500,292 @@ public class StudiesControllerTest extends BaseMockIT {
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.message", is(ErrorCode.EC_200.errorMessage())))
         .andExpect(jsonPath("$.code", is(ErrorCode.EC_200.code())))
-        .andExpect(jsonPath("$.response.multicast_id", greaterThan(0L)))
-        .andExpect(
-            jsonPath(
-                "$.response.results[0].message_id", is("0:1491324495516461%31bd1c9631bd1c96")));
+        .andExpect(jsonPath("$.response").value(nullValue()));
+
+    // each gateway notification goes to the users of both apps, with their own credentials
+    List<NotificationOutboxEntity> outboxes = notificationOutboxRepository.findAll();
+    assertEquals(4, outboxes.size());
+    Map<String, Integer> countByApp = new HashedMap<>();
+    for (NotificationOutboxEntity outbox : outboxes) {
+      countByApp.merge(outbox.getAppId(), 1, Integer::sum);
+    }
+    assertEquals(2, countByApp.get(Constants.APP_ID_VALUE));
+    assertEquals(2, countByApp.get(SECOND_APP_ID));
+
+    notificationOutboxRepository.deleteAll();
+    mockMvc
+        .perform(
+            post(SEND_NOTIFICATION_V2_PATH)
+                .content(requestJson)
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.response.outboxIds", hasSize(2)));
 
     verifyTokenIntrospectRequest(2);
   }
 
+  @Test
+  public void sendNotificationShouldEnqueueAgainOnceSent() throws Exception {
+    HttpHeaders headers = TestUtils.getCommonHeaders();
+    String requestJson =
+        getNotificationForm(
+            Constants.STUDY_ID,
+            Constants.CUSTOM_STUDY_ID,
+            Constants.APP_ID_VALUE,
+            Constants.GATEWAY_LEVEL);
+
+    mockMvc
+        .perform(
+            post(SEND_NOTIFICATION_V2_PATH)
+                .content(requestJson)
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.response.outboxIds", hasSize(1)));
+
+    notificationOutboxService.dispatchPendingNotifications();
+    NotificationOutboxEntity outbox = notificationOutboxRepository.findAll().get(0);
+    assertEquals(NotificationOutboxStatus.COMPLETED, outbox.getStatus());
+    assertNull(outbox.getActiveFingerprint());
+
+    mockMvc
+        .perform(
+            post(SEND_NOTIFICATION_V2_PATH)
+                .content(requestJson)
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.response.outboxIds", hasSize(1)));
+
+    assertEquals(2, notificationOutboxRepository.count());
+    verifyTokenIntrospectRequest(2);
+  }
+
+  @Test
+  public void insertIfNotQueuedShouldRejectSecondActiveFingerprint() {
+    // two requests that both passed any earlier check still insert only one notification
+    assertTrue(notificationOutboxDao.insertIfNotQueued(newOutbox("same-fingerprint")));
+    assertFalse(notificationOutboxDao.insertIfNotQueued(newOutbox("same-fingerprint")));
+
+    assertEquals(1, notificationOutboxRepository.count());
+  }
+
+  @Test
+  public void sendNotificationShouldRemoveUnregisteredDeviceToken() throws Exception {
+    sendNotificationToUnregisteredDeviceToken(Constants.NOT_REGISTERED_DEVICE_TOKEN);
+  }
+
+  @Test
+  public void sendNotificationShouldRemoveUnregisteredDeviceTokenStoredWithWhitespace()
+      throws Exception {
+    sendNotificationToUnregisteredDeviceToken(" " + Constants.NOT_REGISTERED_DEVICE_TOKEN + " ");
+  }
+
+  private void sendNotificationToUnregisteredDeviceToken(String storedDeviceToken)
+      throws Exception {
+    AuthInfoEntity authInfo = authInfoRepository.findById(Constants.ANDROID_AUTH_INFO_ID).get();
+    String deviceToken = authInfo.getDeviceToken();
+    authInfo.setDeviceToken(storedDeviceToken);
+    authInfoRepository.saveAndFlush(authInfo);
+
+    HttpHeaders headers = TestUtils.getCommonHeaders();
+    String requestJson =
+        getNotificationForm(
+            Constants.STUDY_ID,
+            Constants.CUSTOM_STUDY_ID,
+            Constants.APP_ID_VALUE,
+            Constants.GATEWAY_LEVEL);
+
+    mockMvc
+        .perform(
+            post(SEND_NOTIFICATION_V2_PATH)
+                .content(requestJson)
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.response.outboxIds", hasSize(1)));
+
+    notificationOutboxService.dispatchPendingNotifications();
+
+    NotificationOutboxEntity outbox = notificationOutboxRepository.findAll().get(0);
+    assertEquals(NotificationOutboxStatus.COMPLETED, outbox.getStatus());
+    NotificationDeliveryEntity delivery = notificationDeliveryRepository.findAll().get(0);
+    assertEquals(NotificationDeliveryStatus.INVALID_TOKEN, delivery.getStatus());
+    assertEquals("NotRegistered", delivery.getLastError());
+
+    authInfo = authInfoRepository.findById(Constants.ANDROID_AUTH_INFO_ID).get();
+    assertNull(authInfo.getDeviceToken());
+
+    verifyAuditEventCall(PUSH_NOTIFICATION_SENT);
+
+    authInfo.setDeviceToken(deviceToken);
+    authInfoRepository.saveAndFlush(authInfo);
+  }
+
+  @Test
+  public void sendNotificationShouldDeadLetterAfterMaxAttempts() throws Exception {
+    AuthInfoEntity authInfo = authInfoRepository.findById(Constants.ANDROID_AUTH_INFO_ID).get();
+    String deviceToken = authInfo.getDeviceToken();
+    authInfo.setDeviceToken(Constants.UNAVAILABLE_DEVICE_TOKEN);
+    authInfoRepository.saveAndFlush(authInfo);
+
+    HttpHeaders headers = TestUtils.getCommonHeaders();
+    String requestJson =
+        getNotificationForm(
+            Constants.STUDY_ID,
+            Constants.CUSTOM_STUDY_ID,
+            Constants.APP_ID_VALUE,
+            Constants.GATEWAY_LEVEL);
+
+    mockMvc
+        .perform(
+            post(SEND_NOTIFICATION_V2_PATH)
+                .content(requestJson)
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.response.outboxIds", hasSize(1)));
+
+    // first attempt leaves the delivery pending for a retry
+    notificationOutboxService.dispatchPendingNotifications();
+
+    NotificationOutboxEntity outbox = notificationOutboxRepository.findAll().get(0);
+    assertEquals(NotificationOutboxStatus.PENDING, outbox.getStatus());
+    NotificationDeliveryEntity delivery = notificationDeliveryRepository.findAll().get(0);
+    assertEquals(NotificationDeliveryStatus.PENDING, delivery.getStatus());
+    assertEquals("Unavailable", delivery.getLastError());
+
+    // last attempt moves the notification to the dead-letter status
+    notificationOutboxService.dispatchPendingNotifications();
+
+    outbox = notificationOutboxRepository.findAll().get(0);
+    assertEquals(NotificationOutboxStatus.DEAD_LETTER, outbox.getStatus());
+    assertEquals(2, outbox.getAttempts());
+    delivery = notificationDeliveryRepository.findAll().get(0);
+    assertEquals(NotificationDeliveryStatus.DEAD_LETTER, delivery.getStatus());
+    assertEquals(2, delivery.getAttempts());
+
+    // the token is not removed as it may still be valid
+    authInfo = authInfoRepository.findById(Constants.ANDROID_AUTH_INFO_ID).get();
+    assertEquals(Constants.UNAVAILABLE_DEVICE_TOKEN, authInfo.getDeviceToken());
+
+    verifyAuditEventCall(PUSH_NOTIFICATION_FAILED);
+
+    authInfo.setDeviceToken(deviceToken);
+    authInfoRepository.saveAndFlush(authInfo);
+  }
+
+  @Test
+  public void sendNotificationShouldNotWaitForLongRetryAfter() throws Exception {
+    AuthInfoEntity authInfo = authInfoRepository.findById(Constants.ANDROID_AUTH_INFO_ID).get();
+    String deviceToken = authInfo.getDeviceToken();
+    authInfo.setDeviceToken(Constants.THROTTLED_DEVICE_TOKEN);
+    authInfoRepository.saveAndFlush(authInfo);
+
+    HttpHeaders headers = TestUtils.getCommonHeaders();
+    String requestJson =
+        getNotificationForm(
+            Constants.STUDY_ID,
+            Constants.CUSTOM_STUDY_ID,
+            Constants.APP_ID_VALUE,
+            Constants.GATEWAY_LEVEL);
+
+    mockMvc
+        .perform(
+            post(SEND_NOTIFICATION_V2_PATH)
+                .content(requestJson)
+                .headers(headers)
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isOk());
+
+    // FCM asks for a day, which is over messaging.fcm.max.retry.after.ms, so the batch is given
+    // up after the first request and the delivery stays pending for the outbox retry
+    notificationOutboxService.dispatchPendingNotifications();
+
+    verify(
+        1,
+        postRequestedFor(urlEqualTo("/fcm/send"))
+            .withRequestBody(containing(Constants.THROTTLED_DEVICE_TOKEN)));
+    NotificationOutboxEntity outbox = notificationOutboxRepository.findAll().get(0);
+    assertEquals(NotificationOutboxStatus.PENDING, outbox.getStatus());
+    NotificationDeliveryEntity delivery = notificationDeliveryRepository.findAll().get(0);
+    assertEquals(NotificationDeliveryStatus.PENDING, delivery.getStatus());
+    assertEquals("Unavailable", delivery.getLastError());
+
+    authInfo.setDeviceToken(deviceToken);
+    authInfoRepository.saveAndFlush(authInfo);
+  }
+
+  @Test
+  @Transactional
+  public void shouldReadAllDeviceTokensAcrossPages() {
+    AuthInfoEntity androidAuthInfo =
+        authInfoRepository.findById(Constants.ANDROID_AUTH_INFO_ID).get();
+    Set<String> expectedTokens = new HashSet<>();
+    expectedTokens.add(androidAuthInfo.getDeviceToken());
+    List<AuthInfoEntity> authInfos = new ArrayList<>();
+    for (int i = 0; i < DEVICE_TOKEN_COUNT; i++) {
+      // FCM registration tokens are ~160 characters, well over MySQL's default group_concat_max_len
+      String deviceToken = String.format("%05d:%s", i, RandomStringUtils.randomAlphanumeric(152));
+      AuthInfoEntity authInfo = new AuthInfoEntity();
+      authInfo.setApp(androidAuthInfo.getApp());
+      authInfo.setUserDetails(androidAuthInfo.getUserDetails());
+      authInfo.setDeviceType(AppConstants.DEVICE_ANDROID);
+      authInfo.setDeviceToken(deviceToken);
+      authInfo.setRemoteNotificationFlag(true);
+      authInfos.add(authInfo);
+      expectedTokens.add(deviceToken);
+    }
+    authInfoRepository.saveAll(authInfos);
+    authInfoRepository.flush();
+
+    List<String> appIds = Collections.singletonList(androidAuthInfo.getApp().getAppId());
+    assertEquals(
+        expectedTokens,
+        readDeviceTokens(
+            authInfoBoDao.getDeviceTokens(appIds, AppConstants.DEVICE_ANDROID, PAGE_SIZE)));
+    assertEquals(
+        expectedTokens,
+        readDeviceTokens(
+            commonDao.getStudyDeviceTokens(
+                Constants.STUDY_INFO_ID, AppConstants.DEVICE_ANDROID, PAGE_SIZE)));
+  }
+
+  private Set<String> readDeviceTokens(DeviceTokenCursor cursor) {
+    Set<String> deviceTokens = new HashSet<>();
+    int tokenCount = 0;
+    while (cursor.hasNext()) {
+      List<DeviceTokenBean> page = cursor.next();
+      assertTrue(page.size() <= PAGE_SIZE);
+      for (DeviceTokenBean deviceToken : page) {
+        assertEquals(AppConstants.DEVICE_ANDROID, deviceToken.getDeviceType());
+        deviceTokens.add(deviceToken.getDeviceToken());
+        tokenCount++;
+      }
+    }
+    // no token is returned twice
+    assertEquals(deviceTokens.size(), tokenCount);
+    return deviceTokens;
+  }
+
+  private static NotificationOutboxEntity newOutbox(String fingerprint) {
+    NotificationOutboxEntity outbox = new NotificationOutboxEntity();
+    outbox.setFingerprint(fingerprint);
+    outbox.setActiveFingerprint(fingerprint);
+    outbox.setAppId(Constants.APP_ID_VALUE);
+    outbox.setNotificationType(Constants.GATEWAY_LEVEL);
+    outbox.setStatus(NotificationOutboxStatus.PENDING);
+    outbox.setNextAttemptTime(new Timestamp(System.currentTimeMillis()));
+    return outbox;
+  }
+
   private String getNotificationForm(
       String studyId, String customStudyId, String appId, String notificationType)
       throws JsonProcessingException {
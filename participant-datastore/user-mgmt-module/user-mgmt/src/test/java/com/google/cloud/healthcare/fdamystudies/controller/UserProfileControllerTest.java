@@ -11,6 +11,7 @@ package com.google.cloud.healthcare.fdamystudies.controller;
 import static com.github.tomakehurst.wiremock.client.WireMock.deleteRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
 import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static com.google.cloud.healthcare.fdamystudies.common.JsonUtils.asJsonString;
 import static com.google.cloud.healthcare.fdamystudies.common.UserMgmntEvent.READ_OPERATION_FAILED_FOR_USER_PROFILE;
@@ -46,7 +47,9 @@ import com.google.cloud.healthcare.fdamystudies.common.ErrorCode;
 import com.google.cloud.healthcare.fdamystudies.common.IdGenerator;
 import com.google.cloud.healthcare.fdamystudies.common.OnboardingStatus;
 import com.google.cloud.healthcare.fdamystudies.common.PlaceholderReplacer;
+import com.google.cloud.healthcare.fdamystudies.common.UserStatus;
 import com.google.cloud.healthcare.fdamystudies.config.ApplicationPropertyConfiguration;
+import com.google.cloud.healthcare.fdamystudies.model.AppEntity;
 import com.google.cloud.healthcare.fdamystudies.model.ParticipantStudyEntity;
 import com.google.cloud.healthcare.fdamystudies.model.StudyEntity;
 import com.google.cloud.healthcare.fdamystudies.model.UserDetailsEntity;
@@ -59,10 +62,12 @@ import com.google.cloud.healthcare.fdamystudies.testutils.Constants;
 import com.google.cloud.healthcare.fdamystudies.testutils.TestUtils;
 import com.jayway.jsonpath.JsonPath;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.collections4.map.HashedMap;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.Test;
@@ -86,6 +91,8 @@ public class UserProfileControllerTest extends BaseMockIT {
   private static final String RESEND_CONFIRMATION_PATH =
       "/participant-user-datastore/resendConfirmation";
 
+  private static final int PENDING_DEACTIVATIONS = 500;
+
   @Autowired private UserProfileController profileController;
 
   @Autowired private UserManagementProfileService profileService;
@@ -349,6 +356,55 @@ public class UserProfileControllerTest extends BaseMockIT {
     verifyTokenIntrospectRequest(1);
   }
 
+  @Test
+  public void processDeactivatePendingRequests() {
+    UserDetailsEntity userDetails = userDetailsRepository.findByUserId(Constants.USER_ID).get();
+    List<UserDetailsEntity> pendingUsers = new ArrayList<>();
+    for (int i = 0; i < PENDING_DEACTIVATIONS; i++) {
+      pendingUsers.add(newPendingUser(userDetails.getApp(), "pending-user-" + i));
+    }
+    // already deleted from the auth server by an earlier run
+    pendingUsers.add(newPendingUser(userDetails.getApp(), "pending-deleted-1"));
+    pendingUsers.add(newPendingUser(userDetails.getApp(), "pending-error-1"));
+    pendingUsers = userDetailsRepository.saveAll(pendingUsers);
+
+    try {
+      profileService.processDeactivatePendingRequests();
+
+      List<String> pendingUserIds =
+          userDetailsRepository.findUserIdsByStatus(UserStatus.DEACTIVATE_PENDING.getValue());
+      assertEquals(Collections.singletonList("pending-error-1"), pendingUserIds);
+      UserDetailsEntity deactivated = userDetailsRepository.findByUserId("pending-deleted-1").get();
+      assertEquals(UserStatus.DEACTIVATED.getValue(), deactivated.getStatus());
+      assertTrue(deactivated.getEmail().contains("_DEACTIVATED_"));
+
+      verify(
+          PENDING_DEACTIVATIONS,
+          deleteRequestedFor(urlPathMatching("/auth-server/users/pending-user-[0-9]+")));
+      verify(1, deleteRequestedFor(urlEqualTo("/auth-server/users/pending-error-1")));
+
+      // the failed account is retried by the next run
+      profileService.processDeactivatePendingRequests();
+      verify(2, deleteRequestedFor(urlEqualTo("/auth-server/users/pending-error-1")));
+      verify(
+          PENDING_DEACTIVATIONS,
+          deleteRequestedFor(urlPathMatching("/auth-server/users/pending-user-[0-9]+")));
+    } finally {
+      for (List<UserDetailsEntity> users : ListUtils.partition(pendingUsers, 500)) {
+        userDetailsRepository.deleteInBatch(users);
+      }
+    }
+  }
+
+  private UserDetailsEntity newPendingUser(AppEntity app, String userId) {
+    UserDetailsEntity userDetails = new UserDetailsEntity();
+    userDetails.setUserId(userId);
+    userDetails.setApp(app);
+    userDetails.setEmail(userId + "@grr.la");
+    userDetails.setStatus(UserStatus.DEACTIVATE_PENDING.getValue());
+    return userDetails;
+  }
+
   @Test
   public void resendConfirmationBadRequest() throws Exception {
 
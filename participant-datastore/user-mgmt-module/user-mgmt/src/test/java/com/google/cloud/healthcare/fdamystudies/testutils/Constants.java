@@ -71,4 +71,14 @@ public final class Constants {
   public static final String STUDY_ID_1 = "study-1";
   public static final String USER_EMAIL = "cdash93@gmail.com";
   public static final String CONTACT_EMAIL_ID = "contactemail@gmail.com";
+
+  public static final String ANDROID_AUTH_INFO_ID = "223";
+
+  public static final String IOS_AUTH_INFO_ID = "222";
+
+  public static final String NOT_REGISTERED_DEVICE_TOKEN = "not-registered-device-token";
+
+  public static final String UNAVAILABLE_DEVICE_TOKEN = "unavailable-device-token";
+
+  public static final String THROTTLED_DEVICE_TOKEN = "throttled-device-token";
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.google.cloud.healthcare.fdamystudies.common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Admins found active by the {@code ActiveUserFilter}, remembered for {@code
+ * activeuser.filter.cache.ttl.seconds}. Only active admins are remembered, so an admin that is
+ * not found or not active is looked up again on the next request. With {@code
+ * activeuser.filter.strict} set to true nothing is remembered.
+ */
+@Component
+public class ActiveAdminCache {
+
+  private final Map<String, Long> expiryByUserId = new ConcurrentHashMap<>();
+
+  @Value("${activeuser.filter.cache.ttl.seconds:30}")
+  private long ttlSeconds;
+
+  @Value("${activeuser.filter.strict:false}")
+  private boolean strict;
+
+  public boolean isActive(String userId) {
+    Long expiry = expiryByUserId.get(userId);
+    if (expiry == null) {
+      return false;
+    }
+    if (expiry - System.nanoTime() <= 0) {
+      expiryByUserId.remove(userId, expiry);
+      return false;
+    }
+    return true;
+  }
+
+  public void putActive(String userId) {
+    if (!strict && ttlSeconds > 0) {
+      expiryByUserId.put(userId, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds));
+    }
+  }
+
+  /**
+   * Forgets the admin, now and again once the current transaction commits, so a request running
+   * before the commit can't keep the old status.
+   */
+  public void evict(String userId) {
+    expiryByUserId.remove(userId);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+              if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                expiryByUserId.remove(userId);
+              }
+            }
+          });
+    }
+  }
+}
@@ -12,6 +12,7 @@ import static com.google.cloud.healthcare.fdamystudies.common.CommonConstants.US
 import static com.google.cloud.healthcare.fdamystudies.common.JsonUtils.getObjectMapper;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.cloud.healthcare.fdamystudies.common.ActiveAdminCache;
 import com.google.cloud.healthcare.fdamystudies.common.ErrorCode;
 import com.google.cloud.healthcare.fdamystudies.model.UserRegAdminEntity;
 import com.google.cloud.healthcare.fdamystudies.repository.UserRegAdminRepository;
@@ -62,6 +63,8 @@ public class ActiveUserFilter implements Filter {
 
   @Autowired private UserRegAdminRepository userRegAdminRepository;
 
+  @Autowired private ActiveAdminCache activeAdminCache;
+
   @PostConstruct
   public void init() {
     uriTemplateAndMethods.put(
@@ -90,7 +93,7 @@ public class ActiveUserFilter implements Filter {
       if (StringUtils.isEmpty(userId)) {
         logger.error(String.format("userId is empty errorCode=%s", ErrorCode.USER_ID_REQUIRED));
         ec = ErrorCode.USER_ID_REQUIRED;
-      } else {
+      } else if (!activeAdminCache.isActive(userId)) {
         Optional<UserRegAdminEntity> optUserRegAdminUser = userRegAdminRepository.findById(userId);
         ec = !optUserRegAdminUser.isPresent() ? ErrorCode.USER_NOT_EXISTS : null;
 
@@ -98,6 +101,10 @@ public class ActiveUserFilter implements Filter {
           UserRegAdminEntity adminUser = optUserRegAdminUser.get();
           ec = !adminUser.isActive() ? ErrorCode.USER_NOT_ACTIVE : null;
         }
+
+        if (ec == null) {
+          activeAdminCache.putActive(userId);
+        }
       }
 
       if (ec != null) {
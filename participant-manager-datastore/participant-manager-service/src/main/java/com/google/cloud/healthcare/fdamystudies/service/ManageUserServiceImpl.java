@@ -35,6 +35,7 @@ import com.google.cloud.healthcare.fdamystudies.beans.UserSiteDetails;
 import com.google.cloud.healthcare.fdamystudies.beans.UserSitePermissionRequest;
 import com.google.cloud.healthcare.fdamystudies.beans.UserStudyDetails;
 import com.google.cloud.healthcare.fdamystudies.beans.UserStudyPermissionRequest;
+import com.google.cloud.healthcare.fdamystudies.common.ActiveAdminCache;
 import com.google.cloud.healthcare.fdamystudies.common.CommonConstants;
 import com.google.cloud.healthcare.fdamystudies.common.EmailTemplate;
 import com.google.cloud.healthcare.fdamystudies.common.ErrorCode;
@@ -71,6 +72,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -115,6 +117,8 @@ public class ManageUserServiceImpl implements ManageUserService {
 
   @Autowired private ParticipantManagerAuditLogHelper participantManagerHelper;
 
+  @Autowired private ActiveAdminCache activeAdminCache;
+
   @Autowired
   private UserAccountEmailSchedulerTaskRepository userAccountEmailSchedulerTaskRepository;
 
@@ -485,6 +489,7 @@ public class ManageUserServiceImpl implements ManageUserService {
     }
 
     userAdminRepository.saveAndFlush(adminDetails);
+    activeAdminCache.evict(adminDetails.getId());
 
     deleteAppStudySiteLevelPermissions(user.getId());
 
@@ -524,6 +529,7 @@ public class ManageUserServiceImpl implements ManageUserService {
     }
 
     userAdminRepository.saveAndFlush(adminDetails);
+    activeAdminCache.evict(adminDetails.getId());
 
     deleteAppStudySiteLevelPermissions(user.getId());
 
@@ -630,23 +636,30 @@ public class ManageUserServiceImpl implements ManageUserService {
     Map<String, UserAppDetails> appsMap = new HashMap<>();
     Map<String, UserStudyDetails> studiesMap = new HashMap<>();
     Map<String, UserSiteDetails> sitesMap = new HashMap<>();
+    // studies of each app by study id and sites of each study by site id, so a selected entry
+    // replaces the unselected one without scanning the list; the lists are sorted once at the end
+    Map<String, Map<String, UserStudyDetails>> appStudiesMap = new HashMap<>();
+    Map<String, Map<String, UserSiteDetails>> studySitesMap = new HashMap<>();
     for (AppStudySiteInfo app : selectedAppsStudiesSitesInfoList) {
-      UserAppDetails appDetails = null;
-      if (!appsMap.containsKey(app.getAppId())) {
+      UserAppDetails appDetails = appsMap.get(app.getAppId());
+      Map<String, UserStudyDetails> appStudies = appStudiesMap.get(app.getAppId());
+      if (appDetails == null) {
         appDetails = UserMapper.toUserAppDetails(app);
+        appStudies = new LinkedHashMap<>();
         if (unselectedAppsMap.containsKey(app.getAppId())) {
           UserAppDetails unselectedAppsDetails = unselectedAppsMap.get(app.getAppId());
-          appDetails.getStudies().addAll(unselectedAppsDetails.getStudies());
+          for (UserStudyDetails study : unselectedAppsDetails.getStudies()) {
+            appStudies.put(study.getStudyId(), study);
+          }
           appDetails.setTotalSitesCount(unselectedAppsDetails.getTotalSitesCount());
         }
 
         appsMap.put(app.getAppId(), appDetails);
+        appStudiesMap.put(app.getAppId(), appStudies);
       }
 
-      appDetails = appsMap.get(app.getAppId());
-
-      UserStudyDetails userStudyDetails = null;
-      if (!studiesMap.containsKey(app.getAppStudyIdKey())) {
+      UserStudyDetails userStudyDetails = studiesMap.get(app.getAppStudyIdKey());
+      if (userStudyDetails == null) {
         userStudyDetails = UserMapper.toUserStudyDetails(app);
         studiesMap.put(app.getAppStudyIdKey(), userStudyDetails);
         // add all unselected sites
@@ -657,46 +670,57 @@ public class ManageUserServiceImpl implements ManageUserService {
         }
 
         // replace unselected study with selected study
-        appDetails
-            .getStudies()
-            .removeIf(study -> StringUtils.equals(study.getStudyId(), app.getStudyId()));
-        appDetails.getStudies().add(userStudyDetails);
+        appStudies.remove(app.getStudyId());
+        appStudies.put(app.getStudyId(), userStudyDetails);
 
         if (userStudyDetails.isSelected()) {
           appDetails.setSelectedStudiesCount(appDetails.getSelectedStudiesCount() + 1);
         }
       }
-      userStudyDetails = studiesMap.get(app.getAppStudyIdKey());
 
       if (StringUtils.isNotEmpty(app.getLocationName())
-          && userStudyDetails != null
           && !sitesMap.containsKey(app.getAppStudySiteIdKey())) {
         UserSiteDetails userSiteDetails = UserMapper.toUserSiteDetails(app);
         sitesMap.put(app.getAppStudySiteIdKey(), userSiteDetails);
+        Map<String, UserSiteDetails> studySites = studySitesMap.get(app.getAppStudyIdKey());
+        if (studySites == null) {
+          studySites = new LinkedHashMap<>();
+          for (UserSiteDetails site : userStudyDetails.getSites()) {
+            studySites.put(site.getSiteId(), site);
+          }
+          studySitesMap.put(app.getAppStudyIdKey(), studySites);
+        }
         // replace unselected site with selected site
-        userStudyDetails
-            .getSites()
-            .removeIf(site -> StringUtils.equals(site.getSiteId(), app.getSiteId()));
-        userStudyDetails.getSites().add(userSiteDetails);
+        studySites.remove(app.getSiteId());
+        studySites.put(app.getSiteId(), userSiteDetails);
 
         if (userSiteDetails.isSelected()) {
           appDetails.setSelectedSitesCount(appDetails.getSelectedSitesCount() + 1);
           userStudyDetails.setSelectedSitesCount(userStudyDetails.getSelectedSitesCount() + 1);
         }
-        userStudyDetails.setTotalSitesCount(userStudyDetails.getSites().size());
         appDetails.setTotalSitesCount(appDetails.getTotalSitesCount() + 1);
-
-        sortUserStudyDetailsSitesByLocationName(userStudyDetails);
       }
+    }
 
-      sortUserAppDetailsStudiesByStudyName(appDetails);
+    for (Map.Entry<String, Map<String, UserSiteDetails>> entry : studySitesMap.entrySet()) {
+      UserStudyDetails userStudyDetails = studiesMap.get(entry.getKey());
+      userStudyDetails.getSites().clear();
+      userStudyDetails.getSites().addAll(entry.getValue().values());
+      userStudyDetails.setTotalSitesCount(userStudyDetails.getSites().size());
+      sortUserStudyDetailsSitesByLocationName(userStudyDetails);
+    }
 
+    for (UserAppDetails appDetails : appsMap.values()) {
+      appDetails.getStudies().clear();
+      appDetails.getStudies().addAll(appStudiesMap.get(appDetails.getId()).values());
+      sortUserAppDetailsStudiesByStudyName(appDetails);
       appDetails.setTotalStudiesCount(appDetails.getStudies().size());
     }
 
-    List<UserAppDetails> apps = appsMap.values().stream().collect(Collectors.toList());
     List<UserAppDetails> sortedApps =
-        apps.stream()
+        appsMap
+            .values()
+            .stream()
             .sorted(Comparator.comparing(UserAppDetails::getName))
             .collect(Collectors.toList());
     user.getApps().addAll(sortedApps);
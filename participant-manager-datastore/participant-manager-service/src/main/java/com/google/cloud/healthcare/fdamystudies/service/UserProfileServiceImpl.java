@@ -28,6 +28,7 @@ import com.google.cloud.healthcare.fdamystudies.beans.UpdateEmailStatusResponse;
 import com.google.cloud.healthcare.fdamystudies.beans.UserProfileRequest;
 import com.google.cloud.healthcare.fdamystudies.beans.UserProfileResponse;
 import com.google.cloud.healthcare.fdamystudies.beans.UserResponse;
+import com.google.cloud.healthcare.fdamystudies.common.ActiveAdminCache;
 import com.google.cloud.healthcare.fdamystudies.common.ErrorCode;
 import com.google.cloud.healthcare.fdamystudies.common.MessageCode;
 import com.google.cloud.healthcare.fdamystudies.common.ParticipantManagerAuditLogHelper;
@@ -73,6 +74,8 @@ public class UserProfileServiceImpl implements UserProfileService {
 
   @Autowired private ParticipantManagerAuditLogHelper participantManagerHelper;
 
+  @Autowired private ActiveAdminCache activeAdminCache;
+
   @Override
   @Transactional(readOnly = true)
   public UserProfileResponse getUserProfile(String userId) {
@@ -252,6 +255,7 @@ public class UserProfileServiceImpl implements UserProfileService {
 
     user.setStatus(statusRequest.getStatus());
     userRegAdminRepository.saveAndFlush(user);
+    activeAdminCache.evict(user.getId());
 
     MessageCode messageCode =
         (user.getStatus() == UserStatus.ACTIVE.getValue()
@@ -47,6 +47,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
 import com.google.cloud.healthcare.fdamystudies.beans.LocationRequest;
 import com.google.cloud.healthcare.fdamystudies.beans.UpdateLocationRequest;
+import com.google.cloud.healthcare.fdamystudies.common.ActiveAdminCache;
 import com.google.cloud.healthcare.fdamystudies.common.ApiEndpoint;
 import com.google.cloud.healthcare.fdamystudies.common.BaseMockIT;
 import com.google.cloud.healthcare.fdamystudies.common.CommonConstants;
@@ -91,6 +92,8 @@ public class LocationControllerTest extends BaseMockIT {
 
   @Autowired private UserRegAdminRepository userRegAdminRepository;
 
+  @Autowired private ActiveAdminCache activeAdminCache;
+
   private UserRegAdminEntity userRegAdminEntity;
 
   private LocationEntity locationEntity;
@@ -724,6 +727,41 @@ public class LocationControllerTest extends BaseMockIT {
     verifyTokenIntrospectRequest();
   }
 
+  @Test
+  public void shouldLookUpAdminStatusAgainOnceEvicted() throws Exception {
+    // Step 1: Call API, the admin is found active and remembered
+    HttpHeaders headers = testDataHelper.newCommonHeaders();
+    headers.set(USER_ID_HEADER, userRegAdminEntity.getId());
+    mockMvc
+        .perform(
+            get(ApiEndpoint.GET_LOCATIONS.getPath()).headers(headers).contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isOk());
+
+    // Step 2: deactivate the admin without going through the services
+    userRegAdminEntity.setStatus(INACTIVE_STATUS);
+    userRegAdminRepository.saveAndFlush(userRegAdminEntity);
+
+    // Step 3: Call API, the remembered status is used
+    mockMvc
+        .perform(
+            get(ApiEndpoint.GET_LOCATIONS.getPath()).headers(headers).contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isOk());
+
+    // Step 4: forget the admin, call API and expect USER_NOT_ACTIVE
+    activeAdminCache.evict(userRegAdminEntity.getId());
+    mockMvc
+        .perform(
+            get(ApiEndpoint.GET_LOCATIONS.getPath()).headers(headers).contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isBadRequest())
+        .andExpect(
+            jsonPath("$.error_description", is(ErrorCode.USER_NOT_ACTIVE.getDescription())));
+
+    verifyTokenIntrospectRequest(3);
+  }
+
   private LocationRequest getLocationRequest() throws JsonProcessingException {
     return new LocationRequest(CUSTOM_ID_VALUE, LOCATION_NAME_VALUE, LOCATION_DESCRIPTION_VALUE);
   }
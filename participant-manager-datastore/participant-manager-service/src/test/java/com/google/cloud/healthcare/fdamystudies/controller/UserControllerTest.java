@@ -49,6 +49,7 @@ import com.google.cloud.healthcare.fdamystudies.common.UserStatus;
 import com.google.cloud.healthcare.fdamystudies.helper.TestDataHelper;
 import com.google.cloud.healthcare.fdamystudies.model.AppEntity;
 import com.google.cloud.healthcare.fdamystudies.model.AppPermissionEntity;
+import com.google.cloud.healthcare.fdamystudies.model.LocationEntity;
 import com.google.cloud.healthcare.fdamystudies.model.SiteEntity;
 import com.google.cloud.healthcare.fdamystudies.model.SitePermissionEntity;
 import com.google.cloud.healthcare.fdamystudies.model.StudyEntity;
@@ -869,6 +870,50 @@ public class UserControllerTest extends BaseMockIT {
     verifyTokenIntrospectRequest();
   }
 
+  @Test
+  public void shouldReturnSelectedAndUnselectedSitesSortedForGetAdminDetailsAndApps()
+      throws Exception {
+    // Step 1: Set one admin with permission to the second of three sites of a study
+    UserRegAdminEntity admin = testDataHelper.createNonSuperAdmin();
+    LocationEntity location = siteEntity.getLocation();
+    location.setName("Boston");
+    testDataHelper.getLocationRepository().saveAndFlush(location);
+    List<SiteEntity> siteList = testDataHelper.createMultipleSiteEntity(studyEntity);
+    testDataHelper.getSitePermissionRepository().deleteAll();
+    testDataHelper.createSitePermission(
+        admin, appEntity, studyEntity, siteList.get(1), userRegAdminEntity.getId());
+
+    // Step 2: Call API and expect the selected site in place of the unselected one
+    HttpHeaders headers = testDataHelper.newCommonHeaders();
+    headers.set(USER_ID_HEADER, userRegAdminEntity.getId());
+    mockMvc
+        .perform(
+            get(ApiEndpoint.GET_ADMIN_DETAILS_AND_APPS.getPath(), admin.getId())
+                .headers(headers)
+                .queryParam("includeUnselected", String.valueOf(true))
+                .contextPath(getContextPath()))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.user.apps", hasSize(1)))
+        .andExpect(jsonPath("$.user.apps[0].totalStudiesCount", is(1)))
+        .andExpect(jsonPath("$.user.apps[0].totalSitesCount", is(3)))
+        .andExpect(jsonPath("$.user.apps[0].selectedSitesCount", is(1)))
+        .andExpect(jsonPath("$.user.apps[0].studies[0].totalSitesCount", is(3)))
+        .andExpect(jsonPath("$.user.apps[0].studies[0].selectedSitesCount", is(1)))
+        .andExpect(jsonPath("$.user.apps[0].studies[0].sites", hasSize(3)))
+        .andExpect(jsonPath("$.user.apps[0].studies[0].sites[0].locationName", is("Boston")))
+        .andExpect(jsonPath("$.user.apps[0].studies[0].sites[0].selected", is(false)))
+        .andExpect(
+            jsonPath("$.user.apps[0].studies[0].sites[1].locationName", is("Marlborough1")))
+        .andExpect(jsonPath("$.user.apps[0].studies[0].sites[1].selected", is(false)))
+        .andExpect(
+            jsonPath("$.user.apps[0].studies[0].sites[2].siteId", is(siteList.get(1).getId())))
+        .andExpect(jsonPath("$.user.apps[0].studies[0].sites[2].selected", is(true)))
+        .andExpect(jsonPath("$.message", is(MessageCode.GET_ADMIN_DETAILS_SUCCESS.getMessage())));
+
+    verifyTokenIntrospectRequest();
+  }
+
   @Test
   public void shouldNotReturnAnyAppForGetAdminDetailsAndApps() throws Exception {
     // Step 1: Set one admin without assigning any permission
@@ -36,6 +36,7 @@ import static com.google.cloud.healthcare.fdamystudies.common.ResponseServerEven
 
 import com.google.cloud.healthcare.fdamystudies.bean.ActivityResponseBean;
 import com.google.cloud.healthcare.fdamystudies.bean.ActivityStateRequestBean;
+import com.google.cloud.healthcare.fdamystudies.bean.BulkWithdrawalRequestBean;
 import com.google.cloud.healthcare.fdamystudies.bean.ErrorBean;
 import com.google.cloud.healthcare.fdamystudies.bean.ParticipantActivityBean;
 import com.google.cloud.healthcare.fdamystudies.bean.ParticipantStudyInformation;
@@ -45,6 +46,7 @@ import com.google.cloud.healthcare.fdamystudies.bean.StudyActivityMetadataReques
 import com.google.cloud.healthcare.fdamystudies.bean.SuccessResponseBean;
 import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
 import com.google.cloud.healthcare.fdamystudies.common.ResponseServerAuditLogHelper;
+import com.google.cloud.healthcare.fdamystudies.common.ResponseServerEvent;
 import com.google.cloud.healthcare.fdamystudies.mapper.AuditEventMapper;
 import com.google.cloud.healthcare.fdamystudies.response.model.ParticipantInfoEntity;
 import com.google.cloud.healthcare.fdamystudies.service.ActivityResponseProcessorService;
@@ -68,6 +70,7 @@ import org.apache.commons.collections4.map.HashedMap;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -564,4 +567,101 @@ public class ProcessActivityResponseController {
       }
     }
   }
+
+  @ApiOperation(value = "Withdraw a batch of participants from study from response datastore")
+  @PostMapping("/participant/withdraw/bulk")
+  public ResponseEntity<?> withdrawParticipantsFromStudy(
+      @RequestHeader String appId,
+      @RequestBody BulkWithdrawalRequestBean withdrawalRequest,
+      HttpServletRequest request) {
+    AuditLogEventRequest auditRequest = AuditEventMapper.fromHttpServletRequest(request);
+    String studyId = withdrawalRequest.getStudyId();
+    List<String> participantIds = withdrawalRequest.getParticipantIds();
+
+    if (StringUtils.isBlank(studyId)
+        || participantIds == null
+        || participantIds.isEmpty()
+        || participantIds.stream().anyMatch(StringUtils::isBlank)) {
+      ErrorBean errorBean =
+          AppUtil.dynamicResponse(
+              ErrorCode.EC_701.code(),
+              ErrorCode.EC_701.errorMessage(),
+              AppConstants.ERROR_STR,
+              ErrorCode.EC_701.errorMessage());
+      return new ResponseEntity<>(errorBean, HttpStatus.BAD_REQUEST);
+    }
+    if (participantIds.size() > AppConstants.BULK_WITHDRAWAL_MAX_PARTICIPANTS) {
+      ErrorBean errorBean =
+          AppUtil.dynamicResponse(
+              ErrorCode.EC_711.code(),
+              ErrorCode.EC_711.errorMessage(),
+              AppConstants.ERROR_STR,
+              String.format(
+                  "At most %d participants can be withdrawn per request",
+                  AppConstants.BULK_WITHDRAWAL_MAX_PARTICIPANTS));
+      return new ResponseEntity<>(errorBean, HttpStatus.BAD_REQUEST);
+    }
+
+    auditRequest.setStudyId(studyId);
+    auditRequest.setStudyVersion(withdrawalRequest.getStudyVersion());
+    auditRequest.setAppId(appId);
+    List<AuditLogEventRequest> participantAuditRequests = new ArrayList<>();
+    for (String participantId : participantIds) {
+      AuditLogEventRequest participantAuditRequest = new AuditLogEventRequest();
+      BeanUtils.copyProperties(auditRequest, participantAuditRequest);
+      participantAuditRequest.setParticipantId(participantId);
+      participantAuditRequests.add(participantAuditRequest);
+    }
+
+    boolean responseDataUpdate = false;
+    try {
+      Map<String, String> map = new HashMap<>();
+      map.put("withdrawal_timetamp", Timestamp.from(Instant.now()).toString());
+      logEvents(
+          PARTICIPANT_WITHDRAWAL_INTIMATION_FROM_PARTICIPANT_DATASTORE,
+          participantAuditRequests,
+          map);
+
+      if (withdrawalRequest.isDeleteResponses()) {
+        activityResponseProcessorService.deleteActivityResponseDataForParticipants(
+            studyId, participantIds);
+      } else {
+        activityResponseProcessorService.updateWithdrawalStatusForParticipants(
+            studyId, participantIds);
+      }
+      responseDataUpdate = true;
+      logEvents(WITHDRAWAL_INFORMATION_UPDATED, participantAuditRequests, null);
+
+      participantActivityStateResponseService.deleteParticipantActivites(studyId, participantIds);
+      logEvents(PARTICIPANT_ACTIVITY_DATA_DELETED, participantAuditRequests, null);
+
+      SuccessResponseBean srBean = new SuccessResponseBean();
+      srBean.setMessage(AppConstants.SUCCESS_MSG);
+      return new ResponseEntity<>(srBean, HttpStatus.OK);
+    } catch (Exception e) {
+      ErrorCode errorCode = responseDataUpdate ? ErrorCode.EC_717 : ErrorCode.EC_712;
+      logEvents(
+          responseDataUpdate ? ACTIVITY_DATA_DELETION_FAILED : WITHDRAWAL_INFORMATION_UPDATE_FAILED,
+          participantAuditRequests,
+          null);
+      logger.error(
+          String.format(
+              "Could not successfully withdraw %d participants.\n Study Id: %s",
+              participantIds.size(), studyId),
+          e);
+      ErrorBean errorBean =
+          AppUtil.dynamicResponse(
+              errorCode.code(), errorCode.errorMessage(), AppConstants.ERROR_STR, e.getMessage());
+      return new ResponseEntity<>(errorBean, HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  private void logEvents(
+      ResponseServerEvent event,
+      List<AuditLogEventRequest> auditRequests,
+      Map<String, String> values) {
+    for (AuditLogEventRequest auditRequest : auditRequests) {
+      responseServerAuditLogHelper.logEvent(event, auditRequest, values);
+    }
+  }
 }
@@ -9,6 +9,9 @@
 package com.google.cloud.healthcare.fdamystudies.dao;
 
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.FirestoreOptions;
 import com.google.cloud.firestore.Query;
@@ -32,6 +35,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -251,6 +255,86 @@ public class CloudFirestoreResponsesDaoImpl implements ResponsesDao {
     }
   }
 
+  @Override
+  public void deleteActivityResponseDataForParticipants(
+      String studyCollectionName, String studyId, List<String> participantIds)
+      throws ProcessResponseException {
+    try {
+      initializeFirestore();
+      List<QueryDocumentSnapshot> documents =
+          getActivityDocuments(studyCollectionName, studyId, participantIds);
+      commitInBatches(documents, WriteBatch::delete);
+    } catch (Exception e) {
+      logger.error(e.getMessage(), e);
+      throw new ProcessResponseException(e.getMessage());
+    }
+  }
+
+  @Override
+  public void updateWithdrawalStatusForParticipants(
+      String studyCollectionName, String studyId, List<String> participantIds)
+      throws ProcessResponseException {
+    try {
+      initializeFirestore();
+      List<QueryDocumentSnapshot> documents =
+          getActivityDocuments(studyCollectionName, studyId, participantIds);
+      commitInBatches(
+          documents,
+          (batch, reference) -> batch.update(reference, AppConstants.WITHDRAWAL_STATUS_KEY, true));
+    } catch (Exception e) {
+      logger.error(e.getMessage(), e);
+      throw new ProcessResponseException(e.getMessage());
+    }
+  }
+
+  /** Runs the activity queries of all participants concurrently and collects their documents. */
+  private List<QueryDocumentSnapshot> getActivityDocuments(
+      String studyCollectionName, String studyId, List<String> participantIds)
+      throws InterruptedException, ExecutionException {
+    CollectionReference activities =
+        this.responsesDb
+            .collection(studyCollectionName)
+            .document(studyId)
+            .collection(AppConstants.ACTIVITIES_COLLECTION_NAME);
+    List<ApiFuture<QuerySnapshot>> querySnapshots = new ArrayList<>(participantIds.size());
+    for (String participantId : participantIds) {
+      querySnapshots.add(
+          activities.whereEqualTo(AppConstants.PARTICIPANT_ID_KEY, participantId).get());
+    }
+
+    List<QueryDocumentSnapshot> documents = new ArrayList<>();
+    for (ApiFuture<QuerySnapshot> querySnapshot : querySnapshots) {
+      documents.addAll(querySnapshot.get().getDocuments());
+    }
+    return documents;
+  }
+
+  /**
+   * Applies the write to all documents in batches of {@link AppConstants#FS_BATCH_COMMIT_LIMIT},
+   * committing the batches concurrently and waiting until all of them are written.
+   */
+  private void commitInBatches(
+      List<QueryDocumentSnapshot> documents, BiConsumer<WriteBatch, DocumentReference> write)
+      throws InterruptedException, ExecutionException {
+    List<ApiFuture<List<WriteResult>>> commits = new ArrayList<>();
+    WriteBatch batch = this.responsesDb.batch();
+    int batchCount = 0;
+    for (QueryDocumentSnapshot document : documents) {
+      write.accept(batch, document.getReference());
+      batchCount++;
+      // Firestore - Each transaction or batch of writes can write to a maximum of 500 documents.
+      if (batchCount == AppConstants.FS_BATCH_COMMIT_LIMIT) {
+        commits.add(batch.commit());
+        batch = this.responsesDb.batch();
+        batchCount = 0;
+      }
+    }
+    if (batchCount > 0) {
+      commits.add(batch.commit());
+    }
+    ApiFutures.allAsList(commits).get();
+  }
+
   public void getResponseDataScenarios(
       String studyCollectionName,
       String studyId,
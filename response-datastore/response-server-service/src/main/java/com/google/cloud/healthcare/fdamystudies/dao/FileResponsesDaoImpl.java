@@ -18,6 +18,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -173,4 +174,22 @@ public class FileResponsesDaoImpl implements ResponsesDao {
     throw new ProcessResponseException(
         "Unimplemented method. Needs to be implemented with a datastore");
   }
+
+  @Override
+  public void deleteActivityResponseDataForParticipants(
+      String studyCollectionName, String studyId, List<String> participantIds)
+      throws ProcessResponseException {
+    // Unimplemeted method. A reference implementation has been provided for Cloud Firestore
+    throw new ProcessResponseException(
+        "Unimplemented method. Needs to be implemented with a datastore");
+  }
+
+  @Override
+  public void updateWithdrawalStatusForParticipants(
+      String studyCollectionName, String studyId, List<String> participantIds)
+      throws ProcessResponseException {
+    // Unimplemeted method. A reference implementation has been provided for Cloud Firestore
+    throw new ProcessResponseException(
+        "Unimplemented method. Needs to be implemented with a datastore");
+  }
 }
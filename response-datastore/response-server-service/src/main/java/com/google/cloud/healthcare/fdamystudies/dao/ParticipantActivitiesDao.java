@@ -22,4 +22,7 @@ public interface ParticipantActivitiesDao {
 
   void deleteParticipantActivites(String studyId, String participantId)
       throws ProcessActivityStateException;
+
+  void deleteParticipantActivites(String studyId, List<String> participantIds)
+      throws ProcessActivityStateException;
 }
@@ -126,4 +126,34 @@ public class ParticipantActivitiesDaoImpl implements ParticipantActivitiesDao {
       throw new ProcessActivityStateException("Required input parameter is null");
     }
   }
+
+  @Override
+  public void deleteParticipantActivites(String studyId, List<String> participantIds)
+      throws ProcessActivityStateException {
+    logger.debug("deleteParticipantActivites()...start");
+    if (studyId == null || participantIds == null || participantIds.isEmpty()) {
+      throw new ProcessActivityStateException("Required input parameter is null");
+    }
+    Transaction transaction = null;
+    try (Session session = entityManagerFactory.unwrap(SessionFactory.class).openSession()) {
+      transaction = session.beginTransaction();
+      int deleted =
+          session
+              .createQuery(
+                  "delete from ParticipantActivitiesEntity "
+                      + "where studyId = :studyId and participantId in (:participantIds)")
+              .setParameter("studyId", studyId)
+              .setParameterList("participantIds", participantIds)
+              .executeUpdate();
+      transaction.commit();
+      logger.debug("deleteParticipantActivites()...end, deleted=" + deleted);
+    } catch (Exception e) {
+      if (transaction != null && transaction.isActive()) {
+        transaction.rollback();
+      }
+      logger.error("deleteParticipantActivites: (ERROR) ", e);
+      throw new ProcessActivityStateException(
+          "Exception deleting activity state data" + e.getMessage());
+    }
+  }
 }
@@ -10,6 +10,7 @@ package com.google.cloud.healthcare.fdamystudies.dao;
 
 import com.google.cloud.healthcare.fdamystudies.bean.StoredResponseBean;
 import com.google.cloud.healthcare.fdamystudies.utils.ProcessResponseException;
+import java.util.List;
 import java.util.Map;
 
 public interface ResponsesDao {
@@ -43,4 +44,12 @@ public interface ResponsesDao {
   void updateWithdrawalStatusForParticipant(
       String studyCollectionName, String studyId, String participantId)
       throws ProcessResponseException;
+
+  void deleteActivityResponseDataForParticipants(
+      String studyCollectionName, String studyId, List<String> participantIds)
+      throws ProcessResponseException;
+
+  void updateWithdrawalStatusForParticipants(
+      String studyCollectionName, String studyId, List<String> participantIds)
+      throws ProcessResponseException;
 }
@@ -40,6 +40,9 @@ public class TokenIntrospectionFilter extends BaseTokenIntrospectionFilter {
     uriTemplateAndMethods.put(
         String.format("%s/participant/withdraw", context.getContextPath()),
         new String[] {HttpMethod.POST.name()});
+    uriTemplateAndMethods.put(
+        String.format("%s/participant/withdraw/bulk", context.getContextPath()),
+        new String[] {HttpMethod.POST.name()});
     uriTemplateAndMethods.put(
         String.format("%s/participant/get-activity-state", context.getContextPath()),
         new String[] {HttpMethod.GET.name()});
@@ -13,6 +13,7 @@ import com.google.cloud.healthcare.fdamystudies.bean.QuestionnaireActivityStruct
 import com.google.cloud.healthcare.fdamystudies.bean.StoredResponseBean;
 import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
 import com.google.cloud.healthcare.fdamystudies.utils.ProcessResponseException;
+import java.util.List;
 
 public interface ActivityResponseProcessorService {
 
@@ -28,4 +29,10 @@ public interface ActivityResponseProcessorService {
 
   void updateWithdrawalStatusForParticipant(String studyId, String participantId)
       throws ProcessResponseException;
+
+  void updateWithdrawalStatusForParticipants(String studyId, List<String> participantIds)
+      throws ProcessResponseException;
+
+  void deleteActivityResponseDataForParticipants(String studyId, List<String> participantIds)
+      throws ProcessResponseException;
 }
@@ -158,6 +158,32 @@ public class ActivityResponseProcessorServiceImpl implements ActivityResponsePro
     responsesDao.updateWithdrawalStatusForParticipant(studyCollectionName, studyId, participantId);
   }
 
+  @Override
+  public void updateWithdrawalStatusForParticipants(String studyId, List<String> participantIds)
+      throws ProcessResponseException {
+    if (StringUtils.isBlank(studyId) || participantIds == null || participantIds.isEmpty()) {
+      throw new ProcessResponseException(
+          "updateWithdrawalStatusForParticipants() method: "
+              + "Study Id argument or Participant Ids argument is null or empty.");
+    }
+    String studyCollectionName = AppUtil.makeStudyCollectionName(studyId);
+    responsesDao.updateWithdrawalStatusForParticipants(
+        studyCollectionName, studyId, participantIds);
+  }
+
+  @Override
+  public void deleteActivityResponseDataForParticipants(String studyId, List<String> participantIds)
+      throws ProcessResponseException {
+    if (StringUtils.isBlank(studyId) || participantIds == null || participantIds.isEmpty()) {
+      throw new ProcessResponseException(
+          "deleteActivityResponseDataForParticipants() method: "
+              + "Study Id argument or Participant Ids argument is null or empty.");
+    }
+    String studyCollectionName = AppUtil.makeStudyCollectionName(studyId);
+    responsesDao.deleteActivityResponseDataForParticipants(
+        studyCollectionName, studyId, participantIds);
+  }
+
   private void processActivityResponses(
       List<QuestionnaireActivityStepsBean> questionnaireResponses,
       List<QuestionnaireActivityStepsBean> activityMetadataBeanFromWcp) {
@@ -11,6 +11,7 @@ package com.google.cloud.healthcare.fdamystudies.service;
 import com.google.cloud.healthcare.fdamystudies.bean.ActivitiesBean;
 import com.google.cloud.healthcare.fdamystudies.bean.ActivityStateRequestBean;
 import com.google.cloud.healthcare.fdamystudies.exception.ProcessActivityStateException;
+import java.util.List;
 
 public interface ParticipantActivityStateResponseService {
 
@@ -22,4 +23,7 @@ public interface ParticipantActivityStateResponseService {
 
   void deleteParticipantActivites(String studyId, String participantId)
       throws ProcessActivityStateException;
+
+  void deleteParticipantActivites(String studyId, List<String> participantIds)
+      throws ProcessActivityStateException;
 }
@@ -113,6 +113,12 @@ public class ParticipantActivityStateResponseServiceImpl
     participantActivitiesDao.deleteParticipantActivites(studyId, participantId);
   }
 
+  @Override
+  public void deleteParticipantActivites(String studyId, List<String> participantIds)
+      throws ProcessActivityStateException {
+    participantActivitiesDao.deleteParticipantActivites(studyId, participantIds);
+  }
+
   private List<ParticipantActivitiesEntity> getConsolidatedParticipantListToUpdate(
       List<ParticipantActivitiesEntity> inputParticipantActivitiesList,
       List<ParticipantActivitiesEntity> saveOrUpdateParticipantActivitiesList) {
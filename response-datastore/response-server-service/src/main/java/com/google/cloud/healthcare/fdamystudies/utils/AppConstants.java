@@ -58,6 +58,7 @@ public class AppConstants {
   public static final String COMPLETED = "Completed";
   public static final String WITHDRAWAL_STATUS_KEY = "withdrawalStatus";
   public static final int FS_BATCH_COMMIT_LIMIT = 500;
+  public static final int BULK_WITHDRAWAL_MAX_PARTICIPANTS = 500;
 
   public static final String ACCESS_CONTROL_ALLOW_ORIGIN = "Access-Control-Allow-Origin";
   public static final String ACCESS_CONTROL_ALLOW_HEADERS = "Access-Control-Allow-Headers";
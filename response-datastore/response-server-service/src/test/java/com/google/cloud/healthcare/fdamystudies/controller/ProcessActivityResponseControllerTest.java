@@ -40,11 +40,15 @@ import static com.google.cloud.healthcare.fdamystudies.utils.Constants.SUCCESS;
 import static com.google.cloud.healthcare.fdamystudies.utils.Constants.USER_ID_HEADER;
 import static com.google.cloud.healthcare.fdamystudies.utils.Constants.VALID_USER_ID;
 import static com.google.cloud.healthcare.fdamystudies.utils.ErrorCode.EC_701;
+import static com.google.cloud.healthcare.fdamystudies.utils.ErrorCode.EC_711;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -54,23 +58,28 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.google.cloud.healthcare.fdamystudies.bean.ActivityResponseBean;
+import com.google.cloud.healthcare.fdamystudies.bean.BulkWithdrawalRequestBean;
 import com.google.cloud.healthcare.fdamystudies.bean.StoredResponseBean;
 import com.google.cloud.healthcare.fdamystudies.beans.AuditLogEventRequest;
 import com.google.cloud.healthcare.fdamystudies.common.ApiEndpoint;
 import com.google.cloud.healthcare.fdamystudies.common.BaseMockIT;
 import com.google.cloud.healthcare.fdamystudies.common.IdGenerator;
 import com.google.cloud.healthcare.fdamystudies.common.JsonUtils;
+import com.google.cloud.healthcare.fdamystudies.common.ResponseServerEvent;
 import com.google.cloud.healthcare.fdamystudies.dao.CloudFirestoreResponsesDaoImpl;
 import com.google.cloud.healthcare.fdamystudies.helper.TestDataHelper;
 import com.google.cloud.healthcare.fdamystudies.repository.ParticipantActivitiesRepository;
 import com.google.cloud.healthcare.fdamystudies.repository.ParticipantInfoRepository;
 import com.google.cloud.healthcare.fdamystudies.response.model.ParticipantActivitiesEntity;
 import com.google.cloud.healthcare.fdamystudies.response.model.ParticipantInfoEntity;
+import com.google.cloud.healthcare.fdamystudies.utils.AppConstants;
 import com.google.cloud.healthcare.fdamystudies.utils.Constants;
 import com.google.cloud.healthcare.fdamystudies.utils.TestUtils;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.apache.commons.collections4.map.HashedMap;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -420,9 +429,140 @@ public class ProcessActivityResponseControllerTest extends BaseMockIT {
         .andExpect(jsonPath("$.userMessage", is(EC_701.errorMessage())));
   }
 
+  @Test
+  public void shouldWithdrawParticipantsFromStudyInBulk() throws Exception {
+    // Step-1 save activity state of the participants and of one participant that stays enrolled
+    List<String> participantIds =
+        Arrays.asList(IdGenerator.id(), IdGenerator.id(), IdGenerator.id());
+    for (String participantId : participantIds) {
+      participantActivitiesRepository.saveAndFlush(newParticipantActivity(participantId));
+    }
+    String enrolledParticipantId = IdGenerator.id();
+    participantActivitiesRepository.saveAndFlush(newParticipantActivity(enrolledParticipantId));
+
+    // Step-2 call API to withdraw the participants and delete their responses
+    BulkWithdrawalRequestBean withdrawalRequest = new BulkWithdrawalRequestBean();
+    withdrawalRequest.setStudyId(STUDY_ID_VALUE);
+    withdrawalRequest.setStudyVersion(STUDY_VERSION);
+    withdrawalRequest.setParticipantIds(participantIds);
+    withdrawalRequest.setDeleteResponses(true);
+    mockMvc
+        .perform(
+            post(ApiEndpoint.BULK_WITHDRAW.getPath())
+                .contextPath(getContextPath())
+                .content(JsonUtils.asJsonString(withdrawalRequest))
+                .headers(TestUtils.newCommonHeaders()))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.message", is(SUCCESS)));
+
+    // Step-3 verify the activity state of only the withdrawn participants was deleted
+    for (String participantId : participantIds) {
+      assertTrue(
+          participantActivitiesRepository
+              .findByStudyIdAndParticipantId(STUDY_ID_VALUE, participantId)
+              .isEmpty());
+    }
+    assertEquals(
+        1,
+        participantActivitiesRepository
+            .findByStudyIdAndParticipantId(STUDY_ID_VALUE, enrolledParticipantId)
+            .size());
+
+    verify(responsesDaoMock)
+        .deleteActivityResponseDataForParticipants(
+            STUDY_COLLECTION_NAME_VALUE, STUDY_ID_VALUE, participantIds);
+    verify(responsesDaoMock, never())
+        .updateWithdrawalStatusForParticipants(anyString(), anyString(), anyList());
+
+    // Step-4 verify each participant has its own audit events
+    for (ResponseServerEvent event :
+        Arrays.asList(
+            PARTICIPANT_WITHDRAWAL_INTIMATION_FROM_PARTICIPANT_DATASTORE,
+            WITHDRAWAL_INFORMATION_UPDATED,
+            PARTICIPANT_ACTIVITY_DATA_DELETED)) {
+      List<String> auditedParticipantIds =
+          auditRequests
+              .stream()
+              .filter(auditRequest -> event.getEventCode().equals(auditRequest.getEventCode()))
+              .peek(auditRequest -> assertEquals(STUDY_ID_VALUE, auditRequest.getStudyId()))
+              .map(AuditLogEventRequest::getParticipantId)
+              .collect(Collectors.toList());
+      assertEquals(participantIds, auditedParticipantIds);
+    }
+
+    verifyTokenIntrospectRequest();
+  }
+
+  @Test
+  public void shouldReturnUnauthorizedForBulkWithdrawWithoutToken() throws Exception {
+    participantActivitiesRepository.saveAndFlush(newParticipantActivity(VALID_USER_ID));
+
+    BulkWithdrawalRequestBean withdrawalRequest = new BulkWithdrawalRequestBean();
+    withdrawalRequest.setStudyId(STUDY_ID_VALUE);
+    withdrawalRequest.setStudyVersion(STUDY_VERSION);
+    withdrawalRequest.setParticipantIds(Arrays.asList(VALID_USER_ID));
+    withdrawalRequest.setDeleteResponses(true);
+    HttpHeaders headers = TestUtils.newCommonHeaders();
+    headers.remove(HttpHeaders.AUTHORIZATION);
+    mockMvc
+        .perform(
+            post(ApiEndpoint.BULK_WITHDRAW.getPath())
+                .contextPath(getContextPath())
+                .content(JsonUtils.asJsonString(withdrawalRequest))
+                .headers(headers))
+        .andDo(print())
+        .andExpect(status().isUnauthorized());
+
+    assertEquals(
+        1,
+        participantActivitiesRepository
+            .findByStudyIdAndParticipantId(STUDY_ID_VALUE, VALID_USER_ID)
+            .size());
+    verify(responsesDaoMock, never())
+        .deleteActivityResponseDataForParticipants(anyString(), anyString(), anyList());
+    verifyTokenIntrospectRequest(0);
+  }
+
+  @Test
+  public void shouldReturnBadRequestForTooManyParticipantsOfBulkWithdraw() throws Exception {
+    BulkWithdrawalRequestBean withdrawalRequest = new BulkWithdrawalRequestBean();
+    withdrawalRequest.setStudyId(STUDY_ID_VALUE);
+    withdrawalRequest.setStudyVersion(STUDY_VERSION);
+    for (int i = 0; i <= AppConstants.BULK_WITHDRAWAL_MAX_PARTICIPANTS; i++) {
+      withdrawalRequest.getParticipantIds().add(IdGenerator.id());
+    }
+    mockMvc
+        .perform(
+            post(ApiEndpoint.BULK_WITHDRAW.getPath())
+                .contextPath(getContextPath())
+                .content(JsonUtils.asJsonString(withdrawalRequest))
+                .headers(TestUtils.newCommonHeaders()))
+        .andDo(print())
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.userMessage", is(EC_711.errorMessage())));
+
+    verify(responsesDaoMock, never())
+        .updateWithdrawalStatusForParticipants(anyString(), anyString(), anyList());
+
+    verifyTokenIntrospectRequest();
+  }
+
   @AfterEach
   public void clean() {
     participantBoRepository.deleteAll();
+    participantActivitiesRepository.deleteAll();
+  }
+
+  private ParticipantActivitiesEntity newParticipantActivity(String participantId) {
+    ParticipantActivitiesEntity participantActivity = new ParticipantActivitiesEntity();
+    participantActivity.setParticipantId(participantId);
+    participantActivity.setStudyId(STUDY_ID_VALUE);
+    participantActivity.setActivityId(ACTIVITY_ID_VALUE);
+    participantActivity.setActivityVersion("1.0");
+    participantActivity.setActivityState("inProgress");
+    participantActivity.setActivityRunId("1");
+    return participantActivity;
   }
 
   private ActivityResponseBean setActivityResponseBean() {
@@ -45,9 +45,9 @@ import javax.persistence.Transient;
       query =
           "SELECT ATB FROM ActiveTaskBo ATB where ATB.active IS NOT NULL and ATB.active=1 and ATB.studyId =:studyId order by id"),
   @NamedQuery(
-      name = "ActiveTaskBo.getActiveTasksByByStudyIdDone",
+      name = "ActiveTaskBo.getActiveTaskCountsByStudyIdDone",
       query =
-          "SELECT ATB FROM ActiveTaskBo ATB where ATB.active IS NOT NULL and ATB.active=1 and ATB.studyId =:studyId order by id"),
+          "SELECT count(ATB.id), sum(case when ATB.action=false then 1 else 0 end) FROM ActiveTaskBo ATB where ATB.active IS NOT NULL and ATB.active=1 and ATB.studyId =:studyId"),
   @NamedQuery(
       name = "updateStudyActiveTaskVersion",
       query = "UPDATE ActiveTaskBo SET live=2 WHERE customStudyId=:customStudyId and live=1"),
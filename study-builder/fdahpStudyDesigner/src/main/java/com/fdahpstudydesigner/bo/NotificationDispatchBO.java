@@ -0,0 +1,201 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.fdahpstudydesigner.bo;
+
+import java.io.Serializable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * One scheduled send of a notification to an app. Rows are created once per schedule, so
+ * overlapping scheduler runs and multiple Study Builder instances never send a notification twice,
+ * and record the outcome of the request to the participant datastore.
+ */
+@Entity
+@Table(
+    name = "notification_dispatch",
+    uniqueConstraints =
+        @UniqueConstraint(columnNames = {"notification_id", "schedule_date_time", "app_id"}))
+public class NotificationDispatchBO implements Serializable {
+
+  private static final long serialVersionUID = -4287136940612335671L;
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "id")
+  private Integer id;
+
+  @Column(name = "app_id")
+  private String appId;
+
+  @Column(name = "attempts")
+  private int attempts;
+
+  @Column(name = "created_on")
+  private String createdOn;
+
+  @Column(name = "custom_study_id")
+  private String customStudyId;
+
+  @Column(name = "last_error")
+  private String lastError;
+
+  @Column(name = "last_status_code")
+  private Integer lastStatusCode;
+
+  /** When a pending row is due, or when the lease of an in-progress row expires. */
+  @Column(name = "next_attempt_time")
+  private String nextAttemptTime;
+
+  @Column(name = "notification_id")
+  private Integer notificationId;
+
+  @Column(name = "notification_subType")
+  private String notificationSubType;
+
+  @Column(name = "notification_text")
+  private String notificationText;
+
+  @Column(name = "notification_type")
+  private String notificationType;
+
+  @Column(name = "schedule_date_time")
+  private String scheduleDateTime;
+
+  @Column(name = "sent_on")
+  private String sentOn;
+
+  @Column(name = "status")
+  private String status;
+
+  public String getAppId() {
+    return appId;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public String getCreatedOn() {
+    return createdOn;
+  }
+
+  public String getCustomStudyId() {
+    return customStudyId;
+  }
+
+  public Integer getId() {
+    return id;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  public Integer getLastStatusCode() {
+    return lastStatusCode;
+  }
+
+  public String getNextAttemptTime() {
+    return nextAttemptTime;
+  }
+
+  public Integer getNotificationId() {
+    return notificationId;
+  }
+
+  public String getNotificationSubType() {
+    return notificationSubType;
+  }
+
+  public String getNotificationText() {
+    return notificationText;
+  }
+
+  public String getNotificationType() {
+    return notificationType;
+  }
+
+  public String getScheduleDateTime() {
+    return scheduleDateTime;
+  }
+
+  public String getSentOn() {
+    return sentOn;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setAppId(String appId) {
+    this.appId = appId;
+  }
+
+  public void setAttempts(int attempts) {
+    this.attempts = attempts;
+  }
+
+  public void setCreatedOn(String createdOn) {
+    this.createdOn = createdOn;
+  }
+
+  public void setCustomStudyId(String customStudyId) {
+    this.customStudyId = customStudyId;
+  }
+
+  public void setId(Integer id) {
+    this.id = id;
+  }
+
+  public void setLastError(String lastError) {
+    this.lastError = lastError;
+  }
+
+  public void setLastStatusCode(Integer lastStatusCode) {
+    this.lastStatusCode = lastStatusCode;
+  }
+
+  public void setNextAttemptTime(String nextAttemptTime) {
+    this.nextAttemptTime = nextAttemptTime;
+  }
+
+  public void setNotificationId(Integer notificationId) {
+    this.notificationId = notificationId;
+  }
+
+  public void setNotificationSubType(String notificationSubType) {
+    this.notificationSubType = notificationSubType;
+  }
+
+  public void setNotificationText(String notificationText) {
+    this.notificationText = notificationText;
+  }
+
+  public void setNotificationType(String notificationType) {
+    this.notificationType = notificationType;
+  }
+
+  public void setScheduleDateTime(String scheduleDateTime) {
+    this.scheduleDateTime = scheduleDateTime;
+  }
+
+  public void setSentOn(String sentOn) {
+    this.sentOn = sentOn;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+}
@@ -48,9 +48,9 @@ import javax.persistence.Transient;
       name = "checkQuestionnaireShortTitle",
       query = "From QuestionnaireBo QBO where QBO.studyId=:studyId and QBO.shortTitle=:shortTitle"),
   @NamedQuery(
-      name = "getQuestionariesByStudyIdDone",
+      name = "getQuestionnaireCountsByStudyIdDone",
       query =
-          " From QuestionnaireBo QBO WHERE QBO.studyId =:studyId and QBO.active=1 order by QBO.createdDate DESC"),
+          "SELECT count(QBO.id), sum(case when QBO.status=false then 1 else 0 end) From QuestionnaireBo QBO WHERE QBO.studyId =:studyId and QBO.active=1"),
   @NamedQuery(
       name = "updateStudyQuestionnaireVersion",
       query = "UPDATE QuestionnaireBo SET live=2 WHERE customStudyId=:customStudyId and live=1"),
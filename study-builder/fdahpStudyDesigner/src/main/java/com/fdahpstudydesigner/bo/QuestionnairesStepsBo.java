@@ -126,6 +126,8 @@ public class QuestionnairesStepsBo implements Serializable {
   @Column(name = "step_id")
   private Integer stepId;
 
+  @Transient private Integer stepNo;
+
   @Column(name = "step_short_title")
   private String stepShortTitle;
 
@@ -214,6 +216,10 @@ public class QuestionnairesStepsBo implements Serializable {
     return stepId;
   }
 
+  public Integer getStepNo() {
+    return stepNo;
+  }
+
   public String getStepShortTitle() {
     return stepShortTitle;
   }
@@ -308,6 +314,10 @@ public class QuestionnairesStepsBo implements Serializable {
     this.stepId = stepId;
   }
 
+  public void setStepNo(Integer stepNo) {
+    this.stepNo = stepNo;
+  }
+
   public void setStepShortTitle(String stepShortTitle) {
     this.stepShortTitle = stepShortTitle;
   }
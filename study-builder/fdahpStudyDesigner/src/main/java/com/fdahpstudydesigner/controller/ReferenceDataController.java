@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.fdahpstudydesigner.controller;
+
+import com.fdahpstudydesigner.service.ReferenceDataService;
+import com.fdahpstudydesigner.util.FdahpStudyDesignerConstants;
+import java.io.IOException;
+import java.io.PrintWriter;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.log4j.Logger;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/** Lets a super admin see the use of the cached master data and read it again after a change. */
+@Controller
+public class ReferenceDataController {
+
+  private static Logger logger = Logger.getLogger(ReferenceDataController.class.getName());
+
+  @Autowired private ReferenceDataService referenceDataService;
+
+  @RequestMapping(value = "/adminReferenceData/statistics.do", method = RequestMethod.GET)
+  public void getStatistics(HttpServletResponse response) throws IOException {
+    logger.info("ReferenceDataController - getStatistics() - Starts");
+    JSONObject jsonobject = new JSONObject();
+    jsonobject.put("statistics", referenceDataService.getStatistics());
+    writeJson(response, jsonobject);
+    logger.info("ReferenceDataController - getStatistics() - Ends");
+  }
+
+  @RequestMapping(value = "/adminReferenceData/reload.do", method = RequestMethod.POST)
+  public void reload(HttpServletResponse response) throws IOException {
+    logger.info("ReferenceDataController - reload() - Starts");
+    String msg = FdahpStudyDesignerConstants.FAILURE;
+    JSONObject jsonobject = new JSONObject();
+    try {
+      referenceDataService.reload();
+      msg = FdahpStudyDesignerConstants.SUCCESS;
+    } catch (Exception e) {
+      logger.error("ReferenceDataController - reload() - ERROR", e);
+    }
+    jsonobject.put("message", msg);
+    writeJson(response, jsonobject);
+    logger.info("ReferenceDataController - reload() - Ends");
+  }
+
+  private void writeJson(HttpServletResponse response, JSONObject jsonobject) throws IOException {
+    response.setContentType("application/json");
+    PrintWriter out = response.getWriter();
+    out.print(jsonobject);
+  }
+}
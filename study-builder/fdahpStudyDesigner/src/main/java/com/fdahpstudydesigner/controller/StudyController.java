@@ -62,14 +62,9 @@ import com.fdahpstudydesigner.service.UsersService;
 import com.fdahpstudydesigner.util.FdahpStudyDesignerConstants;
 import com.fdahpstudydesigner.util.FdahpStudyDesignerUtil;
 import com.fdahpstudydesigner.util.SessionObject;
-import com.google.cloud.ReadChannel;
-import com.google.cloud.storage.Blob;
-import com.google.cloud.storage.Storage;
-import com.google.cloud.storage.StorageOptions;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
-import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -916,10 +911,8 @@ public class StudyController {
           fileName = (String) request.getSession().getAttribute(sessionStudyCount + "fileName");
           fileFolder = (String) request.getSession().getAttribute(sessionStudyCount + "fileFolder");
         }
-        Storage storage = StorageOptions.getDefaultInstance().getService();
-        Blob blob = storage.get(configMap.get("cloud.bucket.name"), fileFolder + "/" + fileName);
-        ReadChannel readChannel = blob.reader();
-        InputStream inputStream = Channels.newInputStream(readChannel);
+        InputStream inputStream =
+            FdahpStudyDesignerUtil.getAssetStorage().download(fileFolder + "/" + fileName);
         response.setContentType("application/pdf");
         response.setHeader("Content-Disposition", "inline; filename=\"" + fileName + "\"");
         IOUtils.copy(inputStream, response.getOutputStream());
@@ -4363,7 +4356,7 @@ public class StudyController {
     logger.info("StudyController - viewBasicInfo - Starts");
     ModelAndView mav = new ModelAndView("redirect:/adminStudies/studyList.do");
     ModelMap map = new ModelMap();
-    HashMap<String, List<ReferenceTablesBo>> referenceMap = null;
+    Map<String, List<ReferenceTablesBo>> referenceMap = null;
     List<ReferenceTablesBo> categoryList = null;
     StudyBo studyBo = null;
     String sucMsg = "";
@@ -4513,8 +4506,7 @@ public class StudyController {
                   studyBo.getCustomStudyId());
         }
         // grouped for Study category , Research Sponsors , Data partner
-        referenceMap =
-            (HashMap<String, List<ReferenceTablesBo>>) studyService.getreferenceListByCategory();
+        referenceMap = studyService.getreferenceListByCategory();
         if ((referenceMap != null) && (referenceMap.size() > 0)) {
           for (String key : referenceMap.keySet()) {
             if (StringUtils.isNotEmpty(key)) {
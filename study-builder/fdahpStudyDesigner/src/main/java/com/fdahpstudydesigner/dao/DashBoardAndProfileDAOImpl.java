@@ -26,6 +26,7 @@ package com.fdahpstudydesigner.dao;
 import com.fdahpstudydesigner.bo.MasterDataBO;
 import com.fdahpstudydesigner.bo.UserBO;
 import com.fdahpstudydesigner.util.FdahpStudyDesignerConstants;
+import com.fdahpstudydesigner.util.UserStateCache;
 import org.apache.log4j.Logger;
 import org.hibernate.Query;
 import org.hibernate.Session;
@@ -126,6 +127,7 @@ public class DashBoardAndProfileDAOImpl implements DashBoardAndProfileDAO {
         session.update(updatedUserBo);
       }
       transaction.commit();
+      UserStateCache.changed(userId);
       message = FdahpStudyDesignerConstants.SUCCESS;
     } catch (Exception e) {
       transaction.rollback();
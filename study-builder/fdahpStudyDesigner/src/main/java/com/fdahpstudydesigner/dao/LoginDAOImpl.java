@@ -35,6 +35,7 @@ import com.fdahpstudydesigner.service.LoginService;
 import com.fdahpstudydesigner.util.FdahpStudyDesignerConstants;
 import com.fdahpstudydesigner.util.FdahpStudyDesignerUtil;
 import com.fdahpstudydesigner.util.SessionObject;
+import com.fdahpstudydesigner.util.UserStateCache;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
@@ -512,6 +513,7 @@ public class LoginDAOImpl implements LoginDAO {
       transaction = session.beginTransaction();
       session.saveOrUpdate(userBO);
       transaction.commit();
+      UserStateCache.changed(userBO.getUserId());
       this.resetFailAttempts(userBO.getUserEmail());
       result = FdahpStudyDesignerConstants.SUCCESS;
     } catch (Exception e) {
@@ -539,6 +541,7 @@ public class LoginDAOImpl implements LoginDAO {
       transaction = session.beginTransaction();
       session.saveOrUpdate(userBO);
       transaction.commit();
+      UserStateCache.changed(userBO.getUserId());
       result = FdahpStudyDesignerConstants.SUCCESS;
     } catch (Exception e) {
       if (transaction != null) {
@@ -23,8 +23,8 @@
 
 package com.fdahpstudydesigner.dao;
 
-import com.fdahpstudydesigner.bean.PushNotificationBean;
 import com.fdahpstudydesigner.bo.NotificationBO;
+import com.fdahpstudydesigner.bo.NotificationDispatchBO;
 import com.fdahpstudydesigner.bo.NotificationHistoryBO;
 import com.fdahpstudydesigner.util.SessionObject;
 import java.util.List;
@@ -42,7 +42,19 @@ public interface NotificationDAO {
 
   public List<NotificationBO> getNotificationList(Integer studyId);
 
-  public List<PushNotificationBean> getPushNotificationList(String date, String time);
+  /**
+   * Enqueues the notifications scheduled in {@code [fromDateTime, toDateTime)} that have not been
+   * enqueued yet, one dispatch per app.
+   */
+  public int enqueuePushNotifications(String fromDateTime, String toDateTime);
+
+  /**
+   * Claims up to {@code maxResults} due dispatches, leasing them until {@code leaseExpiryDateTime}.
+   */
+  public List<NotificationDispatchBO> claimPushNotifications(
+      String currentDateTime, String leaseExpiryDateTime, int maxResults);
+
+  public void updatePushNotificationDispatches(List<NotificationDispatchBO> dispatches);
 
   public Integer saveOrUpdateOrResendNotification(
       NotificationBO notificationBO,
@@ -35,8 +35,8 @@ import static com.fdahpstudydesigner.common.StudyBuilderConstants.NOTIFICATION_I
 import static com.fdahpstudydesigner.common.StudyBuilderConstants.OLD_NOTIFICATION_ID;
 
 import com.fdahpstudydesigner.bean.AuditLogEventRequest;
-import com.fdahpstudydesigner.bean.PushNotificationBean;
 import com.fdahpstudydesigner.bo.NotificationBO;
+import com.fdahpstudydesigner.bo.NotificationDispatchBO;
 import com.fdahpstudydesigner.bo.NotificationHistoryBO;
 import com.fdahpstudydesigner.bo.StudyBo;
 import com.fdahpstudydesigner.common.StudyBuilderAuditEvent;
@@ -46,9 +46,13 @@ import com.fdahpstudydesigner.util.FdahpStudyDesignerConstants;
 import com.fdahpstudydesigner.util.FdahpStudyDesignerUtil;
 import com.fdahpstudydesigner.util.SessionObject;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
@@ -56,7 +60,7 @@ import org.hibernate.Query;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
-import org.hibernate.transform.Transformers;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.orm.hibernate3.HibernateTemplate;
 import org.springframework.stereotype.Repository;
@@ -66,6 +70,9 @@ public class NotificationDAOImpl implements NotificationDAO {
 
   private static Logger logger = Logger.getLogger(NotificationDAOImpl.class);
 
+  /** MySQL error code of a duplicate key value. */
+  private static final int DUPLICATE_ENTRY_ERROR_CODE = 1062;
+
   @Autowired private StudyBuilderAuditEventHelper auditLogHelper;
 
   HibernateTemplate hibernateTemplate;
@@ -220,60 +227,107 @@ public class NotificationDAOImpl implements NotificationDAO {
 
   @SuppressWarnings("unchecked")
   @Override
-  public List<PushNotificationBean> getPushNotificationList(String date, String time) {
-    logger.info("NotificationDAOImpl - getPushNotificationList - Starts");
+  public int enqueuePushNotifications(String fromDateTime, String toDateTime) {
+    logger.info("NotificationDAOImpl - enqueuePushNotifications - Starts");
     Session session = null;
-    String sb = "";
-    List<PushNotificationBean> pushNotificationBeans = null;
-    List<Integer> notificationIds;
     Transaction trans = null;
+    int enqueuedCount = 0;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
       trans = session.beginTransaction();
-      sb =
-          "select n.notification_id as notificationId, n.notification_text as notificationText, s.custom_study_id as customStudyId, n.notification_type as notificationType, n.notification_subType as notificationSubType,n.app_id as appId"
-              + " from (notification as n) LEFT OUTER JOIN studies as s ON s.id = n.study_id where n.schedule_date =:date"
-              + " AND n.is_anchor_date = false AND n.notification_done = true AND n.schedule_time like concat('%', :time, '%')"
+      String sb =
+          "select n.notification_id as notificationId, n.notification_text as notificationText, s.custom_study_id as customStudyId, n.notification_type as notificationType, n.notification_subType as notificationSubType, n.app_id as appId, cast(n.schedule_timestamp as char) as scheduleDateTime"
+              + " from (notification as n) LEFT OUTER JOIN studies as s ON s.id = n.study_id where n.schedule_timestamp >= :fromDateTime AND n.schedule_timestamp < :toDateTime"
+              + " AND n.is_anchor_date = false AND n.notification_done = true"
               + " AND (n.notification_subType=:subType OR n.notification_type =:type OR s.status =:status)";
-
-      query =
+      List<Object[]> dueNotifications =
           session
-              .createSQLQuery(sb.toString())
+              .createSQLQuery(sb)
               .addScalar("notificationId")
               .addScalar("notificationText")
               .addScalar("customStudyId")
               .addScalar("notificationType")
               .addScalar("notificationSubType")
               .addScalar("appId")
-              .setParameter("time", time)
-              .setParameter("date", date)
+              .addScalar("scheduleDateTime")
+              .setParameter("fromDateTime", fromDateTime)
+              .setParameter("toDateTime", toDateTime)
               .setParameter("subType", FdahpStudyDesignerConstants.STUDY_EVENT)
               .setParameter("type", FdahpStudyDesignerConstants.NOTIFICATION_GT)
-              .setParameter("status", FdahpStudyDesignerConstants.STUDY_ACTIVE);
-      pushNotificationBeans =
-          query.setResultTransformer(Transformers.aliasToBean(PushNotificationBean.class)).list();
-      if ((null != pushNotificationBeans) && !pushNotificationBeans.isEmpty()) {
-        notificationIds = new ArrayList<>();
-        for (PushNotificationBean pushNotificationBean : pushNotificationBeans) {
-          notificationIds.add(pushNotificationBean.getNotificationId());
-          if ((pushNotificationBean.getNotificationSubType() == null)
-              || ((pushNotificationBean.getNotificationSubType() != null)
-                  && !FdahpStudyDesignerConstants.RESOURCE.equals(
-                      pushNotificationBean.getNotificationSubType())
-                  && !FdahpStudyDesignerConstants.STUDY_EVENT.equals(
-                      pushNotificationBean.getNotificationSubType()))) {
+              .setParameter("status", FdahpStudyDesignerConstants.STUDY_ACTIVE)
+              .list();
+
+      List<String> gatewayAppIds = null;
+      Set<Integer> enqueuedNotificationIds = new HashSet<>();
+      for (Object[] dueNotification : dueNotifications) {
+        Integer notificationId = ((Number) dueNotification[0]).intValue();
+        String notificationSubType = (String) dueNotification[4];
+        String appId = (String) dueNotification[5];
+        String scheduleDateTime = (String) dueNotification[6];
+
+        // app-wide notifications without an app are sent to every gateway app
+        List<String> appIds;
+        if (appId != null) {
+          appIds = Collections.singletonList(appId);
+        } else {
+          if (gatewayAppIds == null) {
+            gatewayAppIds =
+                session
+                    .createSQLQuery(
+                        "select distinct s.app_id from studies s where s.type='GT'"
+                            + " and s.version=1 and s.app_id IS NOT NULL")
+                    .list();
+          }
+          appIds = gatewayAppIds;
+        }
+
+        for (String dispatchAppId : appIds) {
+          // a row enqueued by an overlapping run or instance fails on the unique key; MySQL rolls
+          // back only that statement, so the other rows of this run are kept
+          try {
+            session
+                .createSQLQuery(
+                    "insert into notification_dispatch (notification_id, schedule_date_time, app_id, custom_study_id,"
+                        + " notification_type, notification_subType, notification_text, status, attempts,"
+                        + " next_attempt_time, created_on) values (:notificationId, :scheduleDateTime, :appId,"
+                        + " :customStudyId, :notificationType, :notificationSubType, :notificationText, :status, 0,"
+                        + " :nextAttemptTime, :createdOn)")
+                .setInteger("notificationId", notificationId)
+                .setString("scheduleDateTime", scheduleDateTime)
+                .setString("appId", dispatchAppId)
+                .setString("customStudyId", (String) dueNotification[2])
+                .setString("notificationType", (String) dueNotification[3])
+                .setString("notificationSubType", notificationSubType)
+                .setString("notificationText", (String) dueNotification[1])
+                .setString("status", FdahpStudyDesignerConstants.NOTIFICATION_DISPATCH_PENDING)
+                .setString("nextAttemptTime", FdahpStudyDesignerUtil.getCurrentDateTime())
+                .setString("createdOn", FdahpStudyDesignerUtil.getCurrentDateTime())
+                .executeUpdate();
+          } catch (ConstraintViolationException e) {
+            if (e.getErrorCode() != DUPLICATE_ENTRY_ERROR_CODE) {
+              throw e;
+            }
+            continue;
+          }
+          enqueuedCount++;
+
+          if (enqueuedNotificationIds.add(notificationId)
+              && ((notificationSubType == null)
+                  || (!FdahpStudyDesignerConstants.RESOURCE.equals(notificationSubType)
+                      && !FdahpStudyDesignerConstants.STUDY_EVENT.equals(notificationSubType)))) {
             NotificationHistoryBO historyBO = new NotificationHistoryBO();
-            historyBO.setNotificationId(pushNotificationBean.getNotificationId());
+            historyBO.setNotificationId(notificationId);
             historyBO.setNotificationSentDateTime(FdahpStudyDesignerUtil.getCurrentDateTime());
             session.save(historyBO);
           }
         }
-        sb =
-            "update NotificationBO NBO set NBO.notificationSent = true  where NBO.notificationId in (:notificationIds )";
-        ;
+      }
+
+      if (!enqueuedNotificationIds.isEmpty()) {
         session
-            .createQuery(sb)
-            .setParameterList("notificationIds", notificationIds)
+            .createQuery(
+                "update NotificationBO NBO set NBO.notificationSent = true  where NBO.notificationId in (:notificationIds )")
+            .setParameterList("notificationIds", enqueuedNotificationIds)
             .executeUpdate();
       }
       trans.commit();
@@ -281,14 +335,109 @@ public class NotificationDAOImpl implements NotificationDAO {
       if (null != trans) {
         trans.rollback();
       }
-      logger.error("NotificationDAOImpl - getPushNotificationList - ERROR", e);
+      enqueuedCount = 0;
+      logger.error("NotificationDAOImpl - enqueuePushNotifications - ERROR", e);
+    } finally {
+      if (null != session) {
+        session.close();
+      }
+    }
+    logger.info("NotificationDAOImpl - enqueuePushNotifications - Ends");
+    return enqueuedCount;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<NotificationDispatchBO> claimPushNotifications(
+      String currentDateTime, String leaseExpiryDateTime, int maxResults) {
+    logger.info("NotificationDAOImpl - claimPushNotifications - Starts");
+    Session session = null;
+    Transaction trans = null;
+    List<NotificationDispatchBO> claimedDispatches = new ArrayList<>();
+    List<String> claimableStatuses =
+        Arrays.asList(
+            FdahpStudyDesignerConstants.NOTIFICATION_DISPATCH_PENDING,
+            FdahpStudyDesignerConstants.NOTIFICATION_DISPATCH_IN_PROGRESS);
+    try {
+      session = hibernateTemplate.getSessionFactory().openSession();
+      trans = session.beginTransaction();
+      List<Integer> dueIds =
+          session
+              .createQuery(
+                  "select NDBO.id from NotificationDispatchBO NDBO where NDBO.status in (:statuses)"
+                      + " and NDBO.nextAttemptTime <= :currentDateTime order by NDBO.id")
+              .setParameterList("statuses", claimableStatuses)
+              .setParameter("currentDateTime", currentDateTime)
+              .setMaxResults(maxResults)
+              .list();
+
+      // conditional update, so a row due for several runs or instances is claimed by one of them
+      List<Integer> claimedIds = new ArrayList<>();
+      for (Integer dueId : dueIds) {
+        int updatedCount =
+            session
+                .createQuery(
+                    "update NotificationDispatchBO NDBO set NDBO.status =:inProgress, NDBO.nextAttemptTime =:leaseExpiry,"
+                        + " NDBO.attempts = NDBO.attempts + 1 where NDBO.id =:id and NDBO.status in (:statuses)"
+                        + " and NDBO.nextAttemptTime <= :currentDateTime")
+                .setParameter(
+                    "inProgress", FdahpStudyDesignerConstants.NOTIFICATION_DISPATCH_IN_PROGRESS)
+                .setParameter("leaseExpiry", leaseExpiryDateTime)
+                .setParameter("id", dueId)
+                .setParameterList("statuses", claimableStatuses)
+                .setParameter("currentDateTime", currentDateTime)
+                .executeUpdate();
+        if (updatedCount > 0) {
+          claimedIds.add(dueId);
+        }
+      }
+      trans.commit();
+
+      if (!claimedIds.isEmpty()) {
+        claimedDispatches =
+            session
+                .createQuery(
+                    "from NotificationDispatchBO NDBO where NDBO.id in (:ids) order by NDBO.id")
+                .setParameterList("ids", claimedIds)
+                .list();
+      }
+    } catch (Exception e) {
+      if (null != trans) {
+        trans.rollback();
+      }
+      logger.error("NotificationDAOImpl - claimPushNotifications - ERROR", e);
+    } finally {
+      if (null != session) {
+        session.close();
+      }
+    }
+    logger.info("NotificationDAOImpl - claimPushNotifications - Ends");
+    return claimedDispatches;
+  }
+
+  @Override
+  public void updatePushNotificationDispatches(List<NotificationDispatchBO> dispatches) {
+    logger.info("NotificationDAOImpl - updatePushNotificationDispatches - Starts");
+    Session session = null;
+    Transaction trans = null;
+    try {
+      session = hibernateTemplate.getSessionFactory().openSession();
+      trans = session.beginTransaction();
+      for (NotificationDispatchBO dispatch : dispatches) {
+        session.update(dispatch);
+      }
+      trans.commit();
+    } catch (Exception e) {
+      if (null != trans) {
+        trans.rollback();
+      }
+      logger.error("NotificationDAOImpl - updatePushNotificationDispatches - ERROR", e);
     } finally {
       if (null != session) {
         session.close();
       }
     }
-    logger.info("NotificationDAOImpl - getPushNotificationList - Ends");
-    return pushNotificationBeans;
+    logger.info("NotificationDAOImpl - updatePushNotificationDispatches - Ends");
   }
 
   @Override
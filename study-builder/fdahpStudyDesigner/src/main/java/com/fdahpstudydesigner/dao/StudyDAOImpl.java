@@ -68,6 +68,7 @@ import com.fdahpstudydesigner.common.StudyBuilderAuditEventHelper;
 import com.fdahpstudydesigner.mapper.AuditEventMapper;
 import com.fdahpstudydesigner.util.FdahpStudyDesignerConstants;
 import com.fdahpstudydesigner.util.FdahpStudyDesignerUtil;
+import com.fdahpstudydesigner.util.SequenceOrder;
 import com.fdahpstudydesigner.util.SessionObject;
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -93,6 +94,8 @@ import org.springframework.stereotype.Repository;
 public class StudyDAOImpl implements StudyDAO {
   private static Logger logger = Logger.getLogger(StudyDAOImpl.class.getName());
 
+  private static final int IN_CLAUSE_BATCH_SIZE = 500;
+
   @Autowired private HttpServletRequest request;
 
   @Autowired private StudyBuilderAuditEventHelper auditLogEventHelper;
@@ -162,11 +165,11 @@ public class StudyDAOImpl implements StudyDAO {
       query.setInteger("studyId", studyId);
       query.setMaxResults(1);
       comprehensionTestQuestionBo = (ComprehensionTestQuestionBo) query.uniqueResult();
-      if (comprehensionTestQuestionBo != null) {
-        count = comprehensionTestQuestionBo.getSequenceNo() + 1;
-      } else {
-        count = count + 1;
-      }
+      count =
+          SequenceOrder.next(
+              comprehensionTestQuestionBo != null
+                  ? comprehensionTestQuestionBo.getSequenceNo()
+                  : null);
     } catch (Exception e) {
       logger.error("StudyDAOImpl - comprehensionTestQuestionOrder() - Error", e);
     } finally {
@@ -182,7 +185,7 @@ public class StudyDAOImpl implements StudyDAO {
   public int consentInfoOrder(Integer studyId) {
     logger.info("StudyDAOImpl - consentInfoOrder() - Starts");
     Session session = null;
-    int count = 1;
+    int count = SequenceOrder.GAP;
     ConsentInfoBo consentInfoBo = null;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
@@ -194,7 +197,7 @@ public class StudyDAOImpl implements StudyDAO {
       query.setMaxResults(1);
       consentInfoBo = ((ConsentInfoBo) query.uniqueResult());
       if (consentInfoBo != null) {
-        count = consentInfoBo.getSequenceNo() + 1;
+        count = SequenceOrder.next(consentInfoBo.getSequenceNo());
       }
     } catch (Exception e) {
       logger.error("StudyDAOImpl - consentInfoOrder() - Error", e);
@@ -207,38 +210,17 @@ public class StudyDAOImpl implements StudyDAO {
     return count;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public String deleteComprehensionTestQuestion(
       Integer questionId, Integer studyId, SessionObject sessionObject) {
     logger.info("StudyDAOImpl - deleteComprehensionTestQuestion() - Starts");
     String message = FdahpStudyDesignerConstants.FAILURE;
     Session session = null;
-    String searchQuery = "";
     ComprehensionTestQuestionBo comprehensionTestQuestionBo = null;
     StudySequenceBo studySequence = null;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
       transaction = session.beginTransaction();
-      List<ComprehensionTestQuestionBo> comprehensionTestQuestionList = null;
-      searchQuery =
-          "From ComprehensionTestQuestionBo CTQBO where CTQBO.studyId=:studyId"
-              + " and CTQBO.active=1 order by CTQBO.sequenceNo asc";
-      comprehensionTestQuestionList =
-          session.createQuery(searchQuery).setInteger("studyId", studyId).list();
-      if ((comprehensionTestQuestionList != null) && !comprehensionTestQuestionList.isEmpty()) {
-        boolean isValue = false;
-        for (ComprehensionTestQuestionBo comprehensionTestQuestion :
-            comprehensionTestQuestionList) {
-          if (comprehensionTestQuestion.getId().equals(questionId)) {
-            isValue = true;
-          }
-          if (isValue && !comprehensionTestQuestion.getId().equals(questionId)) {
-            comprehensionTestQuestion.setSequenceNo(comprehensionTestQuestion.getSequenceNo() - 1);
-            session.update(comprehensionTestQuestion);
-          }
-        }
-      }
       comprehensionTestQuestionBo =
           (ComprehensionTestQuestionBo) session.get(ComprehensionTestQuestionBo.class, questionId);
       if (comprehensionTestQuestionBo != null) {
@@ -277,7 +259,6 @@ public class StudyDAOImpl implements StudyDAO {
     return message;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public String deleteConsentInfo(
       Integer consentInfoId, Integer studyId, SessionObject sessionObject, String customStudyId) {
@@ -289,36 +270,17 @@ public class StudyDAOImpl implements StudyDAO {
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
       transaction = session.beginTransaction();
-      List<ConsentInfoBo> consentInfoList = null;
-      String searchQuery =
-          "From ConsentInfoBo CIB where CIB.studyId=:studyId"
-              + " and CIB.active=1 order by CIB.sequenceNo asc";
-      consentInfoList = session.createQuery(searchQuery).setInteger("studyId", studyId).list();
-      if ((consentInfoList != null) && !consentInfoList.isEmpty()) {
-        boolean isValue = false;
-        for (ConsentInfoBo consentInfoBo : consentInfoList) {
-          if (consentInfoBo.getId().equals(consentInfoId)) {
-            isValue = true;
-          }
-          if (isValue && !consentInfoBo.getId().equals(consentInfoId)) {
-            consentInfoBo.setSequenceNo(consentInfoBo.getSequenceNo() - 1);
-            consentInfoBo.setModifiedBy(sessionObject.getUserId());
-            consentInfoBo.setModifiedOn(FdahpStudyDesignerUtil.getCurrentDateTime());
-            session.update(consentInfoBo);
-          }
-        }
-        StudySequenceBo studySequence =
-            (StudySequenceBo)
-                session
-                    .getNamedQuery(FdahpStudyDesignerConstants.STUDY_SEQUENCE_BY_ID)
-                    .setInteger(FdahpStudyDesignerConstants.STUDY_ID, studyId)
-                    .uniqueResult();
-        if (studySequence != null) {
-          studySequence.setConsentEduInfo(false);
-          studySequence.seteConsent(false);
-          studySequence.setComprehensionTest(false);
-          session.saveOrUpdate(studySequence);
-        }
+      StudySequenceBo studySequence =
+          (StudySequenceBo)
+              session
+                  .getNamedQuery(FdahpStudyDesignerConstants.STUDY_SEQUENCE_BY_ID)
+                  .setInteger(FdahpStudyDesignerConstants.STUDY_ID, studyId)
+                  .uniqueResult();
+      if (studySequence != null) {
+        studySequence.setConsentEduInfo(false);
+        studySequence.seteConsent(false);
+        studySequence.setComprehensionTest(false);
+        session.saveOrUpdate(studySequence);
       }
       String deleteQuery =
           "Update ConsentInfoBo CIB set CIB.active=0,CIB.modifiedBy=:userId"
@@ -348,7 +310,6 @@ public class StudyDAOImpl implements StudyDAO {
     return message;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public String deleteEligibilityTestQusAnsById(
       Integer eligibilityTestId,
@@ -360,10 +321,7 @@ public class StudyDAOImpl implements StudyDAO {
     Integer eligibilityDeleteResult = 0;
     Transaction trans = null;
     String result = FdahpStudyDesignerConstants.FAILURE;
-    String reorderQuery;
     EligibilityTestBo eligibilityTestBo;
-    List<EligibilityTestBo> eligibilityTestBos;
-    StringBuilder sb = null;
     StudyBo studyBo = null;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
@@ -387,24 +345,6 @@ public class StudyDAOImpl implements StudyDAO {
                 .setInteger("eligibilityTestId", eligibilityTestId)
                 .executeUpdate();
       }
-      sb = new StringBuilder();
-      sb.append(
-          "select id FROM EligibilityTestBo  WHERE sequenceNo > :sequenceNo AND active = true AND eligibilityId = :eligibilityId");
-      eligibilityTestBos =
-          session
-              .createQuery(sb.toString())
-              .setInteger("sequenceNo", eligibilityTestBo.getSequenceNo())
-              .setInteger("eligibilityId", eligibilityTestBo.getEligibilityId())
-              .list();
-      if ((eligibilityDeleteResult > 0) && !eligibilityTestBos.isEmpty()) {
-        reorderQuery =
-            "update EligibilityTestBo set sequenceNo=sequenceNo-1 where id in (:eligibilityTestBosList)";
-        eligibilityDeleteResult =
-            session
-                .createQuery(reorderQuery)
-                .setParameterList("eligibilityTestBosList", eligibilityTestBos)
-                .executeUpdate();
-      }
       if (eligibilityDeleteResult > 0) {
         result = FdahpStudyDesignerConstants.SUCCESS;
       }
@@ -544,7 +484,6 @@ public class StudyDAOImpl implements StudyDAO {
     return message;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public String deleteResourceInfo(
       Integer resourceInfoId, boolean resourceVisibility, int studyId) {
@@ -554,27 +493,9 @@ public class StudyDAOImpl implements StudyDAO {
     int resourceCount = 0;
     Query resourceQuery = null;
     Query notificationQuery = null;
-    List<ResourceBO> resourceBOList = null;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
       transaction = session.beginTransaction();
-      String searchQuery =
-          "From ResourceBO RBO where RBO.studyId=:studyId"
-              + " and RBO.status=1 order by RBO.sequenceNo asc";
-      resourceBOList = session.createQuery(searchQuery).setInteger("studyId", studyId).list();
-      if ((resourceBOList != null) && !resourceBOList.isEmpty()) {
-        boolean isValue = false;
-        for (ResourceBO resourceBO : resourceBOList) {
-          if (resourceBO.getId().equals(resourceInfoId)) {
-            isValue = true;
-          }
-          if (isValue && !resourceBO.getId().equals(resourceInfoId)) {
-            resourceBO.setSequenceNo(resourceBO.getSequenceNo() - 1);
-            session.update(resourceBO);
-          }
-        }
-      }
-
       String deleteQuery = " UPDATE ResourceBO RBO SET status = false  WHERE id = :resourceInfoId ";
       resourceQuery = session.createQuery(deleteQuery).setInteger("resourceInfoId", resourceInfoId);
       resourceCount = resourceQuery.executeUpdate();
@@ -1348,7 +1269,7 @@ public class StudyDAOImpl implements StudyDAO {
   public int eligibilityTestOrderCount(Integer eligibilityId) {
     logger.info("StudyDAOImpl - eligibilityTestOrderCount - Starts");
     Session session = null;
-    int count = 1;
+    int count = SequenceOrder.GAP;
     EligibilityTestBo eligibilityTestBo = null;
     StringBuilder sb = null;
     try {
@@ -1363,7 +1284,7 @@ public class StudyDAOImpl implements StudyDAO {
               .setMaxResults(1);
       eligibilityTestBo = ((EligibilityTestBo) query.uniqueResult());
       if (eligibilityTestBo != null) {
-        count = eligibilityTestBo.getSequenceNo() + 1;
+        count = SequenceOrder.next(eligibilityTestBo.getSequenceNo());
       }
     } catch (Exception e) {
       logger.error("StudyDAOImpl - eligibilityTestOrderCount - Error", e);
@@ -1903,12 +1824,19 @@ public class StudyDAOImpl implements StudyDAO {
       resourceBOList = query.list();
 
       if ((resourceBOList != null) && !resourceBOList.isEmpty()) {
-        int sequenceNo = 1;
+        // resources without a sequence number are added after the last ordered resource
+        Integer lastSequenceNo = null;
+        for (ResourceBO rBO : resourceBOList) {
+          if ((rBO.getSequenceNo() != null)
+              && ((lastSequenceNo == null) || (rBO.getSequenceNo() > lastSequenceNo))) {
+            lastSequenceNo = rBO.getSequenceNo();
+          }
+        }
         for (ResourceBO rBO : resourceBOList) {
           if ((rBO.getSequenceNo() == null) || rBO.getSequenceNo().equals(0)) {
-            rBO.setSequenceNo(sequenceNo);
+            lastSequenceNo = SequenceOrder.next(lastSequenceNo);
+            rBO.setSequenceNo(lastSequenceNo);
             session.update(rBO);
-            sequenceNo++;
           }
         }
       }
@@ -2057,10 +1985,6 @@ public class StudyDAOImpl implements StudyDAO {
     logger.info("StudyDAOImpl - getStudyList() - Starts");
     Session session = null;
     List<StudyListBean> studyListBeans = null;
-    String name = "";
-    List<ReferenceTablesBo> referenceTablesBos = null;
-    StudyBo liveStudy = null;
-    StudyBo studyBo = null;
     try {
 
       session = hibernateTemplate.getSessionFactory().openSession();
@@ -2078,60 +2002,83 @@ public class StudyDAOImpl implements StudyDAO {
         studyListBeans = query.list();
 
         if ((studyListBeans != null) && !studyListBeans.isEmpty()) {
+          // the details of all studies are loaded with one query each rather than per study
+          List<Integer> studyIds = new ArrayList<>();
+          List<String> customStudyIds = new ArrayList<>();
+          List<Integer> categoryIds = new ArrayList<>();
           for (StudyListBean bean : studyListBeans) {
-            if (StringUtils.isNotEmpty(name)) {
-              bean.setProjectLeadName(name);
+            if (bean.getId() != null) {
+              studyIds.add(bean.getId());
+            }
+            if (StringUtils.isNotEmpty(bean.getCustomStudyId())) {
+              customStudyIds.add(bean.getCustomStudyId());
             }
             if (StringUtils.isNotEmpty(bean.getCategory())
                 && StringUtils.isNotEmpty(bean.getResearchSponsor())) {
-              // get the Category, Research Sponsor name of the
-              // study from categoryIds
-              query =
-                  session
-                      .createQuery("from ReferenceTablesBo where id in(:category)")
-                      .setParameter("category", Integer.parseInt(bean.getCategory()));
-              referenceTablesBos = query.list();
-              if ((referenceTablesBos != null) && !referenceTablesBos.isEmpty()) {
-                bean.setCategory(referenceTablesBos.get(0).getValue());
+              categoryIds.add(Integer.parseInt(bean.getCategory()));
+            }
+          }
+
+          // get the Category name of the studies from categoryIds
+          Map<Integer, String> categories = new HashMap<>();
+          for (ReferenceTablesBo referenceTablesBo :
+              this.<ReferenceTablesBo>listByIds(
+                  session, "from ReferenceTablesBo where id in (:ids)", categoryIds)) {
+            categories.put(referenceTablesBo.getId(), referenceTablesBo.getValue());
+          }
+
+          Map<String, Integer> liveStudyIds = new HashMap<>();
+          for (Object[] row :
+              this.<Object[]>listByIds(
+                  session,
+                  "select customStudyId, id from StudyBo"
+                      + " where live=1 and customStudyId in (:ids)",
+                  customStudyIds)) {
+            liveStudyIds.put((String) row[0], (Integer) row[1]);
+          }
+
+          // if is there any change in study then edit with dot will come
+          Map<Integer, Integer> studyDrafts = new HashMap<>();
+          for (Object[] row :
+              this.<Object[]>listByIds(
+                  session,
+                  "select id, hasStudyDraft from StudyBo where id in (:ids)",
+                  studyIds)) {
+            studyDrafts.put((Integer) row[0], (Integer) row[1]);
+          }
+
+          // if is there any team lead in that study
+          Map<Integer, String> projectLeads = new HashMap<>();
+          for (Object[] row :
+              this.<Object[]>listByIds(
+                  session,
+                  "SELECT s.studyId, u.firstName from StudyPermissionBO s , UserBO u"
+                      + " where s.studyId in (:ids) and s.userId=u.userId and s.projectLead=1",
+                  studyIds)) {
+            if (!projectLeads.containsKey(row[0])) {
+              projectLeads.put((Integer) row[0], (String) row[1]);
+            }
+          }
+
+          for (StudyListBean bean : studyListBeans) {
+            if (StringUtils.isNotEmpty(bean.getCategory())
+                && StringUtils.isNotEmpty(bean.getResearchSponsor())) {
+              String category = categories.get(Integer.parseInt(bean.getCategory()));
+              if (category != null) {
+                bean.setCategory(category);
               }
             }
             if (StringUtils.isNotEmpty(bean.getCustomStudyId())) {
-              liveStudy =
-                  (StudyBo)
-                      session
-                          .createQuery("from StudyBo where customStudyId=:studyId and live=1")
-                          .setParameter("studyId", bean.getCustomStudyId())
-                          .uniqueResult();
-              if (liveStudy != null) {
-                bean.setLiveStudyId(liveStudy.getId());
-              } else {
-                bean.setLiveStudyId(null);
-              }
+              bean.setLiveStudyId(liveStudyIds.get(bean.getCustomStudyId()));
             }
-            // if is there any change in study then edit with dot
-            // will come
             if ((bean.getId() != null) && (bean.getLiveStudyId() != null)) {
-              studyBo =
-                  (StudyBo)
-                      session
-                          .createQuery("from StudyBo where id=:id")
-                          .setParameter("id", bean.getId())
-                          .uniqueResult();
-              if (studyBo.getHasStudyDraft() == 1) {
+              Integer hasStudyDraft = studyDrafts.get(bean.getId());
+              if ((hasStudyDraft != null) && (hasStudyDraft == 1)) {
                 bean.setFlag(true);
               }
             }
-            // if is there any team lead in that study
             if (bean.getId() != null) {
-              String userInfo =
-                  (String)
-                      session
-                          .createQuery(
-                              "SELECT  u.firstName from StudyPermissionBO s , UserBO u where s.studyId=:id"
-                                  + " and s.userId=u.userId and s.projectLead=1")
-                          .setParameter("id", bean.getId())
-                          .setMaxResults(1)
-                          .uniqueResult();
+              String userInfo = projectLeads.get(bean.getId());
               if (StringUtils.isNotEmpty(userInfo)) {
                 bean.setProjectLeadName(userInfo);
               } else {
@@ -2395,71 +2342,30 @@ public class StudyDAOImpl implements StudyDAO {
     logger.info("StudyDAOImpl - reOrderComprehensionTestQuestion() - Starts");
     String message = FdahpStudyDesignerConstants.FAILURE;
     Session session = null;
-    Query query = null;
-    int count = 0;
-    ComprehensionTestQuestionBo comprehensionTestQuestionBo = null;
     StudySequenceBo studySequence = null;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
       transaction = session.beginTransaction();
-      String updateQuery = "";
-      query =
-          session.createQuery(
-              "From ComprehensionTestQuestionBo CTB where CTB.studyId=:studyId and CTB.sequenceNo =:oldOrderNumber and CTB.active=1");
-      query.setParameter("studyId", studyId);
-      query.setParameter("oldOrderNumber", oldOrderNumber);
-      comprehensionTestQuestionBo = (ComprehensionTestQuestionBo) query.uniqueResult();
-      if (comprehensionTestQuestionBo != null) {
-        if (oldOrderNumber < newOrderNumber) {
-          updateQuery =
-              "update ComprehensionTestQuestionBo CTB set CTB.sequenceNo=CTB.sequenceNo-1 where CTB.studyId=:studyId and CTB.sequenceNo <= :newOrderNumber and CTB.sequenceNo > :oldOrderNumber and CTB.active=1";
-          query = session.createQuery(updateQuery);
-          query.setParameter("studyId", studyId);
-          query.setParameter("newOrderNumber", newOrderNumber);
-          query.setParameter("oldOrderNumber", oldOrderNumber);
-          count = query.executeUpdate();
-          if (count > 0) {
-            query =
-                session.createQuery(
-                    "update ComprehensionTestQuestionBo CTB set CTB.sequenceNo=:newOrderNumber where CTB.id=:id and CTB.active=1");
-            query.setParameter("newOrderNumber", newOrderNumber);
-            query.setParameter("id", comprehensionTestQuestionBo.getId());
-            count = query.executeUpdate();
-            message = FdahpStudyDesignerConstants.SUCCESS;
-          }
-        } else if (oldOrderNumber > newOrderNumber) {
-          updateQuery =
-              "update ComprehensionTestQuestionBo CTB set CTB.sequenceNo=CTB.sequenceNo+1 where CTB.studyId=:studyId and CTB.sequenceNo >=:newOrderNumber and CTB.sequenceNo < :oldOrderNumber and CTB.active=1";
-          query = session.createQuery(updateQuery);
-          query.setParameter("studyId", studyId);
-          query.setParameter("newOrderNumber", newOrderNumber);
-          query.setParameter("oldOrderNumber", oldOrderNumber);
-          count = query.executeUpdate();
-          if (count > 0) {
-            query =
-                session.createQuery(
-                    "update ComprehensionTestQuestionBo CTB set CTB.sequenceNo=:newOrderNumber where CTB.id= :id and CTB.active=1");
-            query.setParameter("newOrderNumber", newOrderNumber);
-            query.setParameter("id", comprehensionTestQuestionBo.getId());
-            count = query.executeUpdate();
-            message = FdahpStudyDesignerConstants.SUCCESS;
-          }
-        }
-        if (comprehensionTestQuestionBo.getStudyId() != null) {
-          studySequence =
-              (StudySequenceBo)
-                  session
-                      .getNamedQuery(FdahpStudyDesignerConstants.STUDY_SEQUENCE_BY_ID)
-                      .setInteger(
-                          FdahpStudyDesignerConstants.STUDY_ID,
-                          comprehensionTestQuestionBo.getStudyId())
-                      .uniqueResult();
-          if (studySequence != null) {
-            if (studySequence.isComprehensionTest()) {
-              studySequence.setComprehensionTest(false);
-            }
-            session.saveOrUpdate(studySequence);
+      if (SequenceOrder.move(
+          session,
+          "ComprehensionTestQuestionBo",
+          "id",
+          "e.studyId=:scopeId and e.active=1",
+          studyId,
+          oldOrderNumber,
+          newOrderNumber)) {
+        message = FdahpStudyDesignerConstants.SUCCESS;
+        studySequence =
+            (StudySequenceBo)
+                session
+                    .getNamedQuery(FdahpStudyDesignerConstants.STUDY_SEQUENCE_BY_ID)
+                    .setInteger(FdahpStudyDesignerConstants.STUDY_ID, studyId)
+                    .uniqueResult();
+        if (studySequence != null) {
+          if (studySequence.isComprehensionTest()) {
+            studySequence.setComprehensionTest(false);
           }
+          session.saveOrUpdate(studySequence);
         }
       }
       transaction.commit();
@@ -2480,69 +2386,30 @@ public class StudyDAOImpl implements StudyDAO {
     logger.info("StudyDAOImpl - reOrderConsentInfoList() - Starts");
     String message = FdahpStudyDesignerConstants.FAILURE;
     Session session = null;
-    Query query = null;
-    int count = 0;
-    ConsentInfoBo consentInfoBo = null;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
       transaction = session.beginTransaction();
-      String updateQuery = "";
-      query =
-          session.createQuery(
-              "From ConsentInfoBo CIB where CIB.studyId=:studyId and CIB.sequenceNo =:oldOrderNumber and CIB.active=1");
-      query.setParameter("studyId", studyId);
-      query.setParameter("oldOrderNumber", oldOrderNumber);
-      consentInfoBo = (ConsentInfoBo) query.uniqueResult();
-      if (consentInfoBo != null) {
-        if (oldOrderNumber < newOrderNumber) {
-          updateQuery =
-              "update ConsentInfoBo CIBO set CIBO.sequenceNo=CIBO.sequenceNo-1 where CIBO.studyId=:studyId and CIBO.sequenceNo <= :newOrderNumber and CIBO.sequenceNo > :oldOrderNumber and CIBO.active=1";
-          query = session.createQuery(updateQuery);
-          query.setParameter("studyId", studyId);
-          query.setParameter("newOrderNumber", newOrderNumber);
-          query.setParameter("oldOrderNumber", oldOrderNumber);
-          count = query.executeUpdate();
-          if (count > 0) {
-            query =
-                session.createQuery(
-                    "update ConsentInfoBo C set C.sequenceNo=:newOrderNumber where C.id= :id and C.active=1");
-            query.setParameter("newOrderNumber", newOrderNumber);
-            query.setParameter("id", consentInfoBo.getId());
-            count = query.executeUpdate();
-            message = FdahpStudyDesignerConstants.SUCCESS;
-          }
-        } else if (oldOrderNumber > newOrderNumber) {
-          updateQuery =
-              "update ConsentInfoBo CIBO set CIBO.sequenceNo=CIBO.sequenceNo+1 where CIBO.studyId=:studyId and CIBO.sequenceNo >=:newOrderNumber and CIBO.sequenceNo < :oldOrderNumber and CIBO.active=1";
-          query = session.createQuery(updateQuery);
-          query.setParameter("studyId", studyId);
-          query.setParameter("newOrderNumber", newOrderNumber);
-          query.setParameter("oldOrderNumber", oldOrderNumber);
-          count = query.executeUpdate();
-          if (count > 0) {
-            query =
-                session.createQuery(
-                    "update ConsentInfoBo C set C.sequenceNo=:newOrderNumber where C.id=:id and C.active=1");
-            query.setParameter("newOrderNumber", newOrderNumber);
-            query.setParameter("id", consentInfoBo.getId());
-            count = query.executeUpdate();
-            message = FdahpStudyDesignerConstants.SUCCESS;
-          }
-        }
-        if (message.equalsIgnoreCase(FdahpStudyDesignerConstants.SUCCESS)) {
-          StudySequenceBo studySequence =
-              (StudySequenceBo)
-                  session
-                      .getNamedQuery(FdahpStudyDesignerConstants.STUDY_SEQUENCE_BY_ID)
-                      .setInteger(FdahpStudyDesignerConstants.STUDY_ID, studyId)
-                      .uniqueResult();
-          if (studySequence != null) {
-            studySequence.setConsentEduInfo(false);
-            if (studySequence.iseConsent()) {
-              studySequence.seteConsent(false);
-            }
-            session.saveOrUpdate(studySequence);
+      if (SequenceOrder.move(
+          session,
+          "ConsentInfoBo",
+          "id",
+          "e.studyId=:scopeId and e.active=1",
+          studyId,
+          oldOrderNumber,
+          newOrderNumber)) {
+        message = FdahpStudyDesignerConstants.SUCCESS;
+        StudySequenceBo studySequence =
+            (StudySequenceBo)
+                session
+                    .getNamedQuery(FdahpStudyDesignerConstants.STUDY_SEQUENCE_BY_ID)
+                    .setInteger(FdahpStudyDesignerConstants.STUDY_ID, studyId)
+                    .uniqueResult();
+        if (studySequence != null) {
+          studySequence.setConsentEduInfo(false);
+          if (studySequence.iseConsent()) {
+            studySequence.seteConsent(false);
           }
+          session.saveOrUpdate(studySequence);
         }
       }
       transaction.commit();
@@ -2564,71 +2431,28 @@ public class StudyDAOImpl implements StudyDAO {
     logger.info("StudyDAOImpl - reorderEligibilityTestQusAns - Starts");
     String message = FdahpStudyDesignerConstants.FAILURE;
     Session session = null;
-    Query hibQuery = null;
-    int count = 0;
-    EligibilityTestBo eligibilityTest = null;
-    StringBuilder updatenewOrderQuery;
     Transaction trans = null;
-    StringBuilder updateQuery = null;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
       trans = session.beginTransaction();
-      hibQuery =
-          session
-              .getNamedQuery("EligibilityTestBo.findByEligibilityIdAndSequenceNo")
-              .setInteger("eligibilityId", eligibilityId)
-              .setInteger("sequenceNo", oldOrderNumber);
-      eligibilityTest = (EligibilityTestBo) hibQuery.uniqueResult();
-      if (eligibilityTest != null) {
-        if (oldOrderNumber < newOrderNumber) {
-          updateQuery = new StringBuilder();
-          updateQuery
-              .append(
-                  "UPDATE EligibilityTestBo ETB set ETB.sequenceNo=ETB.sequenceNo-1 WHERE ETB.eligibilityId=:eligibilityId")
-              .append(" AND ETB.sequenceNo <= :newOrderNumber")
-              .append(" AND ETB.sequenceNo > :oldOrderNumber")
-              .append(" AND ETB.active = true");
-          hibQuery = session.createQuery(updateQuery.toString());
-          hibQuery.setParameter("eligibilityId", eligibilityId);
-          hibQuery.setParameter("newOrderNumber", newOrderNumber);
-          hibQuery.setParameter("oldOrderNumber", oldOrderNumber);
-          count = hibQuery.executeUpdate();
-        } else if (oldOrderNumber > newOrderNumber) {
-          updateQuery = new StringBuilder();
-          updateQuery
-              .append(
-                  "UPDATE EligibilityTestBo ETB set ETB.sequenceNo=ETB.sequenceNo+1 WHERE ETB.eligibilityId= :eligibilityId")
-              .append(" AND ETB.sequenceNo >= :newOrderNumber")
-              .append(" AND ETB.sequenceNo < :oldOrderNumber")
-              .append(" AND ETB.active = true");
-          hibQuery = session.createQuery(updateQuery.toString());
-          hibQuery.setParameter("eligibilityId", eligibilityId);
-          hibQuery.setParameter("newOrderNumber", newOrderNumber);
-          hibQuery.setParameter("oldOrderNumber", oldOrderNumber);
-          count = hibQuery.executeUpdate();
-        }
-        updatenewOrderQuery = new StringBuilder();
-        updatenewOrderQuery
-            .append("UPDATE EligibilityTestBo ETB set ETB.sequenceNo=:newOrderNumber")
-            .append(" WHERE ETB.id=:id");
-        if (count > 0) {
-          hibQuery = session.createQuery(updatenewOrderQuery.toString());
-          hibQuery.setParameter("newOrderNumber", newOrderNumber);
-          hibQuery.setParameter("id", eligibilityTest.getId());
-          count = hibQuery.executeUpdate();
-          message = FdahpStudyDesignerConstants.SUCCESS;
-        }
-        if (message.equalsIgnoreCase(FdahpStudyDesignerConstants.SUCCESS)) {
-          StudySequenceBo studySequence =
-              (StudySequenceBo)
-                  session
-                      .getNamedQuery(FdahpStudyDesignerConstants.STUDY_SEQUENCE_BY_ID)
-                      .setInteger(FdahpStudyDesignerConstants.STUDY_ID, studyId)
-                      .uniqueResult();
-          if ((studySequence != null) && studySequence.isEligibility()) {
-            studySequence.setEligibility(false);
-            session.update(studySequence);
-          }
+      if (SequenceOrder.move(
+          session,
+          "EligibilityTestBo",
+          "id",
+          "e.eligibilityId=:scopeId and e.active = true",
+          eligibilityId,
+          oldOrderNumber,
+          newOrderNumber)) {
+        message = FdahpStudyDesignerConstants.SUCCESS;
+        StudySequenceBo studySequence =
+            (StudySequenceBo)
+                session
+                    .getNamedQuery(FdahpStudyDesignerConstants.STUDY_SEQUENCE_BY_ID)
+                    .setInteger(FdahpStudyDesignerConstants.STUDY_ID, studyId)
+                    .uniqueResult();
+        if ((studySequence != null) && studySequence.isEligibility()) {
+          studySequence.setEligibility(false);
+          session.update(studySequence);
         }
       }
       trans.commit();
@@ -2651,66 +2475,27 @@ public class StudyDAOImpl implements StudyDAO {
     logger.info("StudyDAOImpl - reOrderResourceList() - Starts");
     String message = FdahpStudyDesignerConstants.FAILURE;
     Session session = null;
-    Query query = null;
-    int count = 0;
-    ResourceBO resourceBo = null;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
       transaction = session.beginTransaction();
-      String updateQuery = "";
-      query =
-          session.createQuery(
-              "From ResourceBO RBO where RBO.studyId=:studyId and RBO.sequenceNo =:oldOrderNumber and RBO.status=1");
-      query.setParameter("studyId", studyId);
-      query.setParameter("oldOrderNumber", oldOrderNumber);
-      resourceBo = (ResourceBO) query.uniqueResult();
-      if (resourceBo != null) {
-        if (oldOrderNumber < newOrderNumber) {
-          updateQuery =
-              "update ResourceBO RBO set RBO.sequenceNo=RBO.sequenceNo-1 where RBO.studyId=:studyId and RBO.sequenceNo <= :newOrderNumber and RBO.sequenceNo > :oldOrderNumber and RBO.status=1";
-          query = session.createQuery(updateQuery);
-          query.setParameter("studyId", studyId);
-          query.setParameter("newOrderNumber", newOrderNumber);
-          query.setParameter("oldOrderNumber", oldOrderNumber);
-          count = query.executeUpdate();
-          if (count > 0) {
-            query =
-                session.createQuery(
-                    "update ResourceBO RBO set RBO.sequenceNo= :newOrderNumber where RBO.id=:id and RBO.status=1");
-            query.setParameter("newOrderNumber", newOrderNumber);
-            query.setParameter("id", resourceBo.getId());
-            count = query.executeUpdate();
-            message = FdahpStudyDesignerConstants.SUCCESS;
-          }
-        } else if (oldOrderNumber > newOrderNumber) {
-          updateQuery =
-              "update ResourceBO RBO set RBO.sequenceNo=RBO.sequenceNo+1 where RBO.studyId= :studyId and RBO.sequenceNo >= :newOrderNumber and RBO.sequenceNo < :oldOrderNumber and RBO.status=1";
-          query = session.createQuery(updateQuery);
-          query.setParameter("studyId", studyId);
-          query.setParameter("newOrderNumber", newOrderNumber);
-          query.setParameter("oldOrderNumber", oldOrderNumber);
-          count = query.executeUpdate();
-          if (count > 0) {
-            query =
-                session.createQuery(
-                    "update ResourceBO RBO set RBO.sequenceNo= :newOrderNumber where RBO.id=:id and RBO.status=1");
-            query.setParameter("newOrderNumber", newOrderNumber);
-            query.setParameter("id", resourceBo.getId());
-            count = query.executeUpdate();
-            message = FdahpStudyDesignerConstants.SUCCESS;
-          }
-        }
-        if (message.equalsIgnoreCase(FdahpStudyDesignerConstants.SUCCESS)) {
-          StudySequenceBo studySequence =
-              (StudySequenceBo)
-                  session
-                      .getNamedQuery(FdahpStudyDesignerConstants.STUDY_SEQUENCE_BY_ID)
-                      .setInteger(FdahpStudyDesignerConstants.STUDY_ID, studyId)
-                      .uniqueResult();
-          if (studySequence != null) {
-            studySequence.setMiscellaneousResources(false);
-            session.saveOrUpdate(studySequence);
-          }
+      if (SequenceOrder.move(
+          session,
+          "ResourceBO",
+          "id",
+          "e.studyId=:scopeId and e.studyProtocol = false and e.status=1",
+          studyId,
+          oldOrderNumber,
+          newOrderNumber)) {
+        message = FdahpStudyDesignerConstants.SUCCESS;
+        StudySequenceBo studySequence =
+            (StudySequenceBo)
+                session
+                    .getNamedQuery(FdahpStudyDesignerConstants.STUDY_SEQUENCE_BY_ID)
+                    .setInteger(FdahpStudyDesignerConstants.STUDY_ID, studyId)
+                    .uniqueResult();
+        if (studySequence != null) {
+          studySequence.setMiscellaneousResources(false);
+          session.saveOrUpdate(studySequence);
         }
       }
       transaction.commit();
@@ -3561,7 +3346,7 @@ public class StudyDAOImpl implements StudyDAO {
   public int resourceOrder(Integer studyId) {
     logger.info("StudyDAOImpl - resourceOrder() - Starts");
     Session session = null;
-    int count = 1;
+    int count = SequenceOrder.GAP;
     ResourceBO resourceBo = null;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
@@ -3572,7 +3357,7 @@ public class StudyDAOImpl implements StudyDAO {
       query.setMaxResults(1);
       resourceBo = ((ResourceBO) query.uniqueResult());
       if (resourceBo != null) {
-        count = resourceBo.getSequenceNo() + 1;
+        count = SequenceOrder.next(resourceBo.getSequenceNo());
       }
     } catch (Exception e) {
       logger.error("StudyDAOImpl - resourceOrder() - Error", e);
@@ -4543,7 +4328,6 @@ public class StudyDAOImpl implements StudyDAO {
     List<QuestionnaireBo> questionnaires = null;
     List<ActiveTaskBo> activeTasks = null;
     String searchQuery = "";
-    QuestionReponseTypeBo questionReponseTypeBo = null;
     List<String> objectList = null;
     List<String> questionnarieShorttitleList = null;
     List<AnchorDateTypeBo> anchorDateTypeList = null;
@@ -4835,410 +4619,8 @@ public class StudyDAOImpl implements StudyDAO {
                   }
                   /** Schedule Purpose creating draft End * */
                   /** Content purpose creating draft Start * */
-                  List<Integer> destinationList = new ArrayList<>();
-                  Map<Integer, Integer> destionationMapList = new HashMap<>();
-
-                  List<QuestionnairesStepsBo> existedQuestionnairesStepsBoList = null;
-                  List<QuestionnairesStepsBo> newQuestionnairesStepsBoList = new ArrayList<>();
-                  List<QuestionResponseSubTypeBo> existingQuestionResponseSubTypeList =
-                      new ArrayList<>();
-                  List<QuestionResponseSubTypeBo> newQuestionResponseSubTypeList =
-                      new ArrayList<>();
-
-                  List<QuestionReponseTypeBo> existingQuestionResponseTypeList = new ArrayList<>();
-                  List<QuestionReponseTypeBo> newQuestionResponseTypeList = new ArrayList<>();
-
-                  query =
-                      session
-                          .getNamedQuery("getQuestionnaireStepSequenceNo")
-                          .setInteger("questionnairesId", questionnaireBo.getId());
-                  existedQuestionnairesStepsBoList = query.list();
-                  if ((existedQuestionnairesStepsBoList != null)
-                      && !existedQuestionnairesStepsBoList.isEmpty()) {
-                    for (QuestionnairesStepsBo questionnairesStepsBo :
-                        existedQuestionnairesStepsBoList) {
-                      Integer destionStep = questionnairesStepsBo.getDestinationStep();
-                      if (destionStep.equals(0)) {
-                        destinationList.add(-1);
-                      } else {
-                        for (int i = 0; i < existedQuestionnairesStepsBoList.size(); i++) {
-                          if ((existedQuestionnairesStepsBoList.get(i).getStepId() != null)
-                              && destionStep.equals(
-                                  existedQuestionnairesStepsBoList.get(i).getStepId())) {
-                            destinationList.add(i);
-                            break;
-                          }
-                        }
-                      }
-                      destionationMapList.put(
-                          questionnairesStepsBo.getSequenceNo(), questionnairesStepsBo.getStepId());
-                    }
-                    for (QuestionnairesStepsBo questionnairesStepsBo :
-                        existedQuestionnairesStepsBoList) {
-                      if (StringUtils.isNotEmpty(questionnairesStepsBo.getStepType())) {
-                        QuestionnairesStepsBo newQuestionnairesStepsBo =
-                            SerializationUtils.clone(questionnairesStepsBo);
-                        newQuestionnairesStepsBo.setQuestionnairesId(newQuestionnaireBo.getId());
-                        newQuestionnairesStepsBo.setStepId(null);
-                        session.save(newQuestionnairesStepsBo);
-                        if (questionnairesStepsBo
-                            .getStepType()
-                            .equalsIgnoreCase(FdahpStudyDesignerConstants.INSTRUCTION_STEP)) {
-                          logger.info(
-                              "StudyDAOImpl - studyDraftCreation() Questionnarie instruction step - Starts");
-                          InstructionsBo instructionsBo =
-                              (InstructionsBo)
-                                  session
-                                      .getNamedQuery("getInstructionStep")
-                                      .setInteger(
-                                          "id", questionnairesStepsBo.getInstructionFormId())
-                                      .uniqueResult();
-                          if (instructionsBo != null) {
-                            InstructionsBo newInstructionsBo =
-                                SerializationUtils.clone(instructionsBo);
-                            newInstructionsBo.setId(null);
-                            session.save(newInstructionsBo);
-
-                            // updating new
-                            // InstructionId
-                            newQuestionnairesStepsBo.setInstructionFormId(
-                                newInstructionsBo.getId());
-                          }
-                          logger.info(
-                              "StudyDAOImpl - studyDraftCreation() Questionnarie instruction step - Ends");
-                        } else if (questionnairesStepsBo
-                            .getStepType()
-                            .equalsIgnoreCase(FdahpStudyDesignerConstants.QUESTION_STEP)) {
-                          logger.info(
-                              "StudyDAOImpl - studyDraftCreation() Questionnarie Qustion step - Starts");
-                          QuestionsBo questionsBo =
-                              (QuestionsBo)
-                                  session
-                                      .getNamedQuery("getQuestionStep")
-                                      .setInteger(
-                                          "stepId", questionnairesStepsBo.getInstructionFormId())
-                                      .uniqueResult();
-                          if (questionsBo != null) {
-                            // Question response
-                            // subType
-                            List<QuestionResponseSubTypeBo> questionResponseSubTypeList =
-                                session
-                                    .getNamedQuery("getQuestionSubResponse")
-                                    .setInteger("responseTypeId", questionsBo.getId())
-                                    .list();
-                            List<QuestionConditionBranchBo> questionConditionBranchList =
-                                session
-                                    .getNamedQuery("getQuestionConditionBranchList")
-                                    .setInteger("questionId", questionsBo.getId())
-                                    .list();
-
-                            // Question response
-                            // Type
-                            questionReponseTypeBo =
-                                (QuestionReponseTypeBo)
-                                    session
-                                        .getNamedQuery("getQuestionResponse")
-                                        .setInteger("questionsResponseTypeId", questionsBo.getId())
-                                        .setMaxResults(1)
-                                        .uniqueResult();
-
-                            QuestionsBo newQuestionsBo = SerializationUtils.clone(questionsBo);
-                            newQuestionsBo.setId(null);
-                            session.save(newQuestionsBo);
-
-                            // Question response
-                            // Type
-                            if (questionReponseTypeBo != null) {
-
-                              QuestionReponseTypeBo newQuestionReponseTypeBo =
-                                  SerializationUtils.clone(questionReponseTypeBo);
-                              newQuestionReponseTypeBo.setResponseTypeId(null);
-                              newQuestionReponseTypeBo.setQuestionsResponseTypeId(
-                                  newQuestionsBo.getId());
-                              newQuestionReponseTypeBo.setOtherDestinationStepId(null);
-                              session.save(newQuestionReponseTypeBo);
-
-                              if ((questionReponseTypeBo.getOtherType() != null)
-                                  && StringUtils.isNotEmpty(questionReponseTypeBo.getOtherType())
-                                  && questionReponseTypeBo.getOtherType().equals("on")) {
-                                existingQuestionResponseTypeList.add(questionReponseTypeBo);
-                                newQuestionResponseTypeList.add(newQuestionReponseTypeBo);
-                              }
-                            }
-
-                            // Question Condition
-                            // branching logic
-                            if ((questionConditionBranchList != null)
-                                && !questionConditionBranchList.isEmpty()) {
-                              for (QuestionConditionBranchBo questionConditionBranchBo :
-                                  questionConditionBranchList) {
-                                QuestionConditionBranchBo newQuestionConditionBranchBo =
-                                    SerializationUtils.clone(questionConditionBranchBo);
-                                newQuestionConditionBranchBo.setConditionId(null);
-                                newQuestionConditionBranchBo.setQuestionId(newQuestionsBo.getId());
-                                session.save(newQuestionConditionBranchBo);
-                              }
-                            }
-
-                            // Question response
-                            // subType
-                            if ((questionResponseSubTypeList != null)
-                                && !questionResponseSubTypeList.isEmpty()) {
-                              existingQuestionResponseSubTypeList.addAll(
-                                  questionResponseSubTypeList);
-
-                              for (QuestionResponseSubTypeBo questionResponseSubTypeBo :
-                                  questionResponseSubTypeList) {
-                                QuestionResponseSubTypeBo newQuestionResponseSubTypeBo =
-                                    SerializationUtils.clone(questionResponseSubTypeBo);
-                                newQuestionResponseSubTypeBo.setResponseSubTypeValueId(null);
-                                newQuestionResponseSubTypeBo.setResponseTypeId(
-                                    newQuestionsBo.getId());
-                                newQuestionResponseSubTypeBo.setDestinationStepId(null);
-                                session.save(newQuestionResponseSubTypeBo);
-                                newQuestionResponseSubTypeList.add(newQuestionResponseSubTypeBo);
-                              }
-                            }
-
-                            // updating new
-                            // InstructionId
-                            newQuestionnairesStepsBo.setInstructionFormId(newQuestionsBo.getId());
-                          }
-                          logger.info(
-                              "StudyDAOImpl - studyDraftCreation() Questionnarie Qustion step - Ends");
-                        } else if (questionnairesStepsBo
-                            .getStepType()
-                            .equalsIgnoreCase(FdahpStudyDesignerConstants.FORM_STEP)) {
-                          logger.info(
-                              "StudyDAOImpl - studyDraftCreation() Questionnarie Form step - Starts");
-                          FormBo formBo =
-                              (FormBo)
-                                  session
-                                      .getNamedQuery("getFormBoStep")
-                                      .setInteger(
-                                          "stepId", questionnairesStepsBo.getInstructionFormId())
-                                      .uniqueResult();
-                          if (formBo != null) {
-                            FormBo newFormBo = SerializationUtils.clone(formBo);
-                            newFormBo.setFormId(null);
-                            session.save(newFormBo);
-
-                            List<FormMappingBo> formMappingBoList =
-                                session
-                                    .getNamedQuery("getFormByFormId")
-                                    .setInteger("formId", formBo.getFormId())
-                                    .list();
-                            if ((formMappingBoList != null) && !formMappingBoList.isEmpty()) {
-                              for (FormMappingBo formMappingBo : formMappingBoList) {
-                                FormMappingBo newMappingBo =
-                                    SerializationUtils.clone(formMappingBo);
-                                newMappingBo.setFormId(newFormBo.getFormId());
-                                newMappingBo.setId(null);
-
-                                QuestionsBo questionsBo =
-                                    (QuestionsBo)
-                                        session
-                                            .getNamedQuery("getQuestionByFormId")
-                                            .setInteger("formId", formMappingBo.getQuestionId())
-                                            .uniqueResult();
-                                if (questionsBo != null) {
-                                  // Question
-                                  // response
-                                  // subType
-                                  List<QuestionResponseSubTypeBo> questionResponseSubTypeList =
-                                      session
-                                          .getNamedQuery("getQuestionSubResponse")
-                                          .setInteger("responseTypeId", questionsBo.getId())
-                                          .list();
-
-                                  // Question
-                                  // response
-                                  // Type
-                                  questionReponseTypeBo =
-                                      (QuestionReponseTypeBo)
-                                          session
-                                              .getNamedQuery("getQuestionResponse")
-                                              .setInteger(
-                                                  "questionsResponseTypeId", questionsBo.getId())
-                                              .setMaxResults(1)
-                                              .uniqueResult();
-
-                                  QuestionsBo newQuestionsBo =
-                                      SerializationUtils.clone(questionsBo);
-                                  newQuestionsBo.setId(null);
-                                  session.save(newQuestionsBo);
-
-                                  // Question
-                                  // response
-                                  // Type
-                                  if (questionReponseTypeBo != null) {
-                                    QuestionReponseTypeBo newQuestionReponseTypeBo =
-                                        SerializationUtils.clone(questionReponseTypeBo);
-                                    newQuestionReponseTypeBo.setResponseTypeId(null);
-                                    newQuestionReponseTypeBo.setQuestionsResponseTypeId(
-                                        newQuestionsBo.getId());
-                                    session.save(newQuestionReponseTypeBo);
-                                  }
-
-                                  // Question
-                                  // response
-                                  // subType
-                                  if ((questionResponseSubTypeList != null)
-                                      && !questionResponseSubTypeList.isEmpty()) {
-                                    for (QuestionResponseSubTypeBo questionResponseSubTypeBo :
-                                        questionResponseSubTypeList) {
-                                      QuestionResponseSubTypeBo newQuestionResponseSubTypeBo =
-                                          SerializationUtils.clone(questionResponseSubTypeBo);
-                                      newQuestionResponseSubTypeBo.setResponseSubTypeValueId(null);
-                                      newQuestionResponseSubTypeBo.setResponseTypeId(
-                                          newQuestionsBo.getId());
-                                      session.save(newQuestionResponseSubTypeBo);
-                                    }
-                                  }
-
-                                  // adding
-                                  // questionId
-                                  newMappingBo.setQuestionId(newQuestionsBo.getId());
-                                  session.save(newMappingBo);
-                                }
-                              }
-                            }
-                            // updating new formId
-                            newQuestionnairesStepsBo.setInstructionFormId(newFormBo.getFormId());
-                          }
-                          logger.info(
-                              "StudyDAOImpl - studyDraftCreation() Questionnarie Form step - Ends");
-                        }
-                        session.update(newQuestionnairesStepsBo);
-                        newQuestionnairesStepsBoList.add(newQuestionnairesStepsBo);
-                      }
-                    }
-                  }
-                  if ((destinationList != null) && !destinationList.isEmpty()) {
-                    for (int i = 0; i < destinationList.size(); i++) {
-                      int desId = 0;
-                      if (destinationList.get(i) != -1) {
-                        desId =
-                            newQuestionnairesStepsBoList.get(destinationList.get(i)).getStepId();
-                      }
-                      newQuestionnairesStepsBoList.get(i).setDestinationStep(desId);
-                      session.update(newQuestionnairesStepsBoList.get(i));
-                    }
-                  }
-                  List<Integer> sequenceSubTypeList = new ArrayList<>();
-                  List<Integer> destinationResList = new ArrayList<>();
-                  if ((existingQuestionResponseSubTypeList != null)
-                      && !existingQuestionResponseSubTypeList.isEmpty()) {
-                    for (QuestionResponseSubTypeBo questionResponseSubTypeBo :
-                        existingQuestionResponseSubTypeList) {
-                      if (questionResponseSubTypeBo.getDestinationStepId() == null) {
-                        sequenceSubTypeList.add(null);
-                      } else if ((questionResponseSubTypeBo.getDestinationStepId() != null)
-                          && questionResponseSubTypeBo.getDestinationStepId().equals(0)) {
-                        sequenceSubTypeList.add(-1);
-                      } else {
-                        if ((existedQuestionnairesStepsBoList != null)
-                            && !existedQuestionnairesStepsBoList.isEmpty()) {
-                          for (QuestionnairesStepsBo questionnairesStepsBo :
-                              existedQuestionnairesStepsBoList) {
-                            if ((questionResponseSubTypeBo.getDestinationStepId() != null)
-                                && questionResponseSubTypeBo
-                                    .getDestinationStepId()
-                                    .equals(questionnairesStepsBo.getStepId())) {
-                              sequenceSubTypeList.add(questionnairesStepsBo.getSequenceNo());
-                              break;
-                            }
-                          }
-                        }
-                      }
-                    }
-                  }
-                  if ((sequenceSubTypeList != null) && !sequenceSubTypeList.isEmpty()) {
-                    for (int i = 0; i < sequenceSubTypeList.size(); i++) {
-                      Integer desId = null;
-                      if (sequenceSubTypeList.get(i) == null) {
-                        desId = null;
-                      } else if (sequenceSubTypeList.get(i).equals(-1)) {
-                        desId = 0;
-                      } else {
-                        for (QuestionnairesStepsBo questionnairesStepsBo :
-                            newQuestionnairesStepsBoList) {
-                          if (sequenceSubTypeList
-                              .get(i)
-                              .equals(questionnairesStepsBo.getSequenceNo())) {
-                            desId = questionnairesStepsBo.getStepId();
-                            break;
-                          }
-                        }
-                      }
-                      destinationResList.add(desId);
-                    }
-                    for (int i = 0; i < destinationResList.size(); i++) {
-                      newQuestionResponseSubTypeList
-                          .get(i)
-                          .setDestinationStepId(destinationResList.get(i));
-                      session.update(newQuestionResponseSubTypeList.get(i));
-                    }
-                  }
-
-                  // for other type , update the destination in questionresponsetype table
-                  /** start * */
-                  List<Integer> sequenceTypeList = new ArrayList<>();
-                  List<Integer> destinationResTypeList = new ArrayList<>();
-                  if ((existingQuestionResponseTypeList != null)
-                      && !existingQuestionResponseTypeList.isEmpty()) {
-                    for (QuestionReponseTypeBo questionResponseTypeBo :
-                        existingQuestionResponseTypeList) {
-                      if (questionResponseTypeBo.getOtherDestinationStepId() == null) {
-                        sequenceTypeList.add(null);
-                      } else if ((questionResponseTypeBo.getOtherDestinationStepId() != null)
-                          && questionResponseTypeBo.getOtherDestinationStepId().equals(0)) {
-                        sequenceTypeList.add(-1);
-                      } else {
-                        if ((existedQuestionnairesStepsBoList != null)
-                            && !existedQuestionnairesStepsBoList.isEmpty()) {
-                          for (QuestionnairesStepsBo questionnairesStepsBo :
-                              existedQuestionnairesStepsBoList) {
-                            if ((questionResponseTypeBo.getOtherDestinationStepId() != null)
-                                && questionResponseTypeBo
-                                    .getOtherDestinationStepId()
-                                    .equals(questionnairesStepsBo.getStepId())) {
-                              sequenceTypeList.add(questionnairesStepsBo.getSequenceNo());
-                              break;
-                            }
-                          }
-                        }
-                      }
-                    }
-                  }
-                  if ((sequenceTypeList != null) && !sequenceTypeList.isEmpty()) {
-                    for (int i = 0; i < sequenceTypeList.size(); i++) {
-                      Integer desId = null;
-                      if (sequenceTypeList.get(i) == null) {
-                        desId = null;
-                      } else if (sequenceTypeList.get(i).equals(-1)) {
-                        desId = 0;
-                      } else {
-                        for (QuestionnairesStepsBo questionnairesStepsBo :
-                            newQuestionnairesStepsBoList) {
-                          if (sequenceTypeList
-                              .get(i)
-                              .equals(questionnairesStepsBo.getSequenceNo())) {
-                            desId = questionnairesStepsBo.getStepId();
-                            break;
-                          }
-                        }
-                      }
-                      destinationResTypeList.add(desId);
-                    }
-                    for (int i = 0; i < destinationResTypeList.size(); i++) {
-                      newQuestionResponseTypeList
-                          .get(i)
-                          .setOtherDestinationStepId(destinationResTypeList.get(i));
-                      session.update(newQuestionResponseTypeList.get(i));
-                    }
-                  }
-                  /** * end ** */
+                  cloneQuestionnaireSteps(
+                      session, questionnaireBo.getId(), newQuestionnaireBo.getId());
                   studyActivityVersionBo.setActivityVersion(newQuestionnaireBo.getVersion());
                   /** Content purpose creating draft End * */
                 } else {
@@ -5557,6 +4939,331 @@ public class StudyDAOImpl implements StudyDAO {
     return message;
   }
 
+  /**
+   * Clones the active steps of a questionnaire into its draft, together with their instructions,
+   * questions, forms, response types and branching.
+   *
+   * <p>The content of all steps is read with one query per table rather than a few queries per
+   * step. The content of a step is inserted before the step itself, so the step is written with its
+   * new instruction, question or form id. Steps are read in descending sequence order, so branching
+   * to a later step can usually be resolved when the row is inserted; only branching to an earlier
+   * step is updated after all steps are cloned.
+   */
+  @SuppressWarnings("unchecked")
+  private void cloneQuestionnaireSteps(
+      Session session, Integer questionnaireId, Integer newQuestionnaireId) {
+    logger.info("StudyDAOImpl - cloneQuestionnaireSteps() - Starts");
+    List<QuestionnairesStepsBo> steps =
+        session
+            .getNamedQuery("getQuestionnaireStepSequenceNo")
+            .setInteger("questionnairesId", questionnaireId)
+            .list();
+    if ((steps == null) || steps.isEmpty()) {
+      return;
+    }
+
+    List<Integer> instructionIds = new ArrayList<>();
+    List<Integer> questionIds = new ArrayList<>();
+    List<Integer> formIds = new ArrayList<>();
+    for (QuestionnairesStepsBo stepBo : steps) {
+      if (FdahpStudyDesignerConstants.INSTRUCTION_STEP.equalsIgnoreCase(stepBo.getStepType())) {
+        instructionIds.add(stepBo.getInstructionFormId());
+      } else if (FdahpStudyDesignerConstants.QUESTION_STEP.equalsIgnoreCase(
+          stepBo.getStepType())) {
+        questionIds.add(stepBo.getInstructionFormId());
+      } else if (FdahpStudyDesignerConstants.FORM_STEP.equalsIgnoreCase(stepBo.getStepType())) {
+        formIds.add(stepBo.getInstructionFormId());
+      }
+    }
+
+    Map<Integer, InstructionsBo> instructions = new HashMap<>();
+    for (InstructionsBo instructionsBo :
+        this.<InstructionsBo>listByIds(
+            session,
+            "from InstructionsBo IBO where IBO.active=1 and IBO.id in (:ids)",
+            instructionIds)) {
+      instructions.put(instructionsBo.getId(), instructionsBo);
+    }
+
+    Map<Integer, FormBo> forms = new HashMap<>();
+    for (FormBo formBo :
+        this.<FormBo>listByIds(
+            session, "from FormBo FBO where FBO.active=1 and FBO.formId in (:ids)", formIds)) {
+      forms.put(formBo.getFormId(), formBo);
+    }
+
+    Map<Integer, List<FormMappingBo>> formMappings = new HashMap<>();
+    for (FormMappingBo formMappingBo :
+        this.<FormMappingBo>listByIds(
+            session,
+            "from FormMappingBo FMBO where FMBO.formId in (:ids) order by FMBO.id desc",
+            new ArrayList<>(forms.keySet()))) {
+      if (!formMappings.containsKey(formMappingBo.getFormId())) {
+        formMappings.put(formMappingBo.getFormId(), new ArrayList<FormMappingBo>());
+      }
+      formMappings.get(formMappingBo.getFormId()).add(formMappingBo);
+      questionIds.add(formMappingBo.getQuestionId());
+    }
+
+    Map<Integer, QuestionsBo> questions = new HashMap<>();
+    for (QuestionsBo questionsBo :
+        this.<QuestionsBo>listByIds(
+            session,
+            "from QuestionsBo QBO where QBO.active=1 and QBO.id in (:ids)",
+            questionIds)) {
+      questions.put(questionsBo.getId(), questionsBo);
+    }
+    List<Integer> activeQuestionIds = new ArrayList<>(questions.keySet());
+
+    // the latest response type of a question is the one in use
+    Map<Integer, QuestionReponseTypeBo> responseTypes = new HashMap<>();
+    for (QuestionReponseTypeBo questionReponseTypeBo :
+        this.<QuestionReponseTypeBo>listByIds(
+            session,
+            "from QuestionReponseTypeBo QRBO where QRBO.questionsResponseTypeId in (:ids)"
+                + " order by QRBO.responseTypeId DESC",
+            activeQuestionIds)) {
+      if (!responseTypes.containsKey(questionReponseTypeBo.getQuestionsResponseTypeId())) {
+        responseTypes.put(
+            questionReponseTypeBo.getQuestionsResponseTypeId(), questionReponseTypeBo);
+      }
+    }
+
+    Map<Integer, List<QuestionResponseSubTypeBo>> responseSubTypes = new HashMap<>();
+    for (QuestionResponseSubTypeBo questionResponseSubTypeBo :
+        this.<QuestionResponseSubTypeBo>listByIds(
+            session,
+            "from QuestionResponseSubTypeBo QRBO where QRBO.active=1"
+                + " and QRBO.responseTypeId in (:ids) order by QRBO.responseSubTypeValueId",
+            activeQuestionIds)) {
+      if (!responseSubTypes.containsKey(questionResponseSubTypeBo.getResponseTypeId())) {
+        responseSubTypes.put(
+            questionResponseSubTypeBo.getResponseTypeId(),
+            new ArrayList<QuestionResponseSubTypeBo>());
+      }
+      responseSubTypes.get(questionResponseSubTypeBo.getResponseTypeId()).add(
+          questionResponseSubTypeBo);
+    }
+
+    Map<Integer, List<QuestionConditionBranchBo>> conditionBranches = new HashMap<>();
+    for (QuestionConditionBranchBo questionConditionBranchBo :
+        this.<QuestionConditionBranchBo>listByIds(
+            session,
+            "from QuestionConditionBranchBo QCBO where QCBO.questionId in (:ids)"
+                + " order by QCBO.sequenceNo ASC",
+            activeQuestionIds)) {
+      if (!conditionBranches.containsKey(questionConditionBranchBo.getQuestionId())) {
+        conditionBranches.put(
+            questionConditionBranchBo.getQuestionId(), new ArrayList<QuestionConditionBranchBo>());
+      }
+      conditionBranches.get(questionConditionBranchBo.getQuestionId()).add(
+          questionConditionBranchBo);
+    }
+
+    // old step id -> cloned step id
+    Map<Integer, Integer> newStepIds = new HashMap<>();
+    Map<QuestionnairesStepsBo, Integer> pendingSteps = new HashMap<>();
+    Map<QuestionResponseSubTypeBo, Integer> pendingSubTypes = new HashMap<>();
+    Map<QuestionReponseTypeBo, Integer> pendingResponseTypes = new HashMap<>();
+
+    for (QuestionnairesStepsBo questionnairesStepsBo : steps) {
+      if (StringUtils.isEmpty(questionnairesStepsBo.getStepType())) {
+        continue;
+      }
+      QuestionnairesStepsBo newQuestionnairesStepsBo =
+          SerializationUtils.clone(questionnairesStepsBo);
+      newQuestionnairesStepsBo.setQuestionnairesId(newQuestionnaireId);
+      newQuestionnairesStepsBo.setStepId(null);
+
+      if (questionnairesStepsBo
+          .getStepType()
+          .equalsIgnoreCase(FdahpStudyDesignerConstants.INSTRUCTION_STEP)) {
+        InstructionsBo instructionsBo =
+            instructions.get(questionnairesStepsBo.getInstructionFormId());
+        if (instructionsBo != null) {
+          InstructionsBo newInstructionsBo = SerializationUtils.clone(instructionsBo);
+          newInstructionsBo.setId(null);
+          session.save(newInstructionsBo);
+          newQuestionnairesStepsBo.setInstructionFormId(newInstructionsBo.getId());
+        }
+      } else if (questionnairesStepsBo
+          .getStepType()
+          .equalsIgnoreCase(FdahpStudyDesignerConstants.QUESTION_STEP)) {
+        QuestionsBo questionsBo = questions.get(questionnairesStepsBo.getInstructionFormId());
+        if (questionsBo != null) {
+          QuestionsBo newQuestionsBo = SerializationUtils.clone(questionsBo);
+          newQuestionsBo.setId(null);
+          session.save(newQuestionsBo);
+
+          QuestionReponseTypeBo questionReponseTypeBo = responseTypes.get(questionsBo.getId());
+          if (questionReponseTypeBo != null) {
+            QuestionReponseTypeBo newQuestionReponseTypeBo =
+                SerializationUtils.clone(questionReponseTypeBo);
+            newQuestionReponseTypeBo.setResponseTypeId(null);
+            newQuestionReponseTypeBo.setQuestionsResponseTypeId(newQuestionsBo.getId());
+            newQuestionReponseTypeBo.setOtherDestinationStepId(null);
+            if ("on".equals(questionReponseTypeBo.getOtherType())) {
+              Integer destinationStepId = questionReponseTypeBo.getOtherDestinationStepId();
+              if (isResolvedDestination(destinationStepId, newStepIds)) {
+                newQuestionReponseTypeBo.setOtherDestinationStepId(
+                    newDestinationStepId(destinationStepId, newStepIds));
+              } else {
+                pendingResponseTypes.put(newQuestionReponseTypeBo, destinationStepId);
+              }
+            }
+            session.save(newQuestionReponseTypeBo);
+          }
+
+          List<QuestionConditionBranchBo> questionConditionBranchList =
+              conditionBranches.get(questionsBo.getId());
+          if (questionConditionBranchList != null) {
+            for (QuestionConditionBranchBo questionConditionBranchBo :
+                questionConditionBranchList) {
+              QuestionConditionBranchBo newQuestionConditionBranchBo =
+                  SerializationUtils.clone(questionConditionBranchBo);
+              newQuestionConditionBranchBo.setConditionId(null);
+              newQuestionConditionBranchBo.setQuestionId(newQuestionsBo.getId());
+              session.save(newQuestionConditionBranchBo);
+            }
+          }
+
+          List<QuestionResponseSubTypeBo> questionResponseSubTypeList =
+              responseSubTypes.get(questionsBo.getId());
+          if (questionResponseSubTypeList != null) {
+            for (QuestionResponseSubTypeBo questionResponseSubTypeBo :
+                questionResponseSubTypeList) {
+              QuestionResponseSubTypeBo newQuestionResponseSubTypeBo =
+                  SerializationUtils.clone(questionResponseSubTypeBo);
+              newQuestionResponseSubTypeBo.setResponseSubTypeValueId(null);
+              newQuestionResponseSubTypeBo.setResponseTypeId(newQuestionsBo.getId());
+              newQuestionResponseSubTypeBo.setDestinationStepId(null);
+              Integer destinationStepId = questionResponseSubTypeBo.getDestinationStepId();
+              if (isResolvedDestination(destinationStepId, newStepIds)) {
+                newQuestionResponseSubTypeBo.setDestinationStepId(
+                    newDestinationStepId(destinationStepId, newStepIds));
+              } else {
+                pendingSubTypes.put(newQuestionResponseSubTypeBo, destinationStepId);
+              }
+              session.save(newQuestionResponseSubTypeBo);
+            }
+          }
+          newQuestionnairesStepsBo.setInstructionFormId(newQuestionsBo.getId());
+        }
+      } else if (questionnairesStepsBo
+          .getStepType()
+          .equalsIgnoreCase(FdahpStudyDesignerConstants.FORM_STEP)) {
+        FormBo formBo = forms.get(questionnairesStepsBo.getInstructionFormId());
+        if (formBo != null) {
+          FormBo newFormBo = SerializationUtils.clone(formBo);
+          newFormBo.setFormId(null);
+          session.save(newFormBo);
+
+          List<FormMappingBo> formMappingBoList = formMappings.get(formBo.getFormId());
+          if (formMappingBoList != null) {
+            for (FormMappingBo formMappingBo : formMappingBoList) {
+              QuestionsBo questionsBo = questions.get(formMappingBo.getQuestionId());
+              if (questionsBo == null) {
+                continue;
+              }
+              QuestionsBo newQuestionsBo = SerializationUtils.clone(questionsBo);
+              newQuestionsBo.setId(null);
+              session.save(newQuestionsBo);
+
+              QuestionReponseTypeBo questionReponseTypeBo = responseTypes.get(questionsBo.getId());
+              if (questionReponseTypeBo != null) {
+                QuestionReponseTypeBo newQuestionReponseTypeBo =
+                    SerializationUtils.clone(questionReponseTypeBo);
+                newQuestionReponseTypeBo.setResponseTypeId(null);
+                newQuestionReponseTypeBo.setQuestionsResponseTypeId(newQuestionsBo.getId());
+                session.save(newQuestionReponseTypeBo);
+              }
+
+              List<QuestionResponseSubTypeBo> questionResponseSubTypeList =
+                  responseSubTypes.get(questionsBo.getId());
+              if (questionResponseSubTypeList != null) {
+                for (QuestionResponseSubTypeBo questionResponseSubTypeBo :
+                    questionResponseSubTypeList) {
+                  QuestionResponseSubTypeBo newQuestionResponseSubTypeBo =
+                      SerializationUtils.clone(questionResponseSubTypeBo);
+                  newQuestionResponseSubTypeBo.setResponseSubTypeValueId(null);
+                  newQuestionResponseSubTypeBo.setResponseTypeId(newQuestionsBo.getId());
+                  session.save(newQuestionResponseSubTypeBo);
+                }
+              }
+
+              FormMappingBo newMappingBo = SerializationUtils.clone(formMappingBo);
+              newMappingBo.setId(null);
+              newMappingBo.setFormId(newFormBo.getFormId());
+              newMappingBo.setQuestionId(newQuestionsBo.getId());
+              session.save(newMappingBo);
+            }
+          }
+          newQuestionnairesStepsBo.setInstructionFormId(newFormBo.getFormId());
+        }
+      }
+
+      Integer destinationStep = questionnairesStepsBo.getDestinationStep();
+      if (isResolvedDestination(destinationStep, newStepIds)) {
+        newQuestionnairesStepsBo.setDestinationStep(
+            destinationStep == null ? 0 : newDestinationStepId(destinationStep, newStepIds));
+      } else {
+        pendingSteps.put(newQuestionnairesStepsBo, destinationStep);
+      }
+      session.save(newQuestionnairesStepsBo);
+      newStepIds.put(questionnairesStepsBo.getStepId(), newQuestionnairesStepsBo.getStepId());
+    }
+
+    // branching to steps that were cloned later, or to steps that no longer exist
+    for (Map.Entry<QuestionnairesStepsBo, Integer> entry : pendingSteps.entrySet()) {
+      entry.getKey().setDestinationStep(newDestinationStepId(entry.getValue(), newStepIds));
+      session.update(entry.getKey());
+    }
+    for (Map.Entry<QuestionResponseSubTypeBo, Integer> entry : pendingSubTypes.entrySet()) {
+      entry.getKey().setDestinationStepId(newDestinationStepId(entry.getValue(), newStepIds));
+      session.update(entry.getKey());
+    }
+    for (Map.Entry<QuestionReponseTypeBo, Integer> entry : pendingResponseTypes.entrySet()) {
+      entry.getKey().setOtherDestinationStepId(newDestinationStepId(entry.getValue(), newStepIds));
+      session.update(entry.getKey());
+    }
+    logger.info("StudyDAOImpl - cloneQuestionnaireSteps() - Ends");
+  }
+
+  /** A destination of null or 0 (end of the activity) is kept as is. */
+  private boolean isResolvedDestination(
+      Integer destinationStepId, Map<Integer, Integer> newStepIds) {
+    return (destinationStepId == null)
+        || destinationStepId.equals(0)
+        || newStepIds.containsKey(destinationStepId);
+  }
+
+  /**
+   * Returns the id of the cloned destination step. A destination step that no longer exists was
+   * not cloned, so the destination keeps its old id as it did before steps were cloned in bulk.
+   */
+  private Integer newDestinationStepId(
+      Integer destinationStepId, Map<Integer, Integer> newStepIds) {
+    if ((destinationStepId == null) || !newStepIds.containsKey(destinationStepId)) {
+      return destinationStepId;
+    }
+    return newStepIds.get(destinationStepId);
+  }
+
+  private <T> List<T> listByIds(Session session, String queryString, List<?> ids) {
+    List<T> results = new ArrayList<>();
+    for (int i = 0; i < ids.size(); i += IN_CLAUSE_BATCH_SIZE) {
+      @SuppressWarnings("unchecked")
+      List<T> batch =
+          session
+              .createQuery(queryString)
+              .setParameterList(
+                  "ids", ids.subList(i, Math.min(i + IN_CLAUSE_BATCH_SIZE, ids.size())))
+              .list();
+      results.addAll(batch);
+    }
+    return results;
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public String updateStudyActionOnAction(String studyId, String buttonText, SessionObject sesObj) {
@@ -5830,7 +5537,6 @@ public class StudyDAOImpl implements StudyDAO {
     return message;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public String validateActivityComplete(String studyId, String action) {
     logger.info("StudyDAOImpl - validateActivityComplete() - Starts");
@@ -5839,50 +5545,37 @@ public class StudyDAOImpl implements StudyDAO {
     boolean activeTaskEmpty = false;
     boolean questionnarieEmpty = false;
     boolean activeTaskFlag = true;
-    List<ActiveTaskBo> completedactiveTasks = null;
-    List<QuestionnaireBo> completedquestionnaires = null;
+    Object[] activeTaskCounts = null;
+    Object[] questionnaireCounts = null;
     StudySequenceBo studySequence = null;
     String message = FdahpStudyDesignerConstants.SUCCESS;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
       if (StringUtils.isNotEmpty(action)) {
-        // For checking active task or questionnaire done or not
-        query =
-            session
-                .getNamedQuery("ActiveTaskBo.getActiveTasksByByStudyIdDone")
-                .setInteger(FdahpStudyDesignerConstants.STUDY_ID, Integer.parseInt(studyId));
-        completedactiveTasks = query.list();
-        query =
-            session
-                .getNamedQuery("getQuestionariesByStudyIdDone")
-                .setInteger(FdahpStudyDesignerConstants.STUDY_ID, Integer.parseInt(studyId));
-        completedquestionnaires = query.list();
+        // For checking active task or questionnaire done or not, counting the activities and
+        // the ones not done instead of loading them
+        activeTaskCounts =
+            (Object[])
+                session
+                    .getNamedQuery("ActiveTaskBo.getActiveTaskCountsByStudyIdDone")
+                    .setInteger(FdahpStudyDesignerConstants.STUDY_ID, Integer.parseInt(studyId))
+                    .uniqueResult();
+        questionnaireCounts =
+            (Object[])
+                session
+                    .getNamedQuery("getQuestionnaireCountsByStudyIdDone")
+                    .setInteger(FdahpStudyDesignerConstants.STUDY_ID, Integer.parseInt(studyId))
+                    .uniqueResult();
         studySequence =
             (StudySequenceBo)
                 session
                     .getNamedQuery("getStudySequenceByStudyId")
                     .setInteger("studyId", Integer.parseInt(studyId))
                     .uniqueResult();
-        if (((completedactiveTasks != null) && !completedactiveTasks.isEmpty())) {
-          for (ActiveTaskBo activeTaskBo : completedactiveTasks) {
-            if (!activeTaskBo.isAction()) {
-              activeTaskFlag = false;
-              break;
-            }
-          }
-        } else {
-          activeTaskEmpty = true;
-        }
-        if ((completedquestionnaires != null) && !completedquestionnaires.isEmpty()) {
-          for (QuestionnaireBo questionnaireBo : completedquestionnaires) {
-            if ((questionnaireBo.getStatus() != null) && !questionnaireBo.getStatus()) {
-              questionnarieFlag = false;
-              break;
-            }
-          }
-        } else {
-          questionnarieEmpty = true;
-        }
+        activeTaskEmpty = count(activeTaskCounts, 0) == 0;
+        activeTaskFlag = count(activeTaskCounts, 1) == 0;
+        questionnarieEmpty = count(questionnaireCounts, 0) == 0;
+        questionnarieFlag = count(questionnaireCounts, 1) == 0;
         // questionnarieFlag, activeTaskFlag will be true, then only
         // will allow to mark as complete
         if (action.equalsIgnoreCase(FdahpStudyDesignerConstants.ACTIVITY_TYPE_QUESTIONNAIRE)) {
@@ -5914,6 +5607,10 @@ public class StudyDAOImpl implements StudyDAO {
     return message;
   }
 
+  private long count(Object[] counts, int index) {
+    return (counts != null) && (counts[index] != null) ? ((Number) counts[index]).longValue() : 0;
+  }
+
   @SuppressWarnings("unchecked")
   public String validateDateForStudyAction(StudyBo studyBo, String buttonText) {
     boolean resourceFlag = true;
@@ -5924,7 +5621,7 @@ public class StudyDAOImpl implements StudyDAO {
     List<DynamicBean> dynamicList = null;
     List<DynamicFrequencyBean> dynamicFrequencyList = null;
     List<NotificationBO> notificationBOs = null;
-    List<ResourceBO> resourceBOList = null;
+    List<String> resourceStartDates = null;
     String searchQuery = "";
     Session session = null;
     String message = FdahpStudyDesignerConstants.SUCCESS;
@@ -5932,6 +5629,10 @@ public class StudyDAOImpl implements StudyDAO {
     List<Integer> anchorDateTypeIds = null;
     BigInteger anchorCount = null;
     List<String> frequencyList = null;
+    // each check reads only the earliest date of its kind, unless every date is to be checked
+    boolean fullValidation =
+        Boolean.parseBoolean(
+            FdahpStudyDesignerUtil.getAppProperties().get("study.publish.validation.full"));
     try {
       frequencyList =
           Arrays.asList(
@@ -5942,20 +5643,23 @@ public class StudyDAOImpl implements StudyDAO {
       if (!buttonText.equalsIgnoreCase(FdahpStudyDesignerConstants.ACTION_UPDATES)) {
         // getting based on custom start date resource list
         searchQuery =
-            " FROM ResourceBO RBO WHERE RBO.studyId=:id AND RBO.status = 1 AND RBO.startDate IS NOT NULL ORDER BY RBO.createdOn DESC ";
+            "SELECT RBO.startDate FROM ResourceBO RBO WHERE RBO.studyId=:id AND RBO.status = 1 AND RBO.startDate IS NOT NULL ORDER BY RBO.startDate ";
         query = session.createQuery(searchQuery);
         query.setInteger("id", studyBo.getId());
-        resourceBOList = query.list();
-        if ((resourceBOList != null) && !resourceBOList.isEmpty()) {
-          for (ResourceBO resourceBO : resourceBOList) {
+        if (!fullValidation) {
+          query.setMaxResults(1);
+        }
+        resourceStartDates = query.list();
+        if ((resourceStartDates != null) && !resourceStartDates.isEmpty()) {
+          for (String startDate : resourceStartDates) {
             boolean flag = false;
             String currentDate = FdahpStudyDesignerUtil.getCurrentDate();
-            if (currentDate.equalsIgnoreCase(resourceBO.getStartDate())) {
+            if (currentDate.equalsIgnoreCase(startDate)) {
               flag = true;
             } else {
               flag =
                   FdahpStudyDesignerUtil.compareDateWithCurrentDateResource(
-                      resourceBO.getStartDate(), "yyyy-MM-dd");
+                      startDate, "yyyy-MM-dd");
             }
             if (!flag) {
               resourceFlag = false;
@@ -5980,11 +5684,15 @@ public class StudyDAOImpl implements StudyDAO {
                     + " and ab.frequency=:frquencyTime and a.isLaunchStudy=false"
                     + " and a.frequencyDate IS NOT NULL"
                     + " and a.frequencyTime IS NOT NULL"
-                    + " and ab.shortTitle NOT IN (SELECT shortTitle from ActiveTaskBo WHERE active=1 AND live=1 AND customStudyId=:customStudyId )");
+                    + " and ab.shortTitle NOT IN (SELECT shortTitle from ActiveTaskBo WHERE active=1 AND live=1 AND customStudyId=:customStudyId )"
+                    + " order by a.frequencyDate, a.frequencyTime");
         query.setParameter(FdahpStudyDesignerConstants.IMP_VALUE, studyBo.getId());
         query.setParameter("frquencyTime", FdahpStudyDesignerConstants.FREQUENCY_TYPE_ONE_TIME);
         query.setParameter("customStudyId", studyBo.getCustomStudyId());
 
+        if (!fullValidation) {
+          query.setMaxResults(1);
+        }
         dynamicList = query.list();
         if ((dynamicList != null) && !dynamicList.isEmpty()) {
           // checking active task which have scheduled for One time
@@ -6010,10 +5718,14 @@ public class StudyDAOImpl implements StudyDAO {
                     + " and ab.frequency not in (:frequencyList)"
                     + " and ab.activeTaskLifetimeStart IS NOT NULL"
                     + " and a.frequencyTime IS NOT NULL"
-                    + " and ab.shortTitle NOT IN (SELECT shortTitle from ActiveTaskBo WHERE active=1 AND live=1 AND customStudyId=:customStudyId)");
+                    + " and ab.shortTitle NOT IN (SELECT shortTitle from ActiveTaskBo WHERE active=1 AND live=1 AND customStudyId=:customStudyId)"
+                    + " order by ab.activeTaskLifetimeStart, a.frequencyTime");
         query.setParameter(FdahpStudyDesignerConstants.IMP_VALUE, studyBo.getId());
         query.setParameterList("frequencyList", frequencyList);
         query.setParameter("customStudyId", studyBo.getCustomStudyId());
+        if (!fullValidation) {
+          query.setMaxResults(1);
+        }
         dynamicList = query.list();
         if ((dynamicList != null) && !dynamicList.isEmpty()) {
           // checking active task which have scheduled not in One
@@ -6038,10 +5750,14 @@ public class StudyDAOImpl implements StudyDAO {
                     + " and ab.studyId=:impValue"
                     + " and ab.frequency=:manualSchedule and a.frequencyStartDate IS NOT NULL"
                     + " and a.frequencyTime IS NOT NULL"
-                    + " and a.used=false");
+                    + " and a.used=false"
+                    + " order by a.frequencyStartDate, a.frequencyTime");
         query.setParameter(FdahpStudyDesignerConstants.IMP_VALUE, studyBo.getId());
         query.setParameter(
             "manualSchedule", FdahpStudyDesignerConstants.FREQUENCY_TYPE_MANUALLY_SCHEDULE);
+        if (!fullValidation) {
+          query.setMaxResults(1);
+        }
         dynamicFrequencyList = query.list();
         if ((dynamicFrequencyList != null) && !dynamicFrequencyList.isEmpty()) {
           for (DynamicFrequencyBean obj : dynamicFrequencyList) {
@@ -6072,10 +5788,14 @@ public class StudyDAOImpl implements StudyDAO {
                     + " and ab.studyId=:impValue"
                     + " and ab.frequency=:frequencyTime and a.frequencyDate IS NOT NULL"
                     + " and a.frequencyTime IS NOT NULL"
-                    + " and ab.shortTitle NOT IN(SELECT shortTitle from QuestionnaireBo WHERE active=1 AND live=1 AND customStudyId=:customStudyId)");
+                    + " and ab.shortTitle NOT IN(SELECT shortTitle from QuestionnaireBo WHERE active=1 AND live=1 AND customStudyId=:customStudyId)"
+                    + " order by a.frequencyDate, a.frequencyTime");
         query.setParameter(FdahpStudyDesignerConstants.IMP_VALUE, studyBo.getId());
         query.setParameter("frequencyTime", FdahpStudyDesignerConstants.FREQUENCY_TYPE_ONE_TIME);
         query.setParameter("customStudyId", studyBo.getCustomStudyId());
+        if (!fullValidation) {
+          query.setMaxResults(1);
+        }
         dynamicList = query.list();
         if ((dynamicList != null) && !dynamicList.isEmpty()) {
           for (DynamicBean obj : dynamicList) {
@@ -6100,10 +5820,14 @@ public class StudyDAOImpl implements StudyDAO {
                     + " and ab.frequency not in (:frequencyList)"
                     + " and ab.studyLifetimeStart IS NOT NULL"
                     + " and a.frequencyTime IS NOT NULL"
-                    + " and ab.shortTitle NOT IN(SELECT shortTitle from QuestionnaireBo WHERE active=1 AND live=1 AND customStudyId= :customStudyId)");
+                    + " and ab.shortTitle NOT IN(SELECT shortTitle from QuestionnaireBo WHERE active=1 AND live=1 AND customStudyId= :customStudyId)"
+                    + " order by ab.studyLifetimeStart, a.frequencyTime");
         query.setParameter(FdahpStudyDesignerConstants.IMP_VALUE, studyBo.getId());
         query.setParameterList("frequencyList", frequencyList);
         query.setParameter("customStudyId", studyBo.getCustomStudyId());
+        if (!fullValidation) {
+          query.setMaxResults(1);
+        }
         dynamicList = query.list();
         if ((dynamicList != null) && !dynamicList.isEmpty()) {
           // checking Questionnaires which have scheduled not in one
@@ -6127,10 +5851,14 @@ public class StudyDAOImpl implements StudyDAO {
                     + " and ab.studyId=:impValue"
                     + " and ab.frequency=:manualSchedule and a.frequencyStartDate IS NOT NULL"
                     + " and a.frequencyTime IS NOT NULL"
-                    + " and a.used=false");
+                    + " and a.used=false"
+                    + " order by a.frequencyStartDate, a.frequencyTime");
         query.setParameter(FdahpStudyDesignerConstants.IMP_VALUE, studyBo.getId());
         query.setParameter(
             "manualSchedule", FdahpStudyDesignerConstants.FREQUENCY_TYPE_MANUALLY_SCHEDULE);
+        if (!fullValidation) {
+          query.setMaxResults(1);
+        }
         dynamicFrequencyList = query.list();
         if ((dynamicFrequencyList != null) && !dynamicFrequencyList.isEmpty()) {
           // checking Questionnaires which have scheduled
@@ -6156,9 +5884,13 @@ public class StudyDAOImpl implements StudyDAO {
             " FROM NotificationBO RBO WHERE RBO.studyId=:studyId"
                 + " AND RBO.scheduleDate IS NOT NULL AND RBO.scheduleTime IS NOT NULL"
                 + " AND RBO.notificationType='ST' AND RBO.notificationSubType='Announcement' AND RBO.notificationScheduleType='notImmediate' "
-                + " AND RBO.notificationSent=0 AND RBO.notificationStatus=0 ";
+                + " AND RBO.notificationSent=0 AND RBO.notificationStatus=0 "
+                + " ORDER BY RBO.scheduleDate, RBO.scheduleTime ";
         query = session.createQuery(searchQuery);
         query.setInteger("studyId", studyBo.getId());
+        if (!fullValidation) {
+          query.setMaxResults(1);
+        }
         notificationBOs = query.list();
         if ((notificationBOs != null) && !notificationBOs.isEmpty()) {
           // checking notification expired or not
@@ -39,8 +39,10 @@ import com.fdahpstudydesigner.bo.StudyVersionBo;
 import com.fdahpstudydesigner.common.StudyBuilderAuditEvent;
 import com.fdahpstudydesigner.common.StudyBuilderAuditEventHelper;
 import com.fdahpstudydesigner.mapper.AuditEventMapper;
+import com.fdahpstudydesigner.util.AssetUploadBatch;
 import com.fdahpstudydesigner.util.FdahpStudyDesignerConstants;
 import com.fdahpstudydesigner.util.FdahpStudyDesignerUtil;
+import com.fdahpstudydesigner.util.SequenceOrder;
 import com.fdahpstudydesigner.util.SessionObject;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -1000,15 +1002,6 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
               .setInteger("questionId", questionId);
       formMappingBo = (FormMappingBo) query.uniqueResult();
       if (formMappingBo != null) {
-        String updateQuery =
-            "update FormMappingBo FMBO set FMBO.sequenceNo=FMBO.sequenceNo-1 where FMBO.formId=:formId "
-                + " and FMBO.active=1 and FMBO.sequenceNo >=:sequenceNo ";
-        query =
-            session
-                .createQuery(updateQuery)
-                .setInteger("formId", formMappingBo.getFormId())
-                .setInteger("sequenceNo", formMappingBo.getSequenceNo());
-        query.executeUpdate();
         // delete anchordate start
         StudyBo studyBo =
             (StudyBo)
@@ -1257,9 +1250,9 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
       questionnaireStepList =
           session.createQuery(searchQuery).setInteger("questionnaireId", questionnaireId).list();
       if ((null != questionnaireStepList) && !questionnaireStepList.isEmpty()) {
+        // the sequence numbers keep their gaps, only the destinations follow the new order
         if (questionnaireStepList.size() == 1) {
           questionnaireStepList.get(0).setDestinationStep(0);
-          questionnaireStepList.get(0).setSequenceNo(1);
           session.update(questionnaireStepList.get(0));
         } else {
           int i;
@@ -1267,11 +1260,9 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
             questionnaireStepList
                 .get(i)
                 .setDestinationStep(questionnaireStepList.get(i + 1).getStepId());
-            questionnaireStepList.get(i).setSequenceNo(i + 1);
             session.update(questionnaireStepList.get(i));
           }
           questionnaireStepList.get(i).setDestinationStep(0);
-          questionnaireStepList.get(i).setSequenceNo(i + 1);
           session.update(questionnaireStepList.get(i));
         }
       }
@@ -1357,20 +1348,6 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
       if (questionnairesStepsBo != null) {
         values.put(STEP_ID, questionnairesStepsBo.getStepShortTitle());
 
-        String updateQuery =
-            "update QuestionnairesStepsBo QSBO set QSBO.sequenceNo=QSBO.sequenceNo-1,QSBO.modifiedBy=:userId "
-                + ",QSBO.modifiedOn=:currentDateAndTime "
-                + " where QSBO.questionnairesId=:questionnairesId "
-                + " and QSBO.active=1 and QSBO.sequenceNo >=:sequenceNo ";
-        query =
-            session
-                .createQuery(updateQuery)
-                .setInteger("userId", sessionObject.getUserId())
-                .setString("currentDateAndTime", FdahpStudyDesignerUtil.getCurrentDateTime())
-                .setInteger("questionnairesId", questionnairesStepsBo.getQuestionnairesId())
-                .setInteger("sequenceNo", questionnairesStepsBo.getSequenceNo());
-        query.executeUpdate();
-
         if (stepType.equalsIgnoreCase(FdahpStudyDesignerConstants.INSTRUCTION_STEP)) {
           String deleteQuery = "delete InstructionsBo IBO where IBO.id=:stepId ";
           query = session.createQuery(deleteQuery).setInteger("stepId", stepId);
@@ -1938,6 +1915,22 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
               .setInteger("questionnairesId", questionnaireId)
               .setInteger("sequenceNo", sequenceNo);
       questionnairesStepsList = query.list();
+      if (!questionnairesStepsList.isEmpty()) {
+        int stepNo =
+            ((Number)
+                    session
+                        .createQuery(
+                            "select count(*) from QuestionnairesStepsBo QSBO"
+                                + " where QSBO.questionnairesId=:questionnairesId"
+                                + " and QSBO.sequenceNo <=:sequenceNo and QSBO.active=1")
+                        .setInteger("questionnairesId", questionnaireId)
+                        .setInteger("sequenceNo", sequenceNo)
+                        .uniqueResult())
+                .intValue();
+        for (QuestionnairesStepsBo questionnairesStepsBo : questionnairesStepsList) {
+          questionnairesStepsBo.setStepNo(++stepNo);
+        }
+      }
     } catch (Exception e) {
       logger.error("StudyQuestionnaireDAOImpl - deleteFromStepQuestion() - ERROR ", e);
     } finally {
@@ -2244,10 +2237,11 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
       // setting the sequenceNo and destination steps to the map based on
       // the individual steps later using this map to set the destination
       // step name
+      int stepNo = 0;
       for (QuestionnairesStepsBo questionaireSteps : questionnairesStepsList) {
         destinationText.put(
             questionaireSteps.getStepId(),
-            questionaireSteps.getSequenceNo() + ":" + questionaireSteps.getStepShortTitle());
+            ++stepNo + ":" + questionaireSteps.getStepShortTitle());
         switch (questionaireSteps.getStepType()) {
           case FdahpStudyDesignerConstants.INSTRUCTION_STEP:
             instructionIdList.add(questionaireSteps.getInstructionFormId());
@@ -2787,6 +2781,7 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                 questionsResponseTypeBo.getValidationExceptText()));
 
         String fileName;
+        AssetUploadBatch assetUploads = new AssetUploadBatch();
         if (questionsResponseTypeBo.getMinImageFile() != null) {
           if ((questionsResponseTypeBo.getMinImage() != null)
               && StringUtils.isNotEmpty(questionsResponseTypeBo.getMinImage())) {
@@ -2802,7 +2797,7 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                       String.valueOf(questionsResponseTypeBo.getQuestionsResponseTypeId()));
 
               String imagePath =
-                  FdahpStudyDesignerUtil.saveImage(
+                  assetUploads.saveImage(
                       questionsResponseTypeBo.getMinImageFile(),
                       fileName,
                       FdahpStudyDesignerConstants.QUESTIONNAIRE);
@@ -2830,7 +2825,7 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                       questionsResponseTypeBo.getMaxImageFile().getOriginalFilename(),
                       String.valueOf(questionsResponseTypeBo.getQuestionsResponseTypeId()));
               String imagePath =
-                  FdahpStudyDesignerUtil.saveImage(
+                  assetUploads.saveImage(
                       questionsResponseTypeBo.getMaxImageFile(),
                       fileName,
                       FdahpStudyDesignerConstants.QUESTIONNAIRE);
@@ -2845,6 +2840,7 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
             addOrUpdateQuestionsResponseTypeBo.setMaxImage(null);
           }
         }
+        assetUploads.await();
         if ((questionsResponseTypeBo.getDefaultTime() != null)
             && StringUtils.isNotEmpty(questionsResponseTypeBo.getDefaultTime())) {
           addOrUpdateQuestionsResponseTypeBo.setDefaultTime(
@@ -3061,64 +3057,18 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
     logger.info("StudyQuestionnaireDAOImpl - reOrderFormStepQuestions() - Starts");
     String message = FdahpStudyDesignerConstants.FAILURE;
     Session session = null;
-    int count = 0;
-    FormMappingBo formMappingBo = null;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
       transaction = session.beginTransaction();
-      String updateQuery = "";
-      query =
-          session
-              .getNamedQuery("getFromByIdAndSequenceNo")
-              .setInteger("formId", formId)
-              .setInteger("oldOrderNumber", oldOrderNumber);
-      formMappingBo = (FormMappingBo) query.uniqueResult();
-      if (formMappingBo != null) {
-        if (oldOrderNumber < newOrderNumber) {
-          updateQuery =
-              "update FormMappingBo FMBO set FMBO.sequenceNo=FMBO.sequenceNo-1 where FMBO.formId=:formId "
-                  + " and FMBO.sequenceNo <=:newOrderNumber "
-                  + " and FMBO.sequenceNo >:oldOrderNumber "
-                  + " and FMBO.active=1";
-          query =
-              session
-                  .createQuery(updateQuery)
-                  .setInteger("formId", formId)
-                  .setInteger("newOrderNumber", newOrderNumber)
-                  .setInteger("oldOrderNumber", oldOrderNumber);
-          count = query.executeUpdate();
-          if (count > 0) {
-            query =
-                session
-                    .getNamedQuery("updateFromQuestionSequenceNo")
-                    .setInteger("newOrderNumber", newOrderNumber)
-                    .setInteger("id", formMappingBo.getId());
-            count = query.executeUpdate();
-            message = FdahpStudyDesignerConstants.SUCCESS;
-          }
-        } else if (oldOrderNumber > newOrderNumber) {
-          updateQuery =
-              "update FormMappingBo FMBO set FMBO.sequenceNo=FMBO.sequenceNo+1 where FMBO.formId=:formId "
-                  + " and FMBO.sequenceNo >=:newOrderNumber "
-                  + " and FMBO.sequenceNo <:oldOrderNumber "
-                  + " and FMBO.active=1";
-          query =
-              session
-                  .createQuery(updateQuery)
-                  .setInteger("formId", formId)
-                  .setInteger("newOrderNumber", newOrderNumber)
-                  .setInteger("oldOrderNumber", oldOrderNumber);
-          count = query.executeUpdate();
-          if (count > 0) {
-            query =
-                session
-                    .getNamedQuery("updateFromQuestionSequenceNo")
-                    .setInteger("newOrderNumber", newOrderNumber)
-                    .setInteger("id", formMappingBo.getId());
-            count = query.executeUpdate();
-            message = FdahpStudyDesignerConstants.SUCCESS;
-          }
-        }
+      if (SequenceOrder.move(
+          session,
+          "FormMappingBo",
+          "id",
+          "e.formId=:scopeId and e.active=1",
+          formId,
+          oldOrderNumber,
+          newOrderNumber)) {
+        message = FdahpStudyDesignerConstants.SUCCESS;
       }
       transaction.commit();
     } catch (Exception e) {
@@ -3140,128 +3090,62 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
     logger.info("StudyQuestionnaireDAOImpl - reOrderQuestionnaireSteps() - Starts");
     String message = FdahpStudyDesignerConstants.FAILURE;
     Session session = null;
-    int count = 0;
-    QuestionnairesStepsBo questionnairesStepsBo = null;
     List<QuestionnairesStepsBo> questionnaireStepList = null;
     try {
       session = hibernateTemplate.getSessionFactory().openSession();
       transaction = session.beginTransaction();
-      String updateQuery = "";
-      query =
-          session
-              .createQuery(
-                  "From QuestionnairesStepsBo QSBO where QSBO.questionnairesId=:questionnaireId "
-                      + " and QSBO.sequenceNo =:oldOrderNumber "
-                      + " and QSBO.active=1")
-              .setInteger("questionnaireId", questionnaireId)
-              .setInteger("oldOrderNumber", oldOrderNumber);
-      questionnairesStepsBo = (QuestionnairesStepsBo) query.uniqueResult();
-      if (questionnairesStepsBo != null) {
-
-        if (oldOrderNumber < newOrderNumber) {
-          updateQuery =
-              "update QuestionnairesStepsBo QSBO set QSBO.sequenceNo=QSBO.sequenceNo-1 where QSBO.questionnairesId=:questionnaireId "
-                  + " and QSBO.sequenceNo <=:newOrderNumber "
-                  + " and QSBO.sequenceNo >:oldOrderNumber "
-                  + " and QSBO.active=1";
-          query =
-              session
-                  .createQuery(updateQuery)
-                  .setInteger("questionnaireId", questionnaireId)
-                  .setInteger("newOrderNumber", newOrderNumber)
-                  .setInteger("oldOrderNumber", oldOrderNumber);
-          count = query.executeUpdate();
-          if (count > 0) {
-            query =
-                session
-                    .createQuery(
-                        "update QuestionnairesStepsBo q set q.sequenceNo=:newOrderNumber "
-                            + " where q.stepId=:stepId "
-                            + " and q.active=1")
-                    .setInteger("newOrderNumber", newOrderNumber)
-                    .setInteger("stepId", questionnairesStepsBo.getStepId());
-            count = query.executeUpdate();
-            message = FdahpStudyDesignerConstants.SUCCESS;
-          }
-        } else if (oldOrderNumber > newOrderNumber) {
-          updateQuery =
-              "update QuestionnairesStepsBo QSBO set QSBO.sequenceNo=QSBO.sequenceNo+1 where QSBO.questionnairesId=:questionnaireId "
-                  + " and QSBO.sequenceNo >=:newOrderNumber "
-                  + " and QSBO.sequenceNo <:oldOrderNumber "
-                  + " and QSBO.active=1";
-          query =
-              session
-                  .createQuery(updateQuery)
-                  .setInteger("questionnaireId", questionnaireId)
-                  .setInteger("newOrderNumber", newOrderNumber)
-                  .setInteger("oldOrderNumber", oldOrderNumber);
-          count = query.executeUpdate();
-          if (count > 0) {
-            query =
-                session
-                    .createQuery(
-                        "update QuestionnairesStepsBo Q set Q.sequenceNo=:newOrderNumber "
-                            + " where Q.stepId=:stepId "
-                            + " and Q.active=1")
-                    .setInteger("newOrderNumber", newOrderNumber)
-                    .setInteger("stepId", questionnairesStepsBo.getStepId());
-            count = query.executeUpdate();
-            message = FdahpStudyDesignerConstants.SUCCESS;
-          }
-        }
+      if (SequenceOrder.move(
+          session,
+          "QuestionnairesStepsBo",
+          "stepId",
+          "e.questionnairesId=:scopeId and e.active=1",
+          questionnaireId,
+          oldOrderNumber,
+          newOrderNumber)) {
+        message = FdahpStudyDesignerConstants.SUCCESS;
 
         // Reset destination steps in Questionnaire Starts
-        if (message.equalsIgnoreCase(FdahpStudyDesignerConstants.SUCCESS)) {
-          String searchQuery =
-              "From QuestionnairesStepsBo QSBO where QSBO.questionnairesId=:questionnaireId "
-                  + "and QSBO.active=1 order by QSBO.sequenceNo ASC";
-          Query query = session.createQuery(searchQuery);
-          query.setInteger("questionnaireId", questionnaireId);
-          questionnaireStepList = query.list();
-          if ((null != questionnaireStepList) && !questionnaireStepList.isEmpty()) {
-            if (questionnaireStepList.size() == 1) {
-              questionnaireStepList.get(0).setDestinationStep(0);
-              questionnaireStepList.get(0).setSequenceNo(1);
-              session.update(questionnaireStepList.get(0));
-            } else {
-              int i;
-              for (i = 0; i < (questionnaireStepList.size() - 1); i++) {
-                questionnaireStepList
-                    .get(i)
-                    .setDestinationStep(questionnaireStepList.get(i + 1).getStepId());
-                questionnaireStepList.get(i).setSequenceNo(i + 1);
-                session.update(questionnaireStepList.get(i));
-              }
-              questionnaireStepList.get(i).setDestinationStep(0);
-              questionnaireStepList.get(i).setSequenceNo(i + 1);
-              session.update(questionnaireStepList.get(i));
-            }
+        String searchQuery =
+            "From QuestionnairesStepsBo QSBO where QSBO.questionnairesId=:questionnaireId "
+                + "and QSBO.active=1 order by QSBO.sequenceNo ASC";
+        Query query = session.createQuery(searchQuery);
+        query.setInteger("questionnaireId", questionnaireId);
+        questionnaireStepList = query.list();
+        if ((null != questionnaireStepList) && !questionnaireStepList.isEmpty()) {
+          // only the steps whose destination changed are written when the session is flushed
+          for (int i = 0; i < questionnaireStepList.size(); i++) {
+            questionnaireStepList
+                .get(i)
+                .setDestinationStep(
+                    i < (questionnaireStepList.size() - 1)
+                        ? questionnaireStepList.get(i + 1).getStepId()
+                        : 0);
           }
-          String questionResponseQuery =
-              "update response_sub_type_value rs,questionnaires_steps q set rs.destination_step_id = NULL "
-                  + "where rs.response_type_id=q.instruction_form_id and q.step_type=:type"
-                  + " and q.questionnaires_id=:questionnaireId "
-                  + " and rs.active=1 and q.active=1";
-          query =
-              session
-                  .createSQLQuery(questionResponseQuery)
-                  .setParameter("type", FdahpStudyDesignerConstants.QUESTION_STEP)
-                  .setInteger("questionnaireId", questionnaireId);
-          query.executeUpdate();
+        }
+        String questionResponseQuery =
+            "update response_sub_type_value rs,questionnaires_steps q set rs.destination_step_id = NULL "
+                + "where rs.response_type_id=q.instruction_form_id and q.step_type=:type"
+                + " and q.questionnaires_id=:questionnaireId "
+                + " and rs.active=1 and q.active=1";
+        query =
+            session
+                .createSQLQuery(questionResponseQuery)
+                .setParameter("type", FdahpStudyDesignerConstants.QUESTION_STEP)
+                .setInteger("questionnaireId", questionnaireId);
+        query.executeUpdate();
 
-          String questionConditionResponseQuery =
-              "update questions qs,questionnaires_steps q,response_type_value rs  set qs.status = 0 where"
-                  + " rs.questions_response_type_id=q.instruction_form_id and q.step_type=:type"
-                  + " and q.questionnaires_id=:questionnaireId "
-                  + " and qs.id=q.instruction_form_id and qs.active=1 and rs.active=1 and q.active=1 and rs.formula_based_logic='Yes'";
+        String questionConditionResponseQuery =
+            "update questions qs,questionnaires_steps q,response_type_value rs  set qs.status = 0 where"
+                + " rs.questions_response_type_id=q.instruction_form_id and q.step_type=:type"
+                + " and q.questionnaires_id=:questionnaireId "
+                + " and qs.id=q.instruction_form_id and qs.active=1 and rs.active=1 and q.active=1 and rs.formula_based_logic='Yes'";
 
-          query =
-              session
-                  .createSQLQuery(questionConditionResponseQuery)
-                  .setParameter("type", FdahpStudyDesignerConstants.QUESTION_STEP)
-                  .setInteger("questionnaireId", questionnaireId);
-          query.executeUpdate();
-        }
+        query =
+            session
+                .createSQLQuery(questionConditionResponseQuery)
+                .setParameter("type", FdahpStudyDesignerConstants.QUESTION_STEP)
+                .setInteger("questionnaireId", questionnaireId);
+        query.executeUpdate();
         // Reset destination steps in Questionnaire Ends
       }
       transaction.commit();
@@ -3379,11 +3263,11 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                       "questionnairesId", addOrUpdateQuestionnairesStepsBo.getQuestionnairesId());
           query.setMaxResults(1);
           existedQuestionnairesStepsBo = (QuestionnairesStepsBo) query.uniqueResult();
-          if (existedQuestionnairesStepsBo != null) {
-            count = existedQuestionnairesStepsBo.getSequenceNo() + 1;
-          } else {
-            count = count + 1;
-          }
+          count =
+              SequenceOrder.next(
+                  existedQuestionnairesStepsBo != null
+                      ? existedQuestionnairesStepsBo.getSequenceNo()
+                      : null);
           addOrUpdateQuestionnairesStepsBo.setSequenceNo(count);
         }
         session.saveOrUpdate(addOrUpdateQuestionnairesStepsBo);
@@ -3511,11 +3395,11 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                   .setInteger("questionnairesId", instructionsBo.getQuestionnaireId());
           query.setMaxResults(1);
           existedQuestionnairesStepsBo = (QuestionnairesStepsBo) query.uniqueResult();
-          if (existedQuestionnairesStepsBo != null) {
-            count = existedQuestionnairesStepsBo.getSequenceNo() + 1;
-          } else {
-            count = count + 1;
-          }
+          count =
+              SequenceOrder.next(
+                  existedQuestionnairesStepsBo != null
+                      ? existedQuestionnairesStepsBo.getSequenceNo()
+                      : null);
           questionnairesStepsBo.setSequenceNo(count);
         }
         session.saveOrUpdate(questionnairesStepsBo);
@@ -3629,6 +3513,7 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
             int i = 0;
             // uploading the images for ImageChoice response type
             // questions
+            AssetUploadBatch assetUploads = new AssetUploadBatch();
             for (QuestionResponseSubTypeBo questionResponseSubTypeBo :
                 questionsBo.getQuestionResponseSubTypeList()) {
 
@@ -3666,7 +3551,7 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                               String.valueOf(questionsBo.getId()));
 
                       String imagePath =
-                          FdahpStudyDesignerUtil.saveImage(
+                          assetUploads.saveImage(
                               questionResponseSubTypeBo.getImageFile(),
                               fileName,
                               FdahpStudyDesignerConstants.QUESTIONNAIRE);
@@ -3685,7 +3570,7 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                               questionResponseSubTypeBo.getSelectImageFile().getOriginalFilename(),
                               String.valueOf(questionsBo.getId()));
                       String imagePath =
-                          FdahpStudyDesignerUtil.saveImage(
+                          assetUploads.saveImage(
                               questionResponseSubTypeBo.getSelectImageFile(),
                               fileName,
                               FdahpStudyDesignerConstants.QUESTIONNAIRE);
@@ -3699,6 +3584,7 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
               }
               i = i + 1;
             }
+            assetUploads.await();
           } else {
             for (QuestionResponseSubTypeBo questionResponseSubTypeBo :
                 questionsBo.getQuestionResponseSubTypeList()) {
@@ -3760,11 +3646,9 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                   .setInteger("formId", questionsBo.getFromId());
           query.setMaxResults(1);
           FormMappingBo existedFormMappingBo = (FormMappingBo) query.uniqueResult();
-          if (existedFormMappingBo != null) {
-            sequenceNo = existedFormMappingBo.getSequenceNo() + 1;
-          } else {
-            sequenceNo = sequenceNo + 1;
-          }
+          sequenceNo =
+              SequenceOrder.next(
+                  existedFormMappingBo != null ? existedFormMappingBo.getSequenceNo() : null);
           formMappingBo.setSequenceNo(sequenceNo);
           session.save(formMappingBo);
         }
@@ -4221,6 +4105,7 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                   || (questionnairesStepsBo.getQuestionsBo().getResponseType() == 6)
                   || (questionnairesStepsBo.getQuestionsBo().getResponseType() == 5)) {
                 int j = 0;
+                AssetUploadBatch assetUploads = new AssetUploadBatch();
                 for (QuestionResponseSubTypeBo questionResponseSubTypeBo :
                     questionnairesStepsBo.getQuestionResponseSubTypeList()) {
                   if (questionsBo.getResponseType() != 5) {
@@ -4257,7 +4142,7 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                                   String.valueOf(questionnairesStepsBo.getQuestionsBo().getId()));
 
                           String imagePath =
-                              FdahpStudyDesignerUtil.saveImage(
+                              assetUploads.saveImage(
                                   questionResponseSubTypeBo.getImageFile(),
                                   fileName,
                                   FdahpStudyDesignerConstants.QUESTIONNAIRE);
@@ -4278,7 +4163,7 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                                       .getOriginalFilename(),
                                   String.valueOf(questionnairesStepsBo.getQuestionsBo().getId()));
                           String imagePath =
-                              FdahpStudyDesignerUtil.saveImage(
+                              assetUploads.saveImage(
                                   questionResponseSubTypeBo.getSelectImageFile(),
                                   fileName,
                                   FdahpStudyDesignerConstants.QUESTIONNAIRE);
@@ -4292,6 +4177,7 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                   }
                   j = j + 1;
                 }
+                assetUploads.await();
               } else {
                 for (QuestionResponseSubTypeBo questionResponseSubTypeBo :
                     questionnairesStepsBo.getQuestionResponseSubTypeList()) {
@@ -4380,11 +4266,11 @@ public class StudyQuestionnaireDAOImpl implements StudyQuestionnaireDAO {
                         "questionnairesId", addOrUpdateQuestionnairesStepsBo.getQuestionnairesId());
             query.setMaxResults(1);
             existedQuestionnairesStepsBo = (QuestionnairesStepsBo) query.uniqueResult();
-            if (existedQuestionnairesStepsBo != null) {
-              count = existedQuestionnairesStepsBo.getSequenceNo() + 1;
-            } else {
-              count = count + 1;
-            }
+            count =
+                SequenceOrder.next(
+                    existedQuestionnairesStepsBo != null
+                        ? existedQuestionnairesStepsBo.getSequenceNo()
+                        : null);
             addOrUpdateQuestionnairesStepsBo.setSequenceNo(count);
           }
         }
@@ -16,6 +16,7 @@ import com.fdahpstudydesigner.bo.UserBO;
 import com.fdahpstudydesigner.bo.UserPermissions;
 import com.fdahpstudydesigner.util.FdahpStudyDesignerConstants;
 import com.fdahpstudydesigner.util.SessionObject;
+import com.fdahpstudydesigner.util.UserStateCache;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -86,6 +87,7 @@ public class UsersDAOImpl implements UsersDAO {
         msg = FdahpStudyDesignerConstants.SUCCESS;
       }
       transaction.commit();
+      UserStateCache.changed(userId);
     } catch (Exception e) {
       transaction.rollback();
       logger.error("UsersDAOImpl - activateOrDeactivateUser() - ERROR", e);
@@ -227,6 +229,7 @@ public class UsersDAOImpl implements UsersDAO {
         }
       }
       transaction.commit();
+      UserStateCache.changed(userId);
       msg = FdahpStudyDesignerConstants.SUCCESS;
     } catch (Exception e) {
       transaction.rollback();
@@ -293,6 +296,11 @@ public class UsersDAOImpl implements UsersDAO {
       }
 
       transaction.commit();
+      if (userId != null) {
+        UserStateCache.changed(userId);
+      } else {
+        UserStateCache.changedAll();
+      }
     } catch (Exception e) {
       if (transaction != null) {
         transaction.rollback();
@@ -27,6 +27,7 @@ import static com.fdahpstudydesigner.common.StudyBuilderAuditEvent.NOTIFICATION_
 
 import com.fdahpstudydesigner.bean.AuditLogEventRequest;
 import com.fdahpstudydesigner.bean.PushNotificationBean;
+import com.fdahpstudydesigner.bo.NotificationDispatchBO;
 import com.fdahpstudydesigner.bo.UserBO;
 import com.fdahpstudydesigner.common.PlatformComponent;
 import com.fdahpstudydesigner.common.StudyBuilderAuditEvent;
@@ -34,7 +35,6 @@ import com.fdahpstudydesigner.common.StudyBuilderAuditEventHelper;
 import com.fdahpstudydesigner.dao.LoginDAO;
 import com.fdahpstudydesigner.dao.NotificationDAO;
 import com.fdahpstudydesigner.dao.UsersDAO;
-import com.fdahpstudydesigner.service.NotificationService;
 import com.fdahpstudydesigner.service.OAuthService;
 import com.fdahpstudydesigner.util.EmailNotification;
 import com.fdahpstudydesigner.util.FdahpStudyDesignerConstants;
@@ -45,24 +45,27 @@ import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import org.apache.commons.beanutils.BeanUtils;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.HttpClient;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.params.BasicHttpParams;
-import org.apache.http.params.HttpConnectionParams;
-import org.apache.http.params.HttpParams;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 import org.apache.log4j.Logger;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.json.JSONArray;
@@ -87,12 +90,42 @@ public class FDASchedulerService {
 
   @Autowired private UsersDAO usersDAO;
 
-  @Autowired private NotificationService notificationService;
-
   @Autowired private StudyBuilderAuditEventHelper auditLogEventHelper;
 
   @Autowired private OAuthService oauthService;
 
+  private final AtomicBoolean pushNotificationRunning = new AtomicBoolean();
+
+  private PoolingHttpClientConnectionManager pushNotificationConnectionManager;
+
+  private CloseableHttpClient pushNotificationClient;
+
+  @PostConstruct
+  public void init() {
+    int timeoutMillis = getIntProperty("push.notification.timeout.millis", 30000);
+    pushNotificationConnectionManager = new PoolingHttpClientConnectionManager();
+    pushNotificationConnectionManager.setMaxTotal(
+        getIntProperty("push.notification.max.connections", 4));
+    pushNotificationConnectionManager.setDefaultMaxPerRoute(
+        getIntProperty("push.notification.max.connections", 4));
+    pushNotificationClient =
+        HttpClients.custom()
+            .setConnectionManager(pushNotificationConnectionManager)
+            .setDefaultRequestConfig(
+                RequestConfig.custom()
+                    .setConnectTimeout(timeoutMillis)
+                    .setConnectionRequestTimeout(timeoutMillis)
+                    .setSocketTimeout(timeoutMillis)
+                    .build())
+            .build();
+  }
+
+  @PreDestroy
+  public void destroy() throws IOException {
+    pushNotificationClient.close();
+    pushNotificationConnectionManager.shutdown();
+  }
+
   @Bean()
   public ThreadPoolTaskScheduler taskScheduler() {
     ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
@@ -153,89 +186,183 @@ public class FDASchedulerService {
   @Scheduled(cron = "0 * * * * ?")
   public void sendPushNotification() {
     logger.info("FDASchedulerService - sendPushNotification - Starts");
-    List<PushNotificationBean> pushNotificationBeans;
-    List<PushNotificationBean> pushNotificationBeanswithAppId =
-        new ArrayList<PushNotificationBean>();
-    List<PushNotificationBean> finalPushNotificationBeans = new ArrayList<PushNotificationBean>();
-    String date;
-    String time;
-    ObjectMapper objectMapper = new ObjectMapper();
-    String responseString = "";
+    if (!pushNotificationRunning.compareAndSet(false, true)) {
+      logger.info("FDASchedulerService - sendPushNotification - previous run still in progress");
+      return;
+    }
     try {
-      date = FdahpStudyDesignerUtil.getCurrentDate();
-      time =
-          FdahpStudyDesignerUtil.privMinDateTime(
-              new SimpleDateFormat(FdahpStudyDesignerConstants.UI_SDF_TIME).format(new Date()),
-              FdahpStudyDesignerConstants.UI_SDF_TIME,
-              1);
-      pushNotificationBeans = notificationDAO.getPushNotificationList(date, time);
-      if ((pushNotificationBeans != null) && !pushNotificationBeans.isEmpty()) {
-        for (PushNotificationBean p : pushNotificationBeans) {
-          if (p.getAppId() == null) {
-            List<String> appIds = notificationService.getGatwayAppList();
-            if (!appIds.isEmpty()) {
-              for (String appId : appIds) {
-                PushNotificationBean pushBean = new PushNotificationBean();
-                BeanUtils.copyProperties(pushBean, p);
-                pushBean.setAppId(appId);
-                pushNotificationBeanswithAppId.add(pushBean);
-              }
-            }
-          }
-        }
-        if (!pushNotificationBeanswithAppId.isEmpty()) {
-          for (PushNotificationBean pushBean : pushNotificationBeanswithAppId) {
-            pushNotificationBeans.add(pushBean);
-          }
-        }
+      dispatchPushNotifications();
+    } catch (Exception e) {
+      logger.error("FDASchedulerService - sendPushNotification - ERROR", e);
+      logSendNotificationFailedEvent(NOTIFICATION_METADATA_SEND_OPERATION_FAILED);
+    } finally {
+      pushNotificationRunning.set(false);
+    }
+    logger.info("FDASchedulerService - sendPushNotification - Ends");
+  }
 
-        if (!pushNotificationBeans.isEmpty()) {
-          for (PushNotificationBean pushBean : pushNotificationBeans) {
-            if (pushBean.getAppId() != null) {
-              finalPushNotificationBeans.add(pushBean);
-            }
-          }
-        }
+  /**
+   * Enqueues the notifications scheduled before the current minute, then sends due dispatches to
+   * the participant datastore in batches until none are left. Notifications from runs missed in the
+   * last {@code push.notification.lookback.minutes} are caught up.
+   */
+  private void dispatchPushNotifications() throws Exception {
+    long startMillis = System.currentTimeMillis();
+    SimpleDateFormat dateTimeFormat =
+        new SimpleDateFormat(FdahpStudyDesignerConstants.DB_SDF_DATE_TIME);
+    Calendar currentMinute = Calendar.getInstance();
+    currentMinute.set(Calendar.SECOND, 0);
+    currentMinute.set(Calendar.MILLISECOND, 0);
+    String toDateTime = dateTimeFormat.format(currentMinute.getTime());
+    currentMinute.add(Calendar.MINUTE, -getIntProperty("push.notification.lookback.minutes", 15));
+    String fromDateTime = dateTimeFormat.format(currentMinute.getTime());
+    int enqueuedCount = notificationDAO.enqueuePushNotifications(fromDateTime, toDateTime);
 
-        JSONArray arrayToJson =
-            new JSONArray(objectMapper.writeValueAsString(finalPushNotificationBeans));
-        logger.info("FDASchedulerService - sendPushNotification " + arrayToJson);
-        JSONObject json = new JSONObject();
-        json.put("notifications", arrayToJson);
-
-        HttpParams httpParams = new BasicHttpParams();
-        HttpConnectionParams.setConnectionTimeout(httpParams, 30000);
-        HttpConnectionParams.setSoTimeout(httpParams, 30000);
-        HttpClient client = new DefaultHttpClient(httpParams);
-
-        HttpResponse response =
-            invokePushNotificationApi(json, client, oauthService.getAccessToken());
-        if (response.getStatusLine().getStatusCode() == HttpStatus.UNAUTHORIZED.value()) {
-          // Below method is called to indicate that the content of this entity is no longer
-          // required.This will fix the error
-          // Invalid use of BasicClientConnManager: connection still allocated.
-          // Make sure to release the connection before allocating another one.
-          response.getEntity().consumeContent();
-          response = invokePushNotificationApi(json, client, oauthService.getNewAccessToken());
-        }
+    int batchSize = getIntProperty("push.notification.batch.size", 100);
+    int leaseSeconds = getIntProperty("push.notification.lease.seconds", 300);
+    int batchCount = 0;
+    int sentCount = 0;
+    int failedCount = 0;
+    long maxLagMillis = 0;
+    while (true) {
+      Date now = new Date();
+      List<NotificationDispatchBO> dispatches =
+          notificationDAO.claimPushNotifications(
+              dateTimeFormat.format(now),
+              dateTimeFormat.format(new Date(now.getTime() + leaseSeconds * 1000L)),
+              batchSize);
+      if (dispatches.isEmpty()) {
+        break;
+      }
+      batchCount++;
 
-        if (response.getStatusLine().getStatusCode() != HttpStatus.OK.value()) {
-          logger.error(
-              String.format(
-                  "Push notification API failed with status=%d",
-                  response.getStatusLine().getStatusCode()));
-          logSendNotificationFailedEvent(NOTIFICATION_METADATA_SEND_OPERATION_FAILED);
-        } else {
-          logSendNotificationFailedEvent(NOTIFICATION_METADATA_SENT_TO_PARTICIPANT_DATASTORE);
+      List<PushNotificationBean> pushNotificationBeans = new ArrayList<>();
+      for (NotificationDispatchBO dispatch : dispatches) {
+        PushNotificationBean pushBean = new PushNotificationBean();
+        pushBean.setNotificationId(dispatch.getNotificationId());
+        pushBean.setNotificationText(dispatch.getNotificationText());
+        pushBean.setCustomStudyId(dispatch.getCustomStudyId());
+        pushBean.setNotificationType(dispatch.getNotificationType());
+        pushBean.setNotificationSubType(dispatch.getNotificationSubType());
+        pushBean.setAppId(dispatch.getAppId());
+        pushNotificationBeans.add(pushBean);
+      }
+      JSONArray arrayToJson =
+          new JSONArray(new ObjectMapper().writeValueAsString(pushNotificationBeans));
+      logger.info("FDASchedulerService - sendPushNotification " + arrayToJson);
+      JSONObject json = new JSONObject();
+      json.put("notifications", arrayToJson);
+
+      int statusCode = postPushNotifications(json);
+      Date completedOn = new Date();
+      if (statusCode == HttpStatus.OK.value()) {
+        logSendNotificationFailedEvent(NOTIFICATION_METADATA_SENT_TO_PARTICIPANT_DATASTORE);
+      } else {
+        logger.error(String.format("Push notification API failed with status=%d", statusCode));
+        logSendNotificationFailedEvent(NOTIFICATION_METADATA_SEND_OPERATION_FAILED);
+      }
+      for (NotificationDispatchBO dispatch : dispatches) {
+        recordOutcome(dispatch, statusCode, completedOn, dateTimeFormat);
+        if (FdahpStudyDesignerConstants.NOTIFICATION_DISPATCH_SENT.equals(dispatch.getStatus())) {
+          sentCount++;
+          maxLagMillis =
+              Math.max(
+                  maxLagMillis,
+                  completedOn.getTime()
+                      - dateTimeFormat.parse(dispatch.getScheduleDateTime()).getTime());
+        } else if (FdahpStudyDesignerConstants.NOTIFICATION_DISPATCH_FAILED.equals(
+            dispatch.getStatus())) {
+          failedCount++;
         }
       }
-    } catch (Exception e) {
-      logger.error("FDASchedulerService - sendPushNotification - ERROR", e.getCause());
-      e.printStackTrace();
+      notificationDAO.updatePushNotificationDispatches(dispatches);
+    }
 
-      logSendNotificationFailedEvent(NOTIFICATION_METADATA_SEND_OPERATION_FAILED);
+    long elapsedMillis = System.currentTimeMillis() - startMillis;
+    logger.info(
+        String.format(
+            "FDASchedulerService - sendPushNotification - enqueued=%d, batches=%d, sent=%d, failed=%d, maxLagSeconds=%d, elapsedMillis=%d, sentPerSecond=%.1f",
+            enqueuedCount,
+            batchCount,
+            sentCount,
+            failedCount,
+            maxLagMillis / 1000,
+            elapsedMillis,
+            sentCount * 1000.0 / Math.max(elapsedMillis, 1)));
+  }
+
+  private void recordOutcome(
+      NotificationDispatchBO dispatch,
+      int statusCode,
+      Date completedOn,
+      SimpleDateFormat dateTimeFormat) {
+    dispatch.setLastStatusCode(statusCode);
+    if (statusCode == HttpStatus.OK.value()) {
+      dispatch.setStatus(FdahpStudyDesignerConstants.NOTIFICATION_DISPATCH_SENT);
+      dispatch.setSentOn(dateTimeFormat.format(completedOn));
+      dispatch.setLastError(null);
+      return;
+    }
+
+    dispatch.setLastError(
+        StringUtils.abbreviate(String.format("Push notification API status=%d", statusCode), 255));
+    // the participant datastore rejects the same request again, e.g. if the app has no devices
+    boolean retryable =
+        statusCode >= HttpStatus.INTERNAL_SERVER_ERROR.value()
+            || statusCode == HttpStatus.TOO_MANY_REQUESTS.value()
+            || statusCode == HttpStatus.UNAUTHORIZED.value();
+    if (!retryable
+        || dispatch.getAttempts() >= getIntProperty("push.notification.max.attempts", 5)) {
+      dispatch.setStatus(FdahpStudyDesignerConstants.NOTIFICATION_DISPATCH_FAILED);
+    } else {
+      long backoffSeconds =
+          getIntProperty("push.notification.retry.backoff.seconds", 60)
+              * (1L << Math.min(dispatch.getAttempts() - 1, 10));
+      dispatch.setStatus(FdahpStudyDesignerConstants.NOTIFICATION_DISPATCH_PENDING);
+      dispatch.setNextAttemptTime(
+          dateTimeFormat.format(new Date(completedOn.getTime() + backoffSeconds * 1000L)));
     }
-    logger.info("FDASchedulerService - sendPushNotification - Ends");
+  }
+
+  /**
+   * POSTs the notifications to the participant datastore, refreshing the access token once and
+   * retrying server errors with exponential backoff.
+   *
+   * @return the last HTTP status, or 503 if the participant datastore could not be reached
+   */
+  private int postPushNotifications(JSONObject json) throws InterruptedException {
+    int maxRetries = getIntProperty("push.notification.max.retries", 3);
+    long backoffMillis = getIntProperty("push.notification.retry.backoff.millis", 1000);
+    String accessToken = oauthService.getAccessToken();
+    boolean tokenRefreshed = false;
+    int retries = 0;
+    while (true) {
+      int statusCode;
+      try {
+        statusCode = invokePushNotificationApi(json, accessToken);
+      } catch (IOException e) {
+        logger.error("FDASchedulerService - postPushNotifications - ERROR", e);
+        statusCode = HttpStatus.SERVICE_UNAVAILABLE.value();
+      }
+
+      if (statusCode == HttpStatus.UNAUTHORIZED.value() && !tokenRefreshed) {
+        accessToken = oauthService.getNewAccessToken();
+        tokenRefreshed = true;
+        continue;
+      }
+      if ((statusCode < HttpStatus.INTERNAL_SERVER_ERROR.value()
+              && statusCode != HttpStatus.TOO_MANY_REQUESTS.value())
+          || retries >= maxRetries) {
+        return statusCode;
+      }
+      retries++;
+      Thread.sleep(backoffMillis);
+      backoffMillis *= 2;
+    }
+  }
+
+  private static int getIntProperty(String key, int defaultValue) {
+    return NumberUtils.toInt(StringUtils.trim((String) configMap.get(key)), defaultValue);
   }
 
   private void logSendNotificationFailedEvent(StudyBuilderAuditEvent eventEnum) {
@@ -249,9 +376,7 @@ public class FDASchedulerService {
     auditLogEventHelper.logEvent(eventEnum, auditRequest);
   }
 
-  private HttpResponse invokePushNotificationApi(
-      JSONObject json, HttpClient client, String accessToken)
-      throws IOException, ClientProtocolException {
+  private int invokePushNotificationApi(JSONObject json, String accessToken) throws IOException {
     HttpPost post =
         new HttpPost(
             FdahpStudyDesignerUtil.getAppProperties().get("fda.registration.root.url")
@@ -261,6 +386,13 @@ public class FDASchedulerService {
 
     StringEntity requestEntity = new StringEntity(json.toString(), ContentType.APPLICATION_JSON);
     post.setEntity(requestEntity);
-    return client.execute(post);
+    CloseableHttpResponse response = pushNotificationClient.execute(post);
+    try {
+      // release the pooled connection for the next request
+      EntityUtils.consume(response.getEntity());
+      return response.getStatusLine().getStatusCode();
+    } finally {
+      response.close();
+    }
   }
 }
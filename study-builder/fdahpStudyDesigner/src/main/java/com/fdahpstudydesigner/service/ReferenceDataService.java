@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.fdahpstudydesigner.service;
+
+import com.fdahpstudydesigner.bo.ActiveTaskListBo;
+import com.fdahpstudydesigner.bo.ActivetaskFormulaBo;
+import com.fdahpstudydesigner.bo.ConsentMasterInfoBo;
+import com.fdahpstudydesigner.bo.HealthKitKeysInfo;
+import com.fdahpstudydesigner.bo.QuestionResponseTypeMasterInfoBo;
+import com.fdahpstudydesigner.bo.ReferenceTablesBo;
+import com.fdahpstudydesigner.bo.StatisticImageListBo;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Master data of the Study Builder, such as reference tables, response types and active task
+ * types. The data is read from the database once and kept until {@link #reload()} or {@link
+ * #invalidate()} is called. Returned collections can't be modified.
+ */
+public interface ReferenceDataService {
+
+  public List<ActivetaskFormulaBo> getActivetaskFormulas();
+
+  public List<ActiveTaskListBo> getAllActiveTaskTypes(String platformType);
+
+  public List<ConsentMasterInfoBo> getConsentMasterInfoList();
+
+  public List<HealthKitKeysInfo> getHeanlthKitKeyInfoList();
+
+  public List<QuestionResponseTypeMasterInfoBo> getQuestionReponseTypeList();
+
+  public Map<String, List<ReferenceTablesBo>> getreferenceListByCategory();
+
+  public List<StatisticImageListBo> getStatisticImages();
+
+  /** Returns the hits and misses of each kind of master data since startup. */
+  public Map<String, Map<String, Long>> getStatistics();
+
+  /** Drops the cached master data, so it is read again when next used. */
+  public void invalidate();
+
+  /** Reads all master data from the database again. */
+  public void reload();
+}
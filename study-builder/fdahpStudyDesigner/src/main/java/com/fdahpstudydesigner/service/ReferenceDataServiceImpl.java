@@ -0,0 +1,237 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.fdahpstudydesigner.service;
+
+import com.fdahpstudydesigner.bo.ActiveTaskListBo;
+import com.fdahpstudydesigner.bo.ActivetaskFormulaBo;
+import com.fdahpstudydesigner.bo.ConsentMasterInfoBo;
+import com.fdahpstudydesigner.bo.HealthKitKeysInfo;
+import com.fdahpstudydesigner.bo.QuestionResponseTypeMasterInfoBo;
+import com.fdahpstudydesigner.bo.ReferenceTablesBo;
+import com.fdahpstudydesigner.bo.StatisticImageListBo;
+import com.fdahpstudydesigner.dao.StudyActiveTasksDAO;
+import com.fdahpstudydesigner.dao.StudyDAO;
+import com.fdahpstudydesigner.dao.StudyQuestionnaireDAO;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ReferenceDataServiceImpl implements ReferenceDataService {
+
+  private static Logger logger = Logger.getLogger(ReferenceDataServiceImpl.class);
+
+  private static final String ACTIVE_TASK_FORMULAS = "activeTaskFormulas";
+
+  private static final String ACTIVE_TASK_TYPES = "activeTaskTypes";
+
+  private static final String ANDROID_ACTIVE_TASK_TYPES = "androidActiveTaskTypes";
+
+  private static final String CONSENT_MASTER_INFO = "consentMasterInfo";
+
+  private static final String HEALTH_KIT_KEYS = "healthKitKeys";
+
+  private static final String QUESTION_RESPONSE_TYPES = "questionResponseTypes";
+
+  private static final String REFERENCE_TABLES = "referenceTables";
+
+  private static final String STATISTIC_IMAGES = "statisticImages";
+
+  private static final List<String> NAMES =
+      Arrays.asList(
+          ACTIVE_TASK_FORMULAS,
+          ACTIVE_TASK_TYPES,
+          ANDROID_ACTIVE_TASK_TYPES,
+          CONSENT_MASTER_INFO,
+          HEALTH_KIT_KEYS,
+          QUESTION_RESPONSE_TYPES,
+          REFERENCE_TABLES,
+          STATISTIC_IMAGES);
+
+  @Autowired private StudyActiveTasksDAO studyActiveTasksDAO;
+
+  @Autowired private StudyDAO studyDAO;
+
+  @Autowired private StudyQuestionnaireDAO studyQuestionnaireDAO;
+
+  private final ConcurrentMap<String, Object> entries = new ConcurrentHashMap<>();
+
+  private final Map<String, AtomicLong> hits = new LinkedHashMap<>();
+
+  private final Map<String, AtomicLong> misses = new LinkedHashMap<>();
+
+  public ReferenceDataServiceImpl() {
+    for (String name : NAMES) {
+      hits.put(name, new AtomicLong());
+      misses.put(name, new AtomicLong());
+    }
+  }
+
+  @PostConstruct
+  public void init() {
+    reload();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<ActivetaskFormulaBo> getActivetaskFormulas() {
+    return (List<ActivetaskFormulaBo>) get(ACTIVE_TASK_FORMULAS);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<ActiveTaskListBo> getAllActiveTaskTypes(String platformType) {
+    // "Tower of Hanoi" and "Spatial Span Memory" are not offered for Android
+    return (List<ActiveTaskListBo>)
+        get(
+            StringUtils.isNotEmpty(platformType) && platformType.contains("A")
+                ? ANDROID_ACTIVE_TASK_TYPES
+                : ACTIVE_TASK_TYPES);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<ConsentMasterInfoBo> getConsentMasterInfoList() {
+    return (List<ConsentMasterInfoBo>) get(CONSENT_MASTER_INFO);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<HealthKitKeysInfo> getHeanlthKitKeyInfoList() {
+    return (List<HealthKitKeysInfo>) get(HEALTH_KIT_KEYS);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<QuestionResponseTypeMasterInfoBo> getQuestionReponseTypeList() {
+    return (List<QuestionResponseTypeMasterInfoBo>) get(QUESTION_RESPONSE_TYPES);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public Map<String, List<ReferenceTablesBo>> getreferenceListByCategory() {
+    return (Map<String, List<ReferenceTablesBo>>) get(REFERENCE_TABLES);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<StatisticImageListBo> getStatisticImages() {
+    return (List<StatisticImageListBo>) get(STATISTIC_IMAGES);
+  }
+
+  @Override
+  public Map<String, Map<String, Long>> getStatistics() {
+    Map<String, Map<String, Long>> statistics = new LinkedHashMap<>();
+    for (String name : NAMES) {
+      Map<String, Long> counts = new LinkedHashMap<>();
+      counts.put("hits", hits.get(name).get());
+      counts.put("misses", misses.get(name).get());
+      statistics.put(name, counts);
+    }
+    return statistics;
+  }
+
+  @Override
+  public void invalidate() {
+    logger.info("ReferenceDataServiceImpl - invalidate() - Starts");
+    entries.clear();
+    logger.info("ReferenceDataServiceImpl - invalidate() - Ends");
+  }
+
+  @Override
+  public void reload() {
+    logger.info("ReferenceDataServiceImpl - reload() - Starts");
+    for (String name : NAMES) {
+      Object value = load(name);
+      if (value != null) {
+        entries.put(name, value);
+      } else {
+        entries.remove(name);
+      }
+    }
+    logger.info("ReferenceDataServiceImpl - reload() - Ends");
+  }
+
+  private Object get(String name) {
+    Object value = entries.get(name);
+    if (value != null) {
+      hits.get(name).incrementAndGet();
+      return value;
+    }
+    misses.get(name).incrementAndGet();
+    value = load(name);
+    if (value == null) {
+      // nothing is cached when the table could not be read, so it is read again next time
+      return name.equals(REFERENCE_TABLES)
+          ? Collections.<String, List<ReferenceTablesBo>>emptyMap()
+          : Collections.emptyList();
+    }
+    Object current = entries.putIfAbsent(name, value);
+    return current != null ? current : value;
+  }
+
+  /** Reads master data from the database, or returns null when the table could not be read. */
+  private Object load(String name) {
+    try {
+      switch (name) {
+        case ACTIVE_TASK_FORMULAS:
+          return immutable(studyActiveTasksDAO.getActivetaskFormulas());
+        case ACTIVE_TASK_TYPES:
+          return immutable(studyActiveTasksDAO.getAllActiveTaskTypes(null));
+        case ANDROID_ACTIVE_TASK_TYPES:
+          return immutable(studyActiveTasksDAO.getAllActiveTaskTypes("A"));
+        case CONSENT_MASTER_INFO:
+          return immutable(studyDAO.getConsentMasterInfoList());
+        case HEALTH_KIT_KEYS:
+          return immutable(studyQuestionnaireDAO.getHeanlthKitKeyInfoList());
+        case QUESTION_RESPONSE_TYPES:
+          return immutable(studyQuestionnaireDAO.getQuestionReponseTypeList());
+        case REFERENCE_TABLES:
+          Map<String, List<ReferenceTablesBo>> referenceMap =
+              studyDAO.getreferenceListByCategory();
+          if ((referenceMap == null) || referenceMap.isEmpty()) {
+            return null;
+          }
+          Map<String, List<ReferenceTablesBo>> immutableMap = new LinkedHashMap<>();
+          for (Map.Entry<String, List<ReferenceTablesBo>> entry : referenceMap.entrySet()) {
+            immutableMap.put(
+                entry.getKey(),
+                Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+          }
+          return Collections.unmodifiableMap(immutableMap);
+        case STATISTIC_IMAGES:
+          return immutable(studyActiveTasksDAO.getStatisticImages());
+        default:
+          return null;
+      }
+    } catch (Exception e) {
+      logger.error("ReferenceDataServiceImpl - load() - ERROR " + name, e);
+      return null;
+    }
+  }
+
+  // the DAOs return an empty list when the query fails, and master tables are never empty
+  private <T> List<T> immutable(Collection<T> values) {
+    return (values == null) || values.isEmpty()
+        ? null
+        : Collections.unmodifiableList(new ArrayList<>(values));
+  }
+}
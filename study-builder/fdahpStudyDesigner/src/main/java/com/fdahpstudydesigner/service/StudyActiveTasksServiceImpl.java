@@ -50,6 +50,8 @@ public class StudyActiveTasksServiceImpl implements StudyActiveTasksService {
 
   @Autowired private StudyActiveTasksDAO studyActiveTasksDAO;
 
+  @Autowired private ReferenceDataService referenceDataService;
+
   @Override
   public String deleteActiveTask(
       Integer activeTaskInfoId, Integer studyId, SessionObject sesObj, String customStudyId) {
@@ -170,7 +172,7 @@ public class StudyActiveTasksServiceImpl implements StudyActiveTasksService {
     logger.info("StudyActiveTasksServiceImpl - getActivetaskFormulas() - Starts");
     List<ActivetaskFormulaBo> activetaskFormulaList = new ArrayList<>();
     try {
-      activetaskFormulaList = studyActiveTasksDAO.getActivetaskFormulas();
+      activetaskFormulaList = referenceDataService.getActivetaskFormulas();
     } catch (Exception e) {
       logger.error("StudyActiveTasksServiceImpl - getActivetaskFormulas() - ERROR ", e);
     }
@@ -199,7 +201,7 @@ public class StudyActiveTasksServiceImpl implements StudyActiveTasksService {
     logger.info("StudyActiveTasksServiceImpl - getAllActiveTaskTypes() - Starts");
     List<ActiveTaskListBo> activeTaskListBos = new ArrayList<>();
     try {
-      activeTaskListBos = studyActiveTasksDAO.getAllActiveTaskTypes(platformType);
+      activeTaskListBos = referenceDataService.getAllActiveTaskTypes(platformType);
     } catch (Exception e) {
       logger.error("StudyActiveTasksServiceImpl - getAllActiveTaskTypes() - ERROR ", e);
     }
@@ -212,7 +214,7 @@ public class StudyActiveTasksServiceImpl implements StudyActiveTasksService {
     logger.info("StudyActiveTasksServiceImpl - getStatisticImages() - Starts");
     List<StatisticImageListBo> statisticImageListBos = new ArrayList<>();
     try {
-      statisticImageListBos = studyActiveTasksDAO.getStatisticImages();
+      statisticImageListBos = referenceDataService.getStatisticImages();
     } catch (Exception e) {
       logger.error("StudyActiveTasksServiceImpl - getStatisticImages() - ERROR ", e);
     }
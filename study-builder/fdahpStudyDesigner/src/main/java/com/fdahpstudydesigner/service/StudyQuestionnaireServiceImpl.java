@@ -57,6 +57,8 @@ public class StudyQuestionnaireServiceImpl implements StudyQuestionnaireService
 
   @Autowired private StudyQuestionnaireDAO studyQuestionnaireDAO;
 
+  @Autowired private ReferenceDataService referenceDataService;
+
   @Override
   public String checkFromQuestionShortTitle(
       Integer questionnaireId,
@@ -175,7 +177,7 @@ public class StudyQuestionnaireServiceImpl implements StudyQuestionnaireService
   @Override
   public List<HealthKitKeysInfo> getHeanlthKitKeyInfoList() {
     logger.info("StudyQuestionnaireServiceImpl - getHeanlthKitKeyInfoList - Starts");
-    return studyQuestionnaireDAO.getHeanlthKitKeyInfoList();
+    return referenceDataService.getHeanlthKitKeyInfoList();
   }
 
   @Override
@@ -329,7 +331,7 @@ public class StudyQuestionnaireServiceImpl implements StudyQuestionnaireService
           && stepType.equalsIgnoreCase(FdahpStudyDesignerConstants.FORM_STEP)
           && (questionnairesStepsBo.getFormQuestionMap() != null)) {
         List<QuestionResponseTypeMasterInfoBo> questionResponseTypeMasterInfoList =
-            studyQuestionnaireDAO.getQuestionReponseTypeList();
+            referenceDataService.getQuestionReponseTypeList();
         if ((questionResponseTypeMasterInfoList != null)
             && !questionResponseTypeMasterInfoList.isEmpty()) {
           for (QuestionResponseTypeMasterInfoBo questionResponseTypeMasterInfoBo :
@@ -370,7 +372,7 @@ public class StudyQuestionnaireServiceImpl implements StudyQuestionnaireService
       questionnaireStepMap = studyQuestionnaireDAO.getQuestionnaireStepList(questionnaireId);
       if (questionnaireStepMap != null) {
         List<QuestionResponseTypeMasterInfoBo> questionResponseTypeMasterInfoList =
-            studyQuestionnaireDAO.getQuestionReponseTypeList();
+            referenceDataService.getQuestionReponseTypeList();
         if ((questionResponseTypeMasterInfoList != null)
             && !questionResponseTypeMasterInfoList.isEmpty()) {
           for (QuestionResponseTypeMasterInfoBo questionResponseTypeMasterInfoBo :
@@ -422,7 +424,7 @@ public class StudyQuestionnaireServiceImpl implements StudyQuestionnaireService
     logger.info("StudyQuestionnaireServiceImpl - getQuestionReponseTypeList - Starts");
     List<QuestionResponseTypeMasterInfoBo> questionResponseTypeMasterInfoList = null;
     try {
-      questionResponseTypeMasterInfoList = studyQuestionnaireDAO.getQuestionReponseTypeList();
+      questionResponseTypeMasterInfoList = referenceDataService.getQuestionReponseTypeList();
     } catch (Exception e) {
       logger.error("StudyQuestionnaireServiceImpl - getQuestionReponseTypeList - Error", e);
     }
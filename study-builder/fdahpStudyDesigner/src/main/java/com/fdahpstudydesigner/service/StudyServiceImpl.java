@@ -64,6 +64,8 @@ public class StudyServiceImpl implements StudyService {
 
   private StudyDAO studyDAO;
 
+  @Autowired private ReferenceDataService referenceDataService;
+
   @Override
   public String checkActiveTaskTypeValidation(Integer studyId) {
     logger.info("StudyServiceImpl - checkActiveTaskTypeValidation - Starts");
@@ -336,7 +338,7 @@ public class StudyServiceImpl implements StudyService {
     ArrayList<String> consentTitleList = null;
 
     try {
-      consentMasterInfoList = studyDAO.getConsentMasterInfoList();
+      consentMasterInfoList = referenceDataService.getConsentMasterInfoList();
 
       for (ConsentMasterInfoBo consent : consentMasterInfoList) {
         consentMap.put(consent.getTitle(), consent);
@@ -401,9 +403,9 @@ public class StudyServiceImpl implements StudyService {
   @Override
   public Map<String, List<ReferenceTablesBo>> getreferenceListByCategory() {
     logger.info("StudyServiceImpl - getreferenceListByCategory() - Starts");
-    HashMap<String, List<ReferenceTablesBo>> referenceMap = null;
+    Map<String, List<ReferenceTablesBo>> referenceMap = null;
     try {
-      referenceMap = studyDAO.getreferenceListByCategory();
+      referenceMap = referenceDataService.getreferenceListByCategory();
     } catch (Exception e) {
       logger.error("StudyServiceImpl - getStudyList() - ERROR ", e);
     }
@@ -0,0 +1,23 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.fdahpstudydesigner.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.springframework.web.multipart.MultipartFile;
+
+/** Stores the images, resources and consent documents uploaded in the Study Builder. */
+public interface AssetStorage {
+
+  /** Stores the file under the path, replacing an existing file. */
+  void upload(String path, MultipartFile file) throws IOException;
+
+  /** Opens the stored file, or returns null if there is none. */
+  InputStream download(String path) throws IOException;
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.fdahpstudydesigner.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.Logger;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Uploads the assets of one form submission in parallel.
+ *
+ * <p>{@link #saveImage} returns the stored file name right away and {@link #await} waits until all
+ * uploads of the batch have finished, so the submission still completes only after its assets are
+ * stored. The uploads of all requests share {@code asset.upload.threads} threads; when their queue
+ * is full the upload runs on the request thread instead.
+ */
+public class AssetUploadBatch {
+
+  private static Logger logger = Logger.getLogger(AssetUploadBatch.class.getName());
+
+  private static final ThreadPoolExecutor UPLOAD_EXECUTOR = newUploadExecutor();
+
+  private final List<Future<?>> uploads = new ArrayList<>();
+
+  /**
+   * Starts the upload and returns the stored file name, like {@link
+   * FdahpStudyDesignerUtil#saveImage}.
+   */
+  public String saveImage(
+      final MultipartFile fileStream, final String fileName, final String underDirectory) {
+    final String fileNameWithExtension =
+        FdahpStudyDesignerUtil.getFileNameWithExtension(fileStream, fileName);
+    uploads.add(
+        UPLOAD_EXECUTOR.submit(
+            new Runnable() {
+              @Override
+              public void run() {
+                FdahpStudyDesignerUtil.uploadAsset(
+                    fileStream, underDirectory, fileNameWithExtension);
+              }
+            }));
+    return fileNameWithExtension;
+  }
+
+  /** Waits for all uploads started by this batch. */
+  public void await() {
+    for (Future<?> upload : uploads) {
+      try {
+        upload.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException e) {
+        logger.error("AssetUploadBatch - await() - ERROR ", e.getCause());
+      }
+    }
+    uploads.clear();
+  }
+
+  private static ThreadPoolExecutor newUploadExecutor() {
+    int threads = FdahpStudyDesignerUtil.getIntProperty("asset.upload.threads", 8);
+    final AtomicInteger threadCount = new AtomicInteger();
+    return new ThreadPoolExecutor(
+        threads,
+        threads,
+        60L,
+        TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(
+            FdahpStudyDesignerUtil.getIntProperty("asset.upload.queue.capacity", 100)),
+        new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "asset-upload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        },
+        new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.fdahpstudydesigner.util;
+
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Stores assets in a Cloud Storage bucket through one client shared by all requests.
+ *
+ * <p>Files up to {@code resumableThreshold} bytes are uploaded in a single request. Larger files are
+ * streamed from the upload through a resumable write, so they are never held in memory as a whole.
+ */
+public class CloudAssetStorage implements AssetStorage {
+
+  private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+  private final Storage storage = StorageOptions.getDefaultInstance().getService();
+
+  private final String bucketName;
+
+  private final long resumableThreshold;
+
+  public CloudAssetStorage(String bucketName, long resumableThreshold) {
+    this.bucketName = bucketName;
+    this.resumableThreshold = resumableThreshold;
+  }
+
+  @Override
+  public void upload(String path, MultipartFile file) throws IOException {
+    BlobInfo blobInfo = BlobInfo.newBuilder(bucketName, path).build();
+    if (file.getSize() <= resumableThreshold) {
+      storage.create(blobInfo, file.getBytes());
+      return;
+    }
+
+    try (WriteChannel writer = storage.writer(blobInfo);
+        InputStream inputStream = file.getInputStream()) {
+      writer.setChunkSize(CHUNK_SIZE);
+      byte[] buffer = new byte[CHUNK_SIZE];
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+        while (byteBuffer.hasRemaining()) {
+          writer.write(byteBuffer);
+        }
+      }
+    }
+  }
+
+  @Override
+  public InputStream download(String path) {
+    Blob blob = storage.get(bucketName, path);
+    return blob == null ? null : Channels.newInputStream(blob.reader());
+  }
+}
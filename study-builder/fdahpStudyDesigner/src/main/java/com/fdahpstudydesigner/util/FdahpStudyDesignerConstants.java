@@ -227,6 +227,10 @@ public class FdahpStudyDesignerConstants {
       "1 or more activities have been added for the study: $customId.";
   public static final String NOTIFICATION_DEACTIVATE_TEXT =
       "The study $customId has been closed. We thank you for your participation.";
+  public static final String NOTIFICATION_DISPATCH_FAILED = "FAILED";
+  public static final String NOTIFICATION_DISPATCH_IN_PROGRESS = "IN_PROGRESS";
+  public static final String NOTIFICATION_DISPATCH_PENDING = "PENDING";
+  public static final String NOTIFICATION_DISPATCH_SENT = "SENT";
   public static final String NOTIFICATION_ERROR_MSG =
       "One or more of the study's notifications are scheduled for dates that are in the past. Please configure notification schedules to have upcoming dates and try again.";
   public static final String NOTIFICATION_GT = "GT";
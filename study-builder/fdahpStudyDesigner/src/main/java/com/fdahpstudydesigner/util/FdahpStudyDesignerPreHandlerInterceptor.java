@@ -25,8 +25,12 @@ package com.fdahpstudydesigner.util;
 
 import com.fdahpstudydesigner.bo.UserBO;
 import com.fdahpstudydesigner.service.UsersService;
+import com.fdahpstudydesigner.util.UserStateCache.UserState;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.lang3.StringUtils;
@@ -41,6 +45,9 @@ public class FdahpStudyDesignerPreHandlerInterceptor extends HandlerInterceptorA
 
   @Autowired private UsersService usersService;
 
+  // matches the URIs ending with one of the actions of interceptor.urls
+  private static volatile Pattern excludedUris;
+
   @Override
   public boolean preHandle(
       HttpServletRequest request, HttpServletResponse response, Object handler) {
@@ -66,12 +73,7 @@ public class FdahpStudyDesignerPreHandlerInterceptor extends HandlerInterceptorA
                 request.getSession().getAttribute(FdahpStudyDesignerConstants.SESSION_OBJECT);
       }
       // Allow some of the URL
-      String list[] = excludeActions.split(",");
-      for (String element : list) {
-        if (uri.endsWith(element.trim())) {
-          flag = true;
-        }
-      }
+      flag = excludedUris(excludeActions).matcher(uri).find();
 
       int customSessionExpiredErrorCode = 901;
       boolean ajax = "XMLHttpRequest".equals(request.getHeader("X-Requested-With"));
@@ -126,14 +128,25 @@ public class FdahpStudyDesignerPreHandlerInterceptor extends HandlerInterceptorA
             logger.info(
                 "FdahpStudyDesignerPreHandlerInterceptor -preHandle(): force change password");
           }
-          // Checking for force logout for current user
-          UserBO user = usersService.getUserDetails(session.getUserId());
+          // Checking for force logout for current user, reading the user again only after a
+          // change of the user
+          UserState user =
+              UserStateCache.get(
+                  session.getUserId(),
+                  Long.parseLong(propMap.get("interceptor.user.state.max.age.seconds")) * 1000);
+          if (null == user) {
+            long version = UserStateCache.version(session.getUserId());
+            UserBO userBO = usersService.getUserDetails(session.getUserId());
+            if (null != userBO) {
+              user = UserStateCache.put(session.getUserId(), version, userBO);
+            }
+          }
           if (null != user) {
             if (user.isForceLogout()) {
               response.sendRedirect(sessionOutUrl + "?msg=" + timeoutMsg);
               logger.info("FdahpStudyDesignerPreHandlerInterceptor -preHandle(): force logout");
               return false;
-            } else if (user.getEmailChanged()) {
+            } else if (user.isEmailChanged()) {
               response.sendRedirect(
                   sessionOutUrl + "?msg=" + propMap.get("email.not.varified.error"));
               logger.info("FdahpStudyDesignerPreHandlerInterceptor -preHandle(): email change");
@@ -155,4 +168,17 @@ public class FdahpStudyDesignerPreHandlerInterceptor extends HandlerInterceptorA
             + uri);
     return true;
   }
+
+  private static Pattern excludedUris(String excludeActions) {
+    Pattern pattern = excludedUris;
+    if (pattern == null) {
+      List<String> actions = new ArrayList<>();
+      for (String element : excludeActions.split(",")) {
+        actions.add(Pattern.quote(element.trim()));
+      }
+      pattern = Pattern.compile("(?:" + StringUtils.join(actions, '|') + ")$");
+      excludedUris = pattern;
+    }
+    return pattern;
+  }
 }
@@ -26,9 +26,6 @@ import com.fdahpstudydesigner.bean.FormulaInfoBean;
 import com.fdahpstudydesigner.bo.UserBO;
 import com.fdahpstudydesigner.bo.UserPermissions;
 import com.fdahpstudydesigner.common.UserAccessLevel;
-import com.google.cloud.storage.BlobInfo;
-import com.google.cloud.storage.Storage;
-import com.google.cloud.storage.StorageOptions;
 import java.math.BigDecimal;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -51,10 +48,10 @@ import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
-import net.objecthunter.exp4j.ExpressionBuilder;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.log4j.Logger;
 import org.springframework.core.io.Resource;
 import org.springframework.security.authentication.AccountStatusException;
@@ -80,6 +77,8 @@ public class FdahpStudyDesignerUtil {
 
   protected static final Map<String, String> configMap = FdahpStudyDesignerUtil.getAppProperties();
 
+  private static AssetStorage assetStorage;
+
   private static final String PATH_SEPARATOR = "/";
 
   public static Date addDaysToDate(Date date, int days) {
@@ -320,15 +319,11 @@ public class FdahpStudyDesignerUtil {
           net.objecthunter.exp4j.Expression e;
           if (trialInput.contains(".")) {
             e =
-                new ExpressionBuilder(lhs)
-                    .variables("x")
-                    .build()
+                FormulaExpressionCache.arithmetic(lhs, "x")
                     .setVariable("x", Float.parseFloat(trialInput));
           } else {
             e =
-                new ExpressionBuilder(lhs)
-                    .variables("x")
-                    .build()
+                FormulaExpressionCache.arithmetic(lhs, "x")
                     .setVariable("x", Integer.parseInt(trialInput));
           }
           double op = e.evaluate();
@@ -340,7 +335,7 @@ public class FdahpStudyDesignerUtil {
       }
     } else {
       try {
-        double op = new ExpressionBuilder(lhs).build().evaluate();
+        double op = FormulaExpressionCache.arithmetic(lhs).evaluate();
         operand1 = Double.toString(Math.round(op * 100.0) / 100.0);
       } catch (Exception e) {
         logger.error("FdahpStudyDesignerUtil - getConditionalFormulaResult() : ", e);
@@ -371,15 +366,11 @@ public class FdahpStudyDesignerUtil {
           net.objecthunter.exp4j.Expression e;
           if (trialInput.contains(".")) {
             e =
-                new ExpressionBuilder(rhs)
-                    .variables("x")
-                    .build()
+                FormulaExpressionCache.arithmetic(rhs, "x")
                     .setVariable("x", Float.parseFloat(trialInput));
           } else {
             e =
-                new ExpressionBuilder(rhs)
-                    .variables("x")
-                    .build()
+                FormulaExpressionCache.arithmetic(rhs, "x")
                     .setVariable("x", Integer.parseInt(trialInput));
           }
 
@@ -392,7 +383,7 @@ public class FdahpStudyDesignerUtil {
       }
     } else {
       try {
-        double op = new ExpressionBuilder(rhs).build().evaluate();
+        double op = FormulaExpressionCache.arithmetic(rhs).evaluate();
         operand2 = Double.toString(Math.round(op * 100.0) / 100.0);
       } catch (Exception e) {
         logger.error("FdahpStudyDesignerUtil - getConditionalFormulaResult() : ", e);
@@ -1026,32 +1017,52 @@ public class FdahpStudyDesignerUtil {
   }
 
   public static String saveImage(MultipartFile fileStream, String fileName, String underDirectory) {
-    String fileNameWithExtension =
-        fileName + "." + FilenameUtils.getExtension(fileStream.getOriginalFilename());
-    String absoluteFileName = underDirectory + PATH_SEPARATOR + fileNameWithExtension;
-    BlobInfo blobInfo =
-        BlobInfo.newBuilder(configMap.get("cloud.bucket.name"), absoluteFileName).build();
-
-    try {
-      Storage storage = StorageOptions.getDefaultInstance().getService();
-      storage.create(blobInfo, fileStream.getBytes());
-
-    } catch (Exception e) {
-      logger.error("Save Image in cloud storage failed", e);
-    }
+    String fileNameWithExtension = getFileNameWithExtension(fileStream, fileName);
+    uploadAsset(fileStream, underDirectory, fileNameWithExtension);
     return fileNameWithExtension;
   }
 
   public static void saveDefaultImageToCloudStorage(
       MultipartFile fileStream, String fileName, String underDirectory) {
-    String absoluteFileName = underDirectory + PATH_SEPARATOR + fileName;
-    BlobInfo blobInfo =
-        BlobInfo.newBuilder(configMap.get("cloud.bucket.name"), absoluteFileName).build();
     try {
-      Storage storage = StorageOptions.getDefaultInstance().getService();
-      storage.create(blobInfo, fileStream.getBytes());
+      getAssetStorage().upload(underDirectory + PATH_SEPARATOR + fileName, fileStream);
     } catch (Exception e) {
       logger.error("Save Default Image to cloud storage failed", e);
     }
   }
+
+  /**
+   * Returns the storage for uploaded assets: the {@code cloud.bucket.name} bucket, or the {@code
+   * asset.storage.local.directory} directory when {@code asset.storage.type} is {@code local}.
+   */
+  public static synchronized AssetStorage getAssetStorage() {
+    if (assetStorage == null) {
+      if ("local".equalsIgnoreCase(configMap.get("asset.storage.type"))) {
+        assetStorage = new LocalAssetStorage(configMap.get("asset.storage.local.directory"));
+      } else {
+        assetStorage =
+            new CloudAssetStorage(
+                configMap.get("cloud.bucket.name"),
+                getIntProperty("asset.upload.resumable.threshold.bytes", 8 * 1024 * 1024));
+      }
+    }
+    return assetStorage;
+  }
+
+  static String getFileNameWithExtension(MultipartFile fileStream, String fileName) {
+    return fileName + "." + FilenameUtils.getExtension(fileStream.getOriginalFilename());
+  }
+
+  static void uploadAsset(
+      MultipartFile fileStream, String underDirectory, String fileNameWithExtension) {
+    try {
+      getAssetStorage().upload(underDirectory + PATH_SEPARATOR + fileNameWithExtension, fileStream);
+    } catch (Exception e) {
+      logger.error("Save Image in cloud storage failed", e);
+    }
+  }
+
+  static int getIntProperty(String key, int defaultValue) {
+    return NumberUtils.toInt(StringUtils.trim(configMap.get(key)), defaultValue);
+  }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.fdahpstudydesigner.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Parsed exp4j branching formulas, kept in least recently used order and keyed by the formula text
+ * with its whitespace normalized.
+ *
+ * <p>A cached expression is copied before its variables are set, so it can be evaluated by several
+ * requests at once. EvalEx expressions are not cached: binding a non-numeric value rewrites the
+ * expression text, so an instance can't be reused for other values.
+ */
+public final class FormulaExpressionCache {
+
+  private static final int MAX_FORMULAS = 500;
+
+  private static final Map<String, Expression> ARITHMETIC_FORMULAS =
+      Collections.synchronizedMap(new LruMap<String, Expression>());
+
+  private FormulaExpressionCache() {}
+
+  /** Returns a copy of the parsed arithmetic formula, ready for its variables to be set. */
+  public static Expression arithmetic(String formula, String... variables) {
+    String key = StringUtils.join(variables, ',') + ':' + StringUtils.normalizeSpace(formula);
+    Expression expression = ARITHMETIC_FORMULAS.get(key);
+    if (expression == null) {
+      expression = new ExpressionBuilder(formula).variables(variables).build();
+      ARITHMETIC_FORMULAS.put(key, expression);
+    }
+    return new Expression(expression);
+  }
+
+  private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+    private static final long serialVersionUID = 1L;
+
+    LruMap() {
+      super(16, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+      return size() > MAX_FORMULAS;
+    }
+  }
+}
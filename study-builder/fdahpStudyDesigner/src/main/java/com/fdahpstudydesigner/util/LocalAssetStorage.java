@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.fdahpstudydesigner.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import org.springframework.web.multipart.MultipartFile;
+
+/** Stores assets under a local directory, for development and for measuring uploads offline. */
+public class LocalAssetStorage implements AssetStorage {
+
+  private final Path directory;
+
+  public LocalAssetStorage(String directory) {
+    this.directory = Paths.get(directory).toAbsolutePath().normalize();
+  }
+
+  @Override
+  public void upload(String path, MultipartFile file) throws IOException {
+    Path target = resolve(path);
+    Files.createDirectories(target.getParent());
+    try (InputStream inputStream = file.getInputStream()) {
+      Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  @Override
+  public InputStream download(String path) throws IOException {
+    Path source = resolve(path);
+    return Files.exists(source) ? Files.newInputStream(source) : null;
+  }
+
+  private Path resolve(String path) throws IOException {
+    Path resolved = directory.resolve(path).normalize();
+    if (!resolved.startsWith(directory)) {
+      throw new IOException("Asset path outside of the storage directory: " + path);
+    }
+    return resolved;
+  }
+}
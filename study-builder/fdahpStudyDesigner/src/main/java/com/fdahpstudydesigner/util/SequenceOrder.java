@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.fdahpstudydesigner.util;
+
+import java.util.List;
+import org.apache.log4j.Logger;
+import org.hibernate.Session;
+
+/**
+ * Sequence numbers of ordered study content, such as questionnaire steps, form questions, consent
+ * sections, comprehension and eligibility questions and resources.
+ *
+ * <p>Sequence numbers are spaced {@link #GAP} apart, so a moved row usually takes a number between
+ * its new neighbours and is the only row updated. When there is no room left between the
+ * neighbours, the rows of the list are renumbered once with the full gap. The sequence numbers only
+ * define the order; pages show the position of a row instead.
+ */
+public final class SequenceOrder {
+
+  private static Logger logger = Logger.getLogger(SequenceOrder.class.getName());
+
+  public static final int GAP = 1024;
+
+  private SequenceOrder() {}
+
+  /** Returns the sequence number of a row added after the row with the given sequence number. */
+  public static int next(Integer lastSequenceNo) {
+    return lastSequenceNo == null ? GAP : lastSequenceNo + GAP;
+  }
+
+  /**
+   * Moves the row with sequence number {@code oldSequenceNo} to the place of the row with sequence
+   * number {@code newSequenceNo}: after it when moving down the list and before it when moving up,
+   * like the drag and drop of the list pages.
+   *
+   * @param entity the entity name, e.g. {@code ConsentInfoBo}
+   * @param idProperty the identifier property of the entity
+   * @param scope the HQL condition selecting the rows of one list, with the entity alias {@code e}
+   *     and the list id as the {@code scopeId} parameter
+   * @return false if either row is not part of the list or both are the same row
+   */
+  @SuppressWarnings("unchecked")
+  public static boolean move(
+      Session session,
+      String entity,
+      String idProperty,
+      String scope,
+      Integer scopeId,
+      int oldSequenceNo,
+      int newSequenceNo) {
+    List<Object[]> rows =
+        session
+            .createQuery(
+                "select e."
+                    + idProperty
+                    + ", e.sequenceNo from "
+                    + entity
+                    + " e where "
+                    + scope
+                    + " and e.sequenceNo is not null order by e.sequenceNo, e."
+                    + idProperty)
+            .setInteger("scopeId", scopeId)
+            .list();
+
+    int from = indexOf(rows, oldSequenceNo);
+    int to = indexOf(rows, newSequenceNo);
+    if ((from < 0) || (to < 0) || (from == to)) {
+      return false;
+    }
+
+    // after removing the moved row, index "to" is right after the target when moving down and
+    // the target itself when moving up
+    Object[] moved = rows.remove(from);
+    rows.add(to, moved);
+
+    long before = to > 0 ? sequenceNo(rows.get(to - 1)) : 0;
+    long sequenceNo =
+        to < (rows.size() - 1) ? (before + sequenceNo(rows.get(to + 1))) / 2 : before + GAP;
+    if ((sequenceNo > before)
+        && ((to == (rows.size() - 1)) || (sequenceNo < sequenceNo(rows.get(to + 1))))
+        && (sequenceNo <= Integer.MAX_VALUE)) {
+      update(session, entity, idProperty, moved[0], (int) sequenceNo);
+      return true;
+    }
+
+    logger.info(
+        String.format(
+            "SequenceOrder - move() - renumbering %d rows of %s %d",
+            rows.size(), entity, scopeId));
+    for (int i = 0; i < rows.size(); i++) {
+      if (sequenceNo(rows.get(i)) != ((i + 1) * GAP)) {
+        update(session, entity, idProperty, rows.get(i)[0], (i + 1) * GAP);
+      }
+    }
+    return true;
+  }
+
+  private static int indexOf(List<Object[]> rows, int sequenceNo) {
+    for (int i = 0; i < rows.size(); i++) {
+      if (sequenceNo(rows.get(i)) == sequenceNo) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int sequenceNo(Object[] row) {
+    return ((Number) row[1]).intValue();
+  }
+
+  private static void update(
+      Session session, String entity, String idProperty, Object id, int sequenceNo) {
+    session
+        .createQuery(
+            "update " + entity + " e set e.sequenceNo=:sequenceNo where e." + idProperty + "=:id")
+        .setInteger("sequenceNo", sequenceNo)
+        .setParameter("id", id)
+        .executeUpdate();
+  }
+}
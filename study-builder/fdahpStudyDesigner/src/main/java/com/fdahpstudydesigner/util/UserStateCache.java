@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.fdahpstudydesigner.util;
+
+import com.fdahpstudydesigner.bo.UserBO;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Force logout and email change flags of the signed in users, checked by {@link
+ * FdahpStudyDesignerPreHandlerInterceptor} on every page.
+ *
+ * <p>Every change of a user stamps the user with a new version, and a cached state is only used
+ * while its version is current. A state read from the database while the user was being changed
+ * keeps the old version, so it is read again on the next request. States also expire after a
+ * maximum age, so changes made by another Study Builder instance are seen.
+ */
+public final class UserStateCache {
+
+  private static final AtomicLong VERSION = new AtomicLong();
+
+  private static final ConcurrentMap<Integer, Long> USER_VERSIONS = new ConcurrentHashMap<>();
+
+  private static final ConcurrentMap<Integer, UserState> STATES = new ConcurrentHashMap<>();
+
+  // version of the last change made to all users at once
+  private static volatile long allUsersVersion;
+
+  private UserStateCache() {}
+
+  /** Returns the cached state of the user, or null if it has to be read from the database. */
+  public static UserState get(Integer userId, long maxAgeMillis) {
+    UserState state = STATES.get(userId);
+    if ((state == null)
+        || (state.version != version(userId))
+        || ((System.currentTimeMillis() - state.loadedAt) > maxAgeMillis)) {
+      return null;
+    }
+    return state;
+  }
+
+  /** Returns the version to pass to {@link #put} for a state read from the database now. */
+  public static long version(Integer userId) {
+    Long userVersion = USER_VERSIONS.get(userId);
+    return Math.max(userVersion != null ? userVersion : 0, allUsersVersion);
+  }
+
+  public static UserState put(Integer userId, long version, UserBO user) {
+    UserState state =
+        new UserState(
+            version,
+            user.isForceLogout(),
+            (user.getEmailChanged() != null) && user.getEmailChanged());
+    STATES.put(userId, state);
+    return state;
+  }
+
+  /** Marks the cached state of the user as out of date. */
+  public static void changed(Integer userId) {
+    if (userId != null) {
+      USER_VERSIONS.put(userId, VERSION.incrementAndGet());
+    }
+  }
+
+  /** Marks the cached state of every user as out of date. */
+  public static void changedAll() {
+    allUsersVersion = VERSION.incrementAndGet();
+  }
+
+  public static final class UserState {
+
+    private final long version;
+
+    private final long loadedAt = System.currentTimeMillis();
+
+    private final boolean forceLogout;
+
+    private final boolean emailChanged;
+
+    private UserState(long version, boolean forceLogout, boolean emailChanged) {
+      this.version = version;
+      this.forceLogout = forceLogout;
+      this.emailChanged = emailChanged;
+    }
+
+    public boolean isForceLogout() {
+      return forceLogout;
+    }
+
+    public boolean isEmailChanged() {
+      return emailChanged;
+    }
+  }
+}
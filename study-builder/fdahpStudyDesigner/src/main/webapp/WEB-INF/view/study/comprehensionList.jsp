@@ -114,9 +114,9 @@
             </tr>
           </thead>
           <tbody>
-            <c:forEach items="${comprehensionTestQuestionList}" var="comprehensionTestQuestion">
+            <c:forEach items="${comprehensionTestQuestionList}" var="comprehensionTestQuestion" varStatus="item">
               <tr id="${comprehensionTestQuestion.id}">
-                <td>${comprehensionTestQuestion.sequenceNo}</td>
+                <td><span id="${comprehensionTestQuestion.sequenceNo}">${item.count}</span></td>
                 <td>
                   <div class="dis-ellipsis">${fn:escapeXml(comprehensionTestQuestion.questionText)}</div>
                 </td>
@@ -256,15 +256,15 @@ var markAsComplete = "${markAsComplete}"
         var rowData = table1.row(diff[i].node).data();
         var r1;
         if (i == 0) {
-          r1 = rowData[0];
+          r1 = $(rowData[0]).attr('id');
         }
         if (i == 1) {
-          if (r1 > rowData[0]) {
-            oldOrderNumber = diff[0].oldData;
-            newOrderNumber = diff[0].newData;
+          if (parseInt(r1) > parseInt($(rowData[0]).attr('id'))) {
+            oldOrderNumber = $(diff[0].oldData).attr('id');
+            newOrderNumber = $(diff[0].newData).attr('id');
           } else {
-            oldOrderNumber = diff[diff.length - 1].oldData;
-            newOrderNumber = diff[diff.length - 1].newData;
+            oldOrderNumber = $(diff[diff.length - 1].oldData).attr('id');
+            newOrderNumber = $(diff[diff.length - 1].newData).attr('id');
           }
 
         }
@@ -444,7 +444,7 @@ var markAsComplete = "${markAsComplete}"
         if (typeof obj.sequenceNo === "undefined" && typeof obj.sequenceNo === "undefined") {
           datarow.push(' ');
         } else {
-          datarow.push(obj.sequenceNo);
+          datarow.push('<span id="' + obj.sequenceNo + '">' + (i + 1) + '</span>');
         }
         if (typeof obj.questionText === "undefined" && typeof obj.questionText === "undefined") {
           datarow.push(' ');
@@ -80,9 +80,9 @@
           </tr>
         </thead>
         <tbody>
-          <c:forEach items="${consentInfoList}" var="consentInfo">
+          <c:forEach items="${consentInfoList}" var="consentInfo" varStatus="item">
             <tr id="${consentInfo.id}">
-              <td>${consentInfo.sequenceNo}</td>
+              <td><span id="${consentInfo.sequenceNo}">${item.count}</span></td>
               <td>${consentInfo.displayTitle}</td>
               <td>${consentInfo.visualStep}</td>
               <td>
@@ -159,15 +159,15 @@
         var rowData = table1.row(diff[i].node).data();
         var r1;
         if (i == 0) {
-          r1 = rowData[0];
+          r1 = $(rowData[0]).attr('id');
         }
         if (i == 1) {
-          if (parseInt(r1) > parseInt(rowData[0])) {
-            oldOrderNumber = diff[0].oldData;
-            newOrderNumber = diff[0].newData;
+          if (parseInt(r1) > parseInt($(rowData[0]).attr('id'))) {
+            oldOrderNumber = $(diff[0].oldData).attr('id');
+            newOrderNumber = $(diff[0].newData).attr('id');
           } else {
-            oldOrderNumber = diff[diff.length - 1].oldData;
-            newOrderNumber = diff[diff.length - 1].newData;
+            oldOrderNumber = $(diff[diff.length - 1].oldData).attr('id');
+            newOrderNumber = $(diff[diff.length - 1].newData).attr('id');
           }
 
         }
@@ -317,7 +317,7 @@
         if (typeof obj.sequenceNo === "undefined" && typeof obj.sequenceNo === "undefined") {
           datarow.push(' ');
         } else {
-          datarow.push(obj.sequenceNo);
+          datarow.push('<span id="' + obj.sequenceNo + '">' + (i + 1) + '</span>');
         }
         if (typeof obj.displayTitle === "undefined" && typeof obj.displayTitle === "undefined") {
           datarow.push(' ');
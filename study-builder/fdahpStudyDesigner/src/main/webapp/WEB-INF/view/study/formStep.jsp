@@ -162,7 +162,7 @@
                     <c:forEach items="${destinationStepList}" var="destinationStep">
                       <option
                           value="${destinationStep.stepId}" ${questionnairesStepsBo.destinationStep eq destinationStep.stepId ? 'selected' :''}>
-                        Step ${destinationStep.sequenceNo}
+                        Step ${destinationStep.stepNo}
                         : ${destinationStep.stepShortTitle}</option>
                     </c:forEach>
                     <option
@@ -230,10 +230,11 @@
             <div class="mt-md mb-lg">
               <table id="content" class="display" cellspacing="0" width="100%">
                 <thead style="display: none"></thead>
-                <c:forEach items="${questionnairesStepsBo.formQuestionMap}" var="entry">
+                <c:forEach items="${questionnairesStepsBo.formQuestionMap}" var="entry"
+                           varStatus="question">
                   <tr>
                     <td>
-                      <span id="${entry.key}">${entry.key}</span>
+                      <span id="${entry.key}">${question.count}</span>
                     </td>
                     <td>
                       <div>
@@ -740,12 +741,14 @@
   function reloadQuestionsData(questions, isDone) {
     $('#content').DataTable().clear();
     if (typeof questions != 'undefined' && questions != null && Object.keys(questions).length > 0) {
+      var questionNo = 0;
       $.each(questions, function (key, value) {
         var datarow = [];
+        questionNo++;
         if (typeof key === "undefined") {
           datarow.push(' ');
         } else {
-          datarow.push('<span id="' + key + '">' + key + '</span>');
+          datarow.push('<span id="' + key + '">' + questionNo + '</span>');
         }
         if (typeof value.title == "undefined") {
           datarow.push(' ');
@@ -111,7 +111,7 @@
               <c:forEach items="${destinationStepList}" var="destinationStep">
                 <option
                     value="${destinationStep.stepId}" ${instructionsBo.questionnairesStepsBo.destinationStep eq destinationStep.stepId ? 'selected' :''}>
-                  Step ${destinationStep.sequenceNo} : ${destinationStep.stepShortTitle}</option>
+                  Step ${destinationStep.stepNo} : ${destinationStep.stepShortTitle}</option>
               </c:forEach>
               <option
                   value="0" ${instructionsBo.questionnairesStepsBo.destinationStep eq 0 ? 'selected' :''}>
@@ -190,7 +190,7 @@
                   <c:forEach items="${destinationStepList}" var="destinationStep">
                     <option
                         value="${destinationStep.stepId}" ${questionnairesStepsBo.destinationStep eq destinationStep.stepId ? 'selected' :''}>
-                      Step ${destinationStep.sequenceNo}
+                      Step ${destinationStep.stepNo}
                       : ${destinationStep.stepShortTitle}</option>
                   </c:forEach>
                   <option value="0" ${questionnairesStepsBo.destinationStep eq 0 ? 'selected' :''}>
@@ -1607,7 +1607,7 @@
                       <c:forEach items="${destinationStepList}" var="destinationStep">
                         <option
                             value="${destinationStep.stepId}" ${questionnairesStepsBo.questionResponseSubTypeList[0].destinationStepId eq destinationStep.stepId ? 'selected' :''}>
-                          Step ${destinationStep.sequenceNo}
+                          Step ${destinationStep.stepNo}
                           : ${destinationStep.stepShortTitle}</option>
                       </c:forEach>
                       <option
@@ -1648,7 +1648,7 @@
                       <c:forEach items="${destinationStepList}" var="destinationStep">
                         <option
                             value="${destinationStep.stepId}" ${questionnairesStepsBo.questionResponseSubTypeList[1].destinationStepId eq destinationStep.stepId ? 'selected' :''} >
-                          Step ${destinationStep.sequenceNo}
+                          Step ${destinationStep.stepNo}
                           : ${destinationStep.stepShortTitle}</option>
                       </c:forEach>
                       <option
@@ -1875,7 +1875,7 @@
                                          var="destinationStep">
                                 <option
                                     value="${destinationStep.stepId}" ${questionResponseSubType.destinationStepId eq destinationStep.stepId ? 'selected' :''} >
-                                  Step ${destinationStep.sequenceNo}
+                                  Step ${destinationStep.stepNo}
                                   : ${destinationStep.stepShortTitle}</option>
                               </c:forEach>
                               <option
@@ -1944,7 +1944,7 @@
                             <c:forEach items="${destinationStepList}" var="destinationStep">
                               <option
                                   value="${destinationStep.stepId}" ${questionnairesStepsBo.questionResponseSubTypeList[0].destinationStepId eq destinationStep.stepId ? 'selected' :''} >
-                                Step ${destinationStep.sequenceNo}
+                                Step ${destinationStep.stepNo}
                                 : ${destinationStep.stepShortTitle}</option>
                             </c:forEach>
                             <option
@@ -1995,7 +1995,7 @@
                             <c:forEach items="${destinationStepList}" var="destinationStep">
                               <option
                                   value="${destinationStep.stepId}" ${questionnairesStepsBo.questionResponseSubTypeList[0].destinationStepId eq destinationStep.stepId ? 'selected' :''} >
-                                Step ${destinationStep.sequenceNo}
+                                Step ${destinationStep.stepNo}
                                 : ${destinationStep.stepShortTitle}</option>
                             </c:forEach>
                             <option
@@ -2148,7 +2148,7 @@
                                          var="destinationStep">
                                 <option
                                     value="${destinationStep.stepId}" ${questionResponseSubType.destinationStepId eq destinationStep.stepId ? 'selected' :''} >
-                                  Step ${destinationStep.sequenceNo}
+                                  Step ${destinationStep.stepNo}
                                   : ${destinationStep.stepShortTitle}</option>
                               </c:forEach>
                               <option
@@ -2257,7 +2257,7 @@
                             <c:forEach items="${destinationStepList}" var="destinationStep">
                               <option
                                   value="${destinationStep.stepId}" ${questionResponseSubType.destinationStepId eq destinationStep.stepId ? 'selected' :''} >
-                                Step ${destinationStep.sequenceNo}
+                                Step ${destinationStep.stepNo}
                                 : ${destinationStep.stepShortTitle}</option>
                             </c:forEach>
                             <option
@@ -2362,7 +2362,7 @@
                             <c:forEach items="${destinationStepList}" var="destinationStep">
                               <option
                                   value="${destinationStep.stepId}" ${questionResponseSubType.destinationStepId eq destinationStep.stepId ? 'selected' :''} >
-                                Step ${destinationStep.sequenceNo}
+                                Step ${destinationStep.stepNo}
                                 : ${destinationStep.stepShortTitle}</option>
                             </c:forEach>
                             <option
@@ -2475,7 +2475,7 @@
                           <c:forEach items="${destinationStepList}" var="destinationStep">
                             <option
                                 value="${destinationStep.stepId}" ${questionnairesStepsBo.questionReponseTypeBo.otherDestinationStepId eq destinationStep.stepId ? 'selected' :''}>
-                              Step ${destinationStep.sequenceNo}
+                              Step ${destinationStep.stepNo}
                               : ${destinationStep.stepShortTitle}</option>
                           </c:forEach>
                           <option
@@ -2708,7 +2708,7 @@
                                          var="destinationStep">
                                 <option
                                     value="${destinationStep.stepId}" ${questionResponseSubType.destinationStepId eq destinationStep.stepId ? 'selected' :''} >
-                                  Step ${destinationStep.sequenceNo}
+                                  Step ${destinationStep.stepNo}
                                   : ${destinationStep.stepShortTitle}</option>
                               </c:forEach>
                               <option
@@ -2822,7 +2822,7 @@
                             <c:forEach items="${destinationStepList}" var="destinationStep">
                               <option
                                   value="${destinationStep.stepId}" ${questionnairesStepsBo.questionResponseSubTypeList[0].destinationStepId eq destinationStep.stepId ? 'selected' :''} >
-                                Step ${destinationStep.sequenceNo}
+                                Step ${destinationStep.stepNo}
                                 : ${destinationStep.stepShortTitle}</option>
                             </c:forEach>
                             <option
@@ -2932,7 +2932,7 @@
                             <c:forEach items="${destinationStepList}" var="destinationStep">
                               <option
                                   value="${destinationStep.stepId}" ${questionnairesStepsBo.questionResponseSubTypeList[1].destinationStepId eq destinationStep.stepId ? 'selected' :''} >
-                                Step ${destinationStep.sequenceNo}
+                                Step ${destinationStep.stepNo}
                                 : ${destinationStep.stepShortTitle}</option>
                             </c:forEach>
                             <option
@@ -2994,7 +2994,7 @@
                             <c:forEach items="${destinationStepList}" var="destinationStep">
                               <option
                                   value="${destinationStep.stepId}" ${questionnairesStepsBo.questionResponseSubTypeList[0].destinationStepId eq destinationStep.stepId ? 'selected' :''} >
-                                Step ${destinationStep.sequenceNo}: ${destinationStep.stepShortTitle}</option>
+                                Step ${destinationStep.stepNo}: ${destinationStep.stepShortTitle}</option>
                             </c:forEach>
                             <option
                                 value="0" ${questionnairesStepsBo.questionResponseSubTypeList[0].destinationStepId eq 0 ? 'selected' :''}>
@@ -3016,7 +3016,7 @@
                             <c:forEach items="${destinationStepList}" var="destinationStep">
                               <option
                                   value="${destinationStep.stepId}" ${questionnairesStepsBo.questionResponseSubTypeList[1].destinationStepId eq destinationStep.stepId ? 'selected' :''} >
-                                Step ${destinationStep.sequenceNo}: ${destinationStep.stepShortTitle}</option>
+                                Step ${destinationStep.stepNo}: ${destinationStep.stepShortTitle}</option>
                             </c:forEach>
                             <option
                                 value="0" ${questionnairesStepsBo.questionResponseSubTypeList[1].destinationStepId eq 0 ? 'selected' :''}>
@@ -5844,7 +5844,7 @@
             + "].destinationStepId' id='destinationTextSclStepId" + scaleCount
             + "' title='select' data-error='Please choose one option'><option value='' disabled selected>Select</option>";
         <c:forEach items="${destinationStepList}" var="destinationStep">
-        newTextScale += "<option value='${destinationStep.stepId}'>Step ${destinationStep.sequenceNo} : ${destinationStep.stepShortTitle}</option>";
+        newTextScale += "<option value='${destinationStep.stepId}'>Step ${destinationStep.stepNo} : ${destinationStep.stepShortTitle}</option>";
         </c:forEach>
         newTextScale += "	<option value='0'>Completion Step</option>" +
             "	     </select>" +
@@ -5969,7 +5969,7 @@
           + "].destinationStepId' id='destinationTextChoiceStepId" + choiceCount
           + "' title='select' data-error='Please choose one option' class='selectpicker destionationYes'><option value='' disabled selected>Select</option>";
       <c:forEach items='${destinationStepList}' var='destinationStep'>
-      newTextChoice += " <option value='${destinationStep.stepId}'>Step ${destinationStep.sequenceNo} : ${destinationStep.stepShortTitle}</option>";
+      newTextChoice += " <option value='${destinationStep.stepId}'>Step ${destinationStep.stepNo} : ${destinationStep.stepShortTitle}</option>";
       </c:forEach>
       newTextChoice += "<option value='0'>Completion Step</option>" +
           "</select>" +
@@ -6106,7 +6106,7 @@
           + "].destinationStepId' id='destinationImageChoiceStepId" + imageCount
           + "' title='select' data-error='Please choose one option' class='selectpicker'><option value=''>Select</option>";
       <c:forEach items="${destinationStepList}" var="destinationStep">
-      newImageChoice += "<option value='${destinationStep.stepId}'>Step ${destinationStep.sequenceNo} : ${destinationStep.stepShortTitle}</option>";
+      newImageChoice += "<option value='${destinationStep.stepId}'>Step ${destinationStep.stepNo} : ${destinationStep.stepShortTitle}</option>";
       </c:forEach>
       newImageChoice += "<option value='0'>Completion Step</option>" +
           "	     </select>" +
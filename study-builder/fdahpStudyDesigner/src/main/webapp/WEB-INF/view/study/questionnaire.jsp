@@ -242,25 +242,25 @@
                  style="border-color: #ffffff;">
             <thead style="display: none;"></thead>
             <tbody>
-              <c:forEach items="${qTreeMap}" var="entry">
+              <c:forEach items="${qTreeMap}" var="entry" varStatus="step">
                 <tr>
                   <c:choose>
                     <c:when test="${entry.value.stepType eq 'Instruction'}">
                       <td>
                         <span id="${entry.key}" data="round blue-round"
-                              class="round blue-round">${entry.key}</span>
+                              class="round blue-round">${step.count}</span>
                       </td>
                     </c:when>
                     <c:when test="${entry.value.stepType eq 'Question'}">
                       <td>
                         <span id="${entry.key}" data="round green-round"
-                              class="round green-round">${entry.key}</span>
+                              class="round green-round">${step.count}</span>
                       </td>
                     </c:when>
                     <c:otherwise>
                       <td>
                         <span id="${entry.key}" data="round teal-round"
-                              class="round teal-round">${entry.key}</span>
+                              class="round teal-round">${step.count}</span>
                       </td>
                     </c:otherwise>
                   </c:choose>
@@ -3953,18 +3953,20 @@
     $('#content').DataTable().clear();
     if (typeof questionnaire != 'undefined' && questionnaire != null && Object.keys(
         questionnaire).length > 0) {
+      var stepNo = 0;
       $.each(questionnaire, function (key, value) {
         var datarow = [];
+        stepNo++;
         if (typeof key === "undefined") {
           datarow.push(' ');
         } else {
           var dynamicTable = '';
           if (value.stepType == 'Instruction') {
-            datarow.push('<span id="' + parseInt(key) + '" class="round blue-round">' + parseInt(key) + '</span>');
+            datarow.push('<span id="' + parseInt(key) + '" class="round blue-round">' + stepNo + '</span>');
           } else if (value.stepType == 'Question') {
-            datarow.push('<span id="' + parseInt(key) + '" class="round green-round">' + parseInt(key) + '</span>');
+            datarow.push('<span id="' + parseInt(key) + '" class="round green-round">' + stepNo + '</span>');
           } else {
-            dynamicTable += '<span id="' + parseInt(key) + '" class="round teal-round">' + parseInt(key) + '</span>';
+            dynamicTable += '<span id="' + parseInt(key) + '" class="round teal-round">' + stepNo + '</span>';
             datarow.push(dynamicTable);
           }
         }
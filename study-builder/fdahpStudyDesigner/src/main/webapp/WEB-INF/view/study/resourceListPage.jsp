@@ -70,9 +70,9 @@
           </tr>
         </thead>
         <tbody>
-          <c:forEach items="${resourceBOList}" var="resourceInfo">
+          <c:forEach items="${resourceBOList}" var="resourceInfo" varStatus="item">
             <tr id="row${resourceInfo.id}">
-              <td>${resourceInfo.sequenceNo}</td>
+              <td><span id="${resourceInfo.sequenceNo}">${item.count}</span></td>
               <td class="wid50">${resourceInfo.title}</td>
               <td class="wid50 text-right">
                 <span class="sprites_icon preview-g mr-lg"
@@ -165,15 +165,15 @@
         var rowData = dataTable.row(diff[i].node).data();
         var r1;
         if (i == 0) {
-          r1 = rowData[0];
+          r1 = $(rowData[0]).attr('id');
         }
         if (i == 1) {
-          if (parseInt(r1) > parseInt(rowData[0])) {
-            oldOrderNumber = diff[0].oldData;
-            newOrderNumber = diff[0].newData;
+          if (parseInt(r1) > parseInt($(rowData[0]).attr('id'))) {
+            oldOrderNumber = $(diff[0].oldData).attr('id');
+            newOrderNumber = $(diff[0].newData).attr('id');
           } else {
-            oldOrderNumber = diff[diff.length - 1].oldData;
-            newOrderNumber = diff[diff.length - 1].newData;
+            oldOrderNumber = $(diff[diff.length - 1].oldData).attr('id');
+            newOrderNumber = $(diff[diff.length - 1].newData).attr('id');
           }
 
         }
@@ -308,7 +308,7 @@
           if (typeof obj.sequenceNo === "undefined" && typeof obj.sequenceNo === "undefined") {
             datarow.push(' ');
           } else {
-            datarow.push(obj.sequenceNo);
+            datarow.push('<span id="' + obj.sequenceNo + '">' + (i + 1) + '</span>');
           }
           if (typeof obj.title === "undefined" && typeof obj.title === "undefined") {
             datarow.push(' ');
@@ -155,9 +155,9 @@
           </thead>
           <tbody>
             <c:set value="true" var="chkDone"/>
-            <c:forEach items="${eligibilityTestList}" var="etQusAns">
+            <c:forEach items="${eligibilityTestList}" var="etQusAns" varStatus="item">
               <tr id="">
-                <td>${etQusAns.sequenceNo}</td>
+                <td><span id="${etQusAns.sequenceNo}">${item.count}</span></td>
                 <td>
                   <span class="dis-ellipsis">${etQusAns.question}</span>
                 </td>
@@ -317,15 +317,15 @@
                             diff[i].node).data();
                         var r1;
                         if (i == 0) {
-                          r1 = rowData[0];
+                          r1 = $(rowData[0]).attr('id');
                         }
                         if (i == 1) {
-                          if (r1 > rowData[0]) {
-                            oldOrderNumber = diff[0].oldData;
-                            newOrderNumber = diff[0].newData;
+                          if (parseInt(r1) > parseInt($(rowData[0]).attr('id'))) {
+                            oldOrderNumber = $(diff[0].oldData).attr('id');
+                            newOrderNumber = $(diff[0].newData).attr('id');
                           } else {
-                            oldOrderNumber = diff[diff.length - 1].oldData;
-                            newOrderNumber = diff[diff.length - 1].newData;
+                            oldOrderNumber = $(diff[diff.length - 1].oldData).attr('id');
+                            newOrderNumber = $(diff[diff.length - 1].newData).attr('id');
                           }
 
                         }
@@ -611,7 +611,7 @@
                     && typeof obj.sequenceNo === "undefined") {
                   datarow.push(' ');
                 } else {
-                  datarow.push(obj.sequenceNo);
+                  datarow.push('<span id="' + obj.sequenceNo + '">' + (i + 1) + '</span>');
                 }
                 if (typeof obj.question === "undefined"
                     && typeof obj.question === "undefined") {
@@ -25,6 +25,7 @@ package com.hphc.mystudies.bean;
 import com.hphc.mystudies.util.StudyMetaDataConstants;
 import java.util.ArrayList;
 import java.util.List;
+import org.codehaus.jackson.annotate.JsonIgnore;
 
 public class NotificationsResponse {
 
@@ -32,6 +33,8 @@ public class NotificationsResponse {
 
   private List<NotificationsBean> notifications = new ArrayList<>();
 
+  private String nextCursor;
+
   public String getMessage() {
     return message;
   }
@@ -47,4 +50,14 @@ public class NotificationsResponse {
   public void setNotifications(List<NotificationsBean> notifications) {
     this.notifications = notifications;
   }
+
+  /** Seek cursor of the last notification on this page, sent as a response header. */
+  @JsonIgnore
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
 }
@@ -96,9 +96,6 @@ public class ActivityMetaDataDao {
   @SuppressWarnings("unchecked")
   HashMap<String, String> propMap = StudyMetaDataUtil.getAppProperties();
 
-  @SuppressWarnings("unchecked")
-  HashMap<String, String> authPropMap = StudyMetaDataUtil.getAuthorizationProperties();
-
   SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
   Query query = null;
 
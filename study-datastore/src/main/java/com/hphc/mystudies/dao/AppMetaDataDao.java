@@ -42,13 +42,9 @@ import com.hphc.mystudies.util.StudyMetaDataEnum;
 import com.hphc.mystudies.util.StudyMetaDataUtil;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 import org.hibernate.Query;
@@ -60,11 +56,10 @@ public class AppMetaDataDao {
 
   private static final Logger LOGGER = Logger.getLogger(AppMetaDataDao.class);
 
-  @SuppressWarnings("unchecked")
-  HashMap<String, String> propMap = StudyMetaDataUtil.getAppProperties();
+  private static final int NOTIFICATIONS_PAGE_SIZE = 20;
 
   @SuppressWarnings("unchecked")
-  HashMap<String, String> authPropMap = StudyMetaDataUtil.getAuthorizationProperties();
+  HashMap<String, String> propMap = StudyMetaDataUtil.getAppProperties();
 
   SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
   Query query = null;
@@ -90,8 +85,8 @@ public class AppMetaDataDao {
   }
 
   @SuppressWarnings("unchecked")
-  public NotificationsResponse notifications(String skip, String authorization, String appId)
-      throws DAOException {
+  public NotificationsResponse notifications(
+      String skip, String cursor, String authorization, String appId) throws DAOException {
     LOGGER.info("INFO: AppMetaDataDao - notifications() :: Starts");
     Session session = null;
     NotificationsResponse notificationsResponse = new NotificationsResponse();
@@ -123,26 +118,44 @@ public class AppMetaDataDao {
                 StudyMetaDataConstants.NOTIFICATION_SUBTYPE_RESOURCE,
                 StudyMetaDataConstants.NOTIFICATION_SUBTYPE_STUDY_EVENT);
 
+        // Sorting and paging happen in the database on the indexed schedule_timestamp column.
+        // A cursor (seek paging) takes precedence over skip (offset paging).
+        String[] seek = StringUtils.splitPreserveAllTokens(StringUtils.defaultString(cursor), '_');
+        boolean seekPaging = seek.length == 2 && StringUtils.isNumeric(seek[1]);
         notificationStudyTypeQuery =
             "from NotificationDto NDTO"
                 + " where NDTO.notificationSubType in (:notificationTypeList) "
                 + " and (NDTO.appId=:appId"
-                + " or NDTO.appId is null) and NDTO.notificationSent=true"
-                + " ORDER BY NDTO.scheduleDate DESC";
+                + " or NDTO.appId is null) and NDTO.notificationSent=true";
+        if (seekPaging && StringUtils.isNumeric(seek[0])) {
+          notificationStudyTypeQuery +=
+              " and (NDTO.scheduleTimestamp < :seekTimestamp"
+                  + " or (NDTO.scheduleTimestamp = :seekTimestamp"
+                  + " and NDTO.notificationId < :seekId)"
+                  + " or NDTO.scheduleTimestamp is null)";
+        } else if (seekPaging) {
+          notificationStudyTypeQuery +=
+              " and NDTO.scheduleTimestamp is null and NDTO.notificationId < :seekId";
+        }
+        notificationStudyTypeQuery +=
+            " ORDER BY NDTO.scheduleTimestamp DESC, NDTO.notificationId DESC";
 
-        notificationList =
+        query =
             session
                 .createQuery(notificationStudyTypeQuery)
                 .setParameterList("notificationTypeList", notificationTypeList)
                 .setParameter("appId", appId)
-                .setFirstResult(Integer.parseInt(skip))
-                .setMaxResults(20)
-                .list();
+                .setMaxResults(NOTIFICATIONS_PAGE_SIZE);
+        if (seekPaging) {
+          query.setInteger("seekId", Integer.parseInt(seek[1]));
+          if (StringUtils.isNumeric(seek[0])) {
+            query.setTimestamp("seekTimestamp", new Date(Long.parseLong(seek[0])));
+          }
+        } else {
+          query.setFirstResult(Integer.parseInt(skip));
+        }
+        notificationList = query.list();
         if ((notificationList != null) && !notificationList.isEmpty()) {
-          Map<Integer, NotificationsBean> notificationTreeMap = new HashMap<>();
-          HashMap<Integer, String> hashMap = new HashMap<>();
-          List<Integer> notificationIdsList = new ArrayList<>();
-          List<String> scheduleDateTimes = new ArrayList<>();
           for (NotificationDto notificationDto : notificationList) {
             NotificationsBean notifyBean = new NotificationsBean();
             notifyBean.setNotificationId(notificationDto.getNotificationId().toString());
@@ -200,15 +213,14 @@ public class AppMetaDataDao {
                     StudyMetaDataConstants.SDF_DATE_TIME_PATTERN,
                     StudyMetaDataConstants.SDF_DATE_TIME_TIMEZONE_MILLISECONDS_PATTERN));
 
-            notificationIdsList.add(notificationDto.getNotificationId());
-            notificationTreeMap.put(notificationDto.getNotificationId(), notifyBean);
-            hashMap.put(notificationDto.getNotificationId(), scheduledDate + " " + scheduledTime);
+            notifyList.add(notifyBean);
           }
 
-          LinkedHashMap<Integer, String> sortedMap = sortHashMapByValues(hashMap);
-          for (Integer id : sortedMap.keySet()) {
-            notifyList.add(notificationTreeMap.get(id));
-          }
+          NotificationDto last = notificationList.get(notificationList.size() - 1);
+          notificationsResponse.setNextCursor(
+              (last.getScheduleTimestamp() == null ? "" : last.getScheduleTimestamp().getTime())
+                  + "_"
+                  + last.getNotificationId());
         }
       }
 
@@ -225,45 +237,6 @@ public class AppMetaDataDao {
     return notificationsResponse;
   }
 
-  public LinkedHashMap<Integer, String> sortHashMapByValues(HashMap<Integer, String> passedMap) {
-    List<Integer> mapKeys = new ArrayList<>(passedMap.keySet());
-    List<String> mapValues = new ArrayList<>(passedMap.values());
-    LinkedHashMap<Integer, String> sortedMap = new LinkedHashMap<>();
-    Iterator<String> valueIt = null;
-    Iterator<Integer> keyIt = null;
-
-    Collections.sort(mapKeys, Collections.reverseOrder());
-
-    Collections.sort(
-        mapValues,
-        new Comparator<String>() {
-
-          @Override
-          public int compare(String dateTimeOne, String dateTimeTwo) {
-            return dateTimeTwo.compareTo(dateTimeOne);
-          }
-        });
-
-    valueIt = mapValues.iterator();
-    while (valueIt.hasNext()) {
-      String val = valueIt.next();
-      keyIt = mapKeys.iterator();
-
-      while (keyIt.hasNext()) {
-        Integer key = keyIt.next();
-        String comp1 = passedMap.get(key);
-        String comp2 = val;
-
-        if (comp1.equals(comp2)) {
-          keyIt.remove();
-          sortedMap.put(key, val);
-          break;
-        }
-      }
-    }
-    return sortedMap;
-  }
-
   public AppUpdatesResponse appUpdates(String appVersion, String authCredentials)
       throws DAOException {
     LOGGER.info("INFO: AppMetaDataDao - appUpdates() :: Starts");
@@ -44,7 +44,6 @@ import com.hphc.mystudies.dto.ConsentInfoDto;
 import com.hphc.mystudies.dto.ConsentMasterInfoDto;
 import com.hphc.mystudies.dto.EligibilityDto;
 import com.hphc.mystudies.dto.EligibilityTestDto;
-import com.hphc.mystudies.dto.EnrollmentTokenDto;
 import com.hphc.mystudies.dto.FormMappingDto;
 import com.hphc.mystudies.dto.GatewayInfoDto;
 import com.hphc.mystudies.dto.GatewayWelcomeInfoDto;
@@ -58,17 +57,17 @@ import com.hphc.mystudies.dto.StudyPageDto;
 import com.hphc.mystudies.dto.StudySequenceDto;
 import com.hphc.mystudies.dto.StudyVersionDto;
 import com.hphc.mystudies.exception.DAOException;
+import com.hphc.mystudies.util.AppCredentialIndex;
+import com.hphc.mystudies.util.EnrollmentTokenCache;
 import com.hphc.mystudies.util.HibernateUtil;
 import com.hphc.mystudies.util.StudyMetaDataConstants;
 import com.hphc.mystudies.util.StudyMetaDataEnum;
 import com.hphc.mystudies.util.StudyMetaDataUtil;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.StringTokenizer;
 import java.util.TreeMap;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
@@ -83,9 +82,6 @@ public class StudyMetaDataDao {
   @SuppressWarnings("unchecked")
   HashMap<String, String> propMap = StudyMetaDataUtil.getAppProperties();
 
-  @SuppressWarnings("unchecked")
-  HashMap<String, String> authPropMap = StudyMetaDataUtil.getAuthorizationProperties();
-
   SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
   Query query = null;
   String queryString = "";
@@ -93,16 +89,9 @@ public class StudyMetaDataDao {
   public boolean isValidAuthorizationId(String authorization) throws DAOException {
     LOGGER.info("INFO: StudyMetaDataOrchestration - isValidAuthorizationId() :: Starts");
     boolean hasValidAuthorization = false;
-    String bundleIdAndAppToken = null;
     try {
-      byte[] decodedBytes = Base64.getDecoder().decode(authorization);
-      bundleIdAndAppToken = new String(decodedBytes, StudyMetaDataConstants.TYPE_UTF8);
-      final StringTokenizer tokenizer = new StringTokenizer(bundleIdAndAppToken, ":");
-      final String bundleId = tokenizer.nextToken();
-      final String appToken = tokenizer.nextToken();
-      if (authPropMap.containsValue(bundleId) && authPropMap.containsValue(appToken)) {
-        hasValidAuthorization = true;
-      }
+      hasValidAuthorization =
+          AppCredentialIndex.getInstance().resolve("Basic " + authorization) != null;
     } catch (Exception e) {
       LOGGER.error("StudyMetaDataOrchestration - isValidAuthorizationId() :: ERROR", e);
     }
@@ -1518,22 +1507,25 @@ public class StudyMetaDataDao {
     LOGGER.info("INFO: StudyMetaDataDao - isValidToken() :: Starts");
     Session session = null;
     boolean isValidStudy = false;
-    EnrollmentTokenDto tokenDto = null;
+    Integer tokenId = null;
+    Boolean cachedResult = EnrollmentTokenCache.get(token);
+    if (cachedResult != null) {
+      LOGGER.info("INFO: StudyMetaDataDao - isValidToken() :: Ends");
+      return cachedResult;
+    }
     try {
       session = sessionFactory.openSession();
-      tokenDto =
-          (EnrollmentTokenDto)
+      tokenId =
+          (Integer)
               session
                   .createQuery(
-                      "from EnrollmentTokenDto "
-                          + " where enrollmentToken= :enrollmentToken"
-                          + " ORDER BY id DESC")
+                      "select tokenId from EnrollmentTokenDto "
+                          + " where enrollmentToken= :enrollmentToken")
                   .setString("enrollmentToken", token)
                   .setMaxResults(1)
                   .uniqueResult();
-      if (null != tokenDto) {
-        isValidStudy = true;
-      }
+      isValidStudy = null != tokenId;
+      EnrollmentTokenCache.put(token, isValidStudy);
     } catch (Exception e) {
       LOGGER.error("StudyMetaDataDao - isValidToken() :: ERROR", e);
     } finally {
@@ -23,12 +23,15 @@
 package com.hphc.mystudies.dto;
 
 import java.io.Serializable;
+import java.util.Date;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
 
 @Entity
 @Table(name = "notification")
@@ -104,6 +107,11 @@ public class NotificationDto implements Serializable {
   @Column(name = "app_id")
   private String appId;
 
+  // Generated from schedule_date and schedule_time by the database
+  @Temporal(TemporalType.TIMESTAMP)
+  @Column(name = "schedule_timestamp", insertable = false, updatable = false)
+  private Date scheduleTimestamp;
+
   public Integer getNotificationId() {
     return notificationId;
   }
@@ -279,4 +287,12 @@ public class NotificationDto implements Serializable {
   public void setAppId(String appId) {
     this.appId = appId;
   }
+
+  public Date getScheduleTimestamp() {
+    return scheduleTimestamp;
+  }
+
+  public void setScheduleTimestamp(Date scheduleTimestamp) {
+    this.scheduleTimestamp = scheduleTimestamp;
+  }
 }
@@ -61,12 +61,13 @@ public class AppMetaDataOrchestration {
     return termsPolicyResponse;
   }
 
-  public NotificationsResponse notifications(String skip, String authorization, String appId)
+  public NotificationsResponse notifications(
+      String skip, String cursor, String authorization, String appId)
       throws OrchestrationException {
     LOGGER.info("INFO: AppMetaDataOrchestration - notifications() :: Starts");
     NotificationsResponse notificationsResponse = new NotificationsResponse();
     try {
-      notificationsResponse = appMetaDataDao.notifications(skip, authorization, appId);
+      notificationsResponse = appMetaDataDao.notifications(skip, cursor, authorization, appId);
     } catch (Exception e) {
       LOGGER.error("AppMetaDataOrchestration - notifications() :: ERROR", e);
     }
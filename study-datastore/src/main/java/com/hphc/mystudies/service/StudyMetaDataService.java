@@ -48,9 +48,12 @@ import com.hphc.mystudies.integration.ActivityMetaDataOrchestration;
 import com.hphc.mystudies.integration.AppMetaDataOrchestration;
 import com.hphc.mystudies.integration.DashboardMetaDataOrchestration;
 import com.hphc.mystudies.integration.StudyMetaDataOrchestration;
+import com.hphc.mystudies.util.AppConfiguration;
 import com.hphc.mystudies.util.StudyMetaDataConstants;
 import com.hphc.mystudies.util.StudyMetaDataEnum;
 import com.hphc.mystudies.util.StudyMetaDataUtil;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.HashMap;
 import java.util.List;
 import javax.servlet.ServletContext;
@@ -668,6 +671,7 @@ public class StudyMetaDataService {
   @Path("notifications")
   public Object notifications(
       @QueryParam("skip") String skip,
+      @QueryParam("cursor") String cursor,
       @HeaderParam("Authorization") String authorization,
       @HeaderParam("applicationId") String appId,
       @Context ServletContext context,
@@ -675,8 +679,9 @@ public class StudyMetaDataService {
     LOGGER.info("INFO: StudyMetaDataService - notifications() :: Starts");
     NotificationsResponse notificationsResponse = new NotificationsResponse();
     try {
-      if (StringUtils.isNotEmpty(skip)) {
-        notificationsResponse = appMetaDataOrchestration.notifications(skip, authorization, appId);
+      if (StringUtils.isNotEmpty(skip) || StringUtils.isNotEmpty(cursor)) {
+        notificationsResponse =
+            appMetaDataOrchestration.notifications(skip, cursor, authorization, appId);
         if (!notificationsResponse.getMessage().equals(StudyMetaDataConstants.SUCCESS)) {
           StudyMetaDataUtil.getFailureResponse(
               ErrorCodes.STATUS_103, ErrorCodes.NO_DATA, StudyMetaDataConstants.FAILURE, response);
@@ -684,6 +689,9 @@ public class StudyMetaDataService {
               .entity(StudyMetaDataConstants.NO_RECORD)
               .build();
         }
+        if (StringUtils.isNotEmpty(notificationsResponse.getNextCursor())) {
+          response.setHeader("nextCursor", notificationsResponse.getNextCursor());
+        }
       } else {
         StudyMetaDataUtil.getFailureResponse(
             ErrorCodes.STATUS_102,
@@ -932,6 +940,33 @@ public class StudyMetaDataService {
     return "200 OK!";
   }
 
+  @POST
+  @Produces(MediaType.APPLICATION_JSON)
+  @Path("reloadConfiguration")
+  public Object reloadConfiguration(
+      @HeaderParam("reloadSecret") String reloadSecret, @Context HttpServletResponse response) {
+    LOGGER.info("INFO: StudyMetaDataService - reloadConfiguration() :: Starts");
+    String configuredSecret =
+        AppConfiguration.getInstance().getString(StudyMetaDataConstants.CONFIG_RELOAD_SECRET);
+    if (StringUtils.isEmpty(configuredSecret)
+        || StringUtils.isEmpty(reloadSecret)
+        || !MessageDigest.isEqual(
+            configuredSecret.getBytes(StandardCharsets.UTF_8),
+            reloadSecret.getBytes(StandardCharsets.UTF_8))) {
+      StudyMetaDataUtil.getFailureResponse(
+          ErrorCodes.STATUS_101,
+          ErrorCodes.INVALID_AUTHORIZATION,
+          StudyMetaDataConstants.INVALID_AUTHORIZATION,
+          response);
+      return Response.status(Response.Status.FORBIDDEN)
+          .entity(StudyMetaDataConstants.INVALID_AUTHORIZATION)
+          .build();
+    }
+    AppConfiguration.reload();
+    LOGGER.info("INFO: StudyMetaDataService - reloadConfiguration() :: Ends");
+    return Response.status(Response.Status.OK).entity(StudyMetaDataConstants.SUCCESS).build();
+  }
+
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   @Consumes(MediaType.APPLICATION_JSON)
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.hphc.mystudies.util;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Immutable snapshot of the study datastore configuration (messageResource bundle,
+ * application.properties and authorizationResource.properties).
+ *
+ * <p>The snapshot is loaded once and swapped atomically on {@link #reload()}, so readers always
+ * see a complete and consistent set of properties without touching the file system.
+ */
+public final class AppConfiguration {
+
+  private static final Logger LOGGER = Logger.getLogger(AppConfiguration.class);
+
+  private static final String MESSAGE_RESOURCE_BUNDLE = "messageResource";
+
+  private static final String APPLICATION_PROPERTIES = "application.properties";
+
+  private static final String AUTHORIZATION_PROPERTIES = "authorizationResource.properties";
+
+  private static final AtomicReference<AppConfiguration> CURRENT =
+      new AtomicReference<>(load());
+
+  private static ScheduledExecutorService watcher;
+
+  private final Map<String, String> appProperties;
+
+  private final Map<String, String> authorizationProperties;
+
+  private final long sourceLastModified;
+
+  private final long loadedAt;
+
+  private AppConfiguration(
+      Map<String, String> appProperties,
+      Map<String, String> authorizationProperties,
+      long sourceLastModified) {
+    this.appProperties = Collections.unmodifiableMap(appProperties);
+    this.authorizationProperties = Collections.unmodifiableMap(authorizationProperties);
+    this.sourceLastModified = sourceLastModified;
+    this.loadedAt = System.currentTimeMillis();
+  }
+
+  public static AppConfiguration getInstance() {
+    return CURRENT.get();
+  }
+
+  /** Re-reads all property sources and atomically publishes the new snapshot. */
+  public static AppConfiguration reload() {
+    LOGGER.info("INFO: AppConfiguration - reload() :: Starts");
+    AppConfiguration configuration = load();
+    CURRENT.set(configuration);
+    LOGGER.info("INFO: AppConfiguration - reload() :: Ends");
+    return configuration;
+  }
+
+  /**
+   * Polls the last modified time of the property files every {@code intervalSeconds} and reloads
+   * the snapshot when any of them changed. Only exploded (file based) deployments can be watched.
+   */
+  public static synchronized void startWatcher(long intervalSeconds) {
+    if (watcher != null || intervalSeconds <= 0) {
+      return;
+    }
+    watcher =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+              @Override
+              public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "app-configuration-watcher");
+                thread.setDaemon(true);
+                return thread;
+              }
+            });
+    watcher.scheduleWithFixedDelay(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              if (lastModified() > getInstance().sourceLastModified) {
+                reload();
+              }
+            } catch (Exception e) {
+              LOGGER.error("AppConfiguration - watcher :: ERROR ", e);
+            }
+          }
+        },
+        intervalSeconds,
+        intervalSeconds,
+        TimeUnit.SECONDS);
+  }
+
+  public static synchronized void stopWatcher() {
+    if (watcher != null) {
+      watcher.shutdownNow();
+      watcher = null;
+    }
+  }
+
+  public Map<String, String> getAppProperties() {
+    return appProperties;
+  }
+
+  public Map<String, String> getAuthorizationProperties() {
+    return authorizationProperties;
+  }
+
+  public long getLoadedAt() {
+    return loadedAt;
+  }
+
+  public String getString(String key) {
+    return appProperties.get(key);
+  }
+
+  public String getString(String key, String defaultValue) {
+    String value = appProperties.get(key);
+    return StringUtils.isEmpty(value) ? defaultValue : value;
+  }
+
+  public int getInt(String key, int defaultValue) {
+    return NumberUtils.toInt(StringUtils.trim(appProperties.get(key)), defaultValue);
+  }
+
+  public long getLong(String key, long defaultValue) {
+    return NumberUtils.toLong(StringUtils.trim(appProperties.get(key)), defaultValue);
+  }
+
+  public boolean getBoolean(String key, boolean defaultValue) {
+    String value = StringUtils.trim(appProperties.get(key));
+    return StringUtils.isEmpty(value) ? defaultValue : Boolean.parseBoolean(value);
+  }
+
+  private static AppConfiguration load() {
+    Map<String, String> appProperties = new HashMap<>();
+    Map<String, String> authorizationProperties = new HashMap<>();
+    try {
+      ResourceBundle.clearCache(AppConfiguration.class.getClassLoader());
+      ResourceBundle rb = ResourceBundle.getBundle(MESSAGE_RESOURCE_BUNDLE);
+      Enumeration<String> keys = rb.getKeys();
+      while (keys.hasMoreElements()) {
+        String key = keys.nextElement();
+        appProperties.put(key, rb.getString(key));
+      }
+      putAll(
+          appProperties,
+          PropertiesUtil.makePropertiesWithEnvironmentVariables(APPLICATION_PROPERTIES));
+      putAll(
+          authorizationProperties,
+          PropertiesUtil.makePropertiesWithEnvironmentVariables(AUTHORIZATION_PROPERTIES));
+    } catch (Exception e) {
+      LOGGER.error("AppConfiguration - load() :: ERROR ", e);
+    }
+    return new AppConfiguration(appProperties, authorizationProperties, lastModified());
+  }
+
+  private static void putAll(Map<String, String> target, Properties properties) {
+    for (String name : properties.stringPropertyNames()) {
+      target.put(name, properties.getProperty(name));
+    }
+  }
+
+  private static long lastModified() {
+    long lastModified = 0L;
+    for (String resource :
+        new String[] {
+          MESSAGE_RESOURCE_BUNDLE + ".properties", APPLICATION_PROPERTIES, AUTHORIZATION_PROPERTIES
+        }) {
+      URL url = AppConfiguration.class.getClassLoader().getResource(resource);
+      if (url != null && "file".equals(url.getProtocol())) {
+        lastModified = Math.max(lastModified, new File(url.getPath()).lastModified());
+      }
+    }
+    return lastModified;
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.hphc.mystudies.util;
+
+import com.sun.jersey.core.util.Base64;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Index of the app credentials configured in authorizationResource.properties.
+ *
+ * <p>Each {@code <platform>.bundleid}/{@code <platform>.apptoken} pair is stored as a SHA-256
+ * digest of {@code bundleId:appToken}, so a Basic Authorization header is verified with a single
+ * hash lookup followed by a constant-time digest comparison. Recently verified header values are
+ * kept in a small LRU cache. The index is rebuilt whenever the {@link AppConfiguration} snapshot
+ * is reloaded, which makes rotated credentials effective without a restart.
+ *
+ * <p>While an app token is rotated, the old value can be kept in {@code
+ * <platform>.apptoken.previous} so installs that still send it keep authenticating until the
+ * property is removed.
+ */
+public final class AppCredentialIndex {
+
+  private static final Logger LOGGER = Logger.getLogger(AppCredentialIndex.class);
+
+  private static final String BUNDLE_ID_SUFFIX = ".bundleid";
+
+  private static final String APP_TOKEN_SUFFIX = ".apptoken";
+
+  private static final String PREVIOUS_APP_TOKEN_SUFFIX = ".apptoken.previous";
+
+  private static final String BASIC_PREFIX = "Basic ";
+
+  private static final int VERIFIED_CACHE_SIZE = 256;
+
+  private static final AtomicLong AUTH_FAILURES = new AtomicLong();
+
+  private static final AtomicLong MALFORMED_HEADERS = new AtomicLong();
+
+  /** Returned by {@link #lookup} for a header that can't be decoded into a bundle id and token. */
+  private static final AppCredential MALFORMED = new AppCredential(null, null, new byte[0]);
+
+  private static volatile AppCredentialIndex instance;
+
+  private final AppConfiguration source;
+
+  private final Map<String, AppCredential> credentialsByDigest;
+
+  private final Map<String, AppCredential> verifiedHeaders =
+      new LinkedHashMap<String, AppCredential>(VERIFIED_CACHE_SIZE, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AppCredential> eldest) {
+          return size() > VERIFIED_CACHE_SIZE;
+        }
+      };
+
+  private AppCredentialIndex(AppConfiguration source, Map<String, String> authProperties) {
+    this.source = source;
+    this.credentialsByDigest = Collections.unmodifiableMap(index(authProperties));
+  }
+
+  /** Builds an index that is not tied to the {@link AppConfiguration} snapshot. */
+  static AppCredentialIndex of(Map<String, String> authProperties) {
+    return new AppCredentialIndex(null, authProperties);
+  }
+
+  public static AppCredentialIndex getInstance() {
+    AppConfiguration configuration = AppConfiguration.getInstance();
+    AppCredentialIndex current = instance;
+    if (current == null || current.source != configuration) {
+      synchronized (AppCredentialIndex.class) {
+        current = instance;
+        if (current == null || current.source != configuration) {
+          current =
+              new AppCredentialIndex(configuration, configuration.getAuthorizationProperties());
+          instance = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  public static long getAuthFailureCount() {
+    return AUTH_FAILURES.get();
+  }
+
+  public static long getMalformedHeaderCount() {
+    return MALFORMED_HEADERS.get();
+  }
+
+  /**
+   * Resolves the app credential for a {@code Basic base64(bundleId:appToken)} Authorization
+   * header.
+   *
+   * @return the matching credential, or {@code null} if the header is malformed or unknown
+   */
+  public AppCredential resolve(String authCredentials) {
+    if (StringUtils.isEmpty(authCredentials) || !authCredentials.contains("Basic")) {
+      MALFORMED_HEADERS.incrementAndGet();
+      return null;
+    }
+
+    AppCredential credential;
+    synchronized (verifiedHeaders) {
+      credential = verifiedHeaders.get(authCredentials);
+    }
+    if (credential != null) {
+      return credential;
+    }
+
+    credential = lookup(authCredentials);
+    if (credential == MALFORMED) {
+      MALFORMED_HEADERS.incrementAndGet();
+      return null;
+    }
+    if (credential == null) {
+      AUTH_FAILURES.incrementAndGet();
+      return null;
+    }
+    synchronized (verifiedHeaders) {
+      verifiedHeaders.put(authCredentials, credential);
+    }
+    return credential;
+  }
+
+  /**
+   * @return the matching credential, {@code null} if there is none, or {@link #MALFORMED} if the
+   *     header can't be decoded
+   */
+  private AppCredential lookup(String authCredentials) {
+    String bundleIdAndAppToken;
+    try {
+      byte[] decodedBytes = Base64.decode(authCredentials.replaceFirst(BASIC_PREFIX, ""));
+      bundleIdAndAppToken = new String(decodedBytes, StandardCharsets.UTF_8);
+    } catch (Exception e) {
+      return MALFORMED;
+    }
+    if (!bundleIdAndAppToken.contains(":")) {
+      return MALFORMED;
+    }
+    StringTokenizer tokenizer = new StringTokenizer(bundleIdAndAppToken, ":");
+    if (tokenizer.countTokens() < 2) {
+      return MALFORMED;
+    }
+    byte[] digest = digest(tokenizer.nextToken(), tokenizer.nextToken());
+    AppCredential credential = credentialsByDigest.get(toHex(digest));
+    if (credential == null || !MessageDigest.isEqual(credential.digest, digest)) {
+      return null;
+    }
+    return credential;
+  }
+
+  private static Map<String, AppCredential> index(Map<String, String> authProperties) {
+    Map<String, AppCredential> credentials = new HashMap<>();
+    for (Map.Entry<String, String> entry : authProperties.entrySet()) {
+      if (!entry.getKey().endsWith(BUNDLE_ID_SUFFIX)) {
+        continue;
+      }
+      String platform =
+          entry.getKey().substring(0, entry.getKey().length() - BUNDLE_ID_SUFFIX.length());
+      String bundleId = entry.getValue();
+      String appToken = authProperties.get(platform + APP_TOKEN_SUFFIX);
+      if (StringUtils.isEmpty(bundleId) || StringUtils.isEmpty(appToken)) {
+        LOGGER.warn("AppCredentialIndex - index() :: incomplete credentials for " + platform);
+        continue;
+      }
+      put(credentials, platform, bundleId, appToken);
+      String previousAppToken = authProperties.get(platform + PREVIOUS_APP_TOKEN_SUFFIX);
+      if (StringUtils.isNotEmpty(previousAppToken)) {
+        put(credentials, platform, bundleId, previousAppToken);
+      }
+    }
+    return credentials;
+  }
+
+  private static void put(
+      Map<String, AppCredential> credentials, String platform, String bundleId, String appToken) {
+    byte[] digest = digest(bundleId, appToken);
+    credentials.put(toHex(digest), new AppCredential(platform, bundleId, digest));
+  }
+
+  private static byte[] digest(String bundleId, String appToken) {
+    try {
+      MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+      return messageDigest.digest((bundleId + ":" + appToken).getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+
+  public static final class AppCredential {
+
+    private final String platform;
+
+    private final String bundleId;
+
+    private final byte[] digest;
+
+    private AppCredential(String platform, String bundleId, byte[] digest) {
+      this.platform = platform;
+      this.bundleId = bundleId;
+      this.digest = digest;
+    }
+
+    /** Platform prefix of the matching property keys, e.g. {@code android} or {@code ios}. */
+    public String getPlatform() {
+      return platform;
+    }
+
+    public String getBundleId() {
+      return bundleId;
+    }
+  }
+}
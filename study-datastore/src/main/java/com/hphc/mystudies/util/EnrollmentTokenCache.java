@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.hphc.mystudies.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small LRU cache of validateEnrollmentToken results, holding both valid and unknown tokens for
+ * {@code enrollment.token.cache.ttl.seconds} so bursts of lookups for the same token are answered
+ * without a database round trip.
+ */
+public final class EnrollmentTokenCache {
+
+  private static final int CACHE_SIZE = 1024;
+
+  private static final Map<String, Entry> ENTRIES =
+      new LinkedHashMap<String, Entry>(CACHE_SIZE, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+          return size() > CACHE_SIZE;
+        }
+      };
+
+  private EnrollmentTokenCache() {}
+
+  /** Returns the cached result for the token, or {@code null} if it has to be looked up. */
+  public static Boolean get(String token) {
+    synchronized (ENTRIES) {
+      Entry entry = ENTRIES.get(token);
+      if (entry == null) {
+        return null;
+      }
+      if (entry.expiresAt - System.nanoTime() <= 0) {
+        ENTRIES.remove(token);
+        return null;
+      }
+      return entry.valid;
+    }
+  }
+
+  public static void put(String token, boolean valid) {
+    long ttlSeconds =
+        AppConfiguration.getInstance()
+            .getLong(StudyMetaDataConstants.ENROLLMENT_TOKEN_CACHE_TTL_SECONDS, 60L);
+    if (ttlSeconds <= 0) {
+      return;
+    }
+    Entry entry = new Entry(valid, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds));
+    synchronized (ENTRIES) {
+      ENTRIES.put(token, entry);
+    }
+  }
+
+  private static final class Entry {
+
+    private final boolean valid;
+
+    private final long expiresAt;
+
+    private Entry(boolean valid, long expiresAt) {
+      this.valid = valid;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -34,10 +34,14 @@ public class ServletContextHolder implements ServletContextListener {
   public void contextInitialized(ServletContextEvent sce) {
     setServletContext(sce.getServletContext());
     HibernateUtil.getSessionFactory();
+    AppConfiguration.startWatcher(
+        AppConfiguration.getInstance()
+            .getLong(StudyMetaDataConstants.CONFIG_RELOAD_INTERVAL_SECONDS, 60L));
   }
 
   @Override
   public void contextDestroyed(ServletContextEvent sce) {
+    AppConfiguration.stopWatcher();
     HibernateUtil.getSessionFactory().close();
   }
 
@@ -228,6 +228,12 @@ public interface StudyMetaDataConstants {
   public static final String INTERCEPTOR_URL_APP_VERSION = "/updateAppVersion";
   public static final String INTERCEPTOR_URL_DB_QUERY = "/testQuery";
 
+  public static final String CONFIG_RELOAD_INTERVAL_SECONDS = "config.reload.interval.seconds";
+  public static final String CONFIG_RELOAD_SECRET = "config.reload.secret";
+
+  public static final String ENROLLMENT_TOKEN_CACHE_TTL_SECONDS =
+      "enrollment.token.cache.ttl.seconds";
+
   public static final String QUERY_INSERT = "INSERT";
   public static final String QUERY_UPDATE = "UPDATE";
   public static final String QUERY_DELETE = "DELETE";
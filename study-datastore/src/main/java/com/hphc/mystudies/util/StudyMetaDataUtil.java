@@ -33,15 +33,11 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Properties;
-import java.util.ResourceBundle;
 import java.util.StringTokenizer;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
-import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
@@ -50,44 +46,9 @@ public class StudyMetaDataUtil {
 
   private static final Logger LOGGER = Logger.getLogger(StudyMetaDataUtil.class.getName());
 
-  @SuppressWarnings("rawtypes")
-  protected static final HashMap configMap = StudyMetaDataUtil.getAppProperties();
-
-  @SuppressWarnings("rawtypes")
-  protected static final HashMap authConfigMap = StudyMetaDataUtil.getAuthorizationProperties();
-
-  @SuppressWarnings("unchecked")
-  private static final HashMap<String, String> authPropMap = StudyMetaDataUtil.authConfigMap;
-
   @SuppressWarnings({"rawtypes", "unchecked"})
   public static HashMap getAppProperties() {
-    LOGGER.info("INFO: StudyMetaDataUtil - getAppProperties() :: starts");
-    HashMap hm = new HashMap<String, String>();
-    Enumeration<String> keys = null;
-    Enumeration<Object> objectKeys = null;
-    try {
-      ResourceBundle rb = ResourceBundle.getBundle("messageResource");
-      keys = rb.getKeys();
-      while (keys.hasMoreElements()) {
-        String key = keys.nextElement();
-        String value = rb.getString(key);
-        hm.put(key, value);
-      }
-      ServletContext context = ServletContextHolder.getServletContext();
-
-      Properties prop =
-          PropertiesUtil.makePropertiesWithEnvironmentVariables("application.properties");
-      objectKeys = prop.keys();
-      while (objectKeys.hasMoreElements()) {
-        String key = (String) objectKeys.nextElement();
-        String value = prop.getProperty(key);
-        hm.put(key, value);
-      }
-    } catch (Exception e) {
-      LOGGER.error("StudyMetaDataUtil - getAppProperties() - ERROR ", e);
-    }
-    LOGGER.info("INFO: StudyMetaDataUtil - getAppProperties() :: ends");
-    return hm;
+    return new HashMap<String, String>(AppConfiguration.getInstance().getAppProperties());
   }
 
   public static FailureResponse getFailureResponse(String status, String title, String detail) {
@@ -435,62 +396,34 @@ public class StudyMetaDataUtil {
 
   public static String platformType(String authCredentials, String type) {
     LOGGER.info("INFO: StudyMetaDataUtil - platformType() - Starts");
-    String bundleIdAndAppToken = null;
     String platform = "";
     try {
-      if (StringUtils.isNotEmpty(authCredentials) && authCredentials.contains("Basic")) {
-        final String encodedUserPassword = authCredentials.replaceFirst("Basic" + " ", "");
-        byte[] decodedBytes = Base64.decode(encodedUserPassword);
-        bundleIdAndAppToken = new String(decodedBytes, "UTF-8");
-
-        if (bundleIdAndAppToken.contains(":")) {
-          final StringTokenizer tokenizer = new StringTokenizer(bundleIdAndAppToken, ":");
-          final String bundleId = tokenizer.nextToken();
-          final String appToken = tokenizer.nextToken();
-
-          if (authPropMap.containsValue(bundleId) && authPropMap.containsValue(appToken)) {
-            String appBundleId = "";
-            String appTokenId = "";
-            for (Map.Entry<String, String> map : authPropMap.entrySet()) {
-              if (map.getValue().equals(appToken)) {
-                appTokenId = map.getKey();
-              }
-
-              if (map.getValue().equals(bundleId)) {
-                appBundleId = map.getValue();
-              }
-            }
-
-            if (StringUtils.isNotEmpty(appBundleId) && StringUtils.isNotEmpty(appTokenId)) {
-              final StringTokenizer authTokenizer = new StringTokenizer(appTokenId, ".");
-              final String platformType = authTokenizer.nextToken();
-
-              if (platformType.equals(StudyMetaDataConstants.STUDY_PLATFORM_ANDROID)) {
-                switch (type) {
-                  case StudyMetaDataConstants.STUDY_AUTH_TYPE_PLATFORM:
-                    platform = StudyMetaDataConstants.STUDY_PLATFORM_TYPE_ANDROID;
-                    break;
-                  case StudyMetaDataConstants.STUDY_AUTH_TYPE_OS:
-                    platform = StudyMetaDataConstants.STUDY_PLATFORM_ANDROID;
-                    break;
-                  case StudyMetaDataConstants.STUDY_AUTH_TYPE_BUNDLE_ID:
-                    platform = bundleId;
-                    break;
-                }
-              } else {
-                switch (type) {
-                  case StudyMetaDataConstants.STUDY_AUTH_TYPE_PLATFORM:
-                    platform = StudyMetaDataConstants.STUDY_PLATFORM_TYPE_IOS;
-                    break;
-                  case StudyMetaDataConstants.STUDY_AUTH_TYPE_OS:
-                    platform = StudyMetaDataConstants.STUDY_PLATFORM_IOS;
-                    break;
-                  case StudyMetaDataConstants.STUDY_AUTH_TYPE_BUNDLE_ID:
-                    platform = bundleId;
-                    break;
-                }
-              }
-            }
+      AppCredentialIndex.AppCredential credential =
+          AppCredentialIndex.getInstance().resolve(authCredentials);
+      if (credential != null) {
+        if (credential.getPlatform().equals(StudyMetaDataConstants.STUDY_PLATFORM_ANDROID)) {
+          switch (type) {
+            case StudyMetaDataConstants.STUDY_AUTH_TYPE_PLATFORM:
+              platform = StudyMetaDataConstants.STUDY_PLATFORM_TYPE_ANDROID;
+              break;
+            case StudyMetaDataConstants.STUDY_AUTH_TYPE_OS:
+              platform = StudyMetaDataConstants.STUDY_PLATFORM_ANDROID;
+              break;
+            case StudyMetaDataConstants.STUDY_AUTH_TYPE_BUNDLE_ID:
+              platform = credential.getBundleId();
+              break;
+          }
+        } else {
+          switch (type) {
+            case StudyMetaDataConstants.STUDY_AUTH_TYPE_PLATFORM:
+              platform = StudyMetaDataConstants.STUDY_PLATFORM_TYPE_IOS;
+              break;
+            case StudyMetaDataConstants.STUDY_AUTH_TYPE_OS:
+              platform = StudyMetaDataConstants.STUDY_PLATFORM_IOS;
+              break;
+            case StudyMetaDataConstants.STUDY_AUTH_TYPE_BUNDLE_ID:
+              platform = credential.getBundleId();
+              break;
           }
         }
       }
@@ -503,24 +436,8 @@ public class StudyMetaDataUtil {
 
   @SuppressWarnings({"rawtypes", "unchecked"})
   public static HashMap getAuthorizationProperties() {
-    LOGGER.info("INFO: StudyMetaDataUtil - getAuthorizationProperties() :: Starts");
-    HashMap hashMap = new HashMap<String, String>();
-    Enumeration<String> keys = null;
-    Enumeration<Object> objectKeys = null;
-    try {
-      Properties prop =
-          PropertiesUtil.makePropertiesWithEnvironmentVariables("authorizationResource.properties");
-      objectKeys = prop.keys();
-      while (objectKeys.hasMoreElements()) {
-        String key = (String) objectKeys.nextElement();
-        String value = prop.getProperty(key);
-        hashMap.put(key, value);
-      }
-    } catch (Exception e) {
-      LOGGER.error("StudyMetaDataUtil - getAuthorizationProperties() - ERROR ", e);
-    }
-    LOGGER.info("INFO: StudyMetaDataUtil - getAuthorizationProperties() :: Ends");
-    return hashMap;
+    return new HashMap<String, String>(
+        AppConfiguration.getInstance().getAuthorizationProperties());
   }
 
   public static String getDayByDate(String input) {
@@ -649,6 +566,8 @@ public class StudyMetaDataUtil {
           final StringTokenizer tokenizer = new StringTokenizer(bundleIdAndAppToken, ":");
           final String bundleId = tokenizer.nextToken();
           final String appToken = tokenizer.nextToken();
+          Map<String, String> authPropMap =
+              AppConfiguration.getInstance().getAuthorizationProperties();
           if (authPropMap.containsKey(bundleId) && authPropMap.containsKey(appToken)) {
             appBundleId = bundleId;
           }
@@ -715,12 +634,12 @@ public class StudyMetaDataUtil {
       if (StringUtils.isNotEmpty(jsonData)) {
         // byte[] bytes = Base64.decode(content.replaceAll("\n", ""));
         byte[] bytes = jsonData.getBytes();
-        String currentPath =
-            System.getProperty((String) getAppProperties().get("fda.current.path"));
+        AppConfiguration configuration = AppConfiguration.getInstance();
+        String currentPath = System.getProperty(configuration.getString("fda.current.path"));
         // String currentPath =
         // getAppProperties().get("fda.docs.responses.path").toString();
         String rootPath =
-            currentPath.replace('\\', '/') + getAppProperties().get("fda.docs.responses.path");
+            currentPath.replace('\\', '/') + configuration.getString("fda.docs.responses.path");
         // String rootPath = currentPath.replace('\\', '/');
         File directory = new File(rootPath + File.separator);
         if (!directory.exists()) {
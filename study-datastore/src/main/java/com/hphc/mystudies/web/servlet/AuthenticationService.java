@@ -24,53 +24,19 @@
 
 package com.hphc.mystudies.web.servlet;
 
-import com.hphc.mystudies.util.StudyMetaDataUtil;
-import com.sun.jersey.core.util.Base64;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.StringTokenizer;
-import org.apache.commons.lang3.StringUtils;
+import com.hphc.mystudies.util.AppCredentialIndex;
 import org.apache.log4j.Logger;
 
 public class AuthenticationService {
 
   public static final Logger LOGGER = Logger.getLogger(AuthenticationService.class);
 
-  @SuppressWarnings("unchecked")
-  HashMap<String, String> authPropMap = StudyMetaDataUtil.getAuthorizationProperties();
-
   public boolean authenticate(String authCredentials) {
     LOGGER.info("INFO: AuthenticationService - authenticate() - Starts");
     boolean authenticationStatus = false;
-    String bundleIdAndAppToken = null;
-    String bundleIdKey = "";
-    String appTokenKey = "";
     try {
-      if (StringUtils.isNotEmpty(authCredentials) && authCredentials.contains("Basic")) {
-        final String encodedUserPassword = authCredentials.replaceFirst("Basic" + " ", "");
-        byte[] decodedBytes = Base64.decode(encodedUserPassword);
-        bundleIdAndAppToken = new String(decodedBytes, "UTF-8");
-        if (bundleIdAndAppToken.contains(":")) {
-          final StringTokenizer tokenizer = new StringTokenizer(bundleIdAndAppToken, ":");
-          final String bundleId = tokenizer.nextToken();
-          final String appToken = tokenizer.nextToken();
-
-          for (Map.Entry<String, String> map : authPropMap.entrySet()) {
-            if (map.getValue().equals(appToken)) {
-              appTokenKey = map.getKey();
-            }
-            if (map.getValue().equals(bundleId)) {
-              bundleIdKey = map.getKey();
-            }
-          }
-
-          if (authPropMap.containsValue(bundleId)
-              && authPropMap.containsValue(appToken)
-              && isValidPlatformType(appTokenKey, bundleIdKey)) {
-            authenticationStatus = true;
-          }
-        }
-      }
+      authenticationStatus =
+          AppCredentialIndex.getInstance().resolve(authCredentials) != null;
     } catch (Exception e) {
       LOGGER.error("AuthenticationService - authenticate() :: ERROR", e);
       return authenticationStatus;
@@ -78,15 +44,4 @@ public class AuthenticationService {
     LOGGER.info("INFO: AuthenticationService - authenticate() - Ends");
     return authenticationStatus;
   }
-
-  private static boolean isValidPlatformType(String appTokenKey, String bundleIdKey) {
-
-    final StringTokenizer appTokenizer = new StringTokenizer(appTokenKey, ".");
-    final String appTokenPlatFormType = appTokenizer.nextToken();
-
-    final StringTokenizer bundleIdTokenizer = new StringTokenizer(bundleIdKey, ".");
-    final String bundleIdPlatformType = bundleIdTokenizer.nextToken();
-
-    return StringUtils.equals(appTokenPlatFormType, bundleIdPlatformType);
-  }
 }
@@ -23,6 +23,7 @@
 package com.hphc.mystudies.web.servlet;
 
 import com.hphc.mystudies.exception.ErrorCodes;
+import com.hphc.mystudies.util.AppCredentialIndex;
 import com.hphc.mystudies.util.StudyMetaDataConstants;
 import java.io.IOException;
 import javax.servlet.Filter;
@@ -55,7 +56,13 @@ public class RestAuthenticationFilter implements Filter {
         if (authenticationStatus) {
           filter.doFilter(request, response);
         } else {
-          logger.warn("RestAuthenticationFilter - doFilter() - failed to authenticate credentials");
+          logger.warn(
+              "RestAuthenticationFilter - doFilter() - failed to authenticate credentials"
+                  + " (failures: "
+                  + AppCredentialIndex.getAuthFailureCount()
+                  + ", malformed: "
+                  + AppCredentialIndex.getMalformedHeaderCount()
+                  + ")");
           if (response instanceof HttpServletResponse) {
             HttpServletResponse httpServletResponse = (HttpServletResponse) response;
             httpServletResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -22,15 +22,28 @@
  */
 package com.hphc.mystudies.web.servlet;
 
-import java.io.BufferedInputStream;
+import com.hphc.mystudies.util.AppConfiguration;
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.log4j.Logger;
 
 public class StudyMetaDataController extends HttpServlet {
@@ -39,17 +52,57 @@ public class StudyMetaDataController extends HttpServlet {
 
   private static final long serialVersionUID = 1L;
 
+  private static final int COPY_BUFFER_SIZE = 8192;
+
+  private static final String[] PASS_THROUGH_HEADERS = {
+    HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_LENGTH
+  };
+
   private String port = "";
 
   private String forwardURL = "";
 
+  private transient PoolingHttpClientConnectionManager connectionManager;
+
+  private transient CloseableHttpClient httpClient;
+
   @Override
   public void init(ServletConfig servletConfig) throws ServletException {
     LOGGER.info("INFO: StudyMetaDataController - init() :: Starts");
     super.init(servletConfig);
+    forwardURL = StringUtils.defaultString(servletConfig.getInitParameter("forwardURL"));
+    port = StringUtils.defaultString(servletConfig.getInitParameter("port"));
+
+    AppConfiguration configuration = AppConfiguration.getInstance();
+    connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(configuration.getInt("proxy.max.connections", 50));
+    connectionManager.setDefaultMaxPerRoute(configuration.getInt("proxy.max.connections", 50));
+    RequestConfig requestConfig =
+        RequestConfig.custom()
+            .setConnectTimeout(configuration.getInt("proxy.connect.timeout.ms", 5000))
+            .setConnectionRequestTimeout(configuration.getInt("proxy.connect.timeout.ms", 5000))
+            .setSocketTimeout(configuration.getInt("proxy.read.timeout.ms", 30000))
+            .build();
+    // Content compression is disabled so that upstream gzip bodies are relayed untouched
+    httpClient =
+        HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .disableContentCompression()
+            .evictIdleConnections(60L, TimeUnit.SECONDS)
+            .build();
     LOGGER.info("INFO: StudyMetaDataController - init() :: Ends");
   }
 
+  @Override
+  public void destroy() {
+    IOUtils.closeQuietly(httpClient);
+    if (connectionManager != null) {
+      connectionManager.shutdown();
+    }
+    super.destroy();
+  }
+
   @Override
   public void doGet(HttpServletRequest req, HttpServletResponse resp)
       throws ServletException, IOException {
@@ -64,11 +117,6 @@ public class StudyMetaDataController extends HttpServlet {
     LOGGER.info("INFO: StudyMetaDataController - doPost() :: Starts");
     String jsonp_callback = null;
     String localForwardURL = forwardURL;
-    URL URL = new URL(localForwardURL);
-    HttpURLConnection urlConnection = (HttpURLConnection) URL.openConnection();
-    BufferedInputStream buffer = new BufferedInputStream(urlConnection.getInputStream());
-    StringBuilder builder = new StringBuilder();
-    int byteRead;
     try {
       jsonp_callback = (String) req.getSession().getServletContext().getAttribute("jsonp.callback");
     } catch (Exception e) {
@@ -88,20 +136,40 @@ public class StudyMetaDataController extends HttpServlet {
       localForwardURL += req.getContextPath() + req.getPathInfo() + "?" + req.getQueryString();
     }
 
-    while ((byteRead = buffer.read()) != -1) {
-      builder.append((char) byteRead);
+    String callback = jsonp_callback != null ? req.getParameter(jsonp_callback) : null;
+    boolean wrapJsonp = callback != null && req.getPathInfo().indexOf("/json") != -1;
+
+    HttpGet upstreamRequest = new HttpGet(localForwardURL);
+    String acceptEncoding = req.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    if (!wrapJsonp && StringUtils.isNotEmpty(acceptEncoding)) {
+      // The body is relayed as is, so the client can negotiate compression with the upstream
+      upstreamRequest.setHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
     }
-    buffer.close();
-    LOGGER.info(
-        "INFO: StudyMetaDataController - doPost() :: HttpURLConnection.response = " + builder);
-    if (req.getParameter(jsonp_callback) != null) {
-      if (req.getPathInfo().indexOf("/json") != -1) {
-        resp.getWriter().write(req.getParameter(jsonp_callback) + "(" + builder.toString() + ")");
-      } else {
-        resp.getWriter().write(builder.toString());
+
+    try (CloseableHttpResponse upstreamResponse = httpClient.execute(upstreamRequest)) {
+      resp.setStatus(upstreamResponse.getStatusLine().getStatusCode());
+      HttpEntity entity = upstreamResponse.getEntity();
+      for (String name : PASS_THROUGH_HEADERS) {
+        Header header = upstreamResponse.getFirstHeader(name);
+        if (header != null && !(wrapJsonp && HttpHeaders.CONTENT_LENGTH.equals(name))) {
+          resp.setHeader(name, header.getValue());
+        }
+      }
+      if (entity == null) {
+        return;
+      }
+
+      OutputStream out = resp.getOutputStream();
+      try (InputStream in = entity.getContent()) {
+        if (wrapJsonp) {
+          out.write((callback + "(").getBytes(StandardCharsets.UTF_8));
+          IOUtils.copy(in, out, COPY_BUFFER_SIZE);
+          out.write(")".getBytes(StandardCharsets.UTF_8));
+        } else {
+          IOUtils.copy(in, out, COPY_BUFFER_SIZE);
+        }
       }
-    } else {
-      resp.getWriter().write(builder.toString());
+      out.flush();
     }
     LOGGER.info("INFO: StudyMetaDataController - doPost() :: Ends ");
   }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020-2021 Google LLC
+ *
+ * Use of this source code is governed by an MIT-style
+ * license that can be found in the LICENSE file or at
+ * https://opensource.org/licenses/MIT.
+ */
+
+package com.hphc.mystudies.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.sun.jersey.core.util.Base64;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class AppCredentialIndexTest {
+
+  private static final String BUNDLE_ID = "com.example.mystudies";
+
+  private static final String OLD_APP_TOKEN = "old-app-token";
+
+  private static final String NEW_APP_TOKEN = "new-app-token";
+
+  @Test
+  public void shouldResolveConfiguredCredential() {
+    AppCredentialIndex index = AppCredentialIndex.of(authProperties(NEW_APP_TOKEN, null));
+
+    AppCredentialIndex.AppCredential credential =
+        index.resolve(basic(BUNDLE_ID + ":" + NEW_APP_TOKEN));
+
+    assertNotNull(credential);
+    assertEquals("android", credential.getPlatform());
+    assertEquals(BUNDLE_ID, credential.getBundleId());
+  }
+
+  @Test
+  public void shouldAcceptOldAndNewTokenWhileRotating() {
+    AppCredentialIndex index =
+        AppCredentialIndex.of(authProperties(NEW_APP_TOKEN, OLD_APP_TOKEN));
+
+    AppCredentialIndex.AppCredential oldCredential =
+        index.resolve(basic(BUNDLE_ID + ":" + OLD_APP_TOKEN));
+    AppCredentialIndex.AppCredential newCredential =
+        index.resolve(basic(BUNDLE_ID + ":" + NEW_APP_TOKEN));
+
+    assertNotNull(oldCredential);
+    assertEquals("android", oldCredential.getPlatform());
+    assertNotNull(newCredential);
+    assertEquals("android", newCredential.getPlatform());
+  }
+
+  @Test
+  public void shouldRejectOldTokenOnceRotationCompleted() {
+    String oldHeader = basic(BUNDLE_ID + ":" + OLD_APP_TOKEN);
+    assertNotNull(
+        AppCredentialIndex.of(authProperties(NEW_APP_TOKEN, OLD_APP_TOKEN)).resolve(oldHeader));
+    long authFailures = AppCredentialIndex.getAuthFailureCount();
+    long malformedHeaders = AppCredentialIndex.getMalformedHeaderCount();
+
+    AppCredentialIndex index = AppCredentialIndex.of(authProperties(NEW_APP_TOKEN, null));
+
+    assertNull(index.resolve(oldHeader));
+    assertNotNull(index.resolve(basic(BUNDLE_ID + ":" + NEW_APP_TOKEN)));
+    assertEquals(authFailures + 1, AppCredentialIndex.getAuthFailureCount());
+    assertEquals(malformedHeaders, AppCredentialIndex.getMalformedHeaderCount());
+  }
+
+  @Test
+  public void shouldCountMalformedHeaderOnce() {
+    AppCredentialIndex index = AppCredentialIndex.of(authProperties(NEW_APP_TOKEN, null));
+    long authFailures = AppCredentialIndex.getAuthFailureCount();
+    long malformedHeaders = AppCredentialIndex.getMalformedHeaderCount();
+
+    assertNull(index.resolve(basic(BUNDLE_ID)));
+    assertNull(index.resolve(basic(":")));
+    assertNull(index.resolve("Bearer " + NEW_APP_TOKEN));
+
+    assertEquals(malformedHeaders + 3, AppCredentialIndex.getMalformedHeaderCount());
+    assertEquals(authFailures, AppCredentialIndex.getAuthFailureCount());
+  }
+
+  private static Map<String, String> authProperties(String appToken, String previousAppToken) {
+    Map<String, String> authProperties = new HashMap<>();
+    authProperties.put("android.bundleid", BUNDLE_ID);
+    authProperties.put("android.apptoken", appToken);
+    if (previousAppToken != null) {
+      authProperties.put("android.apptoken.previous", previousAppToken);
+    }
+    return authProperties;
+  }
+
+  private static String basic(String bundleIdAndAppToken) {
+    return "Basic "
+        + new String(
+            Base64.encode(bundleIdAndAppToken.getBytes(StandardCharsets.UTF_8)),
+            StandardCharsets.UTF_8);
+  }
+}